@@ -0,0 +1,5 @@
+-- Keyset pagination for transaction history (TransactionDAO.getTransactionPage).
+-- Each UNION ALL branch seeks (wallet, created_at, transaction_id) directly, so deep pages
+-- cost the same as the first page.
+CREATE INDEX idx_transactions_from_created ON transactions (from_wallet_id, created_at, transaction_id);
+CREATE INDEX idx_transactions_to_created ON transactions (to_wallet_id, created_at, transaction_id);
@@ -0,0 +1,3 @@
+-- Covering index for InvoiceDAO.getInvoiceTotalsByCustomer: the per-(customer, status)
+-- GROUP BY for the analytics dashboard is answered from the index without touching rows.
+CREATE INDEX idx_invoices_business_customer ON invoices (business_user_id, customer_identifier, status, total_amount);
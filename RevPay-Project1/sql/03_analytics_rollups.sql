@@ -0,0 +1,26 @@
+-- Incrementally maintained analytics rollups (RollupDAO). Rows are upserted in the same
+-- DB transaction as the ledger/invoice write that changes them. Populate existing data with:
+--   java -cp ... org.example.Main --backfill-rollups
+CREATE TABLE wallet_daily_rollups (
+    wallet_id        INT            NOT NULL,
+    period_start     DATE           NOT NULL,
+    received_amount  DECIMAL(15, 2) NOT NULL DEFAULT 0,  -- successful credits
+    sent_amount      DECIMAL(15, 2) NOT NULL DEFAULT 0,  -- successful debits
+    received_count   INT            NOT NULL DEFAULT 0,  -- successful credits
+    txn_count        INT            NOT NULL DEFAULT 0,
+    success_count    INT            NOT NULL DEFAULT 0,
+    failed_count     INT            NOT NULL DEFAULT 0,
+    PRIMARY KEY (wallet_id, period_start)
+);
+
+-- Same shape; period_start is the first day of the month
+CREATE TABLE wallet_monthly_rollups LIKE wallet_daily_rollups;
+
+CREATE TABLE customer_invoice_totals (
+    business_user_id     INT            NOT NULL,
+    customer_identifier  VARCHAR(100)   NOT NULL,
+    status               VARCHAR(20)    NOT NULL,
+    invoice_count        INT            NOT NULL DEFAULT 0,
+    total_amount         DECIMAL(15, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (business_user_id, customer_identifier, status)
+);
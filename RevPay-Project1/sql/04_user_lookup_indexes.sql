@@ -0,0 +1,4 @@
+-- Recipient resolution (WalletDAO.getUserIdByIdentifier) runs one indexed lookup per
+-- column instead of email = ? OR phone = ? OR full_name = ?. email and phone are expected
+-- to be UNIQUE already; full_name needs its own index for the third branch.
+CREATE INDEX idx_users_full_name ON users (full_name);
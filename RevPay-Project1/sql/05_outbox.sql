@@ -0,0 +1,25 @@
+-- Transactional outbox (OutboxDAO / OutboxRelay). WalletDAO.transfer inserts one row in the
+-- same DB transaction as the balance change; the relay publishes pending rows afterwards
+-- and sets published_at. Failed rows are pushed back via attempts/available_at.
+CREATE TABLE outbox_events (
+    event_id        BIGINT         NOT NULL AUTO_INCREMENT,
+    event_type      VARCHAR(40)    NOT NULL,
+    transaction_id  INT            NOT NULL,
+    from_user_id    INT            NOT NULL,
+    to_user_id      INT            NOT NULL,
+    amount          DECIMAL(15, 2) NOT NULL,
+    sender_balance  DECIMAL(15, 2) NULL,
+    attempts        INT            NOT NULL DEFAULT 0,
+    available_at    TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at      TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at    TIMESTAMP      NULL,
+    PRIMARY KEY (event_id),
+    -- Pending scan: WHERE published_at IS NULL ... ORDER BY event_id
+    KEY idx_outbox_pending (published_at, event_id)
+);
+
+-- Idempotent consumer: a redelivered event re-inserts the same keys, which are skipped.
+-- Notifications written outside the outbox leave dedupe_key NULL (NULLs never collide).
+ALTER TABLE notifications
+    ADD COLUMN dedupe_key VARCHAR(64) NULL,
+    ADD UNIQUE KEY uk_notifications_dedupe_key (dedupe_key);
@@ -0,0 +1,16 @@
+-- Idempotency keys (IdempotencyDAO). A row is inserted in the same DB transaction as the
+-- money movement it guards, so it exists exactly when that movement committed. Keys are
+-- scoped per user. Each key stores a SHA-256 of the request it guarded (operation plus its
+-- parameters) and the ledger row it wrote: a retry of the same request replays the original
+-- transaction, while the same key reused for a different request (another amount, recipient
+-- or invoice) is rejected. Failed attempts apply nothing and leave no row, so they can simply
+-- be retried.
+CREATE TABLE idempotency_keys (
+    user_id          INT          NOT NULL,
+    idem_key         VARCHAR(64)  NOT NULL,
+    operation        VARCHAR(20)  NOT NULL,  -- SEND_MONEY / DEPOSIT / WITHDRAW / INVOICE_PAYMENT / BULK_PAYOUT
+    request_hash     CHAR(64)     NOT NULL,  -- IdempotencyDAO.fingerprint
+    transaction_id   INT          NULL,      -- NULL for invoice payments and bulk payouts
+    created_at       TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, idem_key)
+);
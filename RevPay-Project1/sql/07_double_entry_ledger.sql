@@ -0,0 +1,38 @@
+-- Double-entry ledger (LedgerDAO). Every committed money movement appends two immutable
+-- entries that sum to zero, in the same DB transaction as the balance change and the
+-- transactions row: the debited account gets -amount and the credited account +amount.
+-- wallet_id NULL is the external clearing account (deposits and withdrawals).
+CREATE TABLE ledger_entries (
+    entry_id        BIGINT         NOT NULL AUTO_INCREMENT,
+    transaction_id  INT            NOT NULL,
+    wallet_id       INT            NULL,
+    amount          DECIMAL(15, 2) NOT NULL,  -- signed: negative debit, positive credit
+    created_at      TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (entry_id),
+    KEY idx_ledger_wallet_entry (wallet_id, entry_id),  -- balance = snapshot + entries after it
+    KEY idx_ledger_transaction (transaction_id),        -- double-entry check
+    KEY idx_ledger_created (created_at)                 -- snapshot watermark
+);
+
+-- Append-only: a correction is a new pair of entries, never an edit
+CREATE TRIGGER ledger_entries_no_update BEFORE UPDATE ON ledger_entries
+    FOR EACH ROW SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'ledger_entries is append-only';
+CREATE TRIGGER ledger_entries_no_delete BEFORE DELETE ON ledger_entries
+    FOR EACH ROW SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'ledger_entries is append-only';
+
+-- Wallet balance as of a ledger position (LedgerSnapshotJob). The balance now, or at any
+-- earlier time, is the latest snapshot at or before it plus the entries after last_entry_id.
+-- Take snapshots periodically (e.g. hourly from cron):
+--   java -cp ... org.example.Main --snapshot-ledger
+CREATE TABLE wallet_balance_snapshots (
+    wallet_id       INT            NOT NULL,
+    last_entry_id   BIGINT         NOT NULL,
+    balance         DECIMAL(15, 2) NOT NULL,
+    as_of           TIMESTAMP      NOT NULL,
+    PRIMARY KEY (wallet_id, last_entry_id)
+);
+
+-- Opening balances: the ledger starts empty, so each wallet's current balance becomes its
+-- first snapshot. Run with the application stopped.
+INSERT INTO wallet_balance_snapshots (wallet_id, last_entry_id, balance, as_of)
+SELECT wallet_id, 0, balance, CURRENT_TIMESTAMP FROM wallets;
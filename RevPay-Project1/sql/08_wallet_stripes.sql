@@ -0,0 +1,15 @@
+-- Striped wallets (WalletDAO). A hot wallet with stripe_count > 1 takes credits into one of
+-- its wallet_stripes rows, picked by a hash of the sender, instead of its wallets row, so
+-- concurrent credits stop serialising on one row lock. The wallet's balance is
+-- wallets.balance plus its stripes; debits fold the stripes in when the main balance is
+-- short, and StripeCompactor folds them back in the background.
+-- Lock order everywhere: wallets rows (ascending user_id) before wallet_stripes rows.
+ALTER TABLE wallets
+    ADD COLUMN stripe_count INT NOT NULL DEFAULT 0;
+
+CREATE TABLE wallet_stripes (
+    wallet_id   INT            NOT NULL,
+    stripe      INT            NOT NULL,
+    balance     DECIMAL(15, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (wallet_id, stripe)
+);
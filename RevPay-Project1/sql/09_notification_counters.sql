@@ -0,0 +1,8 @@
+-- Materialised unread counts (NotificationDAO). One row per user, adjusted in the same
+-- transaction as every notification insert and read-marking, so the dashboard badge is a
+-- primary-key read. Rows are created lazily on a user's first count read from one COUNT(*),
+-- so existing databases need no backfill.
+CREATE TABLE notification_counters (
+    user_id       INT NOT NULL PRIMARY KEY,
+    unread_count  INT NOT NULL DEFAULT 0
+);
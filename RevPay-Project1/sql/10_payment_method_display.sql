@@ -0,0 +1,7 @@
+-- Card display metadata (PaymentMethodDAO). Brand, last four digits and expiry are kept in
+-- the clear next to encrypted_details, so listing cards needs no decryption. Existing rows
+-- stay NULL until Main.java --backfill-card-metadata (or their first display) fills them in.
+ALTER TABLE payment_methods
+    ADD COLUMN card_brand   VARCHAR(30) NULL,
+    ADD COLUMN card_last4   CHAR(4)     NULL,
+    ADD COLUMN card_expiry  VARCHAR(7)  NULL;
@@ -0,0 +1,14 @@
+package org.example.benchmark;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    // Console logging would dominate every measurement; keep only warnings and errors
+    static void quietLogging() {
+        Configurator.setRootLevel(Level.WARN);
+    }
+}
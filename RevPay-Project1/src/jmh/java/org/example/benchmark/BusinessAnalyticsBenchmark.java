@@ -0,0 +1,48 @@
+package org.example.benchmark;
+
+import org.example.benchmark.stub.InMemoryInvoiceDAO;
+import org.example.benchmark.stub.InMemoryRollupDAO;
+import org.example.benchmark.stub.InMemoryTransactionDAO;
+import org.example.benchmark.stub.InMemoryWalletDAO;
+import org.example.service.BusinessAnalyticsService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BusinessAnalyticsBenchmark {
+
+    // dashboard cost should stay flat as history grows: it reads per-day rollups
+    @Param({"50", "100000"})
+    public int historySize;
+
+    @Param({"500"})
+    public int invoiceCount;
+
+    private BusinessAnalyticsService analyticsService;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        InMemoryWalletDAO walletDAO = new InMemoryWalletDAO();
+        walletDAO.addWallet(1, 101, new BigDecimal("1000"), "shop@revpay.test");
+        InMemoryTransactionDAO transactionDAO = new InMemoryTransactionDAO();
+        transactionDAO.seedHistory(101, 102, historySize);
+        InMemoryRollupDAO rollupDAO = new InMemoryRollupDAO();
+        rollupDAO.seedFrom(transactionDAO, 101);
+        InMemoryInvoiceDAO invoiceDAO = new InMemoryInvoiceDAO();
+        invoiceDAO.seedInvoices(1, invoiceCount, 40);
+        analyticsService = new BusinessAnalyticsService(rollupDAO, invoiceDAO, walletDAO);
+    }
+
+    @Benchmark
+    public void displayBusinessAnalytics() {
+        analyticsService.displayBusinessAnalytics(1);
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.benchmark;
+
+import org.example.security.CryptoService;
+import org.example.security.PasswordUtil;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityBenchmark {
+
+    private static final String CARD_DETAILS = "VISA|4111111111111111|Alice Example|12/29|123";
+    private static final String LEGACY_SECRET = "RevPaySecretKey12345678901234567";
+
+    private String passwordHash;
+    private CryptoService crypto;
+    private String legacyCard;
+    private String gcmCard;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        passwordHash = PasswordUtil.hash("Str0ngPassw0rd!");
+        crypto = new CryptoService(Map.of(1, LEGACY_SECRET.getBytes(StandardCharsets.US_ASCII)), 1);
+        legacyCard = legacyEncrypt();
+        gcmCard = crypto.encrypt(CARD_DETAILS);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean passwordVerify() {
+        return PasswordUtil.verify("Str0ngPassw0rd!", passwordHash);
+    }
+
+    // Before: the old EncryptionUtil, a key spec and Cipher.getInstance("AES") (ECB) on every call
+    @Benchmark
+    public String legacyEncrypt() {
+        try {
+            Cipher cipher = Cipher.getInstance("AES");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(LEGACY_SECRET.getBytes(), "AES"));
+            return Base64.getEncoder().encodeToString(cipher.doFinal(CARD_DETAILS.getBytes()));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public String legacyDecrypt() {
+        try {
+            Cipher cipher = Cipher.getInstance("AES");
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(LEGACY_SECRET.getBytes(), "AES"));
+            return new String(cipher.doFinal(Base64.getDecoder().decode(legacyCard)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // After: AES-GCM with a per-thread Cipher, re-initialised with a fresh IV per record
+    @Benchmark
+    public String encrypt() {
+        return crypto.encrypt(CARD_DETAILS);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return crypto.decrypt(gcmCard);
+    }
+
+    // Reading a not-yet-migrated ECB value through the service's per-thread cipher
+    @Benchmark
+    public String decryptLegacyValue() {
+        return crypto.decrypt(legacyCard);
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.benchmark;
+
+import org.example.benchmark.stub.InMemoryWalletDAO;
+import org.example.cache.IdempotencyCache;
+import org.example.dao.IdempotencyDAO;
+import org.example.service.SendMoneyService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendMoneyBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    private SendMoneyService sendMoneyService;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        InMemoryWalletDAO walletDAO = new InMemoryWalletDAO();
+        walletDAO.addWallet(1, 101, new BigDecimal("1000000000000"), "alice@revpay.test");
+        walletDAO.addWallet(2, 102, new BigDecimal("1000000000000"), "bob@revpay.test");
+        sendMoneyService = new SendMoneyService(walletDAO, new IdempotencyDAO(new IdempotencyCache(1_000, 60_000)));
+    }
+
+    @Benchmark
+    public boolean sendMoney() {
+        return sendMoneyService.sendMoney(1, "bob@revpay.test", AMOUNT, "benchmark");
+    }
+}
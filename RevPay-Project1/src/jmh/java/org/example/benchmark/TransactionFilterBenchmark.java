@@ -0,0 +1,50 @@
+package org.example.benchmark;
+
+import org.example.benchmark.stub.InMemoryTransactionDAO;
+import org.example.benchmark.stub.InMemoryWalletDAO;
+import org.example.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Filtered history path: rendering and counterparty resolution around the SQL-filtered page
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionFilterBenchmark {
+
+    @Param({"50"})
+    public int historySize;
+
+    private TransactionService transactionService;
+    private LocalDateTime since;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        InMemoryWalletDAO walletDAO = new InMemoryWalletDAO();
+        walletDAO.addWallet(1, 101, new BigDecimal("1000"), "alice@revpay.test");
+        walletDAO.addWallet(2, 102, new BigDecimal("1000"), "bob@revpay.test");
+        walletDAO.addOwner(101, 1, "Alice", "alice@revpay.test");
+        walletDAO.addOwner(102, 2, "Bob", "bob@revpay.test");
+        InMemoryTransactionDAO transactionDAO = new InMemoryTransactionDAO();
+        transactionDAO.seedHistory(101, 102, historySize);
+        transactionService = new TransactionService(transactionDAO, walletDAO);
+        since = LocalDateTime.now().minusDays(30);
+    }
+
+    @Benchmark
+    public void filterByTypeAndDate() {
+        transactionService.displayTransactionHistory(1, "SENT", since, null, null, null, "SUCCESS", null);
+    }
+
+    @Benchmark
+    public void searchByCounterparty() {
+        transactionService.displayTransactionHistory(1, null, null, null, null, null, null, "row 1");
+    }
+}
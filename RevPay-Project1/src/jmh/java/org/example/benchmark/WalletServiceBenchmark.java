@@ -0,0 +1,41 @@
+package org.example.benchmark;
+
+import org.example.benchmark.stub.InMemoryWalletDAO;
+import org.example.cache.IdempotencyCache;
+import org.example.dao.IdempotencyDAO;
+import org.example.service.WalletService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalletServiceBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private WalletService walletService;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        InMemoryWalletDAO walletDAO = new InMemoryWalletDAO();
+        walletDAO.addWallet(1, 101, new BigDecimal("1000000000000"), "alice@revpay.test");
+        walletService = new WalletService(walletDAO, new IdempotencyDAO(new IdempotencyCache(1_000, 60_000)));
+    }
+
+    @Benchmark
+    public boolean deposit() {
+        return walletService.deposit(1, AMOUNT);
+    }
+
+    @Benchmark
+    public boolean withdraw() {
+        return walletService.withdraw(1, AMOUNT);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.benchmark.stub;
+
+import org.example.dao.InvoiceDAO;
+import org.example.model.Invoice;
+import org.example.model.InvoiceTotal;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InMemoryInvoiceDAO extends InvoiceDAO {
+
+    private final List<Invoice> invoices = new ArrayList<>();
+
+    public void seedInvoices(int businessUserId, int count, int customers) {
+        for (int i = 0; i < count; i++) {
+            Invoice invoice = new Invoice();
+            invoice.setInvoiceId(i + 1);
+            invoice.setBusinessUserId(businessUserId);
+            invoice.setCustomerIdentifier("customer" + (i % customers) + "@revpay.test");
+            invoice.setTotalAmount(BigDecimal.valueOf(500 + (i % 20) * 25L));
+            invoice.setStatus(i % 3 == 0 ? "UNPAID" : "PAID");
+            invoice.setDueDate(LocalDate.now().plusDays(i % 30));
+            invoice.setCreatedAt(LocalDateTime.now().minusDays(i % 60));
+            invoices.add(invoice);
+        }
+    }
+
+    @Override
+    public List<Invoice> getInvoicesByBusinessUserId(int businessUserId) {
+        return invoices;
+    }
+
+    // In-memory equivalent of the GROUP BY customer_identifier, status query
+    @Override
+    public List<InvoiceTotal> getInvoiceTotalsByCustomer(int businessUserId) {
+        Map<String, InvoiceTotal> groups = new LinkedHashMap<>();
+        for (Invoice invoice : invoices) {
+            InvoiceTotal total = groups.computeIfAbsent(invoice.getCustomerIdentifier() + "|" + invoice.getStatus(), k -> {
+                InvoiceTotal t = new InvoiceTotal();
+                t.setCustomerIdentifier(invoice.getCustomerIdentifier());
+                t.setStatus(invoice.getStatus());
+                t.setTotalAmount(BigDecimal.ZERO);
+                return t;
+            });
+            total.setInvoiceCount(total.getInvoiceCount() + 1);
+            total.setTotalAmount(total.getTotalAmount().add(invoice.getTotalAmount()));
+        }
+        return new ArrayList<>(groups.values());
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.benchmark.stub;
+
+import org.example.dao.RollupDAO;
+import org.example.model.BusinessAnalytics;
+import org.example.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// RollupDAO holding one daily bucket per wallet and day, built from seeded history
+public class InMemoryRollupDAO extends RollupDAO {
+
+    // index 0..4 = received, sent, receivedCount, txnCount, successCount
+    private final Map<Integer, TreeMap<LocalDate, BigDecimal[]>> dailyByWallet = new ConcurrentHashMap<>();
+
+    public void seedFrom(InMemoryTransactionDAO transactionDAO, int walletId) {
+        TreeMap<LocalDate, BigDecimal[]> days = new TreeMap<>();
+        for (Transaction t : transactionDAO.getTransactionsByWalletId(walletId)) {
+            BigDecimal[] bucket = days.computeIfAbsent(t.getCreatedAt().toLocalDate(),
+                    d -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+            bucket[3] = bucket[3].add(BigDecimal.ONE);
+            if (!"SUCCESS".equals(t.getStatus())) {
+                continue;
+            }
+            bucket[4] = bucket[4].add(BigDecimal.ONE);
+            if (t.getFromWalletId() == walletId) {
+                bucket[1] = bucket[1].add(t.getAmount());
+            } else {
+                bucket[0] = bucket[0].add(t.getAmount());
+                bucket[2] = bucket[2].add(BigDecimal.ONE);
+            }
+        }
+        dailyByWallet.put(walletId, days);
+    }
+
+    @Override
+    public BusinessAnalytics summarizeWallet(int walletId, LocalDate today) {
+        BusinessAnalytics analytics = new BusinessAnalytics();
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate weekStart = today.minusDays(6);
+        for (Map.Entry<LocalDate, BigDecimal[]> day : dailyByWallet.getOrDefault(walletId, new TreeMap<>()).entrySet()) {
+            BigDecimal[] b = day.getValue();
+            analytics.setTotalTransactions(analytics.getTotalTransactions() + b[3].longValue());
+            analytics.setSuccessfulTransactions(analytics.getSuccessfulTransactions() + b[4].longValue());
+            analytics.setTotalReceived(analytics.getTotalReceived().add(b[0]));
+            analytics.setTotalSent(analytics.getTotalSent().add(b[1]));
+            if (!day.getKey().isBefore(monthStart)) {
+                analytics.setMonthRevenue(analytics.getMonthRevenue().add(b[0]));
+            }
+            if (!day.getKey().isBefore(weekStart)) {
+                analytics.setLast7DaysCount(analytics.getLast7DaysCount() + b[2].longValue());
+                analytics.setLast7DaysRevenue(analytics.getLast7DaysRevenue().add(b[0]));
+            }
+            if (day.getKey().equals(today)) {
+                analytics.setTodayRevenue(b[0]);
+            }
+        }
+        return analytics;
+    }
+}
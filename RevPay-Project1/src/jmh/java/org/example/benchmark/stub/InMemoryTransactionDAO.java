@@ -0,0 +1,65 @@
+package org.example.benchmark.stub;
+
+import org.example.dao.TransactionDAO;
+import org.example.model.Transaction;
+import org.example.model.TransactionCursor;
+import org.example.model.TransactionFilter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// TransactionDAO serving a fixed, pre-generated history per wallet
+public class InMemoryTransactionDAO extends TransactionDAO {
+
+    private final Map<Integer, List<Transaction>> historyByWalletId = new ConcurrentHashMap<>();
+
+    // Generate a mixed history of SEND / ADD / WITHDRAW rows spread over the last 60 days
+    public void seedHistory(int walletId, int counterpartyWalletId, int rows) {
+        List<Transaction> history = new ArrayList<>(rows);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < rows; i++) {
+            Transaction t = new Transaction();
+            t.setTransactionId(i + 1);
+            switch (i % 4) {
+                case 0 -> { t.setTransactionType("SEND"); t.setFromWalletId(walletId); t.setToWalletId(counterpartyWalletId); }
+                case 1 -> { t.setTransactionType("SEND"); t.setFromWalletId(counterpartyWalletId); t.setToWalletId(walletId); }
+                case 2 -> { t.setTransactionType("ADD"); t.setToWalletId(walletId); }
+                default -> { t.setTransactionType("WITHDRAW"); t.setFromWalletId(walletId); }
+            }
+            t.setAmount(BigDecimal.valueOf(100 + (i % 50) * 10L));
+            t.setStatus(i % 10 == 0 ? "FAILED" : "SUCCESS");
+            t.setNote("benchmark row " + i);
+            t.setCreatedAt(now.minusMinutes(i * 60L * 24 * 60 / Math.max(rows, 1)));
+            history.add(t);
+        }
+        historyByWalletId.put(walletId, history);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsByWalletId(int walletId) {
+        return historyByWalletId.getOrDefault(walletId, List.of());
+    }
+
+    // Mirrors the SQL predicate closely enough to return realistic row counts; the database
+    // does this work in production, so the benchmark measures only the service around it
+    @Override
+    public List<Transaction> findTransactions(int walletId, TransactionFilter filter, TransactionCursor after, int limit) {
+        return getTransactionsByWalletId(walletId).stream()
+                .filter(t -> filter.getType() == null
+                        || ("SENT".equals(filter.getType()) && t.getFromWalletId() == walletId)
+                        || ("RECEIVED".equals(filter.getType()) && t.getToWalletId() == walletId)
+                        || ("DEPOSIT".equals(filter.getType()) && "ADD".equals(t.getTransactionType()))
+                        || ("WITHDRAWAL".equals(filter.getType()) && "WITHDRAW".equals(t.getTransactionType()))
+                        || filter.getType().equals(t.getTransactionType()))
+                .filter(t -> filter.getStartDate() == null || !t.getCreatedAt().isBefore(filter.getStartDate()))
+                .filter(t -> filter.getEndDate() == null || !t.getCreatedAt().isAfter(filter.getEndDate()))
+                .filter(t -> filter.getStatus() == null || filter.getStatus().equalsIgnoreCase(t.getStatus()))
+                .filter(t -> filter.getSearchTerm() == null || t.getNote().contains(filter.getSearchTerm()))
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.benchmark.stub;
+
+import org.example.dao.WalletDAO;
+import org.example.model.Transaction;
+import org.example.model.TransferResult;
+import org.example.model.User;
+import org.example.model.Wallet;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// WalletDAO backed by a map so benchmarks measure service logic, not MySQL
+public class InMemoryWalletDAO extends WalletDAO {
+
+    private final Map<Integer, Wallet> walletsByUserId = new ConcurrentHashMap<>();
+    private final Map<Integer, Wallet> walletsById = new ConcurrentHashMap<>();
+    private final Map<String, Integer> userIdsByIdentifier = new ConcurrentHashMap<>();
+    private final Map<Integer, User> ownersByWalletId = new ConcurrentHashMap<>();
+
+    public void addWallet(int userId, int walletId, BigDecimal balance, String identifier) {
+        Wallet wallet = new Wallet();
+        wallet.setUserId(userId);
+        wallet.setWalletId(walletId);
+        wallet.setBalance(balance);
+        wallet.setCurrency("INR");
+        wallet.setLastUpdated(LocalDateTime.now());
+        walletsByUserId.put(userId, wallet);
+        walletsById.put(walletId, wallet);
+        userIdsByIdentifier.put(identifier, userId);
+    }
+
+    public void addOwner(int walletId, int userId, String fullName, String email) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setFullName(fullName);
+        user.setEmail(email);
+        ownersByWalletId.put(walletId, user);
+    }
+
+    @Override
+    public Map<Integer, User> getOwnersByWalletIds(Collection<Integer> walletIds) {
+        Map<Integer, User> owners = new HashMap<>();
+        for (int walletId : walletIds) {
+            User owner = ownersByWalletId.get(walletId);
+            if (owner != null) {
+                owners.put(walletId, owner);
+            }
+        }
+        return owners;
+    }
+
+    @Override
+    public boolean createWallet(int userId) {
+        addWallet(userId, userId, BigDecimal.ZERO, "user" + userId);
+        return true;
+    }
+
+    @Override
+    public Wallet getWalletByUserId(int userId) {
+        return copy(walletsByUserId.get(userId));
+    }
+
+    @Override
+    public Wallet getWalletById(int walletId) {
+        return copy(walletsById.get(walletId));
+    }
+
+    @Override
+    public synchronized boolean updateBalance(int userId, BigDecimal newBalance) {
+        Wallet wallet = walletsByUserId.get(userId);
+        if (wallet == null) {
+            return false;
+        }
+        wallet.setBalance(newBalance);
+        return true;
+    }
+
+    @Override
+    public int getUserIdByIdentifier(String identifier) {
+        return userIdsByIdentifier.getOrDefault(identifier, -1);
+    }
+
+    @Override
+    public synchronized boolean adjustBalance(int userId, BigDecimal delta, String transactionType, String note, String idempotencyKey) {
+        Wallet wallet = walletsByUserId.get(userId);
+        if (wallet == null || wallet.getBalance().add(delta).signum() < 0) {
+            return false;
+        }
+        wallet.setBalance(wallet.getBalance().add(delta));
+        return true;
+    }
+
+    @Override
+    public synchronized TransferResult transfer(int fromUserId, int toUserId, BigDecimal amount, String note, String eventType,
+                                               String idempotencyKey) {
+        Wallet from = walletsByUserId.get(fromUserId);
+        Wallet to = walletsByUserId.get(toUserId);
+        if (from == null || to == null || fromUserId == toUserId || from.getBalance().compareTo(amount) < 0) {
+            return null;
+        }
+        from.setBalance(from.getBalance().subtract(amount));
+        to.setBalance(to.getBalance().add(amount));
+
+        Transaction transaction = new Transaction();
+        transaction.setFromWalletId(from.getWalletId());
+        transaction.setToWalletId(to.getWalletId());
+        transaction.setAmount(amount);
+        transaction.setTransactionType("SEND");
+        transaction.setStatus("SUCCESS");
+        transaction.setNote(note);
+        transaction.setCreatedAt(LocalDateTime.now());
+
+        TransferResult result = new TransferResult();
+        result.setTransaction(transaction);
+        result.setSenderBalance(from.getBalance());
+        result.setRecipientBalance(to.getBalance());
+        return result;
+    }
+
+    private static Wallet copy(Wallet source) {
+        if (source == null) {
+            return null;
+        }
+        Wallet wallet = new Wallet();
+        wallet.setWalletId(source.getWalletId());
+        wallet.setUserId(source.getUserId());
+        wallet.setBalance(source.getBalance());
+        wallet.setCurrency(source.getCurrency());
+        wallet.setLastUpdated(source.getLastUpdated());
+        return wallet;
+    }
+}
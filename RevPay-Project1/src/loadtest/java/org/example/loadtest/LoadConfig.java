@@ -0,0 +1,76 @@
+package org.example.loadtest;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Load run settings from -Drevpay.load.* system properties. The database and pool come from the
+// usual -Drevpay.db.* / -Drevpay.pool.* properties (size the pool for the thread count).
+public class LoadConfig {
+
+    private static final String DEFAULT_MIX = "deposit=15,withdraw=10,send=35,request=5,history=25,invoice=5,analytics=5";
+
+    private int users = 200;
+    private int businessEvery = 10;               // every Nth seeded user is a BUSINESS account
+    private int threads = 32;
+    private long warmupSeconds = 10;
+    private long durationSeconds = 60;
+    private long reportSeconds = 10;
+    private BigDecimal openingBalance = new BigDecimal("10000.00");
+    private Map<Operation, Integer> mix = parseMix(DEFAULT_MIX);
+
+    public static LoadConfig fromSystemProperties() {
+        LoadConfig config = new LoadConfig();
+        config.users = Integer.getInteger("revpay.load.users", config.users);
+        config.businessEvery = Integer.getInteger("revpay.load.businessEvery", config.businessEvery);
+        config.threads = Integer.getInteger("revpay.load.threads", config.threads);
+        config.warmupSeconds = Long.getLong("revpay.load.warmupSeconds", config.warmupSeconds);
+        config.durationSeconds = Long.getLong("revpay.load.durationSeconds", config.durationSeconds);
+        config.reportSeconds = Long.getLong("revpay.load.reportSeconds", config.reportSeconds);
+        config.openingBalance = new BigDecimal(System.getProperty("revpay.load.openingBalance", config.openingBalance.toPlainString()));
+        config.mix = parseMix(System.getProperty("revpay.load.mix", DEFAULT_MIX));
+        if (config.users < 2) {
+            throw new IllegalArgumentException("revpay.load.users must be at least 2");
+        }
+        return config;
+    }
+
+    // "send=35,history=25,..." -> weights; operations left out get weight 0
+    static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry: " + part);
+            }
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in mix: " + part);
+            }
+            weights.put(Operation.fromKey(kv[0].trim()), weight);
+        }
+        return weights;
+    }
+
+    public int getUsers() { return users; }
+
+    public int getBusinessEvery() { return businessEvery; }
+
+    public int getThreads() { return threads; }
+
+    public long getWarmupSeconds() { return warmupSeconds; }
+
+    public long getDurationSeconds() { return durationSeconds; }
+
+    public long getReportSeconds() { return reportSeconds; }
+
+    public BigDecimal getOpeningBalance() { return openingBalance; }
+
+    public Map<Operation, Integer> getMix() { return mix; }
+
+    @Override
+    public String toString() {
+        return String.format("users=%d, businessEvery=%d, threads=%d, warmup=%ds, duration=%ds, openingBalance=%s, mix=%s",
+                users, businessEvery, threads, warmupSeconds, durationSeconds, openingBalance.toPlainString(), mix);
+    }
+}
@@ -0,0 +1,445 @@
+package org.example.loadtest;
+
+import org.example.cache.WalletCache;
+import org.example.config.DBConnection;
+import org.example.dao.LedgerDAO;
+import org.example.model.*;
+import org.example.security.PasswordUtil;
+import org.example.service.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Soak/load harness against a real database. Seeds users and wallets through UserService and
+// WalletService, drives a weighted mix of operations through the same services the console and
+// API use, and reports throughput, latency percentiles and error rates per operation. At the end
+// it checks that money was conserved: the seeded wallets must hold exactly their opening
+// balances plus successful deposits minus successful withdrawals (transfers, accepted requests
+// and invoices only move money between them), none may be negative, and the ledger must agree
+// with wallets.balance. Exits non-zero if any check fails.
+//
+//   mvn -Ploadtest -DskipTests package
+//   java -Drevpay.db.url=... -Drevpay.pool.maxSize=32 -Drevpay.load.threads=32 -jar target/loadtest.jar
+//
+// Seeded users (load-<run>-<n>@revpay.test) and their history are left in place for inspection.
+public class LoadGenerator {
+
+    private static final Logger logger = LogManager.getLogger(LoadGenerator.class);
+
+    private final LoadConfig config;
+    private final UserService userService = new UserService();
+    private final WalletService walletService = new WalletService();
+    private final SendMoneyService sendMoneyService = new SendMoneyService();
+    private final MoneyRequestService moneyRequestService = new MoneyRequestService();
+    private final InvoiceService invoiceService = new InvoiceService();
+    private final TransactionService transactionService = new TransactionService();
+    private final BusinessAnalyticsService analyticsService = new BusinessAnalyticsService();
+    private final LedgerDAO ledgerDAO = new LedgerDAO();
+
+    private final List<SeededUser> users = new ArrayList<>();
+    private final List<SeededUser> businesses = new ArrayList<>();
+    private final Map<Operation, OpStats> stats = new EnumMap<>(Operation.class);
+    private final Operation[] schedule;
+
+    // Net money added to the seeded wallets from outside, in paise
+    private final LongAdder depositedPaise = new LongAdder();
+    private final LongAdder withdrawnPaise = new LongAdder();
+
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    private static final class SeededUser {
+        final int userId;
+        final String email;
+
+        SeededUser(int userId, String email) {
+            this.userId = userId;
+            this.email = email;
+        }
+    }
+
+    private static final class OpStats {
+        final LatencyHistogram latencyNanos = new LatencyHistogram();
+        final LongAdder failed = new LongAdder();   // service said no (insufficient funds, already paid...)
+        final LongAdder errors = new LongAdder();   // threw
+    }
+
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+        for (Operation op : Operation.values()) {
+            stats.put(op, new OpStats());
+        }
+        this.schedule = buildSchedule(config.getMix());
+    }
+
+    public static void main(String[] args) {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        boolean passed = false;
+        // Relay and compactor run as they do in production so outbox and stripes do not pile up
+        OutboxRelay.shared();
+        StripeCompactor.shared();
+        try {
+            passed = new LoadGenerator(config).run();
+        } catch (Exception e) {
+            logger.error("Load run failed", e);
+        } finally {
+            OutboxRelay.shutdownShared();
+            StripeCompactor.shutdownShared();
+            NotificationDispatcher.shutdownShared();
+            DBConnection.shutdown();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    // Seed, warm up, measure, report; returns whether the money checks passed
+    public boolean run() throws Exception {
+        logger.info("Load run: {}", config);
+        ExecutorService pool = Executors.newFixedThreadPool(config.getThreads());
+        try {
+            seed(pool);
+            if (businesses.isEmpty()) {
+                logger.warn("No business accounts seeded; invoice and analytics operations are skipped");
+            }
+            BigDecimal openingTotal = totalBalance();
+
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+            long end = measureFrom + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < config.getThreads(); i++) {
+                workers.add(pool.submit(() -> workLoop(end)));
+            }
+            monitor(measureFrom, end);
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+
+            report(TimeUnit.SECONDS.toNanos(config.getDurationSeconds()));
+            return checkConservation(openingTotal);
+        } finally {
+            running = false;
+            pool.shutdownNow();
+        }
+    }
+
+    private void seed(ExecutorService pool) throws Exception {
+        long run = System.currentTimeMillis();
+        // One bcrypt hash for every seeded user: hashing N passwords would dominate the seed time
+        String hash = PasswordUtil.hash("load-test");
+        List<Future<SeededUser>> futures = new ArrayList<>();
+        for (int i = 0; i < config.getUsers(); i++) {
+            final int n = i;
+            futures.add(pool.submit(() -> seedUser(run, n, hash)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            SeededUser user = futures.get(i).get();
+            if (user == null) {
+                continue;
+            }
+            users.add(user);
+            if (config.getBusinessEvery() > 0 && i % config.getBusinessEvery() == 0) {
+                businesses.add(user);
+            }
+        }
+        if (users.size() < 2) {
+            throw new IllegalStateException("Seeding failed: only " + users.size() + " users created");
+        }
+        logger.info("Seeded {} users ({} business) with opening balance {}", users.size(), businesses.size(),
+                config.getOpeningBalance().toPlainString());
+    }
+
+    private SeededUser seedUser(long run, int n, String hash) {
+        boolean business = config.getBusinessEvery() > 0 && n % config.getBusinessEvery() == 0;
+        User user = new User();
+        user.setFullName("Load User " + n);
+        user.setEmail("load-" + run + "-" + n + "@revpay.test");
+        user.setPhone(String.valueOf(run % 100_000 * 100_000 + n));
+        user.setPasswordHash(hash);
+        user.setTransactionPinHash(hash);
+        user.setAccountType(business ? "BUSINESS" : "PERSONAL");
+        user.setSecurityQuestion("What city were you born in?");
+        user.setSecurityAnswerHash(hash);
+
+        BusinessDetails details = null;
+        if (business) {
+            details = new BusinessDetails();
+            details.setBusinessName("Load Business " + n);
+            details.setBusinessType("RETAIL");
+            details.setTaxId("LOAD" + n);
+            details.setAddress("Load Street " + n);
+        }
+
+        int userId = userService.registerUser(user, details);
+        if (userId <= 0 || !walletService.deposit(userId, config.getOpeningBalance())) {
+            logger.warn("Could not seed user {}", n);
+            return null;
+        }
+        return new SeededUser(userId, user.getEmail());
+    }
+
+    private void workLoop(long endNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running && System.nanoTime() < endNanos) {
+            Operation op = schedule[random.nextInt(schedule.length)];
+            if (op.needsBusiness() && businesses.isEmpty()) {
+                continue;
+            }
+            OpStats opStats = stats.get(op);
+            long t0 = System.nanoTime();
+            boolean ok;
+            try {
+                ok = execute(op, random);
+            } catch (RuntimeException e) {
+                if (measuring) {
+                    opStats.errors.increment();
+                }
+                logger.debug("{} threw", op, e);
+                continue;
+            }
+            if (measuring) {
+                opStats.latencyNanos.record(System.nanoTime() - t0);
+                if (!ok) {
+                    opStats.failed.increment();
+                }
+            }
+        }
+    }
+
+    private boolean execute(Operation op, ThreadLocalRandom random) {
+        SeededUser user = pick(users, random);
+        long paise = random.nextLong(100, 5_001); // Rs 1.00 - 50.00
+        BigDecimal amount = BigDecimal.valueOf(paise, 2);
+        switch (op) {
+            case DEPOSIT -> {
+                boolean ok = walletService.deposit(user.userId, amount, UUID.randomUUID().toString());
+                if (ok) {
+                    depositedPaise.add(paise);
+                }
+                return ok;
+            }
+            case WITHDRAW -> {
+                boolean ok = walletService.withdraw(user.userId, amount, UUID.randomUUID().toString());
+                if (ok) {
+                    withdrawnPaise.add(paise);
+                }
+                return ok;
+            }
+            case SEND -> {
+                SeededUser recipient = other(user, random);
+                return sendMoneyService.sendMoney(user.userId, recipient.email, amount, "load", UUID.randomUUID().toString());
+            }
+            case REQUEST_ACCEPT -> {
+                return requestAndAccept(user, other(user, random), amount);
+            }
+            case HISTORY -> {
+                transactionService.getTransactionHistoryPage(user.userId, null, 20);
+                return true;
+            }
+            case INVOICE -> {
+                return invoiceAndPay(pick(businesses, random), other(user, random), random);
+            }
+            case ANALYTICS -> {
+                return analyticsService.getBusinessAnalytics(pick(businesses, random).userId) != null;
+            }
+            default -> throw new IllegalStateException("Unhandled operation " + op);
+        }
+    }
+
+    // The requester asks the payer, who finds the pending request and accepts it. A refused
+    // transfer (payer short of funds) fails the operation and leaves the request pending.
+    private boolean requestAndAccept(SeededUser requester, SeededUser payer, BigDecimal amount) {
+        MoneyRequest request = new MoneyRequest();
+        request.setFromUserId(requester.userId);
+        request.setToUserId(payer.userId);
+        request.setAmount(amount);
+        request.setNote("load");
+        if (!moneyRequestService.sendRequest(request)) {
+            return false;
+        }
+        for (MoneyRequest pending : moneyRequestService.getRequestsForUser(payer.userId)) {
+            if (pending.getFromUserId() == requester.userId && "PENDING".equals(pending.getStatus())
+                    && pending.getAmount().compareTo(amount) == 0) {
+                return moneyRequestService.updateRequestStatus(pending.getRequestId(), "ACCEPTED");
+            }
+        }
+        return false; // another thread accepted the matching request first
+    }
+
+    private boolean invoiceAndPay(SeededUser business, SeededUser customer, ThreadLocalRandom random) {
+        List<InvoiceItem> items = new ArrayList<>();
+        int lines = random.nextInt(1, 4);
+        for (int i = 0; i < lines; i++) {
+            InvoiceItem item = new InvoiceItem();
+            item.setItemName("Item " + i);
+            item.setQuantity(random.nextInt(1, 5));
+            item.setPrice(BigDecimal.valueOf(random.nextLong(100, 10_001), 2));
+            items.add(item);
+        }
+        int invoiceId = invoiceService.createInvoice(business.userId, customer.email, items, LocalDate.now().plusDays(30));
+        return invoiceId > 0 && invoiceService.processInvoicePayment(invoiceId, "UPI", UUID.randomUUID().toString());
+    }
+
+    // Progress lines during the run; turns measuring on once the warmup has passed
+    private void monitor(long measureFrom, long end) throws InterruptedException {
+        long reportNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getReportSeconds()));
+        long lastCount = 0;
+        long lastTime = System.nanoTime();
+        while (true) {
+            long now = System.nanoTime();
+            if (!measuring && now >= measureFrom) {
+                measuring = true;
+                lastCount = 0;
+                lastTime = now;
+                logger.info("Warmup done, measuring for {}s", config.getDurationSeconds());
+            }
+            if (now >= end) {
+                return;
+            }
+            long next = measuring ? Math.min(lastTime + reportNanos, end) : measureFrom;
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, next - System.nanoTime()));
+            if (measuring) {
+                long count = totalCount();
+                long t = System.nanoTime();
+                logger.info("progress: {} ops/s, {} ops, {} errors",
+                        String.format("%.0f", (count - lastCount) * 1e9 / (t - lastTime)), count, totalErrors());
+                lastCount = count;
+                lastTime = t;
+            }
+        }
+    }
+
+    private void report(long measuredNanos) {
+        LatencyHistogram all = new LatencyHistogram();
+        logger.info(String.format("%-10s %9s %8s %7s %9s %8s %8s %8s %8s %8s",
+                "operation", "count", "failed", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Map.Entry<Operation, OpStats> entry : stats.entrySet()) {
+            OpStats s = entry.getValue();
+            LatencyHistogram h = s.latencyNanos;
+            if (h.getTotalCount() == 0 && s.errors.sum() == 0) {
+                continue;
+            }
+            all.add(h);
+            logger.info(formatRow(entry.getKey().getKey(), h, s.failed.sum(), s.errors.sum(), measuredNanos));
+        }
+        logger.info(formatRow("ALL", all, totalFailed(), totalErrors(), measuredNanos));
+        long attempts = all.getTotalCount() + totalErrors();
+        logger.info("Error rate {}%, failure rate {}%",
+                String.format("%.3f", attempts == 0 ? 0 : 100.0 * totalErrors() / attempts),
+                String.format("%.3f", attempts == 0 ? 0 : 100.0 * totalFailed() / attempts));
+        logger.info("Connection pool: {}", DBConnection.getPoolMetrics());
+    }
+
+    private static String formatRow(String name, LatencyHistogram h, long failed, long errors, long measuredNanos) {
+        return String.format("%-10s %9d %8d %7d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f",
+                name, h.getTotalCount(), failed, errors, h.getTotalCount() * 1e9 / measuredNanos,
+                h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(90) / 1e6, h.getValueAtPercentile(99) / 1e6,
+                h.getValueAtPercentile(99.9) / 1e6, h.getMax() / 1e6);
+    }
+
+    private boolean checkConservation(BigDecimal openingTotal) throws Exception {
+        BigDecimal expected = openingTotal
+                .add(BigDecimal.valueOf(depositedPaise.sum(), 2))
+                .subtract(BigDecimal.valueOf(withdrawnPaise.sum(), 2));
+        BigDecimal actual = totalBalance();
+        boolean conserved = expected.compareTo(actual) == 0;
+        logger.info("Money conservation: opening={} deposited={} withdrawn={} expected={} actual={} -> {}",
+                openingTotal.toPlainString(), BigDecimal.valueOf(depositedPaise.sum(), 2).toPlainString(),
+                BigDecimal.valueOf(withdrawnPaise.sum(), 2).toPlainString(), expected.toPlainString(),
+                actual.toPlainString(), conserved ? "OK" : "FAILED");
+
+        int negative = 0;
+        int minWalletId = Integer.MAX_VALUE;
+        int maxWalletId = 0;
+        for (SeededUser user : users) {
+            Wallet wallet = walletService.getWallet(user.userId);
+            if (wallet.getBalance().signum() < 0) {
+                negative++;
+                logger.error("Negative balance {} for userId={}", wallet.getBalance().toPlainString(), user.userId);
+            }
+            minWalletId = Math.min(minWalletId, wallet.getWalletId());
+            maxWalletId = Math.max(maxWalletId, wallet.getWalletId());
+        }
+
+        // Stripe credits count in both wallets.balance (via the stripe sum) and the ledger
+        List<LedgerMismatch> mismatches = ledgerDAO.findBalanceMismatches(minWalletId, maxWalletId + 1);
+        for (LedgerMismatch mismatch : mismatches) {
+            logger.error("Ledger mismatch: walletId={}, wallet={}, ledger={}",
+                    mismatch.getWalletId(), mismatch.getWalletBalance(), mismatch.getLedgerBalance());
+        }
+        logger.info("Negative balances: {}, ledger mismatches: {}", negative, mismatches.size());
+        return conserved && negative == 0 && mismatches.isEmpty();
+    }
+
+    // Sum of the seeded wallets read fresh from the database, not from the wallet cache
+    private BigDecimal totalBalance() {
+        WalletCache.shared().clear();
+        BigDecimal total = BigDecimal.ZERO;
+        for (SeededUser user : users) {
+            total = total.add(walletService.getWallet(user.userId).getBalance());
+        }
+        return total;
+    }
+
+    private long totalCount() {
+        long count = 0;
+        for (OpStats s : stats.values()) {
+            count += s.latencyNanos.getTotalCount();
+        }
+        return count;
+    }
+
+    private long totalFailed() {
+        long failed = 0;
+        for (OpStats s : stats.values()) {
+            failed += s.failed.sum();
+        }
+        return failed;
+    }
+
+    private long totalErrors() {
+        long errors = 0;
+        for (OpStats s : stats.values()) {
+            errors += s.errors.sum();
+        }
+        return errors;
+    }
+
+    // Weighted pick table: each operation appears weight times
+    private static Operation[] buildSchedule(Map<Operation, Integer> mix) {
+        List<Operation> table = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                table.add(entry.getKey());
+            }
+        }
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("revpay.load.mix has no positive weights");
+        }
+        return table.toArray(new Operation[0]);
+    }
+
+    private static SeededUser pick(List<SeededUser> from, ThreadLocalRandom random) {
+        return from.get(random.nextInt(from.size()));
+    }
+
+    private SeededUser other(SeededUser user, ThreadLocalRandom random) {
+        SeededUser other;
+        do {
+            other = pick(users, random);
+        } while (other.userId == user.userId);
+        return other;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.loadtest;
+
+// Kinds of simulated traffic. The names are the keys of -Drevpay.load.mix.
+public enum Operation {
+    DEPOSIT("deposit"),
+    WITHDRAW("withdraw"),
+    SEND("send"),
+    REQUEST_ACCEPT("request"),
+    HISTORY("history"),
+    INVOICE("invoice"),
+    ANALYTICS("analytics");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    // Invoices and analytics are business-only; they need at least one seeded business account
+    public boolean needsBusiness() {
+        return this == INVOICE || this == ANALYTICS;
+    }
+
+    public static Operation fromKey(String key) {
+        for (Operation op : values()) {
+            if (op.key.equalsIgnoreCase(key)) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation in mix: " + key);
+    }
+}
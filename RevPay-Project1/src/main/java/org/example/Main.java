@@ -1,7 +1,25 @@
 package org.example;
 
+import org.example.cache.IdempotencyCache;
+import org.example.cache.UnreadCountCache;
+import org.example.cache.UserCache;
+import org.example.cache.WalletCache;
+import org.example.config.DBConnection;
 import org.example.controller.*;
+import org.example.job.CardMetadataBackfillJob;
+import org.example.job.CardReEncryptionJob;
+import org.example.job.LedgerReconciliationJob;
+import org.example.job.LedgerSnapshotJob;
+import org.example.job.RetentionJob;
+import org.example.job.RollupBackfillJob;
 import org.example.model.User;
+import org.example.security.BcryptCostTuner;
+import org.example.security.PasswordHasher;
+import org.example.server.ApiServer;
+import org.example.service.NotificationDispatcher;
+import org.example.service.OutboxRelay;
+import org.example.service.StripeCompactor;
+import org.example.service.WalletService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,10 +37,64 @@ public class Main {
     private static final InvoiceController invoiceController = new InvoiceController();
     private static final LoanController loanController = new LoanController();
     private static final BusinessAnalyticsController analyticsController = new BusinessAnalyticsController();
+    private static final BulkPayoutController bulkPayoutController = new BulkPayoutController();
     private static final NotificationController notificationController = new NotificationController();
 
     public static void main(String[] args) {
 
+        // Serve the JSON API instead of the console menu; runs until the process is stopped
+        if (args.length > 0 && "--server".equals(args[0])) {
+            runServer();
+            return;
+        }
+
+        // Maintenance jobs (one-off or scheduled from cron): run, close the pool, and exit non-zero
+        // on failure so the scheduler notices
+        if (args.length > 0) {
+            int status = switch (args[0]) {
+                // One-off: rebuild analytics rollups from raw data
+                case "--backfill-rollups" -> runJob("Rollup backfill", () -> {
+                    new RollupBackfillJob().run();
+                    return 0;
+                });
+                // Periodic ledger maintenance: snapshot balances, or audit them
+                case "--snapshot-ledger" -> runJob("Ledger snapshot", () -> {
+                    new LedgerSnapshotJob().run();
+                    return 0;
+                });
+                case "--reconcile-ledger" -> runJob("Ledger reconciliation", () -> new LedgerReconciliationJob().run());
+                // Periodic retention: archive and delete old read notifications and settled requests
+                case "--apply-retention" -> runJob("Retention", () -> {
+                    new RetentionJob().run();
+                    return 0;
+                });
+                // One-off after a key rotation or upgrade from ECB: rewrite stored cards under the active key
+                case "--reencrypt-cards" -> runJob("Card re-encryption", () -> {
+                    new CardReEncryptionJob().run();
+                    return 0;
+                });
+                // One-off after adding the card display columns: store brand / last 4 / expiry for existing cards
+                case "--backfill-card-metadata" -> runJob("Card metadata backfill", () -> {
+                    new CardMetadataBackfillJob().run();
+                    return 0;
+                });
+                // Admin: spread credits to a hot wallet over N stripes (0 or 1 turns striping off)
+                case "--stripe-wallet" -> runJob("Wallet striping", () -> stripeWallet(args));
+                default -> {
+                    logger.error("Unknown option {}", args[0]);
+                    yield 2;
+                }
+            };
+            System.exit(status);
+        }
+
+        // Pick the bcrypt cost for new hashes from a benchmark of this machine
+        BcryptCostTuner.tuneFromSystemProperties();
+        // Publishes notifications for committed transfers in the background
+        OutboxRelay.shared();
+        // Folds striped wallets' stripe balances back into their main balance
+        StripeCompactor.shared();
+
         boolean running = true;
 
         while (running) {
@@ -41,6 +113,16 @@ public class Main {
                 case "3" -> userController.forgotPassword();
                 case "4" -> {
                     running = false;
+                    logger.info("Wallet cache: {}", WalletCache.shared().getStats());
+                    logger.info("User cache: {}", UserCache.shared().getStats());
+                    logger.info("Idempotency cache: {}", IdempotencyCache.shared().getStats());
+                    logger.info("Unread count cache: {}", UnreadCountCache.shared().getStats());
+                    // Flush queued notifications while the pool is still open
+                    OutboxRelay.shutdownShared();
+                    StripeCompactor.shutdownShared();
+                    NotificationDispatcher.shutdownShared();
+                    PasswordHasher.shutdownShared();
+                    DBConnection.shutdown();
                     logger.info("Exiting Rev-Pay. Goodbye!");
                 }
                 default -> logger.warn("Invalid choice. Try again.");
@@ -48,6 +130,73 @@ public class Main {
         }
     }
 
+    // A maintenance job; returns the number of problems it found (0 = success)
+    @FunctionalInterface
+    private interface Job {
+        int run() throws Exception;
+    }
+
+    // Exit status for a job: 0 on success, 1 if it threw or found problems. The pool is closed
+    // either way.
+    private static int runJob(String name, Job job) {
+        try {
+            int problems = job.run();
+            if (problems > 0) {
+                logger.error("{} found {} problems", name, problems);
+                return 1;
+            }
+            return 0;
+        } catch (Exception e) {
+            logger.error("{} failed", name, e);
+            return 1;
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+
+    // --stripe-wallet <userId> <stripeCount>; one problem if the arguments or the update fail
+    private static int stripeWallet(String[] args) {
+        String usage = "Usage: --stripe-wallet <userId> <stripeCount>";
+        if (args.length != 3) {
+            logger.error(usage);
+            return 1;
+        }
+        try {
+            boolean updated = new WalletService().setStripeCount(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            logger.info("Wallet stripes {}", updated ? "updated" : "not updated");
+            return updated ? 0 : 1;
+        } catch (NumberFormatException e) {
+            logger.error(usage);
+            return 1;
+        }
+    }
+
+    private static void runServer() {
+        BcryptCostTuner.tuneFromSystemProperties();
+        OutboxRelay.shared();
+        StripeCompactor.shared();
+        ApiServer server;
+        try {
+            server = ApiServer.fromSystemProperties();
+        } catch (java.io.IOException e) {
+            logger.error("Could not start API server", e);
+            OutboxRelay.shutdownShared();
+            StripeCompactor.shutdownShared();
+            DBConnection.shutdown();
+            return;
+        }
+        // Same teardown order as the console exit: stop taking requests, flush, then close the pool
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(5);
+            OutboxRelay.shutdownShared();
+            StripeCompactor.shutdownShared();
+            NotificationDispatcher.shutdownShared();
+            PasswordHasher.shutdownShared();
+            DBConnection.shutdown();
+        }, "revpay-server-shutdown"));
+        server.start();
+    }
+
     private static void loginFlow() {
         User loggedInUser = userController.loginUser();
         if (loggedInUser != null) {
@@ -86,6 +235,7 @@ public class Main {
                 logger.info("10 → Invoice Management");
                 logger.info("11 → Business Loans");
                 logger.info("12 → Business Analytics");
+                logger.info("13 → Bulk Payout");
             }
             
             logger.info("9 → Logout");
@@ -123,6 +273,13 @@ public class Main {
                         logger.warn("This feature is only available for business accounts");
                     }
                 }
+                case "13" -> {
+                    if (isBusinessAccount) {
+                        bulkPayoutController.bulkPayout(user.getUserId());
+                    } else {
+                        logger.warn("This feature is only available for business accounts");
+                    }
+                }
                 case "9" -> {
                     dashboardRunning = false;
                     logger.info("Logging out...");
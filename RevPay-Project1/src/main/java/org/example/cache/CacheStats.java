@@ -0,0 +1,38 @@
+package org.example.cache;
+
+// Point-in-time counters for an LruCache
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;     // dropped because the cache was full
+    private final long expirations;   // dropped because the TTL passed
+    private final long invalidations;
+    private final int size;
+
+    public CacheStats(long hits, long misses, long evictions, long expirations, long invalidations, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+        this.size = size;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getExpirations() { return expirations; }
+    public long getInvalidations() { return invalidations; }
+    public int getSize() { return size; }
+
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, hitRatio=%.2f, evictions=%d, expirations=%d, invalidations=%d, size=%d",
+                hits, misses, getHitRatio(), evictions, expirations, invalidations, size);
+    }
+}
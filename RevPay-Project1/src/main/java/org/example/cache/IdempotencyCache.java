@@ -0,0 +1,53 @@
+package org.example.cache;
+
+import org.example.model.IdempotencyRecord;
+
+// Hot set of idempotency keys known to have completed, in front of the idempotency_keys
+// table. Only completed keys are cached: a completed key never becomes un-completed or
+// changes its record, so entries need no invalidation.
+public class IdempotencyCache {
+
+    private static final int DEFAULT_MAX_SIZE = 50_000;
+    private static final long DEFAULT_TTL_MS = 10 * 60_000;
+
+    private static volatile IdempotencyCache shared;
+
+    private final LruCache<String, IdempotencyRecord> completedKeys;
+
+    public IdempotencyCache(int maxSize, long ttlMillis) {
+        this.completedKeys = new LruCache<>(maxSize, ttlMillis);
+    }
+
+    // Sized from -Drevpay.cache.idempotency.maxSize and -Drevpay.cache.idempotency.ttlMs
+    public static IdempotencyCache shared() {
+        IdempotencyCache current = shared;
+        if (current == null) {
+            synchronized (IdempotencyCache.class) {
+                if (shared == null) {
+                    shared = new IdempotencyCache(
+                            Integer.getInteger("revpay.cache.idempotency.maxSize", DEFAULT_MAX_SIZE),
+                            Long.getLong("revpay.cache.idempotency.ttlMs", DEFAULT_TTL_MS));
+                }
+                current = shared;
+            }
+        }
+        return current;
+    }
+
+    // The completed key's record, or null if it is not cached
+    public IdempotencyRecord getCompleted(int userId, String key) {
+        return completedKeys.get(userId + ":" + key);
+    }
+
+    public void markCompleted(int userId, String key, IdempotencyRecord record) {
+        completedKeys.put(userId + ":" + key, record);
+    }
+
+    public void clear() {
+        completedKeys.clear();
+    }
+
+    public CacheStats getStats() {
+        return completedKeys.getStats();
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.cache;
+
+// Per-user unread notification counts in front of the notification_counters table, so a
+// dashboard redraw is a map lookup. NotificationDAO invalidates a user's entry after every
+// write that changes the count commits; a count loaded concurrently with such a write is
+// dropped via the stamp. Writes from other processes are only bounded by the TTL.
+public class UnreadCountCache {
+
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+    private static final long DEFAULT_TTL_MS = 30_000;
+
+    private static volatile UnreadCountCache shared;
+
+    private final LruCache<Integer, Integer> countsByUserId;
+
+    public UnreadCountCache(int maxSize, long ttlMillis) {
+        this.countsByUserId = new LruCache<>(maxSize, ttlMillis);
+    }
+
+    // Sized from -Drevpay.cache.unread.maxSize and -Drevpay.cache.unread.ttlMs
+    public static UnreadCountCache shared() {
+        UnreadCountCache current = shared;
+        if (current == null) {
+            synchronized (UnreadCountCache.class) {
+                if (shared == null) {
+                    shared = new UnreadCountCache(
+                            Integer.getInteger("revpay.cache.unread.maxSize", DEFAULT_MAX_SIZE),
+                            Long.getLong("revpay.cache.unread.ttlMs", DEFAULT_TTL_MS));
+                }
+                current = shared;
+            }
+        }
+        return current;
+    }
+
+    public Integer get(int userId) {
+        return countsByUserId.get(userId);
+    }
+
+    public long stamp() {
+        return countsByUserId.stamp();
+    }
+
+    // Cache a count read after stamp(); skipped if the count changed meanwhile
+    public void put(int userId, int count, long stamp) {
+        countsByUserId.put(userId, count, stamp);
+    }
+
+    // Call after a change to the user's unread count commits
+    public void invalidateUser(int userId) {
+        countsByUserId.invalidate(userId);
+    }
+
+    public void clear() {
+        countsByUserId.clear();
+    }
+
+    public CacheStats getStats() {
+        return countsByUserId.getStats();
+    }
+}
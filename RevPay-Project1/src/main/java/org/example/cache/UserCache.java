@@ -0,0 +1,124 @@
+package org.example.cache;
+
+import org.example.model.User;
+
+import java.util.Locale;
+
+// Process-wide user directory shared by UserDAO and WalletDAO. Users are cached by ID;
+// lookup keys (email/phone, recipient identifiers) map to an ID. Unknown keys are cached
+// briefly as misses, and that negative cache is cleared whenever a user is inserted so a
+// fresh registration is resolvable immediately. Callers get copies.
+public class UserCache {
+
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+    private static final long DEFAULT_TTL_MS = 60_000;
+    private static final long DEFAULT_NEGATIVE_TTL_MS = 5_000;
+
+    private static volatile UserCache shared;
+
+    private final LruCache<Integer, User> usersById;
+    private final LruCache<String, Integer> userIdsByKey;
+    private final LruCache<String, Boolean> unknownKeys;
+
+    public UserCache(int maxSize, long ttlMillis, long negativeTtlMillis) {
+        this.usersById = new LruCache<>(maxSize, ttlMillis);
+        this.userIdsByKey = new LruCache<>(maxSize, ttlMillis);
+        this.unknownKeys = new LruCache<>(maxSize, negativeTtlMillis);
+    }
+
+    // Sized from -Drevpay.cache.user.maxSize, -Drevpay.cache.user.ttlMs and -Drevpay.cache.user.negativeTtlMs
+    public static UserCache shared() {
+        UserCache current = shared;
+        if (current == null) {
+            synchronized (UserCache.class) {
+                if (shared == null) {
+                    shared = new UserCache(
+                            Integer.getInteger("revpay.cache.user.maxSize", DEFAULT_MAX_SIZE),
+                            Long.getLong("revpay.cache.user.ttlMs", DEFAULT_TTL_MS),
+                            Long.getLong("revpay.cache.user.negativeTtlMs", DEFAULT_NEGATIVE_TTL_MS));
+                }
+                current = shared;
+            }
+        }
+        return current;
+    }
+
+    // Lookup keys are namespaced by the query that resolved them ("login", "recipient")
+    // because the same text can resolve differently in each
+    public static String key(String namespace, String identifier) {
+        return namespace + ":" + identifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public User getById(int userId) {
+        return copy(usersById.get(userId));
+    }
+
+    public Integer getUserIdByKey(String key) {
+        return userIdsByKey.get(key);
+    }
+
+    public boolean isKnownMissing(String key) {
+        return unknownKeys.get(key) != null;
+    }
+
+    public long stamp() {
+        return usersById.stamp();
+    }
+
+    // Cache a user loaded after stamp(); skipped if the user was changed meanwhile
+    public void put(User user, long stamp) {
+        usersById.put(user.getUserId(), copy(user), stamp);
+    }
+
+    public void putKey(String key, int userId) {
+        userIdsByKey.put(key, userId);
+    }
+
+    public void putMissing(String key) {
+        unknownKeys.put(key, Boolean.TRUE);
+    }
+
+    // Call after any write to the user's row (password, lock state, failed attempts)
+    public void invalidateUser(int userId) {
+        usersById.invalidate(userId);
+    }
+
+    // Call after inserting a user so cached "not found" answers cannot hide them
+    public void clearMissing() {
+        unknownKeys.clear();
+    }
+
+    public void clear() {
+        usersById.clear();
+        userIdsByKey.clear();
+        unknownKeys.clear();
+    }
+
+    public CacheStats getStats() {
+        return usersById.getStats();
+    }
+
+    public CacheStats getKeyStats() {
+        return userIdsByKey.getStats();
+    }
+
+    private static User copy(User source) {
+        if (source == null) {
+            return null;
+        }
+        User user = new User();
+        user.setUserId(source.getUserId());
+        user.setAccountType(source.getAccountType());
+        user.setFullName(source.getFullName());
+        user.setEmail(source.getEmail());
+        user.setPhone(source.getPhone());
+        user.setPasswordHash(source.getPasswordHash());
+        user.setTransactionPinHash(source.getTransactionPinHash());
+        user.setSecurityQuestion(source.getSecurityQuestion());
+        user.setSecurityAnswerHash(source.getSecurityAnswerHash());
+        user.setFailedAttempts(source.getFailedAttempts());
+        user.setAccountLocked(source.isAccountLocked());
+        user.setCreatedAt(source.getCreatedAt());
+        return user;
+    }
+}
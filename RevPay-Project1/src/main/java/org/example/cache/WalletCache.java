@@ -0,0 +1,86 @@
+package org.example.cache;
+
+import org.example.model.Wallet;
+
+// Process-wide wallet cache shared by every WalletDAO. Keyed by userId; walletId lookups go
+// through a walletId -> userId index (that mapping never changes). Callers get copies, so a
+// service mutating a Wallet cannot corrupt the cached one. Other processes writing the same
+// database are only bounded by the TTL.
+public class WalletCache {
+
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+    private static final long DEFAULT_TTL_MS = 30_000;
+
+    private static volatile WalletCache shared;
+
+    private final LruCache<Integer, Wallet> walletsByUserId;
+    private final LruCache<Integer, Integer> userIdsByWalletId;
+
+    public WalletCache(int maxSize, long ttlMillis) {
+        this.walletsByUserId = new LruCache<>(maxSize, ttlMillis);
+        this.userIdsByWalletId = new LruCache<>(maxSize, Long.MAX_VALUE / 2);
+    }
+
+    // Sized from -Drevpay.cache.wallet.maxSize and -Drevpay.cache.wallet.ttlMs
+    public static WalletCache shared() {
+        WalletCache current = shared;
+        if (current == null) {
+            synchronized (WalletCache.class) {
+                if (shared == null) {
+                    shared = new WalletCache(
+                            Integer.getInteger("revpay.cache.wallet.maxSize", DEFAULT_MAX_SIZE),
+                            Long.getLong("revpay.cache.wallet.ttlMs", DEFAULT_TTL_MS));
+                }
+                current = shared;
+            }
+        }
+        return current;
+    }
+
+    public Wallet getByUserId(int userId) {
+        return copy(walletsByUserId.get(userId));
+    }
+
+    // userId owning the wallet, or null if not known yet
+    public Integer getUserIdForWallet(int walletId) {
+        return userIdsByWalletId.get(walletId);
+    }
+
+    public long stamp() {
+        return walletsByUserId.stamp();
+    }
+
+    // Cache a wallet loaded after stamp(); skipped if a balance change was committed meanwhile
+    public void put(Wallet wallet, long stamp) {
+        userIdsByWalletId.put(wallet.getWalletId(), wallet.getUserId());
+        walletsByUserId.put(wallet.getUserId(), copy(wallet), stamp);
+    }
+
+    // Call after a balance change commits
+    public void invalidateUser(int userId) {
+        walletsByUserId.invalidate(userId);
+    }
+
+    public void clear() {
+        walletsByUserId.clear();
+        userIdsByWalletId.clear();
+    }
+
+    public CacheStats getStats() {
+        return walletsByUserId.getStats();
+    }
+
+    private static Wallet copy(Wallet source) {
+        if (source == null) {
+            return null;
+        }
+        Wallet wallet = new Wallet();
+        wallet.setWalletId(source.getWalletId());
+        wallet.setUserId(source.getUserId());
+        wallet.setBalance(source.getBalance());
+        wallet.setCurrency(source.getCurrency());
+        wallet.setLastUpdated(source.getLastUpdated());
+        wallet.setStripeCount(source.getStripeCount());
+        return wallet;
+    }
+}
@@ -0,0 +1,399 @@
+package org.example.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+// Bounded JDBC connection pool. Borrowed connections are proxies: close() hands the
+// physical connection back to the pool instead of closing the socket.
+public class ConnectionPool implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(ConnectionPool.class);
+
+    // Connections returned this recently are trusted without an isValid() round-trip
+    private static final long ALIVE_BYPASS_WINDOW_MS = 500;
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final PoolConfig config;
+    private final ConnectionFactory factory;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> allConnections = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong closedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    public ConnectionPool(PoolConfig config) {
+        this(config, () -> DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword()));
+    }
+
+    public ConnectionPool(PoolConfig config, ConnectionFactory factory) {
+        this.config = config;
+        this.factory = factory;
+        this.permits = new Semaphore(config.getMaxPoolSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "revpay-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = config.getHousekeepingPeriodMs();
+        if (period > 0) {
+            housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+        }
+        logger.info("Connection pool started: maxPoolSize={}, minIdle={}, connectionTimeoutMs={}",
+                config.getMaxPoolSize(), config.getMinIdle(), config.getConnectionTimeoutMs());
+    }
+
+    // Borrow a connection, waiting up to connectionTimeoutMs for one to become free
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(config.getConnectionTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            logger.error("Timed out after {}ms waiting for a database connection: {}", config.getConnectionTimeoutMs(), getMetrics());
+            throw new SQLTransientConnectionException(
+                    "Connection not available, request timed out after " + config.getConnectionTimeoutMs() + "ms");
+        }
+
+        long borrowNumber = borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulate(waited);
+
+        try {
+            PooledConnection pooled = takeUsableConnection();
+            activeCount.incrementAndGet();
+            return pooled.lease(captureBorrowTrace(borrowNumber) ? new Throwable("Connection borrowed here") : null);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public PoolMetrics getMetrics() {
+        return new PoolMetrics(
+                allConnections.size(),
+                activeCount.get(),
+                idle.size(),
+                permits.getQueueLength(),
+                borrowCount.get(),
+                timeoutCount.get(),
+                TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                createdCount.get(),
+                closedCount.get(),
+                leakCount.get());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled, "pool shutdown");
+        }
+        logger.info("Connection pool closed: {}", getMetrics());
+    }
+
+    // Filling in a stack trace is the expensive part of a borrow, so only every
+    // leakTraceSampleEvery-th one records where it came from; leaks are still detected by age
+    private boolean captureBorrowTrace(long borrowNumber) {
+        int every = config.getLeakTraceSampleEvery();
+        return config.getLeakDetectionThresholdMs() > 0 && every > 0 && borrowNumber % every == 0;
+    }
+
+    // Most recently returned connection first, so cold ones age out via idle timeout
+    private PooledConnection takeUsableConnection() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            discard(pooled, "failed validation or exceeded max lifetime");
+        }
+        return createConnection();
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (pooled.isExpired(now)) {
+            return false;
+        }
+        if (now - pooled.lastReturnedAt < ALIVE_BYPASS_WINDOW_MS) {
+            return true;
+        }
+        try {
+            return pooled.raw.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            logger.warn("Connection validation failed", e);
+            return false;
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection raw = factory.create();
+        if (raw == null) {
+            throw new SQLException("Connection factory returned null");
+        }
+        PooledConnection pooled = new PooledConnection(raw);
+        allConnections.add(pooled);
+        createdCount.incrementAndGet();
+        logger.debug("Opened new pooled connection, total={}", allConnections.size());
+        return pooled;
+    }
+
+    private void release(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        boolean reusable = !closed && !pooled.broken && !pooled.isExpired(now);
+        try {
+            pooled.closeOpenStatements();
+            if (!pooled.raw.isClosed() && !pooled.raw.getAutoCommit()) {
+                // Caller left a transaction open; never hand uncommitted work to the next borrower
+                pooled.raw.rollback();
+                pooled.raw.setAutoCommit(true);
+            }
+            if (pooled.raw.isClosed()) {
+                reusable = false;
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to reset connection on return; discarding it", e);
+            reusable = false;
+        }
+
+        if (pooled.leakReported) {
+            logger.info("Previously reported leaked connection returned after {}ms", now - pooled.borrowedAt);
+        }
+        pooled.borrowedAt = 0;
+        pooled.borrowTrace = null;
+        pooled.leakReported = false;
+
+        if (reusable) {
+            pooled.lastReturnedAt = now;
+            idle.offerFirst(pooled);
+        } else {
+            discard(pooled, "broken, expired or pool closed");
+        }
+        activeCount.decrementAndGet();
+        permits.release();
+    }
+
+    private void discard(PooledConnection pooled, String reason) {
+        if (allConnections.remove(pooled)) {
+            closedCount.incrementAndGet();
+        }
+        try {
+            pooled.raw.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing discarded connection", e);
+        }
+        logger.debug("Closed pooled connection ({}), total={}", reason, allConnections.size());
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            for (PooledConnection pooled : idle.toArray(new PooledConnection[0])) {
+                boolean expired = pooled.isExpired(now);
+                boolean idleTooLong = config.getIdleTimeoutMs() > 0
+                        && now - pooled.lastReturnedAt > config.getIdleTimeoutMs()
+                        && idle.size() > config.getMinIdle();
+                if ((expired || idleTooLong) && idle.remove(pooled)) {
+                    discard(pooled, expired ? "max lifetime" : "idle timeout");
+                }
+            }
+
+            if (config.getLeakDetectionThresholdMs() > 0) {
+                for (PooledConnection pooled : allConnections) {
+                    long borrowedAt = pooled.borrowedAt;
+                    Throwable trace = pooled.borrowTrace;
+                    if (borrowedAt > 0 && !pooled.leakReported
+                            && now - borrowedAt > config.getLeakDetectionThresholdMs()) {
+                        pooled.leakReported = true;
+                        leakCount.incrementAndGet();
+                        if (trace != null) {
+                            logger.warn("Possible connection leak: connection held for {}ms on thread {}",
+                                    now - borrowedAt, pooled.borrowThread, trace);
+                        } else {
+                            logger.warn("Possible connection leak: connection held for {}ms on thread {} (borrow trace not sampled)",
+                                    now - borrowedAt, pooled.borrowThread);
+                        }
+                    }
+                }
+            }
+
+            // Each top-up takes a permit like a borrow does, so it cannot race a borrower that is
+            // opening a connection past maxPoolSize; never barge ahead of waiting borrowers
+            while (!closed && idle.size() < config.getMinIdle() && allConnections.size() < config.getMaxPoolSize()) {
+                if (permits.hasQueuedThreads() || !permits.tryAcquire()) {
+                    break;
+                }
+                try {
+                    if (allConnections.size() >= config.getMaxPoolSize()) {
+                        break;
+                    }
+                    PooledConnection pooled = createConnection();
+                    pooled.lastReturnedAt = now;
+                    idle.offerLast(pooled);
+                } finally {
+                    permits.release();
+                }
+            }
+
+            logger.debug("Pool housekeeping: {}", getMetrics());
+        } catch (SQLException e) {
+            logger.warn("Could not top up idle connections", e);
+        } catch (RuntimeException e) {
+            logger.error("Connection pool housekeeping failed", e);
+        }
+    }
+
+    private static boolean isFatal(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLNonTransientConnectionException || (state != null && state.startsWith("08"));
+    }
+
+    // Physical connection plus pool bookkeeping
+    private final class PooledConnection {
+        private final Connection raw;
+        private final long createdAt = System.currentTimeMillis();
+        private final List<Statement> openStatements = new ArrayList<>();
+        private volatile long lastReturnedAt = createdAt;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowTrace;
+        private volatile String borrowThread;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        private PooledConnection(Connection raw) {
+            this.raw = raw;
+        }
+
+        private boolean isExpired(long now) {
+            return config.getMaxLifetimeMs() > 0 && now - createdAt > config.getMaxLifetimeMs();
+        }
+
+        // Each borrow gets its own proxy so a stale reference cannot touch the next borrower's session
+        private Connection lease(Throwable trace) {
+            borrowedAt = System.currentTimeMillis();
+            borrowTrace = trace;
+            borrowThread = Thread.currentThread().getName();
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new ConnectionLease(this));
+        }
+
+        private synchronized void track(Statement statement) {
+            openStatements.add(statement);
+        }
+
+        private synchronized void closeOpenStatements() {
+            for (Statement statement : openStatements) {
+                try {
+                    if (!statement.isClosed()) {
+                        statement.close();
+                    }
+                } catch (SQLException e) {
+                    logger.debug("Error closing statement on connection return", e);
+                }
+            }
+            openStatements.clear();
+        }
+    }
+
+    private final class ConnectionLease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private ConnectionLease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || pooled.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.raw + "]";
+                default:
+                    break;
+            }
+
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            try {
+                Object result = method.invoke(pooled.raw, args);
+                if (result instanceof Statement statement) {
+                    pooled.track(statement);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException se && isFatal(se)) {
+                    pooled.broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+}
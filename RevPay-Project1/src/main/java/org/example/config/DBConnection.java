@@ -1,31 +1,48 @@
 package org.example.config;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class DBConnection {
-    private static Connection connection;
+    private static volatile ConnectionPool pool;
     private DBConnection() {}
     private static final Logger logger = LogManager.getLogger(DBConnection.class);
 
-    private static Connection getConnection(){
-        String url = "jdbc:mysql://localhost:3306/revpay_db";
-        String user = "root";
-        String password = "root123";
-        try{
-            if(connection == null || connection.isClosed()){
-                connection = DriverManager.getConnection(url, user, password);
+    private static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DBConnection.class) {
+                if (pool == null) {
+                    pool = new ConnectionPool(PoolConfig.fromSystemProperties());
+                }
+                current = pool;
             }
-        }catch(SQLException se){
-            logger.error("Failed to establish database connection", se);
         }
-        return connection;
+        return current;
     }
 
-    public static Connection getInstance(){
-        return getConnection();
+    // Borrow a pooled connection; closing it returns it to the pool
+    public static Connection getInstance() throws SQLException {
+        return getPool().getConnection();
+    }
+
+    public static PoolMetrics getPoolMetrics() {
+        return getPool().getMetrics();
+    }
+
+    // Replace the pool with one built from the given config (server mode, load tests)
+    public static synchronized void configure(PoolConfig config) {
+        shutdown();
+        pool = new ConnectionPool(config);
+    }
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            logger.info("Shutting down connection pool: {}", pool.getMetrics());
+            pool.close();
+            pool = null;
+        }
     }
 }
@@ -0,0 +1,132 @@
+package org.example.config;
+
+public class PoolConfig {
+
+    private String url = "jdbc:mysql://localhost:3306/revpay_db";
+    private String user = "root";
+    private String password = "root123";
+
+    private int maxPoolSize = 10;
+    private int minIdle = 2;
+    private long connectionTimeoutMs = 30_000;      // max wait for a free connection
+    private int validationTimeoutSeconds = 5;        // Connection.isValid() timeout on borrow
+    private long idleTimeoutMs = 600_000;            // evict idle connections above minIdle after this
+    private long maxLifetimeMs = 1_800_000;          // retire connections older than this
+    private long leakDetectionThresholdMs = 60_000;  // 0 disables leak reporting
+    private int leakTraceSampleEvery = 64;           // record the borrow stack trace on every Nth borrow; 1 = all, 0 = none
+    private long housekeepingPeriodMs = 30_000;
+
+    // Build config from -Drevpay.db.* / -Drevpay.pool.* system properties, falling back to defaults
+    public static PoolConfig fromSystemProperties() {
+        PoolConfig config = new PoolConfig();
+        config.setUrl(System.getProperty("revpay.db.url", config.getUrl()));
+        config.setUser(System.getProperty("revpay.db.user", config.getUser()));
+        config.setPassword(System.getProperty("revpay.db.password", config.getPassword()));
+        config.setMaxPoolSize(Integer.getInteger("revpay.pool.maxSize", config.getMaxPoolSize()));
+        config.setMinIdle(Integer.getInteger("revpay.pool.minIdle", config.getMinIdle()));
+        config.setConnectionTimeoutMs(Long.getLong("revpay.pool.connectionTimeoutMs", config.getConnectionTimeoutMs()));
+        config.setValidationTimeoutSeconds(Integer.getInteger("revpay.pool.validationTimeoutSeconds", config.getValidationTimeoutSeconds()));
+        config.setIdleTimeoutMs(Long.getLong("revpay.pool.idleTimeoutMs", config.getIdleTimeoutMs()));
+        config.setMaxLifetimeMs(Long.getLong("revpay.pool.maxLifetimeMs", config.getMaxLifetimeMs()));
+        config.setLeakDetectionThresholdMs(Long.getLong("revpay.pool.leakDetectionThresholdMs", config.getLeakDetectionThresholdMs()));
+        config.setLeakTraceSampleEvery(Integer.getInteger("revpay.pool.leakTraceSampleEvery", config.getLeakTraceSampleEvery()));
+        config.setHousekeepingPeriodMs(Long.getLong("revpay.pool.housekeepingPeriodMs", config.getHousekeepingPeriodMs()));
+        return config;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public void setUser(String user) {
+        this.user = user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public long getConnectionTimeoutMs() {
+        return connectionTimeoutMs;
+    }
+
+    public void setConnectionTimeoutMs(long connectionTimeoutMs) {
+        this.connectionTimeoutMs = connectionTimeoutMs;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public long getMaxLifetimeMs() {
+        return maxLifetimeMs;
+    }
+
+    public void setMaxLifetimeMs(long maxLifetimeMs) {
+        this.maxLifetimeMs = maxLifetimeMs;
+    }
+
+    public long getLeakDetectionThresholdMs() {
+        return leakDetectionThresholdMs;
+    }
+
+    public void setLeakDetectionThresholdMs(long leakDetectionThresholdMs) {
+        this.leakDetectionThresholdMs = leakDetectionThresholdMs;
+    }
+
+    public int getLeakTraceSampleEvery() {
+        return leakTraceSampleEvery;
+    }
+
+    public void setLeakTraceSampleEvery(int leakTraceSampleEvery) {
+        this.leakTraceSampleEvery = leakTraceSampleEvery;
+    }
+
+    public long getHousekeepingPeriodMs() {
+        return housekeepingPeriodMs;
+    }
+
+    public void setHousekeepingPeriodMs(long housekeepingPeriodMs) {
+        this.housekeepingPeriodMs = housekeepingPeriodMs;
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.config;
+
+// Point-in-time snapshot of connection pool counters
+public class PoolMetrics {
+
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int threadsAwaiting;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long totalWaitMs;
+    private final long maxWaitMs;
+    private final long createdCount;
+    private final long closedCount;
+    private final long leakCount;
+
+    public PoolMetrics(int totalConnections, int activeConnections, int idleConnections, int threadsAwaiting,
+                       long borrowCount, long timeoutCount, long totalWaitMs, long maxWaitMs,
+                       long createdCount, long closedCount, long leakCount) {
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.threadsAwaiting = threadsAwaiting;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.totalWaitMs = totalWaitMs;
+        this.maxWaitMs = maxWaitMs;
+        this.createdCount = createdCount;
+        this.closedCount = closedCount;
+        this.leakCount = leakCount;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getThreadsAwaiting() {
+        return threadsAwaiting;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getTotalWaitMs() {
+        return totalWaitMs;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs;
+    }
+
+    public double getAverageWaitMs() {
+        return borrowCount == 0 ? 0.0 : (double) totalWaitMs / borrowCount;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getClosedCount() {
+        return closedCount;
+    }
+
+    public long getLeakCount() {
+        return leakCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoolMetrics[total=%d, active=%d, idle=%d, awaiting=%d, borrows=%d, timeouts=%d, avgWaitMs=%.2f, maxWaitMs=%d, created=%d, closed=%d, leaks=%d]",
+                totalConnections, activeConnections, idleConnections, threadsAwaiting, borrowCount, timeoutCount,
+                getAverageWaitMs(), maxWaitMs, createdCount, closedCount, leakCount);
+    }
+}
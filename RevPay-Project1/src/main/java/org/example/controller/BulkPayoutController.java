@@ -0,0 +1,70 @@
+package org.example.controller;
+
+import org.example.model.BulkPayoutReport;
+import org.example.model.PayoutItem;
+import org.example.model.PayoutItemResult;
+import org.example.service.BulkPayoutService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.UUID;
+
+public class BulkPayoutController {
+
+    private static final Logger logger = LogManager.getLogger(BulkPayoutController.class);
+    private final BulkPayoutService bulkPayoutService = new BulkPayoutService();
+    private final Scanner scanner = new Scanner(System.in);
+
+    public void bulkPayout(int businessUserId) {
+        logger.info("\n======= BULK PAYOUT =======");
+        logger.info("Enter one payout per line as: recipient email/phone/name, amount[, note]");
+        logger.info("Press Enter on an empty line to finish");
+
+        List<PayoutItem> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        while (true) {
+            String line = scanner.nextLine().trim();
+            if (line.isEmpty()) {
+                break;
+            }
+            String[] parts = line.split(",", 3);
+            if (parts.length < 2) {
+                logger.warn("Expected: recipient, amount[, note]");
+                continue;
+            }
+            try {
+                BigDecimal amount = new BigDecimal(parts[1].trim());
+                String note = parts.length == 3 ? parts[2].trim() : null;
+                items.add(new PayoutItem(parts[0].trim(), amount, note));
+                total = total.add(amount);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid amount: {}", parts[1].trim());
+            }
+        }
+
+        if (items.isEmpty()) {
+            logger.info("No payouts entered.");
+            return;
+        }
+
+        logger.info("Pay {} recipients a total of ₹{}? (y/n): ", items.size(), total);
+        if (!scanner.nextLine().trim().equalsIgnoreCase("y")) {
+            logger.info("Bulk payout cancelled.");
+            return;
+        }
+
+        // One key per confirmed batch, so an internal retry of this call cannot pay twice
+        BulkPayoutReport report = bulkPayoutService.payout(businessUserId, items, UUID.randomUUID().toString());
+        for (PayoutItemResult result : report.getResults()) {
+            logger.info("{} ₹{} → {}", result.getItem().getIdentifier(), result.getItem().getAmount(), result.getStatus());
+        }
+        logger.info("Paid {} of {} recipients, total ₹{}", report.getPaidCount(), items.size(), report.getTotalPaid());
+        if (report.getPayerBalance() != null) {
+            logger.info("Remaining balance: ₹{}", report.getPayerBalance());
+        }
+    }
+}
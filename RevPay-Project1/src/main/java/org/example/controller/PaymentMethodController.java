@@ -66,7 +66,12 @@ public class PaymentMethodController {
         String cardHolderName = sc.nextLine();
 
         logger.info("Enter expiry date (MM/YY):");
-        String expiryDate = sc.nextLine();
+        String expiryDate = sc.nextLine().trim();
+
+        if (!paymentMethodService.validateExpiryDate(expiryDate)) {
+            logger.warn("Invalid expiry date. Use MM/YY or MM/YYYY.");
+            return;
+        }
 
         logger.info("Enter CVV:");
         String cvv = sc.nextLine();
@@ -0,0 +1,151 @@
+package org.example.dao;
+
+import org.example.cache.CacheStats;
+import org.example.cache.IdempotencyCache;
+import org.example.config.DBConnection;
+import org.example.model.IdempotencyRecord;
+import org.example.model.PayoutItem;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.HexFormat;
+import java.util.List;
+
+// Idempotency keys for money movements. claim() runs on the caller's connection at the start
+// of its DB transaction: the key row commits together with the movement, or not at all. A
+// concurrent duplicate blocks on the key's unique index until the first attempt finishes and
+// then sees the duplicate. Each key stores a fingerprint of its request, so a retry replays
+// only when it is the same request; the same key reused for anything else is rejected.
+// Completed keys are remembered in IdempotencyCache.
+public class IdempotencyDAO {
+
+    private static final Logger logger = LogManager.getLogger(IdempotencyDAO.class);
+
+    public static final String SEND_MONEY = "SEND_MONEY";
+    public static final String DEPOSIT = "DEPOSIT";
+    public static final String WITHDRAW = "WITHDRAW";
+    public static final String INVOICE_PAYMENT = "INVOICE_PAYMENT";
+    public static final String BULK_PAYOUT = "BULK_PAYOUT";
+
+    private final IdempotencyCache cache;
+
+    // Default constructor for production use: shares the process-wide cache
+    public IdempotencyDAO() {
+        this(IdempotencyCache.shared());
+    }
+
+    // Constructor for testing with dependency injection
+    public IdempotencyDAO(IdempotencyCache cache) {
+        this.cache = cache;
+    }
+
+    // SHA-256 of the operation and the request parameters that must match for a replay.
+    // Amounts are compared by value, so 50 and 50.00 are the same request.
+    public static String fingerprint(String operation, Object... parts) {
+        StringBuilder request = new StringBuilder(operation);
+        for (Object part : parts) {
+            request.append('|').append(part instanceof BigDecimal amount ? amount.stripTrailingZeros().toPlainString() : part);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // A bulk payout is the same request only with the same items in the same order
+    public static String payoutFingerprint(List<PayoutItem> items) {
+        Object[] parts = new Object[items.size() * 2];
+        for (int i = 0; i < items.size(); i++) {
+            parts[2 * i] = items.get(i).getIdentifier();
+            parts[2 * i + 1] = items.get(i).getAmount();
+        }
+        return fingerprint(BULK_PAYOUT, parts);
+    }
+
+    // Returns false if the key was already used by this user (the caller should check findReplay
+    // and roll back)
+    public boolean claim(Connection conn, int userId, String key, String operation, String fingerprint) throws SQLException {
+        String sql = "INSERT INTO idempotency_keys (user_id, idem_key, operation, request_hash) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setString(2, key);
+            ps.setString(3, operation);
+            ps.setString(4, fingerprint);
+            ps.executeUpdate();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            logger.info("Duplicate idempotency key for userId={} operation={}", userId, operation);
+            return false;
+        }
+    }
+
+    // After claim() returned false: the committed record to replay, or null if the key guarded
+    // a different request and this one must be rejected
+    public IdempotencyRecord findReplay(Connection conn, int userId, String key, String fingerprint) throws SQLException {
+        IdempotencyRecord record = load(conn, userId, key);
+        if (record == null || !record.matches(fingerprint)) {
+            logger.warn("Idempotency key reused for a different request by userId={}", userId);
+            return null;
+        }
+        return record;
+    }
+
+    // Links the key to the ledger row its movement wrote, in the same DB transaction
+    public void recordTransaction(Connection conn, int userId, String key, int transactionId) throws SQLException {
+        String sql = "UPDATE idempotency_keys SET transaction_id = ? WHERE user_id = ? AND idem_key = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, transactionId);
+            ps.setInt(2, userId);
+            ps.setString(3, key);
+            ps.executeUpdate();
+        }
+    }
+
+    // Call after the transaction that claimed the key has committed
+    public void markCompleted(int userId, String key, IdempotencyRecord record) {
+        cache.markCompleted(userId, key, record);
+    }
+
+    // Whether this same request already committed under the key; served from the cache when hot.
+    // A key used for a different request is not "completed" here: the movement's own claim
+    // rejects it.
+    public boolean isCompleted(int userId, String key, String fingerprint) {
+        IdempotencyRecord record = cache.getCompleted(userId, key);
+        if (record == null) {
+            try (Connection conn = DBConnection.getInstance()) {
+                record = load(conn, userId, key);
+            } catch (SQLException e) {
+                logger.error("Error checking idempotency key for userId={}", userId, e);
+            }
+            if (record != null) {
+                cache.markCompleted(userId, key, record);
+            }
+        }
+        return record != null && record.matches(fingerprint);
+    }
+
+    private static IdempotencyRecord load(Connection conn, int userId, String key) throws SQLException {
+        String sql = "SELECT request_hash, transaction_id FROM idempotency_keys WHERE user_id = ? AND idem_key = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setString(2, key);
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            int transactionId = rs.getInt("transaction_id");
+            return new IdempotencyRecord(rs.getString("request_hash"), rs.wasNull() ? null : transactionId);
+        }
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+}
@@ -1,10 +1,13 @@
 package org.example.dao;
 
 import org.example.config.DBConnection;
+import org.example.model.IdempotencyRecord;
 import org.example.model.Invoice;
+import org.example.model.InvoiceTotal;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,28 +15,39 @@ import java.util.List;
 public class InvoiceDAO {
 
     private static final Logger logger = LogManager.getLogger(InvoiceDAO.class);
+    private final RollupDAO rollupDAO = new RollupDAO();
+    private final IdempotencyDAO idempotencyDAO = new IdempotencyDAO();
 
 
     public int createInvoice(Invoice invoice) {
         String sql = "INSERT INTO invoices (business_user_id, customer_identifier, total_amount, status, due_date) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setInt(1, invoice.getBusinessUserId());
-            ps.setString(2, invoice.getCustomerIdentifier());
-            ps.setBigDecimal(3, invoice.getTotalAmount());
-            ps.setString(4, invoice.getStatus());
-            ps.setDate(5, Date.valueOf(invoice.getDueDate()));
-            
-            int rows = ps.executeUpdate();
-            if (rows > 0) {
-                ResultSet rs = ps.getGeneratedKeys();
-                if (rs.next()) {
-                    int invoiceId = rs.getInt(1);
-                    logger.info("Invoice created: invoiceId={}", invoiceId);
-                    return invoiceId;
+        try (Connection conn = DBConnection.getInstance()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setInt(1, invoice.getBusinessUserId());
+                ps.setString(2, invoice.getCustomerIdentifier());
+                ps.setBigDecimal(3, invoice.getTotalAmount());
+                ps.setString(4, invoice.getStatus());
+                ps.setDate(5, Date.valueOf(invoice.getDueDate()));
+
+                int rows = ps.executeUpdate();
+                if (rows > 0) {
+                    ResultSet rs = ps.getGeneratedKeys();
+                    if (rs.next()) {
+                        int invoiceId = rs.getInt(1);
+                        rollupDAO.applyInvoiceStatusChange(conn, invoice.getBusinessUserId(), invoice.getCustomerIdentifier(),
+                                invoice.getTotalAmount(), null, invoice.getStatus());
+                        conn.commit();
+                        logger.info("Invoice created: invoiceId={}", invoiceId);
+                        return invoiceId;
+                    }
                 }
+                conn.rollback();
+                return 0;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
-            return 0;
         } catch (SQLException e) {
             logger.error("Error creating invoice", e);
             return 0;
@@ -76,15 +90,63 @@ public class InvoiceDAO {
     }
 
 
+    // Update status and move the invoice between customer_invoice_totals buckets atomically
     public boolean updateInvoiceStatus(int invoiceId, String status) {
+        return updateInvoiceStatus(invoiceId, status, null);
+    }
+
+    // As above, guarded by an idempotency key scoped to the invoice's business (null for none).
+    // A key that already committed this same change returns true without changing the invoice
+    // again; a key already used for another invoice or status returns false.
+    public boolean updateInvoiceStatus(int invoiceId, String status, String idempotencyKey) {
+        String lockSql = "SELECT business_user_id, customer_identifier, total_amount, status FROM invoices WHERE invoice_id = ? FOR UPDATE";
         String sql = "UPDATE invoices SET status = ? WHERE invoice_id = ?";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, status);
-            ps.setInt(2, invoiceId);
-            int rows = ps.executeUpdate();
-            logger.info("Invoice status updated: invoiceId={}, status={}, rows={}", invoiceId, status, rows);
-            return rows > 0;
+        try (Connection conn = DBConnection.getInstance()) {
+            conn.setAutoCommit(false);
+            try {
+                int businessUserId;
+                String customerIdentifier;
+                BigDecimal totalAmount;
+                String oldStatus;
+                try (PreparedStatement ps = conn.prepareStatement(lockSql)) {
+                    ps.setInt(1, invoiceId);
+                    ResultSet rs = ps.executeQuery();
+                    if (!rs.next()) {
+                        conn.rollback();
+                        logger.warn("Invoice not found: invoiceId={}", invoiceId);
+                        return false;
+                    }
+                    businessUserId = rs.getInt("business_user_id");
+                    customerIdentifier = rs.getString("customer_identifier");
+                    totalAmount = rs.getBigDecimal("total_amount");
+                    oldStatus = rs.getString("status");
+                }
+                String fingerprint = idempotencyKey != null
+                        ? IdempotencyDAO.fingerprint(IdempotencyDAO.INVOICE_PAYMENT, invoiceId, status) : null;
+                if (idempotencyKey != null
+                        && !idempotencyDAO.claim(conn, businessUserId, idempotencyKey, IdempotencyDAO.INVOICE_PAYMENT, fingerprint)) {
+                    boolean replay = idempotencyDAO.findReplay(conn, businessUserId, idempotencyKey, fingerprint) != null;
+                    conn.rollback();
+                    return replay;
+                }
+
+                int rows;
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, status);
+                    ps.setInt(2, invoiceId);
+                    rows = ps.executeUpdate();
+                }
+                rollupDAO.applyInvoiceStatusChange(conn, businessUserId, customerIdentifier, totalAmount, oldStatus, status);
+                conn.commit();
+                if (idempotencyKey != null) {
+                    idempotencyDAO.markCompleted(businessUserId, idempotencyKey, new IdempotencyRecord(fingerprint, null));
+                }
+                logger.info("Invoice status updated: invoiceId={}, status={}, rows={}", invoiceId, status, rows);
+                return rows > 0;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             logger.error("Error updating invoice status", e);
             return false;
@@ -128,6 +190,29 @@ public class InvoiceDAO {
     }
 
 
+    // Invoice count and value per (customer, status) for one business, read from the maintained rollup
+    public List<InvoiceTotal> getInvoiceTotalsByCustomer(int businessUserId) {
+        String sql = "SELECT customer_identifier, status, invoice_count, total_amount " +
+                     "FROM customer_invoice_totals WHERE business_user_id = ? AND invoice_count > 0";
+        List<InvoiceTotal> totals = new ArrayList<>();
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, businessUserId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                InvoiceTotal total = new InvoiceTotal();
+                total.setCustomerIdentifier(rs.getString("customer_identifier"));
+                total.setStatus(rs.getString("status"));
+                total.setInvoiceCount(rs.getLong("invoice_count"));
+                total.setTotalAmount(rs.getBigDecimal("total_amount"));
+                totals.add(total);
+            }
+        } catch (SQLException e) {
+            logger.error("Error fetching invoice totals for businessUserId={}", businessUserId, e);
+        }
+        return totals;
+    }
+
     private Invoice mapResultSetToInvoice(ResultSet rs) throws SQLException {
         Invoice invoice = new Invoice();
         invoice.setInvoiceId(rs.getInt("invoice_id"));
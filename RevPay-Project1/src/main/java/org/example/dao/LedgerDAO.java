@@ -0,0 +1,179 @@
+package org.example.dao;
+
+import org.example.config.DBConnection;
+import org.example.model.LedgerMismatch;
+import org.example.model.Transaction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Append-only double-entry ledger. appendEntries runs on the caller's connection so the
+// entries commit (or roll back) with the balance change. Balances are derived as the latest
+// wallet_balance_snapshots row plus the entries after it, so reads never sum the whole history.
+public class LedgerDAO {
+
+    private static final Logger logger = LogManager.getLogger(LedgerDAO.class);
+
+    // Latest snapshot per wallet, joined on the (wallet_id, last_entry_id) primary key
+    private static final String LATEST_SNAPSHOT =
+            "LEFT JOIN wallet_balance_snapshots s ON s.wallet_id = w.wallet_id AND s.last_entry_id = " +
+            "(SELECT MAX(s2.last_entry_id) FROM wallet_balance_snapshots s2 WHERE s2.wallet_id = w.wallet_id) ";
+
+    // Two entries per successful ledger row: -amount on the source, +amount on the destination.
+    // A missing wallet (deposit source, withdrawal destination) is the external account (NULL).
+    public void appendEntries(Connection conn, List<Transaction> transactions) throws SQLException {
+        String sql = "INSERT INTO ledger_entries (transaction_id, wallet_id, amount, created_at) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int entries = 0;
+            for (Transaction t : transactions) {
+                if (t.getStatus() != null && !"SUCCESS".equals(t.getStatus())) {
+                    continue; // failed rows moved no money
+                }
+                Timestamp createdAt = Timestamp.valueOf(t.getCreatedAt() != null ? t.getCreatedAt() : LocalDateTime.now());
+                bindEntry(ps, t.getTransactionId(), t.getFromWalletId(), t.getAmount().negate(), createdAt);
+                ps.addBatch();
+                bindEntry(ps, t.getTransactionId(), t.getToWalletId(), t.getAmount(), createdAt);
+                ps.addBatch();
+                entries += 2;
+            }
+            if (entries > 0) {
+                ps.executeBatch();
+            }
+        }
+    }
+
+    // Current balance derived from the ledger
+    public BigDecimal getBalance(int walletId) {
+        return getBalanceAt(walletId, null);
+    }
+
+    // Balance as of a point in time (null = now): the latest snapshot taken as of that time plus
+    // the entries after it. History starts at the opening snapshot written by sql/07.
+    public BigDecimal getBalanceAt(int walletId, LocalDateTime at) {
+        String sql = "SELECT COALESCE(s.balance, 0) + COALESCE((SELECT SUM(e.amount) FROM ledger_entries e " +
+                     "WHERE e.wallet_id = w.wallet_id AND e.entry_id > COALESCE(s.last_entry_id, 0) AND e.created_at <= ?), 0) AS balance " +
+                     "FROM wallets w LEFT JOIN wallet_balance_snapshots s ON s.wallet_id = w.wallet_id AND s.last_entry_id = " +
+                     "(SELECT MAX(s2.last_entry_id) FROM wallet_balance_snapshots s2 WHERE s2.wallet_id = w.wallet_id AND s2.as_of <= ?) " +
+                     "WHERE w.wallet_id = ?";
+        Timestamp asOf = Timestamp.valueOf(at != null ? at : LocalDateTime.now());
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, asOf);
+            ps.setTimestamp(2, asOf);
+            ps.setInt(3, walletId);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                return rs.getBigDecimal("balance");
+            }
+        } catch (SQLException e) {
+            logger.error("Error deriving ledger balance for walletId={}", walletId, e);
+        }
+        return null; // wallet not found
+    }
+
+    // Highest entry_id created at or before the cutoff (0 if none). Entries are snapshotted only
+    // up to here, so transactions still in flight when the job starts are never half-counted.
+    public long getSnapshotWatermark(LocalDateTime cutoff) throws SQLException {
+        String sql = "SELECT entry_id FROM ledger_entries WHERE created_at <= ? ORDER BY created_at DESC, entry_id DESC LIMIT 1";
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // New snapshot for every wallet in [fromWalletId, toWalletId) with entries since its last
+    // one, up to the watermark; one set-based statement per chunk. Returns snapshots written.
+    public int takeSnapshots(int fromWalletId, int toWalletId, long watermark, LocalDateTime asOf) throws SQLException {
+        String sql = "INSERT INTO wallet_balance_snapshots (wallet_id, last_entry_id, balance, as_of) " +
+                     "SELECT w.wallet_id, MAX(e.entry_id), COALESCE(s.balance, 0) + SUM(e.amount), ? " +
+                     "FROM wallets w " + LATEST_SNAPSHOT +
+                     "JOIN ledger_entries e ON e.wallet_id = w.wallet_id AND e.entry_id > COALESCE(s.last_entry_id, 0) AND e.entry_id <= ? " +
+                     "WHERE w.wallet_id >= ? AND w.wallet_id < ? " +
+                     "GROUP BY w.wallet_id, s.balance";
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(asOf));
+            ps.setLong(2, watermark);
+            ps.setInt(3, fromWalletId);
+            ps.setInt(4, toWalletId);
+            return ps.executeUpdate();
+        }
+    }
+
+    // Wallets in [fromWalletId, toWalletId) whose stored balance (main row plus stripes) differs
+    // from the ledger. A single SELECT is one consistent InnoDB read, so no locks are taken and
+    // writers are never blocked.
+    public List<LedgerMismatch> findBalanceMismatches(int fromWalletId, int toWalletId) throws SQLException {
+        String sql = "SELECT w.wallet_id, " +
+                     "w.balance + COALESCE((SELECT SUM(st.balance) FROM wallet_stripes st WHERE st.wallet_id = w.wallet_id), 0) AS wallet_balance, " +
+                     "COALESCE(s.balance, 0) + COALESCE((SELECT SUM(e.amount) FROM ledger_entries e " +
+                     "WHERE e.wallet_id = w.wallet_id AND e.entry_id > COALESCE(s.last_entry_id, 0)), 0) AS ledger_balance " +
+                     "FROM wallets w " + LATEST_SNAPSHOT +
+                     "WHERE w.wallet_id >= ? AND w.wallet_id < ? " +
+                     "HAVING wallet_balance <> ledger_balance";
+        List<LedgerMismatch> mismatches = new ArrayList<>();
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, fromWalletId);
+            ps.setInt(2, toWalletId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                mismatches.add(new LedgerMismatch(rs.getInt("wallet_id"),
+                        rs.getBigDecimal("wallet_balance"), rs.getBigDecimal("ledger_balance")));
+            }
+        }
+        return mismatches;
+    }
+
+    // Ledger rows in [fromTransactionId, toTransactionId) whose entries do not form one balanced pair
+    public List<Integer> findUnbalancedTransactions(int fromTransactionId, int toTransactionId) throws SQLException {
+        String sql = "SELECT transaction_id FROM ledger_entries WHERE transaction_id >= ? AND transaction_id < ? " +
+                     "GROUP BY transaction_id HAVING SUM(amount) <> 0 OR COUNT(*) <> 2";
+        List<Integer> transactionIds = new ArrayList<>();
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, fromTransactionId);
+            ps.setInt(2, toTransactionId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                transactionIds.add(rs.getInt(1));
+            }
+        }
+        return transactionIds;
+    }
+
+    public int getMaxWalletId() throws SQLException {
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(wallet_id), 0) FROM wallets")) {
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public int getMaxTransactionId() throws SQLException {
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(transaction_id), 0) FROM ledger_entries")) {
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void bindEntry(PreparedStatement ps, int transactionId, int walletId, BigDecimal amount,
+                                  Timestamp createdAt) throws SQLException {
+        ps.setInt(1, transactionId);
+        if (walletId > 0) {
+            ps.setInt(2, walletId);
+        } else {
+            ps.setNull(2, Types.INTEGER);
+        }
+        ps.setBigDecimal(3, amount);
+        ps.setTimestamp(4, createdAt);
+    }
+}
@@ -52,9 +52,9 @@ public class MoneyRequestDAO {
         return list;
     }
 
-    // Update request status
+    // Update request status; only a PENDING request changes, so two concurrent ACCEPTs cannot both transfer
     public boolean updateRequestStatus(int requestId, String status) {
-        String sql = "UPDATE money_requests SET status = ? WHERE request_id = ?";
+        String sql = "UPDATE money_requests SET status = ? WHERE request_id = ? AND status = 'PENDING'";
         try (Connection con = DBConnection.getInstance();
              PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setString(1, status);
@@ -65,6 +65,18 @@ public class MoneyRequestDAO {
         }
     }
 
+    // Put an accepted request back to PENDING when its transfer was refused
+    public boolean revertAcceptance(int requestId) {
+        String sql = "UPDATE money_requests SET status = 'PENDING' WHERE request_id = ? AND status = 'ACCEPTED'";
+        try (Connection con = DBConnection.getInstance();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, requestId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     // Get request by ID
     public MoneyRequest getRequestById(int requestId) {
         String sql = "SELECT request_id, from_user_id, to_user_id, amount, status, note, created_at FROM money_requests WHERE request_id = ?";
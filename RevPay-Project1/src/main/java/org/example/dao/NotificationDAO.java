@@ -1,5 +1,7 @@
 package org.example.dao;
 
+import org.example.cache.CacheStats;
+import org.example.cache.UnreadCountCache;
 import org.example.config.DBConnection;
 import org.example.model.Notification;
 import org.apache.logging.log4j.LogManager;
@@ -7,34 +9,188 @@ import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
+// Unread counts are materialised in notification_counters (sql/09) and maintained in the same
+// transaction as every write that changes them, so the badge is a primary-key read (or a
+// cache hit) however many notifications a user has. A user's counter row
+// is created on the first count read, from one last COUNT(*); until then increments and
+// decrements find no row and are no-ops, which the initial COUNT already reflects.
 public class NotificationDAO {
 
     private static final Logger logger = LogManager.getLogger(NotificationDAO.class);
 
+    // A keyed batch that loses a race to another writer is redone at most this many times
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+
+    private static final String ADJUST_COUNTER =
+            "UPDATE notification_counters SET unread_count = GREATEST(unread_count + ?, 0) WHERE user_id = ?";
+
+    private final UnreadCountCache unreadCounts;
+
+    // Default constructor for production use: shares the process-wide unread count cache
+    public NotificationDAO() {
+        this(UnreadCountCache.shared());
+    }
+
+    // Constructor for testing with dependency injection
+    public NotificationDAO(UnreadCountCache unreadCounts) {
+        this.unreadCounts = unreadCounts;
+    }
+
     // Create notification
     public int createNotification(Notification notification) {
         String sql = "INSERT INTO notifications (user_id, type, message, is_read) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setInt(1, notification.getUserId());
-            ps.setString(2, notification.getType());
-            ps.setString(3, notification.getMessage());
-            ps.setBoolean(4, notification.isRead());
-            
-            int rows = ps.executeUpdate();
-            if (rows > 0) {
-                ResultSet rs = ps.getGeneratedKeys();
-                if (rs.next()) {
-                    return rs.getInt(1);
+        Connection conn = null;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+            int notificationId = 0;
+            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setInt(1, notification.getUserId());
+                ps.setString(2, notification.getType());
+                ps.setString(3, notification.getMessage());
+                ps.setBoolean(4, notification.isRead());
+
+                int rows = ps.executeUpdate();
+                if (rows > 0) {
+                    ResultSet rs = ps.getGeneratedKeys();
+                    if (rs.next()) {
+                        notificationId = rs.getInt(1);
+                    }
                 }
             }
-            return 0;
+            if (notificationId > 0 && !notification.isRead()) {
+                adjustCounter(conn, notification.getUserId(), 1);
+            }
+            conn.commit();
+            return notificationId;
         } catch (SQLException e) {
             logger.error("Error creating notification", e);
+            rollback(conn);
+            return 0;
+        } finally {
+            release(conn);
+            unreadCounts.invalidateUser(notification.getUserId());
+        }
+    }
+
+    // Insert many notifications with one multi-row INSERT; returns the number of notifications
+    // now stored (written, or already present by dedupe_key), or -1 on error. created_at is
+    // taken from the notification so queued rows keep their event time. A row whose dedupe_key
+    // already exists is skipped, which makes outbox redelivery harmless; those rows are filtered
+    // out up front so a redelivered notification is not counted as unread twice. If another
+    // writer stores some of the same keys between the lookup and the INSERT (two relays
+    // publishing one event), the INSERT inserts fewer rows than looked up; the batch is then
+    // rolled back and redone in a new transaction, whose lookup sees the other writer's rows.
+    public int createNotifications(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
             return 0;
         }
+        Connection conn = null;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+            for (int attempt = 1; ; attempt++) {
+                List<Notification> fresh = withoutDelivered(conn, notifications);
+                if (!fresh.isEmpty()) {
+                    if (insertBatch(conn, fresh) < fresh.size()) {
+                        conn.rollback();
+                        if (attempt == MAX_BATCH_ATTEMPTS) {
+                            logger.warn("Notification batch kept racing another writer; giving up after {} attempts", attempt);
+                            return -1;
+                        }
+                        continue;
+                    }
+                    // Sorted so concurrent batches lock counter rows in the same order
+                    Map<Integer, Integer> unreadByUser = new TreeMap<>();
+                    for (Notification notification : fresh) {
+                        if (!notification.isRead()) {
+                            unreadByUser.merge(notification.getUserId(), 1, Integer::sum);
+                        }
+                    }
+                    adjustCounters(conn, unreadByUser);
+                }
+                conn.commit();
+                logger.debug("Notification batch written: rows={}, alreadyDelivered={}",
+                        fresh.size(), notifications.size() - fresh.size());
+                return notifications.size();
+            }
+        } catch (SQLException e) {
+            logger.error("Error creating {} notifications", notifications.size(), e);
+            rollback(conn);
+            return -1;
+        } finally {
+            release(conn);
+            for (Notification notification : notifications) {
+                unreadCounts.invalidateUser(notification.getUserId());
+            }
+        }
+    }
+
+    // Returns the number of rows inserted: a duplicate dedupe_key is ignored and not counted
+    // (it waits for the writer holding that key to finish first)
+    private int insertBatch(Connection conn, List<Notification> notifications) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT IGNORE INTO notifications (user_id, type, message, is_read, created_at, dedupe_key) VALUES ");
+        for (int i = 0; i < notifications.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?)");
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int idx = 1;
+            for (Notification notification : notifications) {
+                ps.setInt(idx++, notification.getUserId());
+                ps.setString(idx++, notification.getType());
+                ps.setString(idx++, notification.getMessage());
+                ps.setBoolean(idx++, notification.isRead());
+                ps.setTimestamp(idx++, Timestamp.valueOf(notification.getCreatedAt() != null
+                        ? notification.getCreatedAt() : java.time.LocalDateTime.now()));
+                ps.setString(idx++, notification.getDedupeKey());
+            }
+            return ps.executeUpdate();
+        }
+    }
+
+    // Drop notifications whose dedupe_key is already stored. Only keyed (outbox) notifications
+    // can be redelivered, so batches without keys skip the lookup.
+    private List<Notification> withoutDelivered(Connection conn, List<Notification> notifications) throws SQLException {
+        List<String> keys = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (notification.getDedupeKey() != null) {
+                keys.add(notification.getDedupeKey());
+            }
+        }
+        if (keys.isEmpty()) {
+            return notifications;
+        }
+        StringBuilder sql = new StringBuilder("SELECT dedupe_key FROM notifications WHERE dedupe_key IN (");
+        for (int i = 0; i < keys.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        Set<String> delivered = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < keys.size(); i++) {
+                ps.setString(i + 1, keys.get(i));
+            }
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                delivered.add(rs.getString(1));
+            }
+        }
+        if (delivered.isEmpty()) {
+            return notifications;
+        }
+        List<Notification> fresh = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (notification.getDedupeKey() == null || !delivered.contains(notification.getDedupeKey())) {
+                fresh.add(notification);
+            }
+        }
+        return fresh;
     }
 
     // Get unread notifications for user
@@ -56,48 +212,146 @@ public class NotificationDAO {
         return notifications;
     }
 
-    // Get unread notification count
+    // Get unread notification count: a cache hit, else one primary-key read of the counter
     public int getUnreadCount(int userId) {
-        String sql = "SELECT COUNT(*) FROM notifications WHERE user_id = ? AND is_read = FALSE";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
+        Integer cached = unreadCounts.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = unreadCounts.stamp();
+        try (Connection conn = DBConnection.getInstance()) {
+            Integer count = readCounter(conn, userId);
+            if (count == null) {
+                initCounter(conn, userId);
+                count = readCounter(conn, userId);
+            }
+            if (count == null) {
+                return 0;
             }
+            unreadCounts.put(userId, count, stamp);
+            return count;
         } catch (SQLException e) {
             logger.error("Error getting unread count", e);
         }
         return 0;
     }
 
-    // Mark notification as read
+    private Integer readCounter(Connection conn, int userId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT unread_count FROM notification_counters WHERE user_id = ?")) {
+            ps.setInt(1, userId);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getInt(1) : null;
+        }
+    }
+
+    // First read for this user: seed the counter from the notifications table. INSERT ... SELECT
+    // takes shared locks on the rows it counts, so a notification being inserted concurrently
+    // is either counted here or finds the row and increments it, never both or neither.
+    private void initCounter(Connection conn, int userId) throws SQLException {
+        String sql = "INSERT INTO notification_counters (user_id, unread_count) " +
+                     "SELECT ?, COUNT(*) FROM notifications WHERE user_id = ? AND is_read = FALSE " +
+                     "ON DUPLICATE KEY UPDATE user_id = user_id";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setInt(2, userId);
+            ps.executeUpdate();
+        }
+    }
+
+    private void adjustCounter(Connection conn, int userId, int delta) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(ADJUST_COUNTER)) {
+            ps.setInt(1, delta);
+            ps.setInt(2, userId);
+            ps.executeUpdate();
+        }
+    }
+
+    // One batch for every user a notification batch touched
+    private void adjustCounters(Connection conn, Map<Integer, Integer> deltasByUser) throws SQLException {
+        if (deltasByUser.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(ADJUST_COUNTER)) {
+            for (Map.Entry<Integer, Integer> entry : deltasByUser.entrySet()) {
+                ps.setInt(1, entry.getValue());
+                ps.setInt(2, entry.getKey());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    // Mark notification as read; the counter only moves if it was unread
     public boolean markAsRead(int notificationId) {
-        String sql = "UPDATE notifications SET is_read = TRUE WHERE notification_id = ?";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, notificationId);
-            return ps.executeUpdate() > 0;
+        Connection conn = null;
+        int userId = 0;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+            boolean wasUnread;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT user_id, is_read FROM notifications WHERE notification_id = ? FOR UPDATE")) {
+                ps.setInt(1, notificationId);
+                ResultSet rs = ps.executeQuery();
+                if (!rs.next()) {
+                    conn.rollback();
+                    return false;
+                }
+                userId = rs.getInt("user_id");
+                wasUnread = !rs.getBoolean("is_read");
+            }
+            if (wasUnread) {
+                try (PreparedStatement ps = conn.prepareStatement("UPDATE notifications SET is_read = TRUE WHERE notification_id = ?")) {
+                    ps.setInt(1, notificationId);
+                    ps.executeUpdate();
+                }
+                adjustCounter(conn, userId, -1);
+            }
+            conn.commit();
+            return true;
         } catch (SQLException e) {
             logger.error("Error marking notification as read", e);
+            rollback(conn);
             return false;
+        } finally {
+            release(conn);
+            if (userId > 0) {
+                unreadCounts.invalidateUser(userId);
+            }
         }
     }
 
     // Mark all notifications as read for user
     public boolean markAllAsRead(int userId) {
         String sql = "UPDATE notifications SET is_read = TRUE WHERE user_id = ? AND is_read = FALSE";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            return ps.executeUpdate() > 0;
+        Connection conn = null;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+            int rows;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, userId);
+                rows = ps.executeUpdate();
+            }
+            if (rows > 0) {
+                adjustCounter(conn, userId, -rows);
+            }
+            conn.commit();
+            return rows > 0;
         } catch (SQLException e) {
             logger.error("Error marking all notifications as read", e);
+            rollback(conn);
             return false;
+        } finally {
+            release(conn);
+            unreadCounts.invalidateUser(userId);
         }
     }
 
+    public CacheStats getUnreadCountCacheStats() {
+        return unreadCounts.getStats();
+    }
+
     // Get all notifications (read and unread) for user
     public List<Notification> getAllNotifications(int userId) {
         String sql = "SELECT * FROM notifications WHERE user_id = ? ORDER BY created_at DESC LIMIT 50";
@@ -117,6 +371,28 @@ public class NotificationDAO {
         return notifications;
     }
 
+    private static void rollback(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException e) {
+                logger.error("Rollback failed", e);
+            }
+        }
+    }
+
+    // Return the connection to the pool with autocommit restored
+    private static void release(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                logger.error("Failed to release connection", e);
+            }
+        }
+    }
+
     // Helper method to map ResultSet to Notification
     private Notification mapResultSetToNotification(ResultSet rs) throws SQLException {
         Notification notification = new Notification();
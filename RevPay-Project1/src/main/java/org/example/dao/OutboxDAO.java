@@ -0,0 +1,143 @@
+package org.example.dao;
+
+import org.example.config.DBConnection;
+import org.example.model.OutboxEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Outbox of post-commit side effects. insertEvent runs on the caller's connection so the
+// event commits (or rolls back) with the balance change; OutboxRelay reads and acknowledges.
+public class OutboxDAO {
+
+    private static final Logger logger = LogManager.getLogger(OutboxDAO.class);
+
+    // Retry delay doubles per failed attempt, capped at 5 minutes
+    private static final int MAX_BACKOFF_SECONDS = 300;
+
+    public void insertEvent(Connection conn, OutboxEvent event) throws SQLException {
+        String sql = "INSERT INTO outbox_events (event_type, transaction_id, from_user_id, to_user_id, amount, sender_balance) " +
+                     "VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, event.getEventType());
+            ps.setInt(2, event.getTransactionId());
+            ps.setInt(3, event.getFromUserId());
+            ps.setInt(4, event.getToUserId());
+            ps.setBigDecimal(5, event.getAmount());
+            ps.setBigDecimal(6, event.getSenderBalance());
+            ps.executeUpdate();
+            ResultSet keys = ps.getGeneratedKeys();
+            if (keys.next()) {
+                event.setEventId(keys.getLong(1));
+            }
+        }
+    }
+
+    // Many events in one JDBC batch on the caller's connection; event IDs are not read back
+    public void insertEvents(Connection conn, List<OutboxEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO outbox_events (event_type, transaction_id, from_user_id, to_user_id, amount, sender_balance) " +
+                     "VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (OutboxEvent event : events) {
+                ps.setString(1, event.getEventType());
+                ps.setInt(2, event.getTransactionId());
+                ps.setInt(3, event.getFromUserId());
+                ps.setInt(4, event.getToUserId());
+                ps.setBigDecimal(5, event.getAmount());
+                ps.setBigDecimal(6, event.getSenderBalance());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    // Oldest unpublished events that are due, in commit order
+    public List<OutboxEvent> fetchPending(int limit) {
+        String sql = "SELECT * FROM outbox_events WHERE published_at IS NULL AND available_at <= CURRENT_TIMESTAMP " +
+                     "ORDER BY event_id LIMIT ?";
+        List<OutboxEvent> events = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, limit);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                events.add(mapResultSetToEvent(rs));
+            }
+        } catch (SQLException e) {
+            logger.error("Error fetching pending outbox events", e);
+        }
+        return events;
+    }
+
+    public boolean markPublished(Collection<Long> eventIds) {
+        return updateEvents("UPDATE outbox_events SET published_at = CURRENT_TIMESTAMP WHERE event_id IN (%s)", eventIds);
+    }
+
+    // Push the events back with exponential backoff; they stay pending, so delivery is at-least-once
+    public boolean markRetry(Collection<Long> eventIds) {
+        return updateEvents("UPDATE outbox_events SET attempts = attempts + 1, " +
+                            "available_at = TIMESTAMPADD(SECOND, LEAST(POW(2, attempts), " + MAX_BACKOFF_SECONDS + "), CURRENT_TIMESTAMP) " +
+                            "WHERE event_id IN (%s)", eventIds);
+    }
+
+    // Delete up to limit events published before the cutoff (idx_outbox_pending serves the range);
+    // returns the number deleted, or -1 on error
+    public int purgePublished(LocalDateTime cutoff, int limit) {
+        String sql = "DELETE FROM outbox_events WHERE published_at IS NOT NULL AND published_at < ? " +
+                     "ORDER BY published_at LIMIT ?";
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+            ps.setInt(2, limit);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error purging published outbox events", e);
+            return -1;
+        }
+    }
+
+    private boolean updateEvents(String template, Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return true;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(eventIds.size(), "?"));
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(String.format(template, placeholders))) {
+            int idx = 1;
+            for (long eventId : eventIds) {
+                ps.setLong(idx++, eventId);
+            }
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.error("Error updating {} outbox events", eventIds.size(), e);
+            return false;
+        }
+    }
+
+    private OutboxEvent mapResultSetToEvent(ResultSet rs) throws SQLException {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventId(rs.getLong("event_id"));
+        event.setEventType(rs.getString("event_type"));
+        event.setTransactionId(rs.getInt("transaction_id"));
+        event.setFromUserId(rs.getInt("from_user_id"));
+        event.setToUserId(rs.getInt("to_user_id"));
+        event.setAmount(rs.getBigDecimal("amount"));
+        event.setSenderBalance(rs.getBigDecimal("sender_balance"));
+        event.setAttempts(rs.getInt("attempts"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt != null) {
+            event.setCreatedAt(createdAt.toLocalDateTime());
+        }
+        return event;
+    }
+}
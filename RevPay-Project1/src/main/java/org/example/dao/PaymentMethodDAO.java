@@ -9,22 +9,66 @@ import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
+// Cards carry plaintext display metadata next to the encrypted details (sql/10), so listing
+// them needs no decryption. Rows written before the columns existed are filled by
+// CardMetadataBackfillJob.
 public class PaymentMethodDAO {
 
     private static final Logger logger = LogManager.getLogger(PaymentMethodDAO.class);
 
-    // Add payment method
+    // Add payment method; the generated payment_id is set on it. A default method is inserted
+    // with is_default already set, after clearing the previous default in the same transaction.
+    // Default inserts first lock the user's users row, which always exists: the clearing UPDATE
+    // alone takes only gap locks when the user has no default yet, and two such transactions
+    // would then deadlock on their inserts. With the row lock they queue, and exactly one
+    // default remains.
     public boolean addPaymentMethod(PaymentMethod paymentMethod) {
-        String sql = "INSERT INTO payment_methods (user_id, method_type, encrypted_details, is_default) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, paymentMethod.getUserId());
-            ps.setString(2, paymentMethod.getMethodType());
-            ps.setString(3, paymentMethod.getEncryptedDetails());
-            ps.setBoolean(4, paymentMethod.isDefault());
-            int rows = ps.executeUpdate();
-            logger.info("Payment method added for userId={}, rows={}", paymentMethod.getUserId(), rows);
-            return rows > 0;
+        String lockSql = "SELECT user_id FROM users WHERE user_id = ? FOR UPDATE";
+        String clearSql = "UPDATE payment_methods SET is_default = 0 WHERE user_id = ? AND is_default = 1";
+        String sql = "INSERT INTO payment_methods (user_id, method_type, encrypted_details, is_default, " +
+                     "card_brand, card_last4, card_expiry) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = DBConnection.getInstance()) {
+            conn.setAutoCommit(false);
+            try {
+                if (paymentMethod.isDefault()) {
+                    try (PreparedStatement ps = conn.prepareStatement(lockSql)) {
+                        ps.setInt(1, paymentMethod.getUserId());
+                        if (!ps.executeQuery().next()) {
+                            conn.rollback();
+                            logger.warn("Cannot add payment method: no user with userId={}", paymentMethod.getUserId());
+                            return false;
+                        }
+                    }
+                    try (PreparedStatement ps = conn.prepareStatement(clearSql)) {
+                        ps.setInt(1, paymentMethod.getUserId());
+                        ps.executeUpdate();
+                    }
+                }
+                try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setInt(1, paymentMethod.getUserId());
+                    ps.setString(2, paymentMethod.getMethodType());
+                    ps.setString(3, paymentMethod.getEncryptedDetails());
+                    ps.setBoolean(4, paymentMethod.isDefault());
+                    ps.setString(5, paymentMethod.getCardBrand());
+                    ps.setString(6, paymentMethod.getCardLast4());
+                    ps.setString(7, paymentMethod.getCardExpiry());
+                    if (ps.executeUpdate() > 0) {
+                        ResultSet keys = ps.getGeneratedKeys();
+                        if (keys.next()) {
+                            paymentMethod.setPaymentId(keys.getInt(1));
+                            conn.commit();
+                            logger.info("Payment method added: paymentId={} for userId={}, default={}",
+                                    paymentMethod.getPaymentId(), paymentMethod.getUserId(), paymentMethod.isDefault());
+                            return true;
+                        }
+                    }
+                }
+                conn.rollback();
+                return false;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             logger.error("Error adding payment method for userId={}", paymentMethod.getUserId(), e);
             return false;
@@ -40,14 +84,7 @@ public class PaymentMethodDAO {
             ps.setInt(1, userId);
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
-                PaymentMethod pm = new PaymentMethod();
-                pm.setPaymentId(rs.getInt("payment_id"));
-                pm.setUserId(rs.getInt("user_id"));
-                pm.setMethodType(rs.getString("method_type"));
-                pm.setEncryptedDetails(rs.getString("encrypted_details"));
-                pm.setDefault(rs.getBoolean("is_default"));
-                pm.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                methods.add(pm);
+                methods.add(mapPaymentMethod(rs));
             }
             logger.info("Retrieved {} payment methods for userId={}", methods.size(), userId);
         } catch (SQLException e) {
@@ -64,14 +101,7 @@ public class PaymentMethodDAO {
             ps.setInt(1, paymentId);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
-                PaymentMethod pm = new PaymentMethod();
-                pm.setPaymentId(rs.getInt("payment_id"));
-                pm.setUserId(rs.getInt("user_id"));
-                pm.setMethodType(rs.getString("method_type"));
-                pm.setEncryptedDetails(rs.getString("encrypted_details"));
-                pm.setDefault(rs.getBoolean("is_default"));
-                pm.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                return pm;
+                return mapPaymentMethod(rs);
             }
         } catch (SQLException e) {
             logger.error("Error fetching payment method by ID={}", paymentId, e);
@@ -123,13 +153,93 @@ public class PaymentMethodDAO {
             if (conn != null) {
                 try {
                     conn.setAutoCommit(true);
+                    conn.close(); // return to pool
                 } catch (SQLException e) {
-                    logger.error("Failed to reset autocommit", e);
+                    logger.error("Failed to release connection", e);
                 }
             }
         }
     }
 
+    // Swap in a re-encrypted value. Conditional on the value that was decrypted, so a concurrent
+    // re-encryption or card update is never overwritten; false means someone else got there first.
+    public boolean updateEncryptedDetails(int paymentId, String expected, String replacement) {
+        String sql = "UPDATE payment_methods SET encrypted_details = ? WHERE payment_id = ? AND encrypted_details = ?";
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, replacement);
+            ps.setInt(2, paymentId);
+            ps.setString(3, expected);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.error("Error updating encrypted details for paymentId={}", paymentId, e);
+            return false;
+        }
+    }
+
+    // Next page (by payment_id) of payment methods not yet under the given key prefix, e.g. "v2:"
+    public List<PaymentMethod> getPaymentMethodsNotEncryptedWith(String prefix, int afterPaymentId, int limit) {
+        String sql = "SELECT payment_id, encrypted_details FROM payment_methods " +
+                     "WHERE payment_id > ? AND encrypted_details NOT LIKE ? ORDER BY payment_id LIMIT ?";
+        List<PaymentMethod> methods = new ArrayList<>();
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, afterPaymentId);
+            ps.setString(2, prefix + "%");
+            ps.setInt(3, limit);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                PaymentMethod pm = new PaymentMethod();
+                pm.setPaymentId(rs.getInt("payment_id"));
+                pm.setEncryptedDetails(rs.getString("encrypted_details"));
+                methods.add(pm);
+            }
+        } catch (SQLException e) {
+            logger.error("Error fetching payment methods to re-encrypt after ID={}", afterPaymentId, e);
+        }
+        return methods;
+    }
+
+    // Fill in display metadata for a card that has none yet. Never overwrites existing metadata,
+    // so the backfill job and a lazy backfill on read can race harmlessly.
+    public boolean updateDisplayMetadata(int paymentId, String cardBrand, String cardLast4, String cardExpiry) {
+        String sql = "UPDATE payment_methods SET card_brand = ?, card_last4 = ?, card_expiry = ? " +
+                     "WHERE payment_id = ? AND card_last4 IS NULL";
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, cardBrand);
+            ps.setString(2, cardLast4);
+            ps.setString(3, cardExpiry);
+            ps.setInt(4, paymentId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.error("Error updating display metadata for paymentId={}", paymentId, e);
+            return false;
+        }
+    }
+
+    // Next page (by payment_id) of cards still missing display metadata
+    public List<PaymentMethod> getCardsWithoutDisplayMetadata(int afterPaymentId, int limit) {
+        String sql = "SELECT payment_id, encrypted_details FROM payment_methods " +
+                     "WHERE payment_id > ? AND method_type = 'CARD' AND card_last4 IS NULL ORDER BY payment_id LIMIT ?";
+        List<PaymentMethod> methods = new ArrayList<>();
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, afterPaymentId);
+            ps.setInt(2, limit);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                PaymentMethod pm = new PaymentMethod();
+                pm.setPaymentId(rs.getInt("payment_id"));
+                pm.setEncryptedDetails(rs.getString("encrypted_details"));
+                methods.add(pm);
+            }
+        } catch (SQLException e) {
+            logger.error("Error fetching cards without display metadata after ID={}", afterPaymentId, e);
+        }
+        return methods;
+    }
+
     // Delete payment method
     public boolean deletePaymentMethod(int paymentId, int userId) {
         String sql = "DELETE FROM payment_methods WHERE payment_id = ? AND user_id = ?";
@@ -154,18 +264,25 @@ public class PaymentMethodDAO {
             ps.setInt(1, userId);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
-                PaymentMethod pm = new PaymentMethod();
-                pm.setPaymentId(rs.getInt("payment_id"));
-                pm.setUserId(rs.getInt("user_id"));
-                pm.setMethodType(rs.getString("method_type"));
-                pm.setEncryptedDetails(rs.getString("encrypted_details"));
-                pm.setDefault(rs.getBoolean("is_default"));
-                pm.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                return pm;
+                return mapPaymentMethod(rs);
             }
         } catch (SQLException e) {
             logger.error("Error fetching default payment method for userId={}", userId, e);
         }
         return null;
     }
+
+    private static PaymentMethod mapPaymentMethod(ResultSet rs) throws SQLException {
+        PaymentMethod pm = new PaymentMethod();
+        pm.setPaymentId(rs.getInt("payment_id"));
+        pm.setUserId(rs.getInt("user_id"));
+        pm.setMethodType(rs.getString("method_type"));
+        pm.setEncryptedDetails(rs.getString("encrypted_details"));
+        pm.setDefault(rs.getBoolean("is_default"));
+        pm.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        pm.setCardBrand(rs.getString("card_brand"));
+        pm.setCardLast4(rs.getString("card_last4"));
+        pm.setCardExpiry(rs.getString("card_expiry"));
+        return pm;
+    }
 }
@@ -0,0 +1,138 @@
+package org.example.dao;
+
+import org.example.config.DBConnection;
+import org.example.model.RetentionChunk;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Chunked purge of rows that are finished with: read notifications and settled money requests
+// older than a cutoff. Every statement is bounded by a primary-key range or an ID list of at
+// most one chunk, runs in autocommit, and so holds its row locks only for that chunk.
+public class RetentionDAO {
+
+    private static final Logger logger = LogManager.getLogger(RetentionDAO.class);
+
+    public enum Table {
+        NOTIFICATIONS("notifications", "notification_id", "is_read = TRUE"),
+        MONEY_REQUESTS("money_requests", "request_id", "status IN ('ACCEPTED', 'DECLINED', 'CANCELED')");
+
+        private final String name;
+        private final String idColumn;
+        private final String finishedPredicate;
+
+        Table(String name, String idColumn, String finishedPredicate) {
+            this.name = name;
+            this.idColumn = idColumn;
+            this.finishedPredicate = finishedPredicate;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // Rows that may be removed: finished and created before the cutoff (bound last)
+        private String expired() {
+            return finishedPredicate + " AND created_at < ?";
+        }
+    }
+
+    // {MIN(id), MAX(id)}, or null for an empty table
+    public long[] getIdBounds(Table table) throws SQLException {
+        String sql = "SELECT MIN(" + table.idColumn + "), MAX(" + table.idColumn + ") FROM " + table.name;
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ResultSet rs = ps.executeQuery();
+            if (rs.next() && rs.getObject(1) != null) {
+                return new long[]{rs.getLong(1), rs.getLong(2)};
+            }
+            return null;
+        }
+    }
+
+    // created_at of the first row at or after the given ID; a primary-key seek, used to find
+    // where the cutoff falls without scanning created_at
+    public LocalDateTime getCreatedAtFrom(Table table, long id) throws SQLException {
+        String sql = "SELECT created_at FROM " + table.name + " WHERE " + table.idColumn + " >= ? " +
+                     "ORDER BY " + table.idColumn + " LIMIT 1";
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, id);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                Timestamp createdAt = rs.getTimestamp(1);
+                return createdAt != null ? createdAt.toLocalDateTime() : null;
+            }
+            return null;
+        }
+    }
+
+    // Expired rows with fromId <= id < toId, every column, for archiving
+    public RetentionChunk fetchExpired(Table table, long fromId, long toId, LocalDateTime cutoff) throws SQLException {
+        String sql = "SELECT * FROM " + table.name + " WHERE " + table.idColumn + " >= ? AND " + table.idColumn + " < ? " +
+                     "AND " + table.expired() + " ORDER BY " + table.idColumn;
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, fromId);
+            ps.setLong(2, toId);
+            ps.setTimestamp(3, Timestamp.valueOf(cutoff));
+            ResultSet rs = ps.executeQuery();
+            ResultSetMetaData meta = rs.getMetaData();
+            int columnCount = meta.getColumnCount();
+            List<String> columns = new ArrayList<>(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                columns.add(meta.getColumnLabel(i));
+            }
+            RetentionChunk chunk = new RetentionChunk(columns);
+            while (rs.next()) {
+                String[] row = new String[columnCount];
+                for (int i = 1; i <= columnCount; i++) {
+                    row[i - 1] = rs.getString(i);
+                }
+                chunk.add(rs.getLong(table.idColumn), row);
+            }
+            return chunk;
+        }
+    }
+
+    // Delete archived rows by ID. The expiry predicate is re-checked, so a row that changed
+    // after it was read is kept (it is then merely also in the archive).
+    public int deleteByIds(Table table, List<Long> ids, LocalDateTime cutoff) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder("DELETE FROM ").append(table.name).append(" WHERE ").append(table.idColumn).append(" IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") AND ").append(table.expired());
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int idx = 1;
+            for (long id : ids) {
+                ps.setLong(idx++, id);
+            }
+            ps.setTimestamp(idx, Timestamp.valueOf(cutoff));
+            int rows = ps.executeUpdate();
+            logger.debug("Retention deleted {} of {} archived {} rows", rows, ids.size(), table.name);
+            return rows;
+        }
+    }
+
+    // Delete expired rows with fromId <= id < toId without reading them (archiving disabled)
+    public int deleteExpired(Table table, long fromId, long toId, LocalDateTime cutoff) throws SQLException {
+        String sql = "DELETE FROM " + table.name + " WHERE " + table.idColumn + " >= ? AND " + table.idColumn + " < ? " +
+                     "AND " + table.expired();
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, fromId);
+            ps.setLong(2, toId);
+            ps.setTimestamp(3, Timestamp.valueOf(cutoff));
+            return ps.executeUpdate();
+        }
+    }
+}
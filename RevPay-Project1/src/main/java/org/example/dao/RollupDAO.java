@@ -0,0 +1,258 @@
+package org.example.dao;
+
+import org.example.config.DBConnection;
+import org.example.model.BusinessAnalytics;
+import org.example.model.Transaction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Pre-aggregated analytics: per-wallet daily/monthly rollups and per-customer invoice totals.
+// The apply* methods run on the caller's connection so the rollup commits (or rolls back)
+// together with the row that produced it.
+public class RollupDAO {
+
+    private static final Logger logger = LogManager.getLogger(RollupDAO.class);
+
+    private static final String WALLET_UPSERT =
+            "INSERT INTO %s (wallet_id, period_start, received_amount, sent_amount, received_count, txn_count, success_count, failed_count) " +
+            "VALUES (?, ?, ?, ?, ?, 1, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "received_amount = received_amount + VALUES(received_amount), " +
+            "sent_amount = sent_amount + VALUES(sent_amount), " +
+            "received_count = received_count + VALUES(received_count), " +
+            "txn_count = txn_count + 1, " +
+            "success_count = success_count + VALUES(success_count), " +
+            "failed_count = failed_count + VALUES(failed_count)";
+
+    private static final String INVOICE_UPSERT =
+            "INSERT INTO customer_invoice_totals (business_user_id, customer_identifier, status, invoice_count, total_amount) " +
+            "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "invoice_count = invoice_count + VALUES(invoice_count), total_amount = total_amount + VALUES(total_amount)";
+
+    // Add one ledger row to the daily and monthly rollups of both wallets it touches
+    public void applyTransaction(Connection conn, Transaction t) throws SQLException {
+        applyTransactions(conn, List.of(t));
+    }
+
+    // Add many ledger rows with one batch per rollup table, however many rows there are
+    public void applyTransactions(Connection conn, List<Transaction> transactions) throws SQLException {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        for (String[] table : new String[][]{{"wallet_daily_rollups", "D"}, {"wallet_monthly_rollups", "M"}}) {
+            try (PreparedStatement ps = conn.prepareStatement(String.format(WALLET_UPSERT, table[0]))) {
+                for (Transaction t : transactions) {
+                    LocalDate day = (t.getCreatedAt() != null ? t.getCreatedAt() : LocalDateTime.now()).toLocalDate();
+                    Date period = Date.valueOf("D".equals(table[1]) ? day : day.withDayOfMonth(1));
+                    boolean success = t.getStatus() == null || "SUCCESS".equals(t.getStatus());
+                    BigDecimal amount = success ? t.getAmount() : BigDecimal.ZERO;
+                    if (t.getFromWalletId() > 0) {
+                        bindWalletDelta(ps, t.getFromWalletId(), period, BigDecimal.ZERO, amount, 0, success);
+                        ps.addBatch();
+                    }
+                    if (t.getToWalletId() > 0 && t.getToWalletId() != t.getFromWalletId()) {
+                        bindWalletDelta(ps, t.getToWalletId(), period, amount, BigDecimal.ZERO, success ? 1 : 0, success);
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+        }
+    }
+
+    // Move one invoice between status buckets (oldStatus null = newly created)
+    public void applyInvoiceStatusChange(Connection conn, int businessUserId, String customerIdentifier,
+                                         BigDecimal amount, String oldStatus, String newStatus) throws SQLException {
+        if (newStatus != null && newStatus.equals(oldStatus)) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(INVOICE_UPSERT)) {
+            if (oldStatus != null) {
+                bindInvoiceDelta(ps, businessUserId, customerIdentifier, oldStatus, -1, amount.negate());
+                ps.addBatch();
+            }
+            if (newStatus != null) {
+                bindInvoiceDelta(ps, businessUserId, customerIdentifier, newStatus, 1, amount);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    // Transaction metrics for the dashboard from rollups: O(days + months), not O(transactions).
+    // "Last 7 days" is the 7 calendar days ending today.
+    public BusinessAnalytics summarizeWallet(int walletId, LocalDate today) {
+        String monthlySql = "SELECT COALESCE(SUM(txn_count), 0) AS total_count, COALESCE(SUM(success_count), 0) AS success_count, " +
+                            "COALESCE(SUM(received_amount), 0) AS total_received, COALESCE(SUM(sent_amount), 0) AS total_sent, " +
+                            "COALESCE(SUM(CASE WHEN period_start = ? THEN received_amount END), 0) AS month_revenue " +
+                            "FROM wallet_monthly_rollups WHERE wallet_id = ?";
+        String dailySql = "SELECT COALESCE(SUM(CASE WHEN period_start = ? THEN received_amount END), 0) AS today_revenue, " +
+                          "COALESCE(SUM(received_count), 0) AS week_count, COALESCE(SUM(received_amount), 0) AS week_revenue " +
+                          "FROM wallet_daily_rollups WHERE wallet_id = ? AND period_start >= ?";
+        BusinessAnalytics analytics = new BusinessAnalytics();
+
+        try (Connection conn = DBConnection.getInstance()) {
+            try (PreparedStatement ps = conn.prepareStatement(monthlySql)) {
+                ps.setDate(1, Date.valueOf(today.withDayOfMonth(1)));
+                ps.setInt(2, walletId);
+                ResultSet rs = ps.executeQuery();
+                if (rs.next()) {
+                    analytics.setTotalTransactions(rs.getLong("total_count"));
+                    analytics.setSuccessfulTransactions(rs.getLong("success_count"));
+                    analytics.setTotalReceived(rs.getBigDecimal("total_received"));
+                    analytics.setTotalSent(rs.getBigDecimal("total_sent"));
+                    analytics.setMonthRevenue(rs.getBigDecimal("month_revenue"));
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(dailySql)) {
+                ps.setDate(1, Date.valueOf(today));
+                ps.setInt(2, walletId);
+                ps.setDate(3, Date.valueOf(today.minusDays(6)));
+                ResultSet rs = ps.executeQuery();
+                if (rs.next()) {
+                    analytics.setTodayRevenue(rs.getBigDecimal("today_revenue"));
+                    analytics.setLast7DaysCount(rs.getLong("week_count"));
+                    analytics.setLast7DaysRevenue(rs.getBigDecimal("week_revenue"));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error reading rollups for walletId={}", walletId, e);
+        }
+
+        return analytics;
+    }
+
+    // Recompute the wallet rollups for wallet_id in [fromWalletId, toWalletId) from raw transactions.
+    // INSERT ... SELECT takes shared locks on the scanned rows, so concurrent writers to these
+    // wallets wait for the chunk to commit instead of being double counted.
+    public int rebuildWalletRollups(int fromWalletId, int toWalletId) throws SQLException {
+        String source = "SELECT from_wallet_id AS wallet_id, created_at, 0 AS amount_in, " +
+                        "CASE WHEN status = 'SUCCESS' THEN amount ELSE 0 END AS amount_out, 0 AS count_in, status " +
+                        "FROM transactions WHERE from_wallet_id >= ? AND from_wallet_id < ? " +
+                        "UNION ALL " +
+                        "SELECT to_wallet_id, created_at, CASE WHEN status = 'SUCCESS' THEN amount ELSE 0 END, 0, " +
+                        "CASE WHEN status = 'SUCCESS' THEN 1 ELSE 0 END, status " +
+                        "FROM transactions WHERE to_wallet_id >= ? AND to_wallet_id < ? " +
+                        "AND (from_wallet_id IS NULL OR from_wallet_id <> to_wallet_id)";
+        String aggregate = "SELECT wallet_id, %s, SUM(amount_in), SUM(amount_out), SUM(count_in), COUNT(*), " +
+                           "SUM(status = 'SUCCESS'), SUM(status <> 'SUCCESS') FROM (" + source + ") s GROUP BY wallet_id, %s";
+        String[][] targets = {
+                {"wallet_daily_rollups", "DATE(created_at)"},
+                {"wallet_monthly_rollups", "DATE_FORMAT(created_at, '%Y-%m-01')"}
+        };
+
+        Connection conn = null;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+            int rows = 0;
+            for (String[] target : targets) {
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM " + target[0] + " WHERE wallet_id >= ? AND wallet_id < ?")) {
+                    ps.setInt(1, fromWalletId);
+                    ps.setInt(2, toWalletId);
+                    ps.executeUpdate();
+                }
+                String period = target[1];
+                String insert = "INSERT INTO " + target[0] + " (wallet_id, period_start, received_amount, sent_amount, " +
+                                "received_count, txn_count, success_count, failed_count) " +
+                                aggregate.replace("%s", period);
+                try (PreparedStatement ps = conn.prepareStatement(insert)) {
+                    ps.setInt(1, fromWalletId);
+                    ps.setInt(2, toWalletId);
+                    ps.setInt(3, fromWalletId);
+                    ps.setInt(4, toWalletId);
+                    rows += ps.executeUpdate();
+                }
+            }
+            conn.commit();
+            return rows;
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.close();
+            }
+        }
+    }
+
+    // Recompute customer_invoice_totals for one business from raw invoices
+    public int rebuildInvoiceTotals(int businessUserId) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM customer_invoice_totals WHERE business_user_id = ?")) {
+                ps.setInt(1, businessUserId);
+                ps.executeUpdate();
+            }
+            int rows;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO customer_invoice_totals (business_user_id, customer_identifier, status, invoice_count, total_amount) " +
+                    "SELECT business_user_id, customer_identifier, status, COUNT(*), SUM(total_amount) FROM invoices " +
+                    "WHERE business_user_id = ? GROUP BY business_user_id, customer_identifier, status")) {
+                ps.setInt(1, businessUserId);
+                rows = ps.executeUpdate();
+            }
+            conn.commit();
+            return rows;
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.close();
+            }
+        }
+    }
+
+    public int getMaxWalletId() throws SQLException {
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(wallet_id), 0) FROM wallets")) {
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public List<Integer> getInvoiceBusinessUserIds() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement("SELECT DISTINCT business_user_id FROM invoices")) {
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private static void bindWalletDelta(PreparedStatement ps, int walletId, Date period, BigDecimal received,
+                                        BigDecimal sent, int receivedCount, boolean success) throws SQLException {
+        ps.setInt(1, walletId);
+        ps.setDate(2, period);
+        ps.setBigDecimal(3, received);
+        ps.setBigDecimal(4, sent);
+        ps.setInt(5, receivedCount);
+        ps.setInt(6, success ? 1 : 0);
+        ps.setInt(7, success ? 0 : 1);
+    }
+
+    private static void bindInvoiceDelta(PreparedStatement ps, int businessUserId, String customerIdentifier,
+                                         String status, int count, BigDecimal amount) throws SQLException {
+        ps.setInt(1, businessUserId);
+        ps.setString(2, customerIdentifier);
+        ps.setString(3, status);
+        ps.setInt(4, count);
+        ps.setBigDecimal(5, amount);
+    }
+}
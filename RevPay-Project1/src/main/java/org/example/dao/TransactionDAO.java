@@ -2,112 +2,138 @@ package org.example.dao;
 
 import org.example.config.DBConnection;
 import org.example.model.Transaction;
+import org.example.model.TransactionCursor;
+import org.example.model.TransactionFilter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class TransactionDAO {
 
     private static final Logger logger = LogManager.getLogger(TransactionDAO.class);
 
-    // Log a transaction
-    public boolean logTransaction(Transaction transaction) {
-        String sql = "INSERT INTO transactions (from_wallet_id, to_wallet_id, amount, transaction_type, status, note, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            if (transaction.getFromWalletId() > 0) {
-                ps.setInt(1, transaction.getFromWalletId());
-            } else {
-                ps.setNull(1, Types.INTEGER);
-            }
-            
-            if (transaction.getToWalletId() > 0) {
-                ps.setInt(2, transaction.getToWalletId());
-            } else {
-                ps.setNull(2, Types.INTEGER);
-            }
-            
-            ps.setBigDecimal(3, transaction.getAmount());
-            ps.setString(4, transaction.getTransactionType());
-            ps.setString(5, transaction.getStatus() != null ? transaction.getStatus() : "SUCCESS");
-            ps.setString(6, transaction.getNote());
-            ps.setTimestamp(7, Timestamp.valueOf(transaction.getCreatedAt() != null ? transaction.getCreatedAt() : java.time.LocalDateTime.now()));
-            
-            int rows = ps.executeUpdate();
-            logger.info("Transaction logged: type={}, amount={}, rows={}", transaction.getTransactionType(), transaction.getAmount(), rows);
-            return rows > 0;
+    // Get transaction history by wallet ID (most recent 50)
+    public List<Transaction> getTransactionsByWalletId(int walletId) {
+        return getTransactionPage(walletId, null, 50);
+    }
+
+    // Get one page of history older than the cursor (null cursor = newest page).
+    // Cost is independent of how deep the page is: both branches seek straight to the cursor.
+    public List<Transaction> getTransactionPage(int walletId, TransactionCursor after, int limit) {
+        try {
+            return fetchPage(walletId, after, limit);
         } catch (SQLException e) {
-            logger.error("Error logging transaction", e);
-            return false;
+            logger.error("Error fetching transactions for walletId={}", walletId, e);
+            return new ArrayList<>();
         }
     }
 
-    // Get transaction history by wallet ID
-    public List<Transaction> getTransactionsByWalletId(int walletId) {
-        String sql = "SELECT * FROM transactions WHERE from_wallet_id = ? OR to_wallet_id = ? ORDER BY created_at DESC LIMIT 50";
-        List<Transaction> list = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, walletId);
-            ps.setInt(2, walletId);
-            ResultSet rs = ps.executeQuery();
-            
-            while (rs.next()) {
-                Transaction t = new Transaction();
-                t.setTransactionId(rs.getInt("transaction_id"));
-                t.setFromWalletId(rs.getInt("from_wallet_id"));
-                t.setToWalletId(rs.getInt("to_wallet_id"));
-                t.setAmount(rs.getBigDecimal("amount"));
-                t.setTransactionType(rs.getString("transaction_type"));
-                t.setStatus(rs.getString("status"));
-                t.setNote(rs.getString("note"));
-                t.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                list.add(t);
+    // Lazily stream the full history, newest first, fetching pageSize rows per query.
+    // No connection is held between pages, so slow consumers do not pin the pool.
+    public Stream<Transaction> streamTransactionsByWalletId(int walletId, int pageSize) {
+        Iterator<Transaction> iterator = new Iterator<>() {
+            private List<Transaction> page = List.of();
+            private int index;
+            private TransactionCursor cursor;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (index < page.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                try {
+                    page = fetchPage(walletId, cursor, pageSize);
+                } catch (SQLException e) {
+                    logger.error("Error streaming transactions for walletId={}", walletId, e);
+                    throw new RuntimeException(e);
+                }
+                index = 0;
+                exhausted = page.size() < pageSize;
+                if (!page.isEmpty()) {
+                    cursor = TransactionCursor.after(page.get(page.size() - 1));
+                }
+                return !page.isEmpty();
+            }
+
+            @Override
+            public Transaction next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(index++);
             }
-            
-            logger.info("Retrieved {} transactions for walletId={}", list.size(), walletId);
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // Callback variant of streamTransactionsByWalletId; returns the number of rows visited
+    public int forEachTransaction(int walletId, int pageSize, Consumer<Transaction> consumer) {
+        int[] count = {0};
+        streamTransactionsByWalletId(walletId, pageSize).forEach(t -> {
+            consumer.accept(t);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    // Get one page of history matching the filter; filtering happens before LIMIT so
+    // older matches are found instead of only those among the newest 50 rows
+    public List<Transaction> findTransactions(int walletId, TransactionFilter filter, TransactionCursor after, int limit) {
+        try {
+            return query(walletId, new TransactionQueryBuilder(walletId, filter, after, limit));
         } catch (SQLException e) {
-            logger.error("Error fetching transactions for walletId={}", walletId, e);
+            logger.error("Error fetching filtered transactions for walletId={}", walletId, e);
+            return new ArrayList<>();
         }
-        
-        return list;
     }
 
-    // Get transaction history by user ID
-    public List<Transaction> getTransactionsByUserId(int userId) {
-        String sql = "SELECT t.* FROM transactions t " +
-                     "JOIN wallets w ON (t.from_wallet_id = w.wallet_id OR t.to_wallet_id = w.wallet_id) " +
-                     "WHERE w.user_id = ? ORDER BY t.created_at DESC LIMIT 50";
+    private List<Transaction> fetchPage(int walletId, TransactionCursor after, int limit) throws SQLException {
+        return query(walletId, new TransactionQueryBuilder(walletId, null, after, limit));
+    }
+
+    private List<Transaction> query(int walletId, TransactionQueryBuilder query) throws SQLException {
         List<Transaction> list = new ArrayList<>();
-        
+
         try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, userId);
+             PreparedStatement ps = conn.prepareStatement(query.getSql())) {
+            query.bind(ps);
             ResultSet rs = ps.executeQuery();
-            
+
             while (rs.next()) {
-                Transaction t = new Transaction();
-                t.setTransactionId(rs.getInt("transaction_id"));
-                t.setFromWalletId(rs.getInt("from_wallet_id"));
-                t.setToWalletId(rs.getInt("to_wallet_id"));
-                t.setAmount(rs.getBigDecimal("amount"));
-                t.setTransactionType(rs.getString("transaction_type"));
-                t.setStatus(rs.getString("status"));
-                t.setNote(rs.getString("note"));
-                t.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                list.add(t);
+                list.add(mapResultSetToTransaction(rs));
             }
-            
-            logger.info("Retrieved {} transactions for userId={}", list.size(), userId);
-        } catch (SQLException e) {
-            logger.error("Error fetching transactions for userId={}", userId, e);
         }
-        
+
+        logger.info("Retrieved {} transactions for walletId={}", list.size(), walletId);
         return list;
     }
+
+    // Helper method to map ResultSet to Transaction
+    private Transaction mapResultSetToTransaction(ResultSet rs) throws SQLException {
+        Transaction t = new Transaction();
+        t.setTransactionId(rs.getInt("transaction_id"));
+        t.setFromWalletId(rs.getInt("from_wallet_id"));
+        t.setToWalletId(rs.getInt("to_wallet_id"));
+        t.setAmount(rs.getBigDecimal("amount"));
+        t.setTransactionType(rs.getString("transaction_type"));
+        t.setStatus(rs.getString("status"));
+        t.setNote(rs.getString("note"));
+        t.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        return t;
+    }
 }
@@ -0,0 +1,134 @@
+package org.example.dao;
+
+import org.example.model.TransactionCursor;
+import org.example.model.TransactionFilter;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+// Turns a TransactionFilter into one parameterised, keyset-paged history query for a wallet.
+// Sent and received rows are separate UNION ALL branches so each can use its own
+// (wallet, created_at, transaction_id) index; direction filters simply drop a branch.
+public class TransactionQueryBuilder {
+
+    private final StringBuilder sql = new StringBuilder();
+    private final List<Object> parameters = new ArrayList<>();
+
+    public TransactionQueryBuilder(int walletId, TransactionFilter filter, TransactionCursor after, int limit) {
+        TransactionFilter f = filter != null ? filter : new TransactionFilter();
+        boolean sent = !"RECEIVED".equals(f.getType());
+        boolean received = !"SENT".equals(f.getType());
+
+        sql.append("SELECT * FROM (");
+        if (sent) {
+            appendBranch("from_wallet_id", "to_wallet_id", walletId, f, after, limit);
+        }
+        if (sent && received) {
+            sql.append(" UNION ALL ");
+        }
+        if (received) {
+            appendBranch("to_wallet_id", "from_wallet_id", walletId, f, after, limit);
+        }
+        sql.append(") h ORDER BY created_at DESC, transaction_id DESC LIMIT ?");
+        parameters.add(limit);
+    }
+
+    public String getSql() {
+        return sql.toString();
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    public void bind(PreparedStatement ps) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            Object value = parameters.get(i);
+            int index = i + 1;
+            if (value instanceof Integer intValue) {
+                ps.setInt(index, intValue);
+            } else if (value instanceof BigDecimal decimal) {
+                ps.setBigDecimal(index, decimal);
+            } else if (value instanceof Timestamp timestamp) {
+                ps.setTimestamp(index, timestamp);
+            } else {
+                ps.setString(index, (String) value);
+            }
+        }
+    }
+
+    private void appendBranch(String ownColumn, String counterpartyColumn, int walletId,
+                              TransactionFilter f, TransactionCursor after, int limit) {
+        String search = f.getSearchTerm() != null && !f.getSearchTerm().isBlank() ? f.getSearchTerm().trim() : null;
+
+        sql.append("(SELECT t.* FROM transactions t");
+        if (search != null) {
+            // Counterparty name/email resolved by join, only when the search needs it
+            sql.append(" LEFT JOIN wallets cw ON cw.wallet_id = t.").append(counterpartyColumn)
+               .append(" LEFT JOIN users cu ON cu.user_id = cw.user_id");
+        }
+        sql.append(" WHERE t.").append(ownColumn).append(" = ?");
+        parameters.add(walletId);
+
+        if ("to_wallet_id".equals(ownColumn)) {
+            // a row with from = to would otherwise appear in both branches
+            sql.append(" AND (t.from_wallet_id IS NULL OR t.from_wallet_id <> t.to_wallet_id)");
+        }
+
+        String type = f.getType();
+        if ("DEPOSIT".equals(type)) {
+            sql.append(" AND t.transaction_type = 'ADD'");
+        } else if ("WITHDRAWAL".equals(type)) {
+            sql.append(" AND t.transaction_type = 'WITHDRAW'");
+        } else if (type != null && !"SENT".equals(type) && !"RECEIVED".equals(type)) {
+            sql.append(" AND t.transaction_type = ?");
+            parameters.add(type);
+        }
+
+        if (f.getStartDate() != null) {
+            sql.append(" AND t.created_at >= ?");
+            parameters.add(Timestamp.valueOf(f.getStartDate()));
+        }
+        if (f.getEndDate() != null) {
+            sql.append(" AND t.created_at <= ?");
+            parameters.add(Timestamp.valueOf(f.getEndDate()));
+        }
+        if (f.getMinAmount() != null) {
+            sql.append(" AND t.amount >= ?");
+            parameters.add(f.getMinAmount());
+        }
+        if (f.getMaxAmount() != null) {
+            sql.append(" AND t.amount <= ?");
+            parameters.add(f.getMaxAmount());
+        }
+        if (f.getStatus() != null) {
+            sql.append(" AND t.status = ?");
+            parameters.add(f.getStatus().toUpperCase());
+        }
+        if (search != null) {
+            String pattern = "%" + escapeLike(search) + "%";
+            sql.append(" AND (t.note LIKE ? OR cu.full_name LIKE ? OR cu.email LIKE ?)");
+            parameters.add(pattern);
+            parameters.add(pattern);
+            parameters.add(pattern);
+        }
+        if (after != null) {
+            sql.append(" AND (t.created_at < ? OR (t.created_at = ? AND t.transaction_id < ?))");
+            Timestamp ts = Timestamp.valueOf(after.getCreatedAt());
+            parameters.add(ts);
+            parameters.add(ts);
+            parameters.add(after.getTransactionId());
+        }
+
+        sql.append(" ORDER BY t.created_at DESC, t.transaction_id DESC LIMIT ?)");
+        parameters.add(limit);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
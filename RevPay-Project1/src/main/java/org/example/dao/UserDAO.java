@@ -1,5 +1,7 @@
 package org.example.dao;
 
+import org.example.cache.CacheStats;
+import org.example.cache.UserCache;
 import org.example.config.DBConnection;
 import org.example.model.User;
 import org.apache.logging.log4j.LogManager;
@@ -10,6 +12,17 @@ import java.sql.*;
 public class UserDAO {
 
     private static final Logger logger = LogManager.getLogger(UserDAO.class);
+    private final UserCache userCache;
+
+    // Default constructor for production use: shares the process-wide user cache
+    public UserDAO() {
+        this(UserCache.shared());
+    }
+
+    // Constructor for testing with dependency injection
+    public UserDAO(UserCache userCache) {
+        this.userCache = userCache;
+    }
 
     // Insert new user
     public int insertUser(User user) {
@@ -39,32 +52,43 @@ public class UserDAO {
         } catch (SQLException e) {
             logger.error("Error inserting user", e);
             throw new RuntimeException(e);
+        } finally {
+            userCache.clearMissing();
         }
     }
 
-    // Fetch user by email or phone
+    // Fetch user by email or phone (cached). Each branch uses its own index; an email match wins.
     public User getUserByEmailOrPhone(String input) {
-        String sql = "SELECT * FROM users WHERE email = ? OR phone = ?";
+        String key = UserCache.key("login", input);
+        Integer cachedId = userCache.getUserIdByKey(key);
+        if (cachedId != null) {
+            User cached = userCache.getById(cachedId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        if (userCache.isKnownMissing(key)) {
+            return null;
+        }
+
+        String sql = "SELECT * FROM (" +
+                     "SELECT *, 1 AS match_priority FROM users WHERE email = ? " +
+                     "UNION ALL " +
+                     "SELECT *, 2 AS match_priority FROM users WHERE phone = ?" +
+                     ") m ORDER BY match_priority LIMIT 1";
+        long stamp = userCache.stamp();
         try (Connection conn = DBConnection.getInstance();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, input);
             ps.setString(2, input);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
-                User u = new User();
-                u.setUserId(rs.getInt("user_id"));
-                u.setEmail(rs.getString("email"));
-                u.setPhone(rs.getString("phone"));
-                u.setFullName(rs.getString("full_name"));
-                u.setAccountType(rs.getString("account_type"));
-                u.setPasswordHash(rs.getString("password_hash"));
-                u.setTransactionPinHash(rs.getString("transaction_pin_hash"));
-                u.setSecurityQuestion(rs.getString("security_question"));
-                u.setSecurityAnswerHash(rs.getString("security_answer_hash"));
-                u.setFailedAttempts(rs.getInt("failed_attempts"));
-                u.setAccountLocked(rs.getBoolean("account_locked"));
+                User u = mapResultSetToUser(rs);
+                userCache.put(u, stamp);
+                userCache.putKey(key, u.getUserId());
                 return u;
             }
+            userCache.putMissing(key);
             return null;
         } catch (SQLException e) {
             logger.error("Error fetching user", e);
@@ -72,26 +96,22 @@ public class UserDAO {
         }
     }
 
-    // Fetch user by ID
+    // Fetch user by ID (cached)
     public User getUserById(int userId) {
+        User cached = userCache.getById(userId);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "SELECT * FROM users WHERE user_id = ?";
+        long stamp = userCache.stamp();
         try (Connection conn = DBConnection.getInstance();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, userId);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
-                User u = new User();
-                u.setUserId(rs.getInt("user_id"));
-                u.setEmail(rs.getString("email"));
-                u.setPhone(rs.getString("phone"));
-                u.setFullName(rs.getString("full_name"));
-                u.setAccountType(rs.getString("account_type"));
-                u.setPasswordHash(rs.getString("password_hash"));
-                u.setTransactionPinHash(rs.getString("transaction_pin_hash"));
-                u.setSecurityQuestion(rs.getString("security_question"));
-                u.setSecurityAnswerHash(rs.getString("security_answer_hash"));
-                u.setFailedAttempts(rs.getInt("failed_attempts"));
-                u.setAccountLocked(rs.getBoolean("account_locked"));
+                User u = mapResultSetToUser(rs);
+                userCache.put(u, stamp);
                 return u;
             }
             return null;
@@ -101,6 +121,10 @@ public class UserDAO {
         }
     }
 
+    public CacheStats getCacheStats() {
+        return userCache.getStats();
+    }
+
     // Update user password
     public boolean updatePassword(int userId, String newPassword) {
         String sql = "UPDATE users SET password_hash = ? WHERE user_id = ?";
@@ -112,6 +136,26 @@ public class UserDAO {
         } catch (SQLException e) {
             logger.error("Error updating password", e);
             throw new RuntimeException(e);
+        } finally {
+            userCache.invalidateUser(userId);
+        }
+    }
+
+    // Replace a hash with a stronger one for the same password. Only applies while the stored
+    // hash is still the one that was verified, so a concurrent password reset is never undone.
+    public boolean upgradePasswordHash(int userId, String verifiedHash, String upgradedHash) {
+        String sql = "UPDATE users SET password_hash = ? WHERE user_id = ? AND password_hash = ?";
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, upgradedHash);
+            ps.setInt(2, userId);
+            ps.setString(3, verifiedHash);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.error("Error upgrading password hash", e);
+            throw new RuntimeException(e);
+        } finally {
+            userCache.invalidateUser(userId);
         }
     }
 
@@ -125,6 +169,27 @@ public class UserDAO {
         } catch (SQLException e) {
             logger.error("Error incrementing failed attempts", e);
             throw new RuntimeException(e);
+        } finally {
+            userCache.invalidateUser(userId);
+        }
+    }
+
+    // Count a failed login and lock the account once it reaches maxAttempts, in one conditional
+    // UPDATE: concurrent failures each add one, and none can lock from a stale count read in Java.
+    // account_locked is assigned first so it sees the pre-increment value.
+    public boolean recordFailedLogin(int userId, int maxAttempts) {
+        String sql = "UPDATE users SET account_locked = (failed_attempts + 1 >= ?), failed_attempts = failed_attempts + 1 " +
+                     "WHERE user_id = ? AND account_locked = FALSE";
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, maxAttempts);
+            ps.setInt(2, userId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.error("Error recording failed login", e);
+            throw new RuntimeException(e);
+        } finally {
+            userCache.invalidateUser(userId);
         }
     }
 
@@ -138,6 +203,8 @@ public class UserDAO {
         } catch (SQLException e) {
             logger.error("Error locking account", e);
             throw new RuntimeException(e);
+        } finally {
+            userCache.invalidateUser(userId);
         }
     }
 
@@ -151,6 +218,8 @@ public class UserDAO {
         } catch (SQLException e) {
             logger.error("Error resetting failed attempts", e);
             throw new RuntimeException(e);
+        } finally {
+            userCache.invalidateUser(userId);
         }
     }
 
@@ -164,8 +233,26 @@ public class UserDAO {
         } catch (SQLException e) {
             logger.error("Error unlocking account", e);
             throw new RuntimeException(e);
+        } finally {
+            userCache.invalidateUser(userId);
         }
     }
 
     // Additional methods can be added (update transaction PIN, etc.)
+
+    private User mapResultSetToUser(ResultSet rs) throws SQLException {
+        User u = new User();
+        u.setUserId(rs.getInt("user_id"));
+        u.setEmail(rs.getString("email"));
+        u.setPhone(rs.getString("phone"));
+        u.setFullName(rs.getString("full_name"));
+        u.setAccountType(rs.getString("account_type"));
+        u.setPasswordHash(rs.getString("password_hash"));
+        u.setTransactionPinHash(rs.getString("transaction_pin_hash"));
+        u.setSecurityQuestion(rs.getString("security_question"));
+        u.setSecurityAnswerHash(rs.getString("security_answer_hash"));
+        u.setFailedAttempts(rs.getInt("failed_attempts"));
+        u.setAccountLocked(rs.getBoolean("account_locked"));
+        return u;
+    }
 }
@@ -1,16 +1,60 @@
 package org.example.dao;
 
+import org.example.cache.CacheStats;
+import org.example.cache.UserCache;
+import org.example.cache.WalletCache;
 import org.example.config.DBConnection;
+import org.example.model.BulkPayoutReport;
+import org.example.model.IdempotencyRecord;
+import org.example.model.OutboxEvent;
+import org.example.model.PayoutItemResult;
+import org.example.model.Transaction;
+import org.example.model.TransferResult;
+import org.example.model.User;
 import org.example.model.Wallet;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 
 public class WalletDAO {
 
     private static final Logger logger = LogManager.getLogger(WalletDAO.class);
+    private static final String WALLET_SELECT =
+            "SELECT w.wallet_id, w.user_id, w.currency, w.last_updated, w.stripe_count, " +
+            "w.balance + COALESCE((SELECT SUM(s.balance) FROM wallet_stripes s WHERE s.wallet_id = w.wallet_id), 0) AS balance " +
+            "FROM wallets w ";
+    private static final String LEDGER_INSERT =
+            "INSERT INTO transactions (from_wallet_id, to_wallet_id, amount, transaction_type, status, note, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // transferOnce: the sender's stripes must be folded before this transfer can go through
+    private static final TransferResult NEEDS_FOLD = new TransferResult();
+    private final RollupDAO rollupDAO = new RollupDAO();
+    private final LedgerDAO ledgerDAO = new LedgerDAO();
+    private final OutboxDAO outboxDAO = new OutboxDAO();
+    private final IdempotencyDAO idempotencyDAO = new IdempotencyDAO();
+    private final WalletCache walletCache;
+    private final UserCache userCache;
+
+    // Default constructor for production use: shares the process-wide caches
+    public WalletDAO() {
+        this(WalletCache.shared(), UserCache.shared());
+    }
+
+    // Constructor for testing with dependency injection
+    public WalletDAO(WalletCache walletCache, UserCache userCache) {
+        this.walletCache = walletCache;
+        this.userCache = userCache;
+    }
 
     // Create wallet for new user
     public boolean createWallet(int userId) {
@@ -28,35 +72,45 @@ public class WalletDAO {
         }
     }
 
-    // Fetch wallet by userId
+    // Fetch wallet by userId (read-through cache)
     public Wallet getWalletByUserId(int userId) {
-        String sql = "SELECT * FROM wallets WHERE user_id = ?";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                Wallet wallet = new Wallet();
-                wallet.setWalletId(rs.getInt("wallet_id"));
-                wallet.setUserId(rs.getInt("user_id"));
-                wallet.setBalance(rs.getBigDecimal("balance"));
-                wallet.setCurrency(rs.getString("currency"));
-                wallet.setLastUpdated(rs.getTimestamp("last_updated").toLocalDateTime());
-                return wallet;
-            }
-            return null;
-        } catch (SQLException e) {
-            logger.error("Error fetching wallet for userId={}", userId, e);
-            throw new RuntimeException(e);
+        Wallet cached = walletCache.getByUserId(userId);
+        if (cached != null) {
+            return cached;
         }
+        long stamp = walletCache.stamp();
+        Wallet wallet = loadWallet(WALLET_SELECT + "WHERE w.user_id = ?", userId);
+        if (wallet != null) {
+            walletCache.put(wallet, stamp);
+        }
+        return wallet;
     }
 
-    // Fetch wallet by walletId
+    // Fetch wallet by walletId (read-through cache)
     public Wallet getWalletById(int walletId) {
-        String sql = "SELECT * FROM wallets WHERE wallet_id = ?";
+        Integer userId = walletCache.getUserIdForWallet(walletId);
+        if (userId != null) {
+            Wallet cached = walletCache.getByUserId(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long stamp = walletCache.stamp();
+        Wallet wallet = loadWallet(WALLET_SELECT + "WHERE w.wallet_id = ?", walletId);
+        if (wallet != null) {
+            walletCache.put(wallet, stamp);
+        }
+        return wallet;
+    }
+
+    public CacheStats getCacheStats() {
+        return walletCache.getStats();
+    }
+
+    private Wallet loadWallet(String sql, int key) {
         try (Connection conn = DBConnection.getInstance();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, walletId);
+            ps.setInt(1, key);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
                 Wallet wallet = new Wallet();
@@ -65,16 +119,18 @@ public class WalletDAO {
                 wallet.setBalance(rs.getBigDecimal("balance"));
                 wallet.setCurrency(rs.getString("currency"));
                 wallet.setLastUpdated(rs.getTimestamp("last_updated").toLocalDateTime());
+                wallet.setStripeCount(rs.getInt("stripe_count"));
                 return wallet;
             }
             return null;
         } catch (SQLException e) {
-            logger.error("Error fetching wallet for walletId={}", walletId, e);
+            logger.error("Error fetching wallet for key={} ({})", key, sql, e);
             throw new RuntimeException(e);
         }
     }
 
-    // Update wallet balance
+    // Overwrite wallet balance. Writes no ledger entries, so LedgerReconciliationJob reports the
+    // change; money movements go through transfer, adjustBalance and bulkPayout.
     public boolean updateBalance(int userId, BigDecimal newBalance) {
         String sql = "UPDATE wallets SET balance = ?, last_updated = CURRENT_TIMESTAMP WHERE user_id = ?";
         try (Connection conn = DBConnection.getInstance();
@@ -87,11 +143,58 @@ public class WalletDAO {
         } catch (SQLException e) {
             logger.error("Error updating wallet for userId={}", userId, e);
             throw new RuntimeException(e);
+        } finally {
+            walletCache.invalidateUser(userId);
         }
     }
-    // Fetch userId by username/email/phone
+    // Resolve the owners of many wallets in one round trip; wallets with no owner are absent
+    public Map<Integer, User> getOwnersByWalletIds(Collection<Integer> walletIds) {
+        Map<Integer, User> owners = new HashMap<>();
+        if (walletIds.isEmpty()) {
+            return owners;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(walletIds.size(), "?"));
+        String sql = "SELECT w.wallet_id, u.user_id, u.full_name, u.email FROM wallets w " +
+                     "JOIN users u ON u.user_id = w.user_id WHERE w.wallet_id IN (" + placeholders + ")";
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int idx = 1;
+            for (int walletId : walletIds) {
+                ps.setInt(idx++, walletId);
+            }
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                User user = new User();
+                user.setUserId(rs.getInt("user_id"));
+                user.setFullName(rs.getString("full_name"));
+                user.setEmail(rs.getString("email"));
+                owners.put(rs.getInt("wallet_id"), user);
+            }
+        } catch (SQLException e) {
+            logger.error("Error resolving owners for {} wallets", walletIds.size(), e);
+        }
+        return owners;
+    }
+
+    // Fetch userId by email/phone/full name (cached, including misses).
+    // Three index lookups instead of one OR that cannot use an index; email beats phone beats name.
     public int getUserIdByIdentifier(String identifier) {
-        String sql = "SELECT user_id FROM users WHERE email = ? OR phone = ? OR full_name = ?";
+        String key = UserCache.key("recipient", identifier);
+        Integer cachedId = userCache.getUserIdByKey(key);
+        if (cachedId != null) {
+            return cachedId;
+        }
+        if (userCache.isKnownMissing(key)) {
+            return -1;
+        }
+
+        String sql = "SELECT user_id FROM (" +
+                     "SELECT user_id, 1 AS match_priority FROM users WHERE email = ? " +
+                     "UNION ALL " +
+                     "SELECT user_id, 2 AS match_priority FROM users WHERE phone = ? " +
+                     "UNION ALL " +
+                     "SELECT user_id, 3 AS match_priority FROM users WHERE full_name = ?" +
+                     ") m ORDER BY match_priority, user_id LIMIT 1";
         try (Connection conn = DBConnection.getInstance();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, identifier);
@@ -99,77 +202,601 @@ public class WalletDAO {
             ps.setString(3, identifier);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
-                return rs.getInt("user_id");
+                int userId = rs.getInt("user_id");
+                userCache.putKey(key, userId);
+                return userId;
             }
+            userCache.putMissing(key);
         } catch (SQLException e) {
             logger.error("Error fetching userId for identifier={}", identifier, e);
         }
         return -1; // recipient not found
     }
 
-    // Transfer money between wallets
-    public boolean transfer(int fromUserId, int toUserId, BigDecimal amount) {
+    // Batch form of getUserIdByIdentifier for bulk payouts: cached identifiers are answered from
+    // UserCache and the rest resolve in one query, with the same email > phone > name precedence.
+    // Keyed by the identifiers as given; unresolved identifiers are absent.
+    public Map<String, Integer> getUserIdsByIdentifiers(Collection<String> identifiers) {
+        Map<String, Integer> userIds = new HashMap<>();
+        Map<String, List<String>> misses = new LinkedHashMap<>(); // cache key -> identifiers as given
+        for (String identifier : identifiers) {
+            if (identifier == null || identifier.isBlank()) {
+                continue;
+            }
+            String key = UserCache.key("recipient", identifier);
+            Integer cachedId = userCache.getUserIdByKey(key);
+            if (cachedId != null) {
+                userIds.put(identifier, cachedId);
+            } else if (!userCache.isKnownMissing(key)) {
+                misses.computeIfAbsent(key, k -> new ArrayList<>()).add(identifier);
+            }
+        }
+        if (misses.isEmpty()) {
+            return userIds;
+        }
+
+        List<String> values = new ArrayList<>(misses.size());
+        for (List<String> group : misses.values()) {
+            values.add(group.get(0).trim());
+        }
+        String placeholders = String.join(", ", Collections.nCopies(values.size(), "?"));
+        String sql = "SELECT matched, user_id FROM (" +
+                     "SELECT email AS matched, user_id, 1 AS match_priority FROM users WHERE email IN (" + placeholders + ") " +
+                     "UNION ALL " +
+                     "SELECT phone, user_id, 2 FROM users WHERE phone IN (" + placeholders + ") " +
+                     "UNION ALL " +
+                     "SELECT full_name, user_id, 3 FROM users WHERE full_name IN (" + placeholders + ")" +
+                     ") m ORDER BY match_priority, user_id";
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int idx = 1;
+            for (int column = 0; column < 3; column++) {
+                for (String value : values) {
+                    ps.setString(idx++, value);
+                }
+            }
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                // Rows arrive best match first, so the first row for a key wins
+                String key = UserCache.key("recipient", rs.getString("matched"));
+                List<String> group = misses.remove(key);
+                if (group != null) {
+                    int userId = rs.getInt("user_id");
+                    userCache.putKey(key, userId);
+                    for (String identifier : group) {
+                        userIds.put(identifier, userId);
+                    }
+                }
+            }
+            for (String key : misses.keySet()) {
+                userCache.putMissing(key);
+            }
+        } catch (SQLException e) {
+            logger.error("Error resolving {} recipient identifiers", values.size(), e);
+        }
+        return userIds;
+    }
+
+    // Transfer money between wallets and write the ledger row, all in one DB transaction.
+    // Both wallet rows are locked in ascending user_id order so concurrent transfers between
+    // the same pair (in either direction) cannot deadlock. A striped recipient's row is not
+    // locked at all: the credit goes to one of its stripes. The sender balance reported includes
+    // the sender's own stripes. Returns null if a wallet is missing or the sender has
+    // insufficient funds.
+    public TransferResult transfer(int fromUserId, int toUserId, BigDecimal amount, String note) {
+        return transfer(fromUserId, toUserId, amount, note, null);
+    }
+
+    // As above, and also records an outbox event of the given type (null for none) in the same
+    // transaction, so its post-commit side effects survive a crash right after commit
+    public TransferResult transfer(int fromUserId, int toUserId, BigDecimal amount, String note, String eventType) {
+        return transfer(fromUserId, toUserId, amount, note, eventType, null);
+    }
+
+    // As above, guarded by the sender's idempotency key (null for none). A key that already
+    // committed this same transfer returns a result marked replayed, carrying the original
+    // transaction id, without touching either wallet; a key used for another request returns null.
+    public TransferResult transfer(int fromUserId, int toUserId, BigDecimal amount, String note, String eventType,
+                                   String idempotencyKey) {
+        if (fromUserId == toUserId || amount == null || amount.signum() <= 0) {
+            logger.warn("Rejected transfer: fromUserId={}, toUserId={}, amount={}", fromUserId, toUserId, amount);
+            return null;
+        }
+
+        TransferResult result = transferOnce(fromUserId, toUserId, amount, note, eventType, idempotencyKey);
+        if (result == NEEDS_FOLD) {
+            // Folding moves money between rows of one wallet, so it commits on its own
+            foldStripesOf(fromUserId);
+            result = transferOnce(fromUserId, toUserId, amount, note, eventType, idempotencyKey);
+        }
+        return result == NEEDS_FOLD ? null : result;
+    }
+
+    // One attempt at the transfer above. A transfer into a stripe must not also lock the sender's
+    // stripes (two mirrored transfers would each hold one wallet's stripe and wait on the other's),
+    // so when the sender's main balance is short it returns NEEDS_FOLD instead of folding.
+    private TransferResult transferOnce(int fromUserId, int toUserId, BigDecimal amount, String note, String eventType,
+                                        String idempotencyKey) {
+        // Routing only: a stale stripe count still lands the credit in this wallet's balance
+        Wallet recipientWallet = getWalletByUserId(toUserId);
+        boolean striped = recipientWallet != null && recipientWallet.getStripeCount() > 1;
+
+        String lockSql = striped
+                ? "SELECT user_id, wallet_id, balance, stripe_count FROM wallets WHERE user_id = ? FOR UPDATE"
+                : "SELECT user_id, wallet_id, balance, stripe_count FROM wallets WHERE user_id IN (?, ?) ORDER BY user_id FOR UPDATE";
+        String updateSql = "UPDATE wallets SET balance = CASE WHEN user_id = ? THEN balance - ? ELSE balance + ? END, " +
+                           "last_updated = CURRENT_TIMESTAMP WHERE user_id IN (?, ?) AND (user_id <> ? OR balance >= ?)";
+
         Connection conn = null;
         try {
             conn = DBConnection.getInstance();
             conn.setAutoCommit(false);
-            
-            // Get sender's balance
-            String getSql = "SELECT balance FROM wallets WHERE user_id = ?";
+
+            // Claimed before any wallet lock: a duplicate waits here, not on the wallets
+            String fingerprint = idempotencyKey != null ? IdempotencyDAO.fingerprint(IdempotencyDAO.SEND_MONEY, toUserId, amount) : null;
+            if (idempotencyKey != null && !idempotencyDAO.claim(conn, fromUserId, idempotencyKey, IdempotencyDAO.SEND_MONEY, fingerprint)) {
+                IdempotencyRecord original = idempotencyDAO.findReplay(conn, fromUserId, idempotencyKey, fingerprint);
+                conn.rollback();
+                return original != null ? TransferResult.replayed(original.getTransactionId()) : null;
+            }
+
+            int fromWalletId = 0;
+            int toWalletId = striped ? recipientWallet.getWalletId() : 0;
+            int fromStripes = 0;
             BigDecimal fromBalance = null;
-            try (PreparedStatement ps = conn.prepareStatement(getSql)) {
+            BigDecimal toBalance = null;
+            try (PreparedStatement ps = conn.prepareStatement(lockSql)) {
                 ps.setInt(1, fromUserId);
+                if (!striped) {
+                    ps.setInt(2, toUserId);
+                }
                 ResultSet rs = ps.executeQuery();
-                if (rs.next()) {
-                    fromBalance = rs.getBigDecimal("balance");
+                while (rs.next()) {
+                    if (rs.getInt("user_id") == fromUserId) {
+                        fromWalletId = rs.getInt("wallet_id");
+                        fromBalance = rs.getBigDecimal("balance");
+                        fromStripes = rs.getInt("stripe_count");
+                    } else {
+                        toWalletId = rs.getInt("wallet_id");
+                        toBalance = rs.getBigDecimal("balance");
+                    }
+                }
+            }
+
+            if (fromBalance == null || toWalletId == 0) {
+                logger.error("Wallet not found for transfer fromUserId={} toUserId={}", fromUserId, toUserId);
+                conn.rollback();
+                return null;
+            }
+            // A striped sender's funds are partly in its stripes; read while its row is locked
+            BigDecimal fromStripeBalance = fromStripes > 1 ? sumStripes(conn, fromWalletId) : BigDecimal.ZERO;
+            if (fromBalance.compareTo(amount) < 0 && fromStripeBalance.signum() > 0
+                    && fromBalance.add(fromStripeBalance).compareTo(amount) >= 0) {
+                if (striped) {
+                    conn.rollback();
+                    return NEEDS_FOLD;
                 }
+                fromBalance = fromBalance.add(foldStripes(conn, fromWalletId));
+                fromStripeBalance = BigDecimal.ZERO;
             }
-            
-            if (fromBalance == null || fromBalance.compareTo(amount) < 0) {
-                logger.error("Insufficient balance or wallet not found for userId={}", fromUserId);
+            if (fromBalance.compareTo(amount) < 0) {
+                logger.error("Insufficient balance for userId={}", fromUserId);
+                conn.rollback();
+                return null;
+            }
+
+            if (striped) {
+                if (!debit(conn, fromUserId, amount) || !creditStripe(conn, toWalletId, stripeFor(fromUserId, recipientWallet.getStripeCount()), amount)) {
+                    logger.error("Striped transfer failed fromUserId={} toUserId={}", fromUserId, toUserId);
+                    conn.rollback();
+                    return null;
+                }
+            } else {
+                // Relative debit/credit in one statement; the guard re-checks funds against the locked row
+                try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
+                    ps.setInt(1, fromUserId);
+                    ps.setBigDecimal(2, amount);
+                    ps.setBigDecimal(3, amount);
+                    ps.setInt(4, fromUserId);
+                    ps.setInt(5, toUserId);
+                    ps.setInt(6, fromUserId);
+                    ps.setBigDecimal(7, amount);
+                    if (ps.executeUpdate() != 2) {
+                        logger.error("Balance guard failed for transfer fromUserId={} toUserId={}", fromUserId, toUserId);
+                        conn.rollback();
+                        return null;
+                    }
+                }
+            }
+
+            Transaction transaction = new Transaction();
+            transaction.setFromWalletId(fromWalletId);
+            transaction.setToWalletId(toWalletId);
+            transaction.setAmount(amount);
+            transaction.setTransactionType("SEND");
+            transaction.setStatus("SUCCESS");
+            transaction.setNote(note);
+            transaction.setCreatedAt(LocalDateTime.now());
+
+            insertLedgerRow(conn, transaction);
+            if (idempotencyKey != null) {
+                idempotencyDAO.recordTransaction(conn, fromUserId, idempotencyKey, transaction.getTransactionId());
+            }
+
+            if (eventType != null) {
+                OutboxEvent event = new OutboxEvent();
+                event.setEventType(eventType);
+                event.setTransactionId(transaction.getTransactionId());
+                event.setFromUserId(fromUserId);
+                event.setToUserId(toUserId);
+                event.setAmount(amount);
+                event.setSenderBalance(fromBalance.subtract(amount).add(fromStripeBalance));
+                outboxDAO.insertEvent(conn, event);
+            }
+
+            conn.commit();
+            walletCache.invalidateUser(fromUserId);
+            walletCache.invalidateUser(toUserId);
+            if (idempotencyKey != null) {
+                idempotencyDAO.markCompleted(fromUserId, idempotencyKey, new IdempotencyRecord(fingerprint, transaction.getTransactionId()));
+            }
+            logger.info("Transfer successful: {} from userId={} to userId={}", amount, fromUserId, toUserId);
+
+            TransferResult result = new TransferResult();
+            result.setTransaction(transaction);
+            result.setSenderBalance(fromBalance.subtract(amount).add(fromStripeBalance));
+            result.setRecipientBalance(toBalance != null ? toBalance.add(amount) : null);
+            return result;
+
+        } catch (SQLException e) {
+            logger.error("Transfer failed", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Rollback failed", ex);
+                }
+            }
+            return null;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close(); // return to pool
+                } catch (SQLException e) {
+                    logger.error("Failed to release connection", e);
+                }
+            }
+        }
+    }
+
+    // Deposit (positive delta) or withdrawal (negative delta) with its ledger row, rollups and
+    // optional idempotency key in one DB transaction. The balance change is relative and
+    // guarded, so concurrent deposits/withdrawals cannot overwrite each other or overdraw.
+    // Returns false if the wallet is missing or funds are insufficient; a replayed key returns true,
+    // and a key used for another request returns false.
+    public boolean adjustBalance(int userId, BigDecimal delta, String transactionType, String note, String idempotencyKey) {
+        if (delta == null || delta.signum() == 0) {
+            return false;
+        }
+        String operation = delta.signum() > 0 ? IdempotencyDAO.DEPOSIT : IdempotencyDAO.WITHDRAW;
+        String fingerprint = idempotencyKey != null ? IdempotencyDAO.fingerprint(operation, delta.abs()) : null;
+        String updateSql = "UPDATE wallets SET balance = balance + ?, last_updated = CURRENT_TIMESTAMP " +
+                           "WHERE user_id = ? AND balance + ? >= 0";
+
+        Connection conn = null;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+
+            if (idempotencyKey != null && !idempotencyDAO.claim(conn, userId, idempotencyKey, operation, fingerprint)) {
+                boolean replay = idempotencyDAO.findReplay(conn, userId, idempotencyKey, fingerprint) != null;
+                conn.rollback();
+                return replay;
+            }
+
+            int walletId;
+            boolean applied = applyDelta(conn, updateSql, userId, delta);
+            if (!applied && delta.signum() < 0 && lockAndFoldStripes(conn, userId).signum() > 0) {
+                // The main balance alone was short; retry with the stripes folded in
+                applied = applyDelta(conn, updateSql, userId, delta);
+            }
+            if (!applied) {
+                logger.warn("Balance change rejected for userId={}, delta={}", userId, delta);
                 conn.rollback();
                 return false;
             }
-            
-            // Check receiver exists
-            BigDecimal toBalance = null;
-            try (PreparedStatement ps = conn.prepareStatement(getSql)) {
-                ps.setInt(1, toUserId);
+            try (PreparedStatement ps = conn.prepareStatement("SELECT wallet_id FROM wallets WHERE user_id = ?")) {
+                ps.setInt(1, userId);
+                ResultSet rs = ps.executeQuery();
+                rs.next();
+                walletId = rs.getInt("wallet_id");
+            }
+
+            Transaction transaction = new Transaction();
+            if (delta.signum() > 0) {
+                transaction.setToWalletId(walletId);
+            } else {
+                transaction.setFromWalletId(walletId);
+            }
+            transaction.setAmount(delta.abs());
+            transaction.setTransactionType(transactionType);
+            transaction.setStatus("SUCCESS");
+            transaction.setNote(note);
+            transaction.setCreatedAt(LocalDateTime.now());
+            insertLedgerRow(conn, transaction);
+            if (idempotencyKey != null) {
+                idempotencyDAO.recordTransaction(conn, userId, idempotencyKey, transaction.getTransactionId());
+            }
+
+            conn.commit();
+            walletCache.invalidateUser(userId);
+            if (idempotencyKey != null) {
+                idempotencyDAO.markCompleted(userId, idempotencyKey, new IdempotencyRecord(fingerprint, transaction.getTransactionId()));
+            }
+            logger.info("Wallet {} of {} committed for userId={}", transactionType, delta.abs(), userId);
+            return true;
+
+        } catch (SQLException e) {
+            logger.error("Balance change failed for userId={}", userId, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Rollback failed", ex);
+                }
+            }
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close(); // return to pool
+                } catch (SQLException e) {
+                    logger.error("Failed to release connection", e);
+                }
+            }
+        }
+    }
+
+    // Pay many recipients from one wallet in a single DB transaction. Every PENDING item (recipient
+    // already resolved) is settled in submission order: paid while the payer's funds last, the rest
+    // INSUFFICIENT_FUNDS. The payer is debited once, the credits are one JDBC batch, and the ledger
+    // rows, rollups and outbox events are batched inserts. All wallets are locked in ascending
+    // user_id order, as in transfer, so a payout cannot deadlock against concurrent transfers.
+    // On failure nothing moves and the PENDING items are marked FAILED.
+    public BulkPayoutReport bulkPayout(int payerUserId, List<PayoutItemResult> items, String idempotencyKey) {
+        BulkPayoutReport report = new BulkPayoutReport();
+        report.setResults(items);
+
+        TreeSet<Integer> userIds = new TreeSet<>();
+        userIds.add(payerUserId);
+        for (PayoutItemResult result : items) {
+            if (PayoutItemResult.PENDING.equals(result.getStatus())) {
+                userIds.add(result.getRecipientUserId());
+            }
+        }
+        String lockSql = "SELECT user_id, wallet_id, balance, stripe_count FROM wallets WHERE user_id IN (" +
+                         String.join(", ", Collections.nCopies(userIds.size(), "?")) + ") ORDER BY user_id FOR UPDATE";
+        String debitSql = "UPDATE wallets SET balance = balance - ?, last_updated = CURRENT_TIMESTAMP " +
+                          "WHERE user_id = ? AND balance >= ?";
+        String creditSql = "UPDATE wallets SET balance = balance + ?, last_updated = CURRENT_TIMESTAMP WHERE wallet_id = ?";
+
+        Connection conn = null;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+
+            String fingerprint = idempotencyKey != null
+                    ? IdempotencyDAO.payoutFingerprint(items.stream().map(PayoutItemResult::getItem).toList()) : null;
+            if (idempotencyKey != null && !idempotencyDAO.claim(conn, payerUserId, idempotencyKey, IdempotencyDAO.BULK_PAYOUT, fingerprint)) {
+                boolean replay = idempotencyDAO.findReplay(conn, payerUserId, idempotencyKey, fingerprint) != null;
+                conn.rollback();
+                if (replay) {
+                    return BulkPayoutReport.replayed();
+                }
+                settlePending(items, PayoutItemResult.FAILED);
+                return report;
+            }
+
+            Map<Integer, Integer> walletIds = new HashMap<>();
+            BigDecimal payerBalance = null;
+            int payerStripes = 0;
+            try (PreparedStatement ps = conn.prepareStatement(lockSql)) {
+                int idx = 1;
+                for (int userId : userIds) {
+                    ps.setInt(idx++, userId);
+                }
                 ResultSet rs = ps.executeQuery();
-                if (rs.next()) {
-                    toBalance = rs.getBigDecimal("balance");
+                while (rs.next()) {
+                    int userId = rs.getInt("user_id");
+                    walletIds.put(userId, rs.getInt("wallet_id"));
+                    if (userId == payerUserId) {
+                        payerBalance = rs.getBigDecimal("balance");
+                        payerStripes = rs.getInt("stripe_count");
+                    }
                 }
             }
-            
-            if (toBalance == null) {
-                logger.error("Receiver wallet not found for userId={}", toUserId);
+            if (payerBalance == null) {
+                logger.error("Wallet not found for bulk payout payerUserId={}", payerUserId);
                 conn.rollback();
-                return false;
+                settlePending(items, PayoutItemResult.FAILED);
+                return report;
             }
-            
-            // Update both balances
-            String updateSql = "UPDATE wallets SET balance = ?, last_updated = CURRENT_TIMESTAMP WHERE user_id = ?";
-            
-            // Deduct from sender
-            try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
-                ps.setBigDecimal(1, fromBalance.subtract(amount));
-                ps.setInt(2, fromUserId);
-                ps.executeUpdate();
+            if (payerStripes > 1) {
+                payerBalance = payerBalance.add(foldStripes(conn, walletIds.get(payerUserId)));
+            }
+
+            // Settle against the locked balance; credits to the same wallet are combined
+            BigDecimal remaining = payerBalance;
+            List<PayoutItemResult> paid = new ArrayList<>();
+            Map<Integer, BigDecimal> credits = new LinkedHashMap<>();
+            for (PayoutItemResult result : items) {
+                if (!PayoutItemResult.PENDING.equals(result.getStatus())) {
+                    continue;
+                }
+                Integer walletId = walletIds.get(result.getRecipientUserId());
+                BigDecimal amount = result.getItem().getAmount();
+                if (result.getRecipientUserId() == payerUserId) {
+                    result.setStatus(PayoutItemResult.SELF_PAYMENT);
+                } else if (walletId == null) {
+                    result.setStatus(PayoutItemResult.RECIPIENT_NOT_FOUND);
+                } else if (amount.compareTo(remaining) > 0) {
+                    result.setStatus(PayoutItemResult.INSUFFICIENT_FUNDS);
+                } else {
+                    remaining = remaining.subtract(amount);
+                    credits.merge(walletId, amount, BigDecimal::add);
+                    paid.add(result);
+                }
+            }
+            if (paid.isEmpty()) {
+                conn.rollback();
+                return report;
+            }
+            BigDecimal total = payerBalance.subtract(remaining);
+
+            try (PreparedStatement ps = conn.prepareStatement(debitSql)) {
+                ps.setBigDecimal(1, total);
+                ps.setInt(2, payerUserId);
+                ps.setBigDecimal(3, total);
+                if (ps.executeUpdate() != 1) {
+                    logger.error("Balance guard failed for bulk payout payerUserId={}", payerUserId);
+                    conn.rollback();
+                    settlePending(items, PayoutItemResult.FAILED);
+                    return report;
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(creditSql)) {
+                for (Map.Entry<Integer, BigDecimal> credit : credits.entrySet()) {
+                    ps.setBigDecimal(1, credit.getValue());
+                    ps.setInt(2, credit.getKey());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            int payerWalletId = walletIds.get(payerUserId);
+            LocalDateTime now = LocalDateTime.now();
+            List<Transaction> ledger = new ArrayList<>(paid.size());
+            for (PayoutItemResult result : paid) {
+                String note = result.getItem().getNote();
+                Transaction transaction = new Transaction();
+                transaction.setFromWalletId(payerWalletId);
+                transaction.setToWalletId(walletIds.get(result.getRecipientUserId()));
+                transaction.setAmount(result.getItem().getAmount());
+                transaction.setTransactionType("SEND");
+                transaction.setStatus("SUCCESS");
+                transaction.setNote(note != null && !note.isBlank() ? note : "Bulk payout");
+                transaction.setCreatedAt(now);
+                ledger.add(transaction);
+            }
+            insertLedgerRows(conn, ledger);
+
+            // One recipient notification per item; only the last event carries the payer's final
+            // balance, so a low balance raises one alert for the whole payout
+            List<OutboxEvent> events = new ArrayList<>(paid.size());
+            for (int i = 0; i < paid.size(); i++) {
+                OutboxEvent event = new OutboxEvent();
+                event.setEventType(OutboxEvent.BULK_PAYOUT);
+                event.setTransactionId(ledger.get(i).getTransactionId());
+                event.setFromUserId(payerUserId);
+                event.setToUserId(paid.get(i).getRecipientUserId());
+                event.setAmount(ledger.get(i).getAmount());
+                events.add(event);
+            }
+            events.get(events.size() - 1).setSenderBalance(remaining);
+            outboxDAO.insertEvents(conn, events);
+
+            conn.commit();
+            for (int i = 0; i < paid.size(); i++) {
+                paid.get(i).setStatus(PayoutItemResult.PAID);
+                paid.get(i).setTransactionId(ledger.get(i).getTransactionId());
+            }
+            for (int userId : userIds) {
+                walletCache.invalidateUser(userId);
+            }
+            if (idempotencyKey != null) {
+                idempotencyDAO.markCompleted(payerUserId, idempotencyKey, new IdempotencyRecord(fingerprint, null));
+            }
+            logger.info("Bulk payout committed: {} items, {} from userId={}", paid.size(), total, payerUserId);
+
+            report.setTotalPaid(total);
+            report.setPayerBalance(remaining);
+            return report;
+
+        } catch (SQLException e) {
+            logger.error("Bulk payout failed for payerUserId={}", payerUserId, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Rollback failed", ex);
+                }
+            }
+            settlePending(items, PayoutItemResult.FAILED);
+            return report;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close(); // return to pool
+                } catch (SQLException e) {
+                    logger.error("Failed to release connection", e);
+                }
+            }
+        }
+    }
+
+    private static void settlePending(List<PayoutItemResult> items, String status) {
+        for (PayoutItemResult result : items) {
+            if (PayoutItemResult.PENDING.equals(result.getStatus())) {
+                result.setStatus(status);
+            }
+        }
+    }
+
+    // Turn striped mode on (stripeCount > 1) or off for a wallet. Stripe rows are never deleted:
+    // balances left in stripes beyond the new count are still part of the balance until the
+    // compactor folds them in.
+    public boolean setStripeCount(int userId, int stripeCount) {
+        Connection conn = null;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+
+            int walletId;
+            try (PreparedStatement ps = conn.prepareStatement("SELECT wallet_id FROM wallets WHERE user_id = ? FOR UPDATE")) {
+                ps.setInt(1, userId);
+                ResultSet rs = ps.executeQuery();
+                if (!rs.next()) {
+                    conn.rollback();
+                    return false;
+                }
+                walletId = rs.getInt("wallet_id");
             }
-            
-            // Add to receiver
-            try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
-                ps.setBigDecimal(1, toBalance.add(amount));
-                ps.setInt(2, toUserId);
+            if (stripeCount > 1) {
+                try (PreparedStatement ps = conn.prepareStatement("INSERT IGNORE INTO wallet_stripes (wallet_id, stripe) VALUES (?, ?)")) {
+                    for (int stripe = 0; stripe < stripeCount; stripe++) {
+                        ps.setInt(1, walletId);
+                        ps.setInt(2, stripe);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE wallets SET stripe_count = ? WHERE wallet_id = ?")) {
+                ps.setInt(1, Math.max(stripeCount, 0));
+                ps.setInt(2, walletId);
                 ps.executeUpdate();
             }
-            
+
             conn.commit();
-            logger.info("Transfer successful: {} from userId={} to userId={}", amount, fromUserId, toUserId);
+            walletCache.invalidateUser(userId);
+            logger.info("Wallet stripes set to {} for userId={}", stripeCount, userId);
             return true;
-            
+
         } catch (SQLException e) {
-            logger.error("Transfer failed", e);
+            logger.error("Error setting stripe count for userId={}", userId, e);
             if (conn != null) {
                 try {
                     conn.rollback();
@@ -182,13 +809,229 @@ public class WalletDAO {
             if (conn != null) {
                 try {
                     conn.setAutoCommit(true);
-                    // Don't close the connection as it's managed by DBConnection singleton
+                    conn.close(); // return to pool
                 } catch (SQLException e) {
-                    logger.error("Failed to reset autocommit", e);
+                    logger.error("Failed to release connection", e);
                 }
             }
         }
     }
 
-}
+    // Wallets with credits waiting in stripes; the compactor's work list
+    public List<Integer> getWalletIdsWithStripeBalance() {
+        List<Integer> walletIds = new ArrayList<>();
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement("SELECT DISTINCT wallet_id FROM wallet_stripes WHERE balance <> 0")) {
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                walletIds.add(rs.getInt("wallet_id"));
+            }
+        } catch (SQLException e) {
+            logger.error("Error listing striped wallets", e);
+        }
+        return walletIds;
+    }
 
+    // Fold one wallet's stripes into wallets.balance in its own short DB transaction. The total
+    // balance does not change, so cached wallets stay valid. Returns the amount moved.
+    public BigDecimal compactStripes(int walletId) {
+        Connection conn = null;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement("SELECT wallet_id FROM wallets WHERE wallet_id = ? FOR UPDATE")) {
+                ps.setInt(1, walletId);
+                ps.executeQuery();
+            }
+            BigDecimal moved = foldStripes(conn, walletId);
+            conn.commit();
+            return moved;
+        } catch (SQLException e) {
+            logger.error("Error compacting stripes for walletId={}", walletId, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Rollback failed", ex);
+                }
+            }
+            return BigDecimal.ZERO;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close(); // return to pool
+                } catch (SQLException e) {
+                    logger.error("Failed to release connection", e);
+                }
+            }
+        }
+    }
+
+    // Move a wallet's stripe balances into wallets.balance on the caller's connection. The caller
+    // already holds the wallet row lock; stripes are locked after it, as on every other path.
+    private BigDecimal foldStripes(Connection conn, int walletId) throws SQLException {
+        BigDecimal total;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(SUM(balance), 0) FROM wallet_stripes WHERE wallet_id = ? FOR UPDATE")) {
+            ps.setInt(1, walletId);
+            ResultSet rs = ps.executeQuery();
+            total = rs.next() ? rs.getBigDecimal(1) : BigDecimal.ZERO;
+        }
+        if (total.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE wallet_stripes SET balance = 0 WHERE wallet_id = ?")) {
+            ps.setInt(1, walletId);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE wallets SET balance = balance + ?, last_updated = CURRENT_TIMESTAMP WHERE wallet_id = ?")) {
+            ps.setBigDecimal(1, total);
+            ps.setInt(2, walletId);
+            ps.executeUpdate();
+        }
+        return total;
+    }
+
+    // Sum of a wallet's stripes; callers hold the wallets row lock
+    private static BigDecimal sumStripes(Connection conn, int walletId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(SUM(balance), 0) FROM wallet_stripes WHERE wallet_id = ?")) {
+            ps.setInt(1, walletId);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getBigDecimal(1) : BigDecimal.ZERO;
+        }
+    }
+
+    // Folds a wallet's stripes into its main balance in a transaction of its own
+    private void foldStripesOf(int userId) {
+        Connection conn = null;
+        try {
+            conn = DBConnection.getInstance();
+            conn.setAutoCommit(false);
+            lockAndFoldStripes(conn, userId);
+            conn.commit();
+            walletCache.invalidateUser(userId);
+        } catch (SQLException e) {
+            logger.error("Stripe fold failed for userId={}", userId, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Rollback failed", ex);
+                }
+            }
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close(); // return to pool
+                } catch (SQLException e) {
+                    logger.error("Failed to release connection", e);
+                }
+            }
+        }
+    }
+
+    // Lock the user's wallet row, then fold its stripes; returns the amount moved
+    private BigDecimal lockAndFoldStripes(Connection conn, int userId) throws SQLException {
+        int walletId;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT wallet_id FROM wallets WHERE user_id = ? FOR UPDATE")) {
+            ps.setInt(1, userId);
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next()) {
+                return BigDecimal.ZERO;
+            }
+            walletId = rs.getInt("wallet_id");
+        }
+        return foldStripes(conn, walletId);
+    }
+
+    private static boolean applyDelta(Connection conn, String updateSql, int userId, BigDecimal delta) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
+            ps.setBigDecimal(1, delta);
+            ps.setInt(2, userId);
+            ps.setBigDecimal(3, delta);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    private static boolean debit(Connection conn, int userId, BigDecimal amount) throws SQLException {
+        String sql = "UPDATE wallets SET balance = balance - ?, last_updated = CURRENT_TIMESTAMP WHERE user_id = ? AND balance >= ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setBigDecimal(1, amount);
+            ps.setInt(2, userId);
+            ps.setBigDecimal(3, amount);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    private static boolean creditStripe(Connection conn, int walletId, int stripe, BigDecimal amount) throws SQLException {
+        String sql = "UPDATE wallet_stripes SET balance = balance + ? WHERE wallet_id = ? AND stripe = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setBigDecimal(1, amount);
+            ps.setInt(2, walletId);
+            ps.setInt(3, stripe);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    // Same sender, same stripe: a sender's transfers already serialise on its own row, so only
+    // distinct senders need to land on distinct stripes
+    private static int stripeFor(int senderUserId, int stripeCount) {
+        int h = senderUserId * 0x9E3779B9;
+        return Math.floorMod(h ^ (h >>> 16), stripeCount);
+    }
+
+    // Ledger row plus its double-entry pair and rollups on the caller's connection; fills in the
+    // generated transaction_id
+    private void insertLedgerRow(Connection conn, Transaction transaction) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(LEDGER_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            bindLedgerRow(ps, transaction);
+            ps.executeUpdate();
+            ResultSet keys = ps.getGeneratedKeys();
+            if (keys.next()) {
+                transaction.setTransactionId(keys.getInt(1));
+            }
+        }
+        ledgerDAO.appendEntries(conn, List.of(transaction));
+        rollupDAO.applyTransaction(conn, transaction);
+    }
+
+    // Batch form: one JDBC batch for the rows, one for their entries and one per rollup table;
+    // keys come back in row order
+    private void insertLedgerRows(Connection conn, List<Transaction> transactions) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(LEDGER_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            for (Transaction transaction : transactions) {
+                bindLedgerRow(ps, transaction);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            ResultSet keys = ps.getGeneratedKeys();
+            for (Transaction transaction : transactions) {
+                if (!keys.next()) {
+                    break;
+                }
+                transaction.setTransactionId(keys.getInt(1));
+            }
+        }
+        ledgerDAO.appendEntries(conn, transactions);
+        rollupDAO.applyTransactions(conn, transactions);
+    }
+
+    private static void bindLedgerRow(PreparedStatement ps, Transaction transaction) throws SQLException {
+        if (transaction.getFromWalletId() > 0) {
+            ps.setInt(1, transaction.getFromWalletId());
+        } else {
+            ps.setNull(1, Types.INTEGER);
+        }
+        if (transaction.getToWalletId() > 0) {
+            ps.setInt(2, transaction.getToWalletId());
+        } else {
+            ps.setNull(2, Types.INTEGER);
+        }
+        ps.setBigDecimal(3, transaction.getAmount());
+        ps.setString(4, transaction.getTransactionType());
+        ps.setString(5, transaction.getStatus());
+        ps.setString(6, transaction.getNote());
+        ps.setTimestamp(7, Timestamp.valueOf(transaction.getCreatedAt()));
+    }
+}
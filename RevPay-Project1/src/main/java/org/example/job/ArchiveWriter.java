@@ -0,0 +1,90 @@
+package org.example.job;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+// One gzipped archive file per table per retention run, e.g. notifications-20261017-020000.tsv.gz.
+// Rows are tab-separated in MySQL's LOAD DATA format (\N for NULL, backslash escapes), headed
+// by the column names, so a gunzipped file reloads with LOAD DATA INFILE ... IGNORE 1 LINES.
+// append() flushes and fsyncs before returning: rows are on disk before they are deleted.
+public class ArchiveWriter implements Closeable {
+
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path path;
+    private final FileOutputStream file;
+    private final BufferedWriter out;
+    private boolean headerWritten;
+    private long rowCount;
+
+    public ArchiveWriter(Path directory, String table, LocalDateTime runAt) throws IOException {
+        Files.createDirectories(directory);
+        this.path = directory.resolve(table + "-" + FILE_STAMP.format(runAt) + ".tsv.gz");
+        this.file = new FileOutputStream(path.toFile(), true);
+        this.out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(file, 64 * 1024, true), StandardCharsets.UTF_8));
+    }
+
+    public void append(List<String> columns, List<String[]> rows) throws IOException {
+        if (!headerWritten) {
+            out.write(String.join("\t", columns));
+            out.write('\n');
+            headerWritten = true;
+        }
+        StringBuilder line = new StringBuilder();
+        for (String[] row : rows) {
+            line.setLength(0);
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    line.append('\t');
+                }
+                escape(line, row[i]);
+            }
+            out.write(line.toString());
+            out.write('\n');
+        }
+        out.flush();
+        file.getFD().sync();
+        rowCount += rows.size();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    static void escape(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> line.append("\\\\");
+                case '\t' -> line.append("\\t");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\0' -> line.append("\\0");
+                default -> line.append(c);
+            }
+        }
+    }
+}
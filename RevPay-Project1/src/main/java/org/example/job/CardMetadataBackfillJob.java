@@ -0,0 +1,66 @@
+package org.example.job;
+
+import org.example.dao.PaymentMethodDAO;
+import org.example.model.PaymentMethod;
+import org.example.service.PaymentMethodService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+
+// One-off migration after adding the card_brand / card_last4 / card_expiry columns: decrypts each
+// card that has no display metadata yet and stores it, so listings stop decrypting. Cards read in
+// the meantime are backfilled lazily by PaymentMethodService, and legacy values are re-encrypted
+// on the way. Pages through payment_id so each query and update stays small.
+public class CardMetadataBackfillJob {
+
+    private static final Logger logger = LogManager.getLogger(CardMetadataBackfillJob.class);
+    private static final int DEFAULT_BATCH_SIZE = 200;
+
+    private final PaymentMethodDAO paymentMethodDAO;
+    private final PaymentMethodService paymentMethodService;
+    private final int batchSize;
+
+    // Default constructor for production use
+    public CardMetadataBackfillJob() {
+        this(new PaymentMethodDAO(), new PaymentMethodService(), DEFAULT_BATCH_SIZE);
+    }
+
+    // Constructor for testing with dependency injection
+    public CardMetadataBackfillJob(PaymentMethodDAO paymentMethodDAO, PaymentMethodService paymentMethodService, int batchSize) {
+        this.paymentMethodDAO = paymentMethodDAO;
+        this.paymentMethodService = paymentMethodService;
+        this.batchSize = batchSize;
+    }
+
+    // Returns the number of cards backfilled
+    public int run() {
+        long started = System.currentTimeMillis();
+        int backfilled = 0;
+        int failed = 0;
+        int afterId = 0;
+        while (true) {
+            List<PaymentMethod> batch = paymentMethodDAO.getCardsWithoutDisplayMetadata(afterId, batchSize);
+            for (PaymentMethod pm : batch) {
+                afterId = pm.getPaymentId();
+                try {
+                    if (paymentMethodService.backfillDisplayMetadata(pm)) {
+                        backfilled++;
+                    } else {
+                        failed++;
+                        logger.warn("Unparseable card details for paymentId={}", pm.getPaymentId());
+                    }
+                } catch (IllegalStateException e) {
+                    failed++;
+                    logger.error("Cannot decrypt paymentId={}", pm.getPaymentId(), e);
+                }
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        logger.info("Card metadata backfill complete: {} backfilled, {} failed in {} ms",
+                backfilled, failed, System.currentTimeMillis() - started);
+        return backfilled;
+    }
+}
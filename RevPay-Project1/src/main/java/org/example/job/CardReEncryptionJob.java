@@ -0,0 +1,64 @@
+package org.example.job;
+
+import org.example.dao.PaymentMethodDAO;
+import org.example.model.PaymentMethod;
+import org.example.security.CryptoService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+
+// Rewrites every stored card that is not under the active key: legacy ECB values and values
+// under a retired key version. Run once after deploying versioned encryption, and after each
+// key rotation; cards read in the meantime are re-encrypted lazily by PaymentMethodService.
+// Pages through payment_id so each query and update stays small.
+public class CardReEncryptionJob {
+
+    private static final Logger logger = LogManager.getLogger(CardReEncryptionJob.class);
+    private static final int DEFAULT_BATCH_SIZE = 200;
+
+    private final PaymentMethodDAO paymentMethodDAO;
+    private final CryptoService cryptoService;
+    private final int batchSize;
+
+    // Default constructor for production use
+    public CardReEncryptionJob() {
+        this(new PaymentMethodDAO(), CryptoService.shared(), DEFAULT_BATCH_SIZE);
+    }
+
+    // Constructor for testing with dependency injection
+    public CardReEncryptionJob(PaymentMethodDAO paymentMethodDAO, CryptoService cryptoService, int batchSize) {
+        this.paymentMethodDAO = paymentMethodDAO;
+        this.cryptoService = cryptoService;
+        this.batchSize = batchSize;
+    }
+
+    // Returns the number of cards rewritten
+    public int run() {
+        long started = System.currentTimeMillis();
+        int rewritten = 0;
+        int failed = 0;
+        int afterId = 0;
+        while (true) {
+            List<PaymentMethod> batch = paymentMethodDAO.getPaymentMethodsNotEncryptedWith(cryptoService.getActivePrefix(), afterId, batchSize);
+            for (PaymentMethod pm : batch) {
+                afterId = pm.getPaymentId();
+                try {
+                    String upgraded = cryptoService.reEncrypt(pm.getEncryptedDetails());
+                    if (upgraded != null && paymentMethodDAO.updateEncryptedDetails(pm.getPaymentId(), pm.getEncryptedDetails(), upgraded)) {
+                        rewritten++;
+                    }
+                } catch (IllegalStateException e) {
+                    failed++;
+                    logger.error("Cannot re-encrypt paymentId={}", pm.getPaymentId(), e);
+                }
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        logger.info("Card re-encryption complete: {} rewritten to key v{}, {} failed in {} ms",
+                rewritten, cryptoService.getActiveVersion(), failed, System.currentTimeMillis() - started);
+        return rewritten;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.job;
+
+import org.example.dao.LedgerDAO;
+import org.example.model.LedgerMismatch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Audits the ledger without locking: checks that wallets.balance matches the balance derived
+// from the ledger, and that every ledger row has exactly one balanced debit/credit pair.
+// Wallet and transaction ID ranges are split into chunks that run in parallel, each as one
+// consistent read on its own pooled connection. Keep threads below the pool size.
+public class LedgerReconciliationJob {
+
+    private static final Logger logger = LogManager.getLogger(LedgerReconciliationJob.class);
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final LedgerDAO ledgerDAO;
+    private final int chunkSize;
+    private final int threads;
+
+    // Default constructor for production use; parallelism tunable with -Drevpay.reconcile.threads
+    public LedgerReconciliationJob() {
+        this(new LedgerDAO(), DEFAULT_CHUNK_SIZE, Integer.getInteger("revpay.reconcile.threads", 4));
+    }
+
+    // Constructor for testing with dependency injection
+    public LedgerReconciliationJob(LedgerDAO ledgerDAO, int chunkSize, int threads) {
+        this.ledgerDAO = ledgerDAO;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+    }
+
+    // Returns the number of problems found (0 = ledger and balances agree)
+    public int run() throws Exception {
+        long started = System.currentTimeMillis();
+        int maxWalletId = ledgerDAO.getMaxWalletId();
+        int maxTransactionId = ledgerDAO.getMaxTransactionId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<LedgerMismatch>>> walletChunks = new ArrayList<>();
+            for (int from = 1; from <= maxWalletId; from += chunkSize) {
+                int start = from;
+                walletChunks.add(pool.submit(() -> ledgerDAO.findBalanceMismatches(start, start + chunkSize)));
+            }
+            List<Future<List<Integer>>> transactionChunks = new ArrayList<>();
+            for (int from = 1; from <= maxTransactionId; from += chunkSize) {
+                int start = from;
+                transactionChunks.add(pool.submit(() -> ledgerDAO.findUnbalancedTransactions(start, start + chunkSize)));
+            }
+
+            int problems = 0;
+            for (Future<List<LedgerMismatch>> chunk : walletChunks) {
+                for (LedgerMismatch mismatch : get(chunk)) {
+                    logger.warn("Balance mismatch: walletId={}, wallet={}, ledger={}, difference={}",
+                            mismatch.getWalletId(), mismatch.getWalletBalance(), mismatch.getLedgerBalance(), mismatch.getDifference());
+                    problems++;
+                }
+            }
+            for (Future<List<Integer>> chunk : transactionChunks) {
+                for (int transactionId : get(chunk)) {
+                    logger.warn("Unbalanced ledger entries for transactionId={}", transactionId);
+                    problems++;
+                }
+            }
+
+            logger.info("Ledger reconciliation complete: walletIds up to {}, transactionIds up to {}, {} problems in {} ms",
+                    maxWalletId, maxTransactionId, problems, System.currentTimeMillis() - started);
+            return problems;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static <T> T get(Future<T> chunk) throws Exception {
+        try {
+            return chunk.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+}
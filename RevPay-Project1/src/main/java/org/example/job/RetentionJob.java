@@ -0,0 +1,135 @@
+package org.example.job;
+
+import org.example.dao.RetentionDAO;
+import org.example.model.RetentionChunk;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+// Keeps the hot tables small: read notifications and settled money requests older than their
+// retention age are copied to a gzipped archive file and deleted. Run periodically (e.g. nightly).
+// Work walks the primary key in chunks of chunkSize IDs, each one short autocommit statement,
+// with a pause between chunks so replicas and concurrent writers keep up. IDs grow with
+// created_at, so the cutoff is located by a binary search over the primary key and the walk
+// stops there instead of touching recent rows.
+public class RetentionJob {
+
+    private static final Logger logger = LogManager.getLogger(RetentionJob.class);
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final RetentionDAO retentionDAO;
+    private final Path archiveDir; // null = delete without archiving
+    private final int chunkSize;
+    private final long pauseMs;
+    private final int notificationDays;
+    private final int requestDays;
+
+    // Default constructor for production use; tunable with -Drevpay.retention.notificationDays (90),
+    // requestDays (365), chunkSize, pauseMs (50) and archiveDir ("archive"; empty = no archive)
+    public RetentionJob() {
+        this(new RetentionDAO(), archiveDirFromSystemProperties(),
+                Integer.getInteger("revpay.retention.chunkSize", DEFAULT_CHUNK_SIZE),
+                Long.getLong("revpay.retention.pauseMs", 50),
+                Integer.getInteger("revpay.retention.notificationDays", 90),
+                Integer.getInteger("revpay.retention.requestDays", 365));
+    }
+
+    // Constructor for testing with dependency injection
+    public RetentionJob(RetentionDAO retentionDAO, Path archiveDir, int chunkSize, long pauseMs,
+                        int notificationDays, int requestDays) {
+        this.retentionDAO = retentionDAO;
+        this.archiveDir = archiveDir;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.notificationDays = notificationDays;
+        this.requestDays = requestDays;
+    }
+
+    private static Path archiveDirFromSystemProperties() {
+        String dir = System.getProperty("revpay.retention.archiveDir", "archive");
+        return dir.isBlank() ? null : Path.of(dir);
+    }
+
+    // Returns the number of rows removed across both tables
+    public int run() throws SQLException, IOException {
+        long started = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        int removed = purge(RetentionDAO.Table.NOTIFICATIONS, now, now.minusDays(notificationDays));
+        removed += purge(RetentionDAO.Table.MONEY_REQUESTS, now, now.minusDays(requestDays));
+        logger.info("Retention complete: {} rows removed in {} ms", removed, System.currentTimeMillis() - started);
+        return removed;
+    }
+
+    private int purge(RetentionDAO.Table table, LocalDateTime runAt, LocalDateTime cutoff) throws SQLException, IOException {
+        long[] bounds = retentionDAO.getIdBounds(table);
+        if (bounds == null) {
+            return 0;
+        }
+        long endId = findCutoffId(table, bounds[0], bounds[1], cutoff);
+        int removed = 0;
+        ArchiveWriter archive = null;
+        try {
+            for (long from = bounds[0]; from < endId; from += chunkSize) {
+                long to = Math.min(from + chunkSize, endId);
+                if (archiveDir == null) {
+                    removed += retentionDAO.deleteExpired(table, from, to, cutoff);
+                } else {
+                    RetentionChunk chunk = retentionDAO.fetchExpired(table, from, to, cutoff);
+                    if (chunk.isEmpty()) {
+                        continue;
+                    }
+                    if (archive == null) {
+                        archive = new ArchiveWriter(archiveDir, table.getName(), runAt);
+                    }
+                    archive.append(chunk.getColumns(), chunk.getRows());
+                    removed += retentionDAO.deleteByIds(table, chunk.getIds(), cutoff);
+                }
+                if (!pause()) {
+                    logger.warn("Retention of {} interrupted at id {}", table.getName(), to);
+                    break;
+                }
+            }
+        } finally {
+            if (archive != null) {
+                archive.close();
+                logger.info("Archived {} {} rows to {}", archive.getRowCount(), table.getName(), archive.getPath());
+            }
+        }
+        logger.info("Retention of {}: {} rows older than {} removed", table.getName(), removed, cutoff);
+        return removed;
+    }
+
+    // First ID whose row was created at or after the cutoff (maxId + 1 if none): every expired
+    // row lies below it. A handful of primary-key seeks instead of a created_at scan.
+    private long findCutoffId(RetentionDAO.Table table, long minId, long maxId, LocalDateTime cutoff) throws SQLException {
+        long low = minId;
+        long high = maxId + 1;
+        while (low < high) {
+            long mid = low + (high - low) / 2;
+            LocalDateTime createdAt = retentionDAO.getCreatedAtFrom(table, mid);
+            if (createdAt == null || !createdAt.isBefore(cutoff)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.job;
+
+import org.example.dao.RollupDAO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.SQLException;
+
+// Rebuilds the analytics rollups from raw transactions and invoices. Run once after the
+// rollup tables are created; afterwards they are kept current by the DAO write paths.
+// Work is chunked by wallet_id range so each DB transaction stays short.
+public class RollupBackfillJob {
+
+    private static final Logger logger = LogManager.getLogger(RollupBackfillJob.class);
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final RollupDAO rollupDAO;
+    private final int chunkSize;
+
+    // Default constructor for production use
+    public RollupBackfillJob() {
+        this(new RollupDAO(), DEFAULT_CHUNK_SIZE);
+    }
+
+    // Constructor for testing with dependency injection
+    public RollupBackfillJob(RollupDAO rollupDAO, int chunkSize) {
+        this.rollupDAO = rollupDAO;
+        this.chunkSize = chunkSize;
+    }
+
+    public void run() throws SQLException {
+        long started = System.currentTimeMillis();
+
+        int maxWalletId = rollupDAO.getMaxWalletId();
+        int walletRows = 0;
+        for (int from = 1; from <= maxWalletId; from += chunkSize) {
+            walletRows += rollupDAO.rebuildWalletRollups(from, from + chunkSize);
+            logger.info("Wallet rollups rebuilt up to walletId={}/{}", Math.min(from + chunkSize - 1, maxWalletId), maxWalletId);
+        }
+
+        int invoiceRows = 0;
+        for (int businessUserId : rollupDAO.getInvoiceBusinessUserIds()) {
+            invoiceRows += rollupDAO.rebuildInvoiceTotals(businessUserId);
+        }
+
+        logger.info("Rollup backfill complete: {} wallet rollup rows, {} invoice total rows in {} ms",
+                walletRows, invoiceRows, System.currentTimeMillis() - started);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-item report for a bulk payout, in the order the items were submitted
+public class BulkPayoutReport {
+    private List<PayoutItemResult> results = new ArrayList<>();
+    private BigDecimal totalPaid = BigDecimal.ZERO;
+    private BigDecimal payerBalance;  // after the payout; null if nothing committed
+    private boolean replayed;         // idempotency key had already committed; nothing was moved
+
+    // Report for a duplicate idempotency key: the original payout stands, this call did nothing.
+    // The original per-item outcomes are not kept; a replay only confirms the same items were sent.
+    public static BulkPayoutReport replayed() {
+        BulkPayoutReport report = new BulkPayoutReport();
+        report.replayed = true;
+        return report;
+    }
+
+    public List<PayoutItemResult> getResults() { return results; }
+    public void setResults(List<PayoutItemResult> results) { this.results = results; }
+
+    public BigDecimal getTotalPaid() { return totalPaid; }
+    public void setTotalPaid(BigDecimal totalPaid) { this.totalPaid = totalPaid; }
+
+    public BigDecimal getPayerBalance() { return payerBalance; }
+    public void setPayerBalance(BigDecimal payerBalance) { this.payerBalance = payerBalance; }
+
+    public boolean isReplayed() { return replayed; }
+
+    public int getPaidCount() {
+        int paid = 0;
+        for (PayoutItemResult result : results) {
+            if (result.isPaid()) {
+                paid++;
+            }
+        }
+        return paid;
+    }
+}
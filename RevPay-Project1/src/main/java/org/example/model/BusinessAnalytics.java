@@ -0,0 +1,91 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Everything the business dashboard shows, computed in one pass
+public class BusinessAnalytics {
+    private LocalDateTime generatedAt;
+    private LocalDateTime monthStart;
+
+    // Transaction summary
+    private long totalTransactions;
+    private long successfulTransactions;
+    private BigDecimal totalReceived = BigDecimal.ZERO;
+    private BigDecimal totalSent = BigDecimal.ZERO;
+
+    // Revenue (successful incoming transactions)
+    private BigDecimal todayRevenue = BigDecimal.ZERO;
+    private BigDecimal monthRevenue = BigDecimal.ZERO;
+    private long last7DaysCount;
+    private BigDecimal last7DaysRevenue = BigDecimal.ZERO;
+
+    // Invoices
+    private long totalInvoices;
+    private long paidInvoices;
+    private long unpaidInvoices;
+    private BigDecimal totalInvoiceAmount = BigDecimal.ZERO;
+    private BigDecimal outstandingAmount = BigDecimal.ZERO;
+    private Map<String, BigDecimal> topCustomers = new LinkedHashMap<>(); // paid value, highest first
+
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+
+    public LocalDateTime getMonthStart() { return monthStart; }
+    public void setMonthStart(LocalDateTime monthStart) { this.monthStart = monthStart; }
+
+    public long getTotalTransactions() { return totalTransactions; }
+    public void setTotalTransactions(long totalTransactions) { this.totalTransactions = totalTransactions; }
+
+    public long getSuccessfulTransactions() { return successfulTransactions; }
+    public void setSuccessfulTransactions(long successfulTransactions) { this.successfulTransactions = successfulTransactions; }
+
+    public long getFailedTransactions() { return totalTransactions - successfulTransactions; }
+
+    public BigDecimal getTotalReceived() { return totalReceived; }
+    public void setTotalReceived(BigDecimal totalReceived) { this.totalReceived = totalReceived; }
+
+    public BigDecimal getTotalSent() { return totalSent; }
+    public void setTotalSent(BigDecimal totalSent) { this.totalSent = totalSent; }
+
+    public BigDecimal getNetRevenue() { return totalReceived.subtract(totalSent); }
+
+    public BigDecimal getTodayRevenue() { return todayRevenue; }
+    public void setTodayRevenue(BigDecimal todayRevenue) { this.todayRevenue = todayRevenue; }
+
+    public BigDecimal getMonthRevenue() { return monthRevenue; }
+    public void setMonthRevenue(BigDecimal monthRevenue) { this.monthRevenue = monthRevenue; }
+
+    public long getLast7DaysCount() { return last7DaysCount; }
+    public void setLast7DaysCount(long last7DaysCount) { this.last7DaysCount = last7DaysCount; }
+
+    public BigDecimal getLast7DaysRevenue() { return last7DaysRevenue; }
+    public void setLast7DaysRevenue(BigDecimal last7DaysRevenue) { this.last7DaysRevenue = last7DaysRevenue; }
+
+    public BigDecimal getLast7DaysAverage() {
+        return last7DaysCount > 0
+            ? last7DaysRevenue.divide(BigDecimal.valueOf(last7DaysCount), 2, RoundingMode.HALF_UP)
+            : BigDecimal.ZERO;
+    }
+
+    public long getTotalInvoices() { return totalInvoices; }
+    public void setTotalInvoices(long totalInvoices) { this.totalInvoices = totalInvoices; }
+
+    public long getPaidInvoices() { return paidInvoices; }
+    public void setPaidInvoices(long paidInvoices) { this.paidInvoices = paidInvoices; }
+
+    public long getUnpaidInvoices() { return unpaidInvoices; }
+    public void setUnpaidInvoices(long unpaidInvoices) { this.unpaidInvoices = unpaidInvoices; }
+
+    public BigDecimal getTotalInvoiceAmount() { return totalInvoiceAmount; }
+    public void setTotalInvoiceAmount(BigDecimal totalInvoiceAmount) { this.totalInvoiceAmount = totalInvoiceAmount; }
+
+    public BigDecimal getOutstandingAmount() { return outstandingAmount; }
+    public void setOutstandingAmount(BigDecimal outstandingAmount) { this.outstandingAmount = outstandingAmount; }
+
+    public Map<String, BigDecimal> getTopCustomers() { return topCustomers; }
+    public void setTopCustomers(Map<String, BigDecimal> topCustomers) { this.topCustomers = topCustomers; }
+}
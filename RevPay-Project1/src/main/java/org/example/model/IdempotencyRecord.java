@@ -0,0 +1,21 @@
+package org.example.model;
+
+// What a committed idempotency key remembers about the request it guarded
+public class IdempotencyRecord {
+    private final String requestHash;     // IdempotencyDAO.fingerprint of the request
+    private final Integer transactionId;  // ledger row the request wrote; null if it wrote none
+
+    public IdempotencyRecord(String requestHash, Integer transactionId) {
+        this.requestHash = requestHash;
+        this.transactionId = transactionId;
+    }
+
+    // Whether a retry with this fingerprint is the same request
+    public boolean matches(String fingerprint) {
+        return requestHash.equals(fingerprint);
+    }
+
+    public String getRequestHash() { return requestHash; }
+
+    public Integer getTransactionId() { return transactionId; }
+}
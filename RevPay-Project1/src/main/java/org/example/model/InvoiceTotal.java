@@ -0,0 +1,23 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+
+// Invoice count and value for one (customer, status) group
+public class InvoiceTotal {
+    private String customerIdentifier;
+    private String status;          // PAID / UNPAID
+    private long invoiceCount;
+    private BigDecimal totalAmount;
+
+    public String getCustomerIdentifier() { return customerIdentifier; }
+    public void setCustomerIdentifier(String customerIdentifier) { this.customerIdentifier = customerIdentifier; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getInvoiceCount() { return invoiceCount; }
+    public void setInvoiceCount(long invoiceCount) { this.invoiceCount = invoiceCount; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+}
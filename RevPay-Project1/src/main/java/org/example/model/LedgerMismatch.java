@@ -0,0 +1,24 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+
+// A wallet whose stored balance disagrees with the balance derived from the ledger
+public class LedgerMismatch {
+    private final int walletId;
+    private final BigDecimal walletBalance;  // wallets.balance
+    private final BigDecimal ledgerBalance;  // latest snapshot + later ledger entries
+
+    public LedgerMismatch(int walletId, BigDecimal walletBalance, BigDecimal ledgerBalance) {
+        this.walletId = walletId;
+        this.walletBalance = walletBalance;
+        this.ledgerBalance = ledgerBalance;
+    }
+
+    public int getWalletId() { return walletId; }
+    public BigDecimal getWalletBalance() { return walletBalance; }
+    public BigDecimal getLedgerBalance() { return ledgerBalance; }
+
+    public BigDecimal getDifference() {
+        return walletBalance.subtract(ledgerBalance);
+    }
+}
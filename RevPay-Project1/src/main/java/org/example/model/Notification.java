@@ -15,6 +15,7 @@ public class Notification {
     private String message;
     private boolean isRead;
     private LocalDateTime createdAt;
+    private String dedupeKey; // set by OutboxRelay so redelivered events insert once
 
     public Notification() {
         logger.debug("Notification object created");
@@ -67,4 +68,12 @@ public class Notification {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getDedupeKey() {
+        return dedupeKey;
+    }
+
+    public void setDedupeKey(String dedupeKey) {
+        this.dedupeKey = dedupeKey;
+    }
 }
@@ -0,0 +1,95 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// A side effect of a committed money movement, written in the same DB transaction
+// and published afterwards by OutboxRelay
+public class OutboxEvent {
+
+    public static final String MONEY_SENT = "MONEY_SENT";
+    public static final String REQUEST_ACCEPTED = "REQUEST_ACCEPTED";
+    public static final String BULK_PAYOUT = "BULK_PAYOUT";
+
+    private long eventId;
+    private String eventType;
+    private int transactionId;
+    private int fromUserId;
+    private int toUserId;
+    private BigDecimal amount;
+    private BigDecimal senderBalance;
+    private int attempts;
+    private LocalDateTime createdAt;
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(long eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public int getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(int transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public int getFromUserId() {
+        return fromUserId;
+    }
+
+    public void setFromUserId(int fromUserId) {
+        this.fromUserId = fromUserId;
+    }
+
+    public int getToUserId() {
+        return toUserId;
+    }
+
+    public void setToUserId(int toUserId) {
+        this.toUserId = toUserId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getSenderBalance() {
+        return senderBalance;
+    }
+
+    public void setSenderBalance(BigDecimal senderBalance) {
+        this.senderBalance = senderBalance;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -15,6 +15,10 @@ public class PaymentMethod {
     private String encryptedDetails;
     private boolean isDefault;
     private LocalDateTime createdAt;
+    // Display metadata kept in the clear so listings need no decryption; null until backfilled
+    private String cardBrand;
+    private String cardLast4;
+    private String cardExpiry;
 
     public PaymentMethod() {
         logger.debug("PaymentMethod object created");
@@ -67,4 +71,28 @@ public class PaymentMethod {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getCardBrand() {
+        return cardBrand;
+    }
+
+    public void setCardBrand(String cardBrand) {
+        this.cardBrand = cardBrand;
+    }
+
+    public String getCardLast4() {
+        return cardLast4;
+    }
+
+    public void setCardLast4(String cardLast4) {
+        this.cardLast4 = cardLast4;
+    }
+
+    public String getCardExpiry() {
+        return cardExpiry;
+    }
+
+    public void setCardExpiry(String cardExpiry) {
+        this.cardExpiry = cardExpiry;
+    }
 }
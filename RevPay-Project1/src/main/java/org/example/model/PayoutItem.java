@@ -0,0 +1,28 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+
+// One line of a bulk payout: who to pay (email/phone/full name), how much, and an optional note
+public class PayoutItem {
+    private String identifier;
+    private BigDecimal amount;
+    private String note;
+
+    public PayoutItem() {
+    }
+
+    public PayoutItem(String identifier, BigDecimal amount, String note) {
+        this.identifier = identifier;
+        this.amount = amount;
+        this.note = note;
+    }
+
+    public String getIdentifier() { return identifier; }
+    public void setIdentifier(String identifier) { this.identifier = identifier; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+}
@@ -0,0 +1,37 @@
+package org.example.model;
+
+// Outcome of one bulk payout line. Items start PENDING once their recipient is resolved;
+// WalletDAO.bulkPayout settles every PENDING item as PAID, INSUFFICIENT_FUNDS or FAILED.
+public class PayoutItemResult {
+
+    public static final String PENDING = "PENDING";
+    public static final String PAID = "PAID";
+    public static final String INVALID_AMOUNT = "INVALID_AMOUNT";
+    public static final String RECIPIENT_NOT_FOUND = "RECIPIENT_NOT_FOUND";
+    public static final String SELF_PAYMENT = "SELF_PAYMENT";
+    public static final String INSUFFICIENT_FUNDS = "INSUFFICIENT_FUNDS";
+    public static final String FAILED = "FAILED";
+
+    private final PayoutItem item;
+    private String status;
+    private int recipientUserId;  // 0 until resolved
+    private int transactionId;    // ledger row, set when PAID
+
+    public PayoutItemResult(PayoutItem item, String status) {
+        this.item = item;
+        this.status = status;
+    }
+
+    public PayoutItem getItem() { return item; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getRecipientUserId() { return recipientUserId; }
+    public void setRecipientUserId(int recipientUserId) { this.recipientUserId = recipientUserId; }
+
+    public int getTransactionId() { return transactionId; }
+    public void setTransactionId(int transactionId) { this.transactionId = transactionId; }
+
+    public boolean isPaid() { return PAID.equals(status); }
+}
@@ -0,0 +1,38 @@
+package org.example.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Expired rows read from one primary-key range, as strings in column order (null for SQL NULL),
+// ready to be archived and then deleted by ID
+public class RetentionChunk {
+
+    private final List<String> columns;
+    private final List<Long> ids = new ArrayList<>();
+    private final List<String[]> rows = new ArrayList<>();
+
+    public RetentionChunk(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public void add(long id, String[] row) {
+        ids.add(id);
+        rows.add(row);
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public List<String[]> getRows() {
+        return rows;
+    }
+
+    public boolean isEmpty() {
+        return ids.isEmpty();
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.model;
+
+import java.time.LocalDateTime;
+
+// Keyset position in a transaction history ordered by (created_at DESC, transaction_id DESC)
+public class TransactionCursor {
+    private final LocalDateTime createdAt;
+    private final int transactionId;
+
+    public TransactionCursor(LocalDateTime createdAt, int transactionId) {
+        this.createdAt = createdAt;
+        this.transactionId = transactionId;
+    }
+
+    // Cursor that resumes right after the given (last seen) transaction
+    public static TransactionCursor after(Transaction transaction) {
+        return new TransactionCursor(transaction.getCreatedAt(), transaction.getTransactionId());
+    }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public int getTransactionId() { return transactionId; }
+}
@@ -0,0 +1,36 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Optional history filters; null fields are not applied
+public class TransactionFilter {
+    private String type;            // SENT, RECEIVED, DEPOSIT, WITHDRAWAL or a raw transaction_type
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private String status;          // SUCCESS, FAILED, PENDING
+    private String searchTerm;      // matches note or counterparty name/email
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public LocalDateTime getStartDate() { return startDate; }
+    public void setStartDate(LocalDateTime startDate) { this.startDate = startDate; }
+
+    public LocalDateTime getEndDate() { return endDate; }
+    public void setEndDate(LocalDateTime endDate) { this.endDate = endDate; }
+
+    public BigDecimal getMinAmount() { return minAmount; }
+    public void setMinAmount(BigDecimal minAmount) { this.minAmount = minAmount; }
+
+    public BigDecimal getMaxAmount() { return maxAmount; }
+    public void setMaxAmount(BigDecimal maxAmount) { this.maxAmount = maxAmount; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getSearchTerm() { return searchTerm; }
+    public void setSearchTerm(String searchTerm) { this.searchTerm = searchTerm; }
+}
@@ -0,0 +1,33 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+
+// Outcome of a committed wallet-to-wallet transfer
+public class TransferResult {
+    private Transaction transaction;     // ledger row written in the same DB transaction
+    private BigDecimal senderBalance;    // sender balance after the transfer
+    private BigDecimal recipientBalance; // recipient balance after the transfer
+    private boolean replayed;            // idempotency key had already committed; nothing was moved
+    private Integer originalTransactionId; // replayed only: ledger row of the original transfer, if recorded
+
+    // Result for a duplicate idempotency key: the original transfer stands, this call did nothing
+    public static TransferResult replayed(Integer originalTransactionId) {
+        TransferResult result = new TransferResult();
+        result.replayed = true;
+        result.originalTransactionId = originalTransactionId;
+        return result;
+    }
+
+    public Transaction getTransaction() { return transaction; }
+    public void setTransaction(Transaction transaction) { this.transaction = transaction; }
+
+    public BigDecimal getSenderBalance() { return senderBalance; }
+    public void setSenderBalance(BigDecimal senderBalance) { this.senderBalance = senderBalance; }
+
+    public BigDecimal getRecipientBalance() { return recipientBalance; }
+    public void setRecipientBalance(BigDecimal recipientBalance) { this.recipientBalance = recipientBalance; }
+
+    public boolean isReplayed() { return replayed; }
+
+    public Integer getOriginalTransactionId() { return originalTransactionId; }
+}
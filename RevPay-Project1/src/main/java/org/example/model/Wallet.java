@@ -15,6 +15,7 @@ public class Wallet {
     private BigDecimal balance;
     private String currency;
     private LocalDateTime lastUpdated;
+    private int stripeCount;  // > 1: credits are spread over wallet_stripes rows
 
     public Wallet() {
         logger.debug("Wallet object created");
@@ -59,4 +60,12 @@ public class Wallet {
     public void setLastUpdated(LocalDateTime lastUpdated) {
         this.lastUpdated = lastUpdated;
     }
+
+    public int getStripeCount() {
+        return stripeCount;
+    }
+
+    public void setStripeCount(int stripeCount) {
+        this.stripeCount = stripeCount;
+    }
 }
@@ -0,0 +1,74 @@
+package org.example.security;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+// Picks the bcrypt cost for new hashes from a startup benchmark: the highest cost whose measured
+// hash time stays under the target latency on this machine. Each cost step doubles the work, so
+// the benchmark stops as soon as the next step would be over the target and costs at most about
+// 2x target per sample. The cost never drops below minCost, whatever the hardware.
+public class BcryptCostTuner {
+
+    private static final Logger logger = LogManager.getLogger(BcryptCostTuner.class);
+    private static final int SAMPLES = 3;
+
+    private BcryptCostTuner() {
+    }
+
+    // -Drevpay.hash.cost pins the cost and skips the benchmark; otherwise the benchmark aims for
+    // -Drevpay.hash.targetMs (default 250) within -Drevpay.hash.minCost / maxCost (10 / 16)
+    public static int tuneFromSystemProperties() {
+        Integer pinned = Integer.getInteger("revpay.hash.cost");
+        if (pinned != null) {
+            PasswordUtil.setCost(pinned);
+            logger.info("bcrypt cost pinned at {}", pinned);
+            return pinned;
+        }
+        int cost = tune(Long.getLong("revpay.hash.targetMs", 250),
+                Integer.getInteger("revpay.hash.minCost", PasswordUtil.DEFAULT_COST),
+                Integer.getInteger("revpay.hash.maxCost", 16));
+        PasswordUtil.setCost(cost);
+        return cost;
+    }
+
+    public static int tune(long targetMs, int minCost, int maxCost) {
+        return tune(targetMs, minCost, maxCost, BcryptCostTuner::measureMs);
+    }
+
+    // Benchmark with an injected timer (median milliseconds for one hash at the given cost)
+    public static int tune(long targetMs, int minCost, int maxCost, IntToLongFunction timer) {
+        int cost = Math.max(minCost, PasswordUtil.MIN_COST);
+        int ceiling = Math.min(maxCost, PasswordUtil.MAX_COST);
+        long elapsed = timer.applyAsLong(cost);
+        logger.info("bcrypt cost {} takes {} ms", cost, elapsed);
+        while (cost < ceiling && elapsed * 2 <= targetMs) {
+            long next = timer.applyAsLong(cost + 1);
+            logger.info("bcrypt cost {} takes {} ms", cost + 1, next);
+            if (next > targetMs) {
+                break;
+            }
+            cost++;
+            elapsed = next;
+        }
+        if (elapsed > targetMs) {
+            logger.warn("bcrypt cost {} takes {} ms, over the {} ms target; keeping the minimum", cost, elapsed, targetMs);
+        } else {
+            logger.info("bcrypt cost set to {} ({} ms, target {} ms)", cost, elapsed, targetMs);
+        }
+        return cost;
+    }
+
+    private static long measureMs(int cost) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            PasswordUtil.hash("revpay-cost-benchmark", cost);
+            samples[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
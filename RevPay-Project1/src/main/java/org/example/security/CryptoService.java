@@ -0,0 +1,182 @@
+package org.example.security;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+// Field encryption for stored secrets (card details). Values are AES-256-GCM with a fresh
+// random 96-bit IV per record, stored as "v<key version>:" + base64(iv || ciphertext || tag),
+// so tampering is detected on decrypt and keys can be rotated: any configured version still
+// decrypts, new values use the active one. Values without a prefix are the legacy unauthenticated
+// AES/ECB format written by the old EncryptionUtil; they still decrypt, and needsReEncryption()
+// tells callers to rewrite them. Version 0 is reserved for the built-in key: it is active only
+// while no key is configured and stays decrypt-only afterwards. Cipher objects are expensive to look up, so each thread keeps
+// its own GCM and ECB instance and only re-inits them per call.
+public class CryptoService {
+
+    private static final Logger logger = LogManager.getLogger(CryptoService.class);
+
+    private static final String GCM = "AES/GCM/NoPadding";
+    private static final String LEGACY_ECB = "AES/ECB/PKCS5Padding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    // Version of the built-in key; -Drevpay.crypto.key.<n> starts at 1 and cannot replace it
+    public static final int BUILT_IN_VERSION = 0;
+    // Key used by every value written before versioned encryption
+    private static final byte[] LEGACY_KEY = "RevPaySecretKey12345678901234567".getBytes(StandardCharsets.US_ASCII);
+
+    private static volatile CryptoService shared;
+
+    private final Map<Integer, SecretKey> keys;
+    private final int activeVersion;
+    private final String activePrefix;
+    private final SecretKey legacyKey = new SecretKeySpec(LEGACY_KEY, "AES");
+    private final SecureRandom random = new SecureRandom();
+
+    private final ThreadLocal<Cipher> gcmCiphers = ThreadLocal.withInitial(() -> newCipher(GCM));
+    private final ThreadLocal<Cipher> ecbCiphers = ThreadLocal.withInitial(() -> newCipher(LEGACY_ECB));
+
+    // keys: version (1 and up) -> 16, 24 or 32 raw key bytes. activeVersion must be one of them,
+    // or BUILT_IN_VERSION when keys is empty.
+    public CryptoService(Map<Integer, byte[]> keys, int activeVersion) {
+        if (keys.containsKey(BUILT_IN_VERSION)) {
+            throw new IllegalArgumentException("Key version " + BUILT_IN_VERSION + " is reserved for the built-in key");
+        }
+        if (activeVersion == BUILT_IN_VERSION ? !keys.isEmpty() : !keys.containsKey(activeVersion)) {
+            throw new IllegalArgumentException("No key configured for active version " + activeVersion);
+        }
+        this.keys = new TreeMap<>();
+        this.keys.put(BUILT_IN_VERSION, legacyKey);
+        for (Map.Entry<Integer, byte[]> entry : keys.entrySet()) {
+            this.keys.put(entry.getKey(), new SecretKeySpec(entry.getValue(), "AES"));
+        }
+        this.activeVersion = activeVersion;
+        this.activePrefix = "v" + activeVersion + ":";
+    }
+
+    // Process-wide service configured from the system properties (see fromProperties)
+    public static CryptoService shared() {
+        CryptoService current = shared;
+        if (current == null) {
+            synchronized (CryptoService.class) {
+                if (shared == null) {
+                    shared = fromProperties(System.getProperties());
+                }
+                current = shared;
+            }
+        }
+        return current;
+    }
+
+    // Keys from revpay.crypto.key.<version>=<base64 key> for versions 1..revpay.crypto.maxKeyVersion
+    // (default 16), active one from revpay.crypto.activeKey (default: highest configured). With no
+    // keys configured, values are written as v0 under the built-in key; configuring keys later
+    // leaves those readable and flags them for re-encryption.
+    public static CryptoService fromProperties(Properties props) {
+        TreeMap<Integer, byte[]> keys = new TreeMap<>();
+        int maxVersion = Integer.parseInt(props.getProperty("revpay.crypto.maxKeyVersion", "16"));
+        for (int version = 1; version <= maxVersion; version++) {
+            String encoded = props.getProperty("revpay.crypto.key." + version);
+            if (encoded != null && !encoded.isBlank()) {
+                keys.put(version, Base64.getDecoder().decode(encoded.trim()));
+            }
+        }
+        if (keys.isEmpty()) {
+            logger.warn("No -Drevpay.crypto.key.<n> configured; encrypting with the built-in key");
+            return new CryptoService(keys, BUILT_IN_VERSION);
+        }
+        String active = props.getProperty("revpay.crypto.activeKey");
+        return new CryptoService(keys, active != null ? Integer.parseInt(active.trim()) : keys.lastKey());
+    }
+
+    public String encrypt(String plaintext) {
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = gcmCiphers.get();
+            cipher.init(Cipher.ENCRYPT_MODE, keys.get(activeVersion), new GCMParameterSpec(TAG_BITS, iv));
+            byte[] input = plaintext.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer out = ByteBuffer.allocate(IV_BYTES + cipher.getOutputSize(input.length));
+            out.put(iv);
+            cipher.doFinal(ByteBuffer.wrap(input), out);
+            return activePrefix + Base64.getEncoder().encodeToString(out.array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Encryption failed", e);
+        }
+    }
+
+    public String decrypt(String stored) {
+        int version = versionOf(stored);
+        try {
+            if (version < 0) {
+                Cipher cipher = ecbCiphers.get();
+                cipher.init(Cipher.DECRYPT_MODE, legacyKey);
+                return new String(cipher.doFinal(Base64.getDecoder().decode(stored)), StandardCharsets.UTF_8);
+            }
+            SecretKey key = keys.get(version);
+            if (key == null) {
+                throw new IllegalStateException("No key configured for version " + version);
+            }
+            byte[] data = Base64.getDecoder().decode(stored.substring(stored.indexOf(':') + 1));
+            if (data.length < IV_BYTES + TAG_BITS / 8) {
+                throw new IllegalStateException("Decryption failed: value too short");
+            }
+            Cipher cipher = gcmCiphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, IV_BYTES));
+            return new String(cipher.doFinal(data, IV_BYTES, data.length - IV_BYTES), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Decryption failed", e);
+        }
+    }
+
+    // True for legacy ECB values and values under a key other than the active one
+    public boolean needsReEncryption(String stored) {
+        return stored != null && !stored.startsWith(activePrefix);
+    }
+
+    // Stored value under the active key, or null if it already is
+    public String reEncrypt(String stored) {
+        return needsReEncryption(stored) ? encrypt(decrypt(stored)) : null;
+    }
+
+    public int getActiveVersion() {
+        return activeVersion;
+    }
+
+    public String getActivePrefix() {
+        return activePrefix;
+    }
+
+    // Key version of a "v<n>:..." value, or -1 for a legacy value. Base64 never contains ':'.
+    private static int versionOf(String stored) {
+        int colon = stored.indexOf(':');
+        if (colon < 2 || stored.charAt(0) != 'v') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(stored.substring(1, colon));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cipher unavailable: " + transformation, e);
+        }
+    }
+}
@@ -1,35 +1,16 @@
 package org.example.security;
 
-import javax.crypto.Cipher;
-import javax.crypto.spec.SecretKeySpec;
-import java.util.Base64;
-
+// Static entry points kept for existing callers; the work is done by the shared CryptoService
+// (AES-GCM with per-thread ciphers), which still decrypts values written by the old ECB code.
 public class EncryptionUtil {
 
-    private static final String ALGO = "AES";
-    private static final String SECRET_KEY = "RevPaySecretKey12345678901234567"; // Exactly 32 bytes for AES-256
-
     private EncryptionUtil() {}
 
     public static String encrypt(String data) {
-        try {
-            SecretKeySpec key = new SecretKeySpec(SECRET_KEY.getBytes(), ALGO);
-            Cipher cipher = Cipher.getInstance(ALGO);
-            cipher.init(Cipher.ENCRYPT_MODE, key);
-            return Base64.getEncoder().encodeToString(cipher.doFinal(data.getBytes()));
-        } catch (Exception e) {
-            throw new RuntimeException("Encryption failed", e);
-        }
+        return CryptoService.shared().encrypt(data);
     }
 
     public static String decrypt(String encryptedData) {
-        try {
-            SecretKeySpec key = new SecretKeySpec(SECRET_KEY.getBytes(), ALGO);
-            Cipher cipher = Cipher.getInstance(ALGO);
-            cipher.init(Cipher.DECRYPT_MODE, key);
-            return new String(cipher.doFinal(Base64.getDecoder().decode(encryptedData)));
-        } catch (Exception e) {
-            throw new RuntimeException("Decryption failed", e);
-        }
+        return CryptoService.shared().decrypt(encryptedData);
     }
 }
@@ -0,0 +1,86 @@
+package org.example.security;
+
+// Point-in-time snapshot of password hashing counters. Times are measured on the hashing pool
+// (bcrypt itself) separately from the time a call spent queued for a pool thread.
+public class HashMetrics {
+
+    private final int cost;
+    private final long hashCount;
+    private final long hashTotalMs;
+    private final long hashMaxMs;
+    private final long verifyCount;
+    private final long verifyTotalMs;
+    private final long verifyMaxMs;
+    private final long queueTotalMs;
+    private final long queueMaxMs;
+    private final long rejectedCount;
+    private final long rehashCount;
+
+    public HashMetrics(int cost, long hashCount, long hashTotalMs, long hashMaxMs,
+                       long verifyCount, long verifyTotalMs, long verifyMaxMs,
+                       long queueTotalMs, long queueMaxMs, long rejectedCount, long rehashCount) {
+        this.cost = cost;
+        this.hashCount = hashCount;
+        this.hashTotalMs = hashTotalMs;
+        this.hashMaxMs = hashMaxMs;
+        this.verifyCount = verifyCount;
+        this.verifyTotalMs = verifyTotalMs;
+        this.verifyMaxMs = verifyMaxMs;
+        this.queueTotalMs = queueTotalMs;
+        this.queueMaxMs = queueMaxMs;
+        this.rejectedCount = rejectedCount;
+        this.rehashCount = rehashCount;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public long getHashCount() {
+        return hashCount;
+    }
+
+    public double getAverageHashMs() {
+        return hashCount == 0 ? 0.0 : (double) hashTotalMs / hashCount;
+    }
+
+    public long getHashMaxMs() {
+        return hashMaxMs;
+    }
+
+    public long getVerifyCount() {
+        return verifyCount;
+    }
+
+    public double getAverageVerifyMs() {
+        return verifyCount == 0 ? 0.0 : (double) verifyTotalMs / verifyCount;
+    }
+
+    public long getVerifyMaxMs() {
+        return verifyMaxMs;
+    }
+
+    public double getAverageQueueMs() {
+        long calls = hashCount + verifyCount;
+        return calls == 0 ? 0.0 : (double) queueTotalMs / calls;
+    }
+
+    public long getQueueMaxMs() {
+        return queueMaxMs;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getRehashCount() {
+        return rehashCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HashMetrics[cost=%d, hashes=%d, avgHashMs=%.1f, maxHashMs=%d, verifies=%d, avgVerifyMs=%.1f, maxVerifyMs=%d, avgQueueMs=%.1f, maxQueueMs=%d, rejected=%d, rehashed=%d]",
+                cost, hashCount, getAverageHashMs(), hashMaxMs, verifyCount, getAverageVerifyMs(), verifyMaxMs,
+                getAverageQueueMs(), queueMaxMs, rejectedCount, rehashCount);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.security;
+
+import org.example.cache.LruCache;
+
+import java.util.function.LongSupplier;
+
+// In-memory failed-login tracker, consulted before any bcrypt work. Each account gets one
+// verification slot, so a burst of parallel guesses against it costs one hash at a time, and
+// after a failure the account backs off (baseDelayMs doubling per failure, capped at
+// maxDelayMs) before the next attempt is verified at all. The persistent lock after too many
+// failures stays in the users table; this only keeps guesses from reaching the CPU. Entries
+// expire after a quiet window, and the cache is bounded, so memory does not grow with attacks.
+public class LoginThrottle {
+
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+    private static final long FAILURE_WINDOW_MS = 15 * 60_000;
+
+    private static volatile LoginThrottle shared;
+
+    private final LruCache<Integer, Attempts> attempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final LongSupplier clock;
+
+    private static final class Attempts {
+        int failures;
+        long blockedUntil;
+        boolean verifying;
+    }
+
+    public LoginThrottle(long baseDelayMs, long maxDelayMs) {
+        this(DEFAULT_MAX_SIZE, baseDelayMs, maxDelayMs, System::currentTimeMillis);
+    }
+
+    // Constructor for testing with an injectable clock
+    public LoginThrottle(int maxSize, long baseDelayMs, long maxDelayMs, LongSupplier clock) {
+        this.attempts = new LruCache<>(maxSize, FAILURE_WINDOW_MS, clock);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.clock = clock;
+    }
+
+    // Backoff from -Drevpay.login.baseDelayMs and -Drevpay.login.maxDelayMs
+    public static LoginThrottle shared() {
+        LoginThrottle current = shared;
+        if (current == null) {
+            synchronized (LoginThrottle.class) {
+                if (shared == null) {
+                    shared = new LoginThrottle(
+                            Long.getLong("revpay.login.baseDelayMs", 1_000),
+                            Long.getLong("revpay.login.maxDelayMs", 60_000));
+                }
+                current = shared;
+            }
+        }
+        return current;
+    }
+
+    // Claim the account's verification slot; false while another attempt is being verified or
+    // the account is backing off. Every true must be followed by onSuccess, onFailure or release.
+    public boolean tryAcquire(int userId) {
+        Attempts a = entry(userId);
+        synchronized (a) {
+            if (a.verifying || clock.getAsLong() < a.blockedUntil) {
+                return false;
+            }
+            a.verifying = true;
+            return true;
+        }
+    }
+
+    public void onSuccess(int userId) {
+        attempts.invalidate(userId);
+    }
+
+    public void onFailure(int userId) {
+        Attempts a = entry(userId);
+        synchronized (a) {
+            a.failures++;
+            long delay = baseDelayMs << Math.min(a.failures - 1, 20);
+            a.blockedUntil = clock.getAsLong() + Math.min(delay, maxDelayMs);
+            a.verifying = false;
+        }
+    }
+
+    // Give the slot back without an outcome (hashing was busy or failed)
+    public void release(int userId) {
+        Attempts a = attempts.get(userId);
+        if (a != null) {
+            synchronized (a) {
+                a.verifying = false;
+            }
+        }
+    }
+
+    private Attempts entry(int userId) {
+        synchronized (attempts) {
+            Attempts a = attempts.get(userId);
+            if (a == null) {
+                a = new Attempts();
+                attempts.put(userId, a);
+            }
+            return a;
+        }
+    }
+}
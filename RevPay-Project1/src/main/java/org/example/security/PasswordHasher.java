@@ -0,0 +1,165 @@
+package org.example.security;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs bcrypt (tens of milliseconds of CPU per call) on a small dedicated pool instead of the
+// caller's thread. The pool is bounded by cores and its queue by capacity, so a login storm
+// queues or is refused here while request threads, DB work and transfers keep their CPU.
+// Callers block for the result; a full queue or a result slower than timeoutMs throws
+// BusyException rather than piling up more work. Queue wait and bcrypt time are tracked per
+// operation and exported through getMetrics().
+public class PasswordHasher {
+
+    private static final Logger logger = LogManager.getLogger(PasswordHasher.class);
+
+    private static volatile PasswordHasher shared;
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    private final LatencyCounter hashLatency = new LatencyCounter();
+    private final LatencyCounter verifyLatency = new LatencyCounter();
+    private final LatencyCounter queueLatency = new LatencyCounter();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong rehashed = new AtomicLong();
+
+    // Hashing capacity is exhausted; the caller should fail fast (HTTP 503) and retry later
+    public static class BusyException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public BusyException(String message) {
+            super(message);
+        }
+    }
+
+    public PasswordHasher(int threads, int queueCapacity, long timeoutMs) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "revpay-password-hasher-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+    }
+
+    // Sized from -Drevpay.hash.threads (default: cores), -Drevpay.hash.queueCapacity and -Drevpay.hash.timeoutMs
+    public static PasswordHasher shared() {
+        PasswordHasher current = shared;
+        if (current == null) {
+            synchronized (PasswordHasher.class) {
+                if (shared == null) {
+                    int threads = Integer.getInteger("revpay.hash.threads", Runtime.getRuntime().availableProcessors());
+                    shared = new PasswordHasher(threads,
+                            Integer.getInteger("revpay.hash.queueCapacity", threads * 16),
+                            Long.getLong("revpay.hash.timeoutMs", 5_000));
+                }
+                current = shared;
+            }
+        }
+        return current;
+    }
+
+    public static void shutdownShared() {
+        PasswordHasher current = shared;
+        if (current != null) {
+            current.executor.shutdownNow();
+            logger.info("Password hasher stopped: {}", current.getStats());
+        }
+    }
+
+    public boolean verify(String raw, String hashed) {
+        return run(() -> PasswordUtil.verify(raw, hashed), verifyLatency);
+    }
+
+    public String hash(String raw) {
+        return run(() -> PasswordUtil.hash(raw), hashLatency);
+    }
+
+    // New hash at the current cost for a just-verified secret whose stored hash is weaker,
+    // or null when the stored hash is already current
+    public String rehashIfOutdated(String raw, String hashed) {
+        if (!PasswordUtil.needsRehash(hashed)) {
+            return null;
+        }
+        String upgraded = hash(raw);
+        rehashed.incrementAndGet();
+        return upgraded;
+    }
+
+    public HashMetrics getMetrics() {
+        return new HashMetrics(PasswordUtil.getCost(),
+                hashLatency.count.get(), hashLatency.totalMs(), hashLatency.maxMs(),
+                verifyLatency.count.get(), verifyLatency.totalMs(), verifyLatency.maxMs(),
+                queueLatency.totalMs(), queueLatency.maxMs(), rejected.get(), rehashed.get());
+    }
+
+    public String getStats() {
+        return String.format("%s, active=%d, queued=%d", getMetrics(), executor.getActiveCount(), executor.getQueue().size());
+    }
+
+    private <T> T run(Callable<T> task, LatencyCounter latency) {
+        long submitted = System.nanoTime();
+        Callable<T> timed = () -> {
+            long started = System.nanoTime();
+            queueLatency.record(started - submitted);
+            try {
+                return task.call();
+            } finally {
+                latency.record(System.nanoTime() - started);
+            }
+        };
+        Future<T> future;
+        try {
+            future = executor.submit(timed);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new BusyException("Password hashing queue is full");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.incrementAndGet();
+            throw new BusyException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusyException("Interrupted waiting for password hashing");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static class LatencyCounter {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        long totalMs() {
+            return totalNanos.get() / 1_000_000;
+        }
+
+        long maxMs() {
+            return maxNanos.get() / 1_000_000;
+        }
+    }
+}
@@ -4,8 +4,20 @@ import org.mindrot.jbcrypt.BCrypt;
 
 public class PasswordUtil {
 
+    public static final int DEFAULT_COST = 10;
+    public static final int MIN_COST = 4;
+    public static final int MAX_COST = 31;
+
+    // Cost for new hashes; raised at startup by BcryptCostTuner. Existing hashes keep the cost
+    // they were created with (it is stored in the hash) and still verify.
+    private static volatile int cost = DEFAULT_COST;
+
     public static String hash(String raw) {
-        return BCrypt.hashpw(raw, BCrypt.gensalt(10));
+        return hash(raw, cost);
+    }
+
+    public static String hash(String raw, int cost) {
+        return BCrypt.hashpw(raw, BCrypt.gensalt(cost));
     }
 
     public static boolean verify(String raw, String hashed) {
@@ -17,4 +29,33 @@ public class PasswordUtil {
 
         return BCrypt.checkpw(raw, hashed);
     }
+
+    public static int getCost() {
+        return cost;
+    }
+
+    public static void setCost(int newCost) {
+        if (newCost < MIN_COST || newCost > MAX_COST) {
+            throw new IllegalArgumentException("bcrypt cost must be between " + MIN_COST + " and " + MAX_COST);
+        }
+        cost = newCost;
+    }
+
+    // Cost stored in a "$2a$10$..." hash, or -1 if it is not a bcrypt hash
+    public static int costOf(String hashed) {
+        if (hashed == null || hashed.length() < 7 || !hashed.startsWith("$2") || hashed.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hashed.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Only weaker hashes are upgraded; lowering the cost never rewrites stronger ones
+    public static boolean needsRehash(String hashed) {
+        int stored = costOf(hashed);
+        return stored > 0 && stored < cost;
+    }
 }
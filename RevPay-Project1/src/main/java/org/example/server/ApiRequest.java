@@ -0,0 +1,144 @@
+package org.example.server;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One parsed API call: path parameters from the route, query string, JSON body and the caller's
+// session. The typed getters turn missing or malformed input into 400s.
+public class ApiRequest {
+
+    private final Map<String, String> pathParams;
+    private final Map<String, String> query;
+    private final Map<String, Object> body;
+    private final SessionStore.Session session;
+    private final String token;
+
+    public ApiRequest(Map<String, String> pathParams, Map<String, String> query, Map<String, Object> body,
+                      SessionStore.Session session, String token) {
+        this.pathParams = pathParams;
+        this.query = query;
+        this.body = body;
+        this.session = session;
+        this.token = token;
+    }
+
+    public int userId() {
+        return session.getUserId();
+    }
+
+    public SessionStore.Session session() {
+        return session;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public int pathInt(String name) {
+        try {
+            return Integer.parseInt(pathParams.get(name));
+        } catch (NumberFormatException e) {
+            throw ApiException.badRequest("Invalid " + name);
+        }
+    }
+
+    public String query(String name) {
+        return query.get(name);
+    }
+
+    public int queryInt(String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw ApiException.badRequest("Invalid " + name);
+        }
+    }
+
+    public Map<String, Object> body() {
+        return body;
+    }
+
+    public String string(String field) {
+        return string(body, field);
+    }
+
+    public String optionalString(String field) {
+        return optionalString(body, field);
+    }
+
+    public BigDecimal amount(String field) {
+        return amount(body, field);
+    }
+
+    public List<Object> list(String field) {
+        if (!(body.get(field) instanceof List<?> items)) {
+            throw ApiException.badRequest("Missing " + field);
+        }
+        @SuppressWarnings("unchecked")
+        List<Object> list = (List<Object>) items;
+        return list;
+    }
+
+    // Field accessors for nested objects (invoice items, payout lines)
+    public static String string(Map<String, Object> object, String field) {
+        String value = optionalString(object, field);
+        if (value == null || value.isBlank()) {
+            throw ApiException.badRequest("Missing " + field);
+        }
+        return value;
+    }
+
+    public static String optionalString(Map<String, Object> object, String field) {
+        Object value = object.get(field);
+        return value == null ? null : value.toString();
+    }
+
+    public static BigDecimal amount(Map<String, Object> object, String field) {
+        Object value = object.get(field);
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (value instanceof String s) {
+            try {
+                return new BigDecimal(s.trim());
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+        }
+        throw ApiException.badRequest(value == null ? "Missing " + field : "Invalid " + field);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> object(Object value) {
+        if (!(value instanceof Map)) {
+            throw ApiException.badRequest("Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    public static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw ApiException.badRequest("Malformed query string");
+            }
+        }
+        return params;
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.server;
+
+import java.util.Map;
+
+// Status plus JSON body. Handlers return plain values for 200; this is for everything else.
+public class ApiResponse {
+
+    private final int status;
+    private final String body;
+
+    public ApiResponse(int status, Object value) {
+        this.status = status;
+        this.body = Json.write(value);
+    }
+
+    public static ApiResponse ok(Object value) {
+        return new ApiResponse(200, value);
+    }
+
+    public static ApiResponse created(Object value) {
+        return new ApiResponse(201, value);
+    }
+
+    public static ApiResponse error(int status, String message) {
+        return new ApiResponse(status, Map.of("error", message));
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
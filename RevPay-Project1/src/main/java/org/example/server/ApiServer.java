@@ -0,0 +1,128 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.config.PoolConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Embedded HTTP front end for RevPayApi. Every request runs on its own virtual thread, so a slow
+// client or a request blocked on MySQL costs a parked continuation rather than a platform thread.
+// Database work is capped by a fair semaphore sized to the connection pool: excess requests wait
+// here, cheaply, and get a 503 after dbAcquireTimeoutMs instead of timing out inside the pool,
+// where the DAOs would log the SQLException and report a plain failure.
+public class ApiServer {
+
+    private static final Logger logger = LogManager.getLogger(ApiServer.class);
+    private static final int MAX_BODY_BYTES = 1 << 20;
+
+    private final RevPayApi api;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore dbPermits;
+    private final long dbAcquireTimeoutMs;
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ApiServer(RevPayApi api, int port, int maxDbConcurrency, long dbAcquireTimeoutMs) throws IOException {
+        this.api = api;
+        this.dbPermits = new Semaphore(maxDbConcurrency, true);
+        this.dbAcquireTimeoutMs = dbAcquireTimeoutMs;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), Integer.getInteger("revpay.http.backlog", 1024));
+        this.server.setExecutor(executor);
+        this.server.createContext("/api/", this::handle);
+    }
+
+    // Configured from -Drevpay.http.port, -Drevpay.http.maxDbConcurrency (default: pool size)
+    // and -Drevpay.http.dbAcquireTimeoutMs
+    public static ApiServer fromSystemProperties() throws IOException {
+        return new ApiServer(new RevPayApi(),
+                Integer.getInteger("revpay.http.port", 8080),
+                Integer.getInteger("revpay.http.maxDbConcurrency", PoolConfig.fromSystemProperties().getMaxPoolSize()),
+                Long.getLong("revpay.http.dbAcquireTimeoutMs", 2_000));
+    }
+
+    public void start() {
+        server.start();
+        logger.info("API server listening on port {}", getPort());
+    }
+
+    // Stop accepting, give in-flight requests up to delaySeconds, then stop their threads
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(delaySeconds, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("API server stopped: {}", getStats());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getStats() {
+        return String.format("served=%d, rejectedBusy=%d, dbPermitsFree=%d, dbWaiting=%d",
+                served.get(), rejected.get(), dbPermits.availablePermits(), dbPermits.getQueueLength());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            ApiResponse response;
+            byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                response = ApiResponse.error(413, "Request body too large");
+            } else {
+                response = callWithDbPermit(exchange, new String(body, StandardCharsets.UTF_8));
+            }
+            send(exchange, response);
+        }
+    }
+
+    // Every endpoint reaches the database, so the permit covers the whole call
+    private ApiResponse callWithDbPermit(HttpExchange exchange, String body) {
+        try {
+            if (!dbPermits.tryAcquire(dbAcquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                return ApiResponse.error(503, "Server busy, retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ApiResponse.error(503, "Server shutting down");
+        }
+        try {
+            served.incrementAndGet();
+            return api.handle(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                    exchange.getRequestURI().getRawQuery(), exchange.getRequestHeaders().getFirst("Authorization"), body);
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    private static void send(HttpExchange exchange, ApiResponse response) throws IOException {
+        byte[] bytes = response.getBody().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.getStatus(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
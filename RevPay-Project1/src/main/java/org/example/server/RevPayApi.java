@@ -0,0 +1,566 @@
+package org.example.server;
+
+import org.example.model.*;
+import org.example.security.PasswordHasher;
+import org.example.service.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// JSON endpoints over the service layer: the same calls the console controllers make, minus
+// the Scanner. Transport, threading and the DB concurrency cap live in ApiServer; this class only
+// routes a parsed call to a service and maps the result to JSON, so it can be tested without
+// sockets.
+public class RevPayApi {
+
+    private static final Logger logger = LogManager.getLogger(RevPayApi.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @FunctionalInterface
+    interface Handler {
+        Object handle(ApiRequest request);
+    }
+
+    private static final class Route {
+        final String method;
+        final String[] segments;
+        final boolean authenticated;
+        final boolean businessOnly;
+        final Handler handler;
+
+        Route(String method, String pattern, boolean authenticated, boolean businessOnly, Handler handler) {
+            this.method = method;
+            this.segments = pattern.substring(1).split("/");
+            this.authenticated = authenticated;
+            this.businessOnly = businessOnly;
+            this.handler = handler;
+        }
+
+        // Path parameters if the path matches, else null
+        Map<String, String> match(String[] path) {
+            if (path.length != segments.length) {
+                return null;
+            }
+            Map<String, String> params = new HashMap<>();
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].startsWith("{")) {
+                    params.put(segments[i].substring(1, segments[i].length() - 1), path[i]);
+                } else if (!segments[i].equals(path[i])) {
+                    return null;
+                }
+            }
+            return params;
+        }
+    }
+
+    private final UserService userService;
+    private final WalletService walletService;
+    private final SendMoneyService sendMoneyService;
+    private final MoneyRequestService moneyRequestService;
+    private final InvoiceService invoiceService;
+    private final LoanService loanService;
+    private final BusinessAnalyticsService analyticsService;
+    private final NotificationService notificationService;
+    private final TransactionService transactionService;
+    private final BulkPayoutService bulkPayoutService;
+    private final SessionStore sessions;
+    private final List<Route> routes = new ArrayList<>();
+
+    // Default constructor for production use; session lifetime via -Drevpay.http.sessionTtlMinutes
+    public RevPayApi() {
+        this(new UserService(), new WalletService(), new SendMoneyService(), new MoneyRequestService(),
+             new InvoiceService(), new LoanService(), new BusinessAnalyticsService(), new NotificationService(),
+             new TransactionService(), new BulkPayoutService(),
+             new SessionStore(Long.getLong("revpay.http.sessionTtlMinutes", 30) * 60_000));
+    }
+
+    // Constructor for testing with dependency injection
+    public RevPayApi(UserService userService, WalletService walletService, SendMoneyService sendMoneyService,
+                     MoneyRequestService moneyRequestService, InvoiceService invoiceService, LoanService loanService,
+                     BusinessAnalyticsService analyticsService, NotificationService notificationService,
+                     TransactionService transactionService, BulkPayoutService bulkPayoutService, SessionStore sessions) {
+        this.userService = userService;
+        this.walletService = walletService;
+        this.sendMoneyService = sendMoneyService;
+        this.moneyRequestService = moneyRequestService;
+        this.invoiceService = invoiceService;
+        this.loanService = loanService;
+        this.analyticsService = analyticsService;
+        this.notificationService = notificationService;
+        this.transactionService = transactionService;
+        this.bulkPayoutService = bulkPayoutService;
+        this.sessions = sessions;
+
+        publicRoute("POST", "/api/users", this::register);
+        publicRoute("POST", "/api/sessions", this::login);
+        route("DELETE", "/api/sessions", this::logout);
+
+        route("GET", "/api/wallet", this::getWallet);
+        route("POST", "/api/wallet/deposit", this::deposit);
+        route("POST", "/api/wallet/withdraw", this::withdraw);
+        route("POST", "/api/transfers", this::sendMoney);
+        route("GET", "/api/transactions", this::getTransactions);
+
+        route("POST", "/api/money-requests", this::requestMoney);
+        route("GET", "/api/money-requests", this::getMoneyRequests);
+        route("POST", "/api/money-requests/{id}/accept", request -> respondToRequest(request, "ACCEPTED"));
+        route("POST", "/api/money-requests/{id}/decline", request -> respondToRequest(request, "DECLINED"));
+
+        route("GET", "/api/notifications", this::getNotifications);
+        route("GET", "/api/notifications/unread-count",
+                request -> Map.of("unread", notificationService.getUnreadCount(request.userId())));
+        route("POST", "/api/notifications/{id}/read", this::markNotificationRead);
+        route("POST", "/api/notifications/read-all",
+                request -> Map.of("updated", notificationService.markAllAsRead(request.userId())));
+
+        businessRoute("POST", "/api/invoices", this::createInvoice);
+        businessRoute("GET", "/api/invoices", this::getInvoices);
+        businessRoute("GET", "/api/invoices/{id}", request -> toJson(ownedInvoice(request)));
+        businessRoute("POST", "/api/invoices/{id}/payments", this::payInvoice);
+        businessRoute("POST", "/api/loans", this::applyForLoan);
+        businessRoute("GET", "/api/loans", request -> map(loanService.getBusinessLoans(request.userId()), RevPayApi::toJson));
+        businessRoute("GET", "/api/analytics", this::getAnalytics);
+        businessRoute("POST", "/api/payouts", this::bulkPayout);
+    }
+
+    private void publicRoute(String method, String pattern, Handler handler) {
+        routes.add(new Route(method, pattern, false, false, handler));
+    }
+
+    private void route(String method, String pattern, Handler handler) {
+        routes.add(new Route(method, pattern, true, false, handler));
+    }
+
+    private void businessRoute(String method, String pattern, Handler handler) {
+        routes.add(new Route(method, pattern, true, true, handler));
+    }
+
+    // Route and run one call. Never throws: failures become JSON error responses.
+    public ApiResponse handle(String method, String path, String rawQuery, String authorization, String body) {
+        try {
+            String[] segments = path.replaceAll("^/+|/+$", "").split("/");
+            boolean pathMatched = false;
+            for (Route route : routes) {
+                Map<String, String> params = route.match(segments);
+                if (params == null) {
+                    continue;
+                }
+                pathMatched = true;
+                if (route.method.equals(method)) {
+                    return invoke(route, params, rawQuery, authorization, body);
+                }
+            }
+            return pathMatched ? ApiResponse.error(405, "Method not allowed") : ApiResponse.error(404, "Not found");
+        } catch (ApiException e) {
+            return ApiResponse.error(e.getStatus(), e.getMessage());
+        } catch (PasswordHasher.BusyException e) {
+            return ApiResponse.error(503, "Server busy, retry later");
+        } catch (RuntimeException e) {
+            logger.error("API call failed: {} {}", method, path, e);
+            return ApiResponse.error(500, "Internal error");
+        }
+    }
+
+    private ApiResponse invoke(Route route, Map<String, String> params, String rawQuery, String authorization, String body) {
+        String token = bearerToken(authorization);
+        SessionStore.Session session = null;
+        if (route.authenticated) {
+            session = sessions.get(token);
+            if (session == null) {
+                throw new ApiException(401, "Login required");
+            }
+            if (route.businessOnly && !session.isBusiness()) {
+                throw new ApiException(403, "This feature is only available for business accounts");
+            }
+        }
+
+        Map<String, Object> json;
+        try {
+            Object parsed = Json.parse(body);
+            json = parsed == null ? Map.of() : ApiRequest.object(parsed);
+        } catch (IllegalArgumentException e) {
+            throw ApiException.badRequest("Malformed JSON: " + e.getMessage());
+        }
+
+        Object result = route.handler.handle(new ApiRequest(params, ApiRequest.parseQuery(rawQuery), json, session, token));
+        return result instanceof ApiResponse response ? response : ApiResponse.ok(result);
+    }
+
+    private static String bearerToken(String authorization) {
+        if (authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return authorization.substring(7).trim();
+        }
+        return null;
+    }
+
+    // ---- users and sessions ----
+
+    private Object register(ApiRequest request) {
+        String accountType = request.string("accountType").toUpperCase();
+        if (!"PERSONAL".equals(accountType) && !"BUSINESS".equals(accountType)) {
+            throw ApiException.badRequest("accountType must be PERSONAL or BUSINESS");
+        }
+
+        PasswordHasher hasher = PasswordHasher.shared();
+        User user = new User();
+        user.setFullName(request.string("fullName"));
+        user.setEmail(request.string("email"));
+        user.setPhone(request.string("phone"));
+        user.setPasswordHash(hasher.hash(request.string("password")));
+        user.setTransactionPinHash(hasher.hash(request.string("pin")));
+        user.setAccountType(accountType);
+        user.setSecurityQuestion(request.string("securityQuestion"));
+        user.setSecurityAnswerHash(hasher.hash(request.string("securityAnswer")));
+
+        BusinessDetails businessDetails = null;
+        if ("BUSINESS".equals(accountType)) {
+            Map<String, Object> business = ApiRequest.object(request.body().get("business"));
+            businessDetails = new BusinessDetails();
+            businessDetails.setBusinessName(ApiRequest.string(business, "businessName"));
+            businessDetails.setBusinessType(ApiRequest.string(business, "businessType"));
+            businessDetails.setTaxId(ApiRequest.string(business, "taxId"));
+            businessDetails.setAddress(ApiRequest.string(business, "address"));
+            businessDetails.setVerificationDoc(ApiRequest.optionalString(business, "verificationDoc"));
+            businessDetails.setVerifiedStatus(false); // Default to unverified
+        }
+
+        int userId = userService.registerUser(user, businessDetails);
+        if (userId <= 0) {
+            throw new ApiException(409, "Registration failed: email or phone may already be registered");
+        }
+        return ApiResponse.created(Map.of("userId", userId));
+    }
+
+    private Object login(ApiRequest request) {
+        User user = userService.login(request.string("identifier"), request.string("password"));
+        if (user == null) {
+            throw new ApiException(401, "Invalid credentials or account locked");
+        }
+        String token = sessions.create(user.getUserId(), user.getAccountType());
+        return ApiResponse.created(fields("token", token, "userId", user.getUserId(),
+                "accountType", user.getAccountType(), "fullName", user.getFullName()));
+    }
+
+    private Object logout(ApiRequest request) {
+        sessions.remove(request.token());
+        return Map.of("loggedOut", true);
+    }
+
+    // ---- wallet and transfers ----
+
+    private Object getWallet(ApiRequest request) {
+        Wallet wallet = walletService.getWallet(request.userId());
+        if (wallet == null) {
+            throw ApiException.notFound("Wallet not found");
+        }
+        return fields("walletId", wallet.getWalletId(), "balance", wallet.getBalance(),
+                "currency", wallet.getCurrency(), "lastUpdated", wallet.getLastUpdated());
+    }
+
+    private Object deposit(ApiRequest request) {
+        if (!walletService.deposit(request.userId(), request.amount("amount"), request.optionalString("idempotencyKey"))) {
+            throw new ApiException(422, "Deposit failed");
+        }
+        return getWallet(request);
+    }
+
+    private Object withdraw(ApiRequest request) {
+        if (!walletService.withdraw(request.userId(), request.amount("amount"), request.optionalString("idempotencyKey"))) {
+            throw new ApiException(422, "Withdrawal failed: insufficient balance or invalid amount");
+        }
+        return getWallet(request);
+    }
+
+    private Object sendMoney(ApiRequest request) {
+        if (!sendMoneyService.sendMoney(request.userId(), request.string("recipient"), request.amount("amount"),
+                request.optionalString("note"), request.optionalString("idempotencyKey"))) {
+            throw new ApiException(422, "Transfer failed: check recipient and balance");
+        }
+        return Map.of("sent", true);
+    }
+
+    // Keyset pages: pass nextCursor's afterCreatedAt / afterId back to get the next page
+    private Object getTransactions(ApiRequest request) {
+        int pageSize = Math.min(Math.max(request.queryInt("limit", DEFAULT_PAGE_SIZE), 1), MAX_PAGE_SIZE);
+        TransactionCursor after = null;
+        if (request.query("afterCreatedAt") != null) {
+            try {
+                after = new TransactionCursor(LocalDateTime.parse(request.query("afterCreatedAt")), request.queryInt("afterId", 0));
+            } catch (DateTimeParseException e) {
+                throw ApiException.badRequest("Invalid afterCreatedAt");
+            }
+        }
+
+        List<Transaction> page = transactionService.getTransactionHistoryPage(request.userId(), after, pageSize);
+        Map<String, Object> result = fields("transactions", map(page, RevPayApi::toJson));
+        if (page.size() == pageSize) {
+            Transaction last = page.get(page.size() - 1);
+            result.put("nextCursor", fields("afterCreatedAt", last.getCreatedAt(), "afterId", last.getTransactionId()));
+        } else {
+            result.put("nextCursor", null);
+        }
+        return result;
+    }
+
+    // ---- money requests ----
+
+    private Object requestMoney(ApiRequest request) {
+        Integer receiverId = userService.getUserIdByIdentifier(request.string("recipient"));
+        if (receiverId == null) {
+            throw ApiException.notFound("User not found");
+        }
+        if (receiverId == request.userId()) {
+            throw ApiException.badRequest("Cannot request money from yourself");
+        }
+
+        MoneyRequest moneyRequest = new MoneyRequest();
+        moneyRequest.setFromUserId(request.userId());
+        moneyRequest.setToUserId(receiverId);
+        moneyRequest.setAmount(request.amount("amount"));
+        moneyRequest.setNote(request.optionalString("note"));
+        if (moneyRequest.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw ApiException.badRequest("amount must be positive");
+        }
+        if (!moneyRequestService.sendRequest(moneyRequest)) {
+            throw new ApiException(422, "Failed to send request");
+        }
+        return ApiResponse.created(Map.of("sent", true));
+    }
+
+    // Requests received by the caller
+    private Object getMoneyRequests(ApiRequest request) {
+        return map(moneyRequestService.getRequestsForUser(request.userId()), RevPayApi::toJson);
+    }
+
+    // Only the user a request was sent to may answer it, and only while it is pending
+    private Object respondToRequest(ApiRequest request, String status) {
+        int requestId = request.pathInt("id");
+        MoneyRequest moneyRequest = findReceivedRequest(request.userId(), requestId);
+        if (moneyRequest == null) {
+            throw ApiException.notFound("Request not found");
+        }
+        if (!"PENDING".equals(moneyRequest.getStatus())) {
+            throw new ApiException(409, "Request is no longer pending");
+        }
+        if (!moneyRequestService.updateRequestStatus(requestId, status)) {
+            // Still pending after an accept means the transfer was refused and the status reverted
+            MoneyRequest current = findReceivedRequest(request.userId(), requestId);
+            if ("ACCEPTED".equals(status) && current != null && "PENDING".equals(current.getStatus())) {
+                throw new ApiException(422, "Transfer failed: check balance");
+            }
+            throw new ApiException(409, "Request is no longer pending");
+        }
+        return Map.of("requestId", requestId, "status", status);
+    }
+
+    private MoneyRequest findReceivedRequest(int userId, int requestId) {
+        for (MoneyRequest r : moneyRequestService.getRequestsForUser(userId)) {
+            if (r.getRequestId() == requestId) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    // ---- notifications ----
+
+    private Object getNotifications(ApiRequest request) {
+        List<Notification> notifications = "true".equals(request.query("unread"))
+                ? notificationService.getUnreadNotifications(request.userId())
+                : notificationService.getAllNotifications(request.userId());
+        return map(notifications, RevPayApi::toJson);
+    }
+
+    // markAsRead is by ID alone, so check the notification belongs to the caller first
+    private Object markNotificationRead(ApiRequest request) {
+        int notificationId = request.pathInt("id");
+        boolean owned = notificationService.getUnreadNotifications(request.userId()).stream()
+                .anyMatch(n -> n.getNotificationId() == notificationId);
+        if (!owned) {
+            throw ApiException.notFound("Unread notification not found");
+        }
+        return Map.of("updated", notificationService.markAsRead(notificationId));
+    }
+
+    // ---- business: invoices, loans, payouts ----
+
+    private Object createInvoice(ApiRequest request) {
+        LocalDate dueDate;
+        try {
+            dueDate = LocalDate.parse(request.string("dueDate"));
+        } catch (DateTimeParseException e) {
+            throw ApiException.badRequest("dueDate must be YYYY-MM-DD");
+        }
+
+        List<InvoiceItem> items = new ArrayList<>();
+        for (Object value : request.list("items")) {
+            Map<String, Object> line = ApiRequest.object(value);
+            InvoiceItem item = new InvoiceItem();
+            item.setItemName(ApiRequest.string(line, "name"));
+            item.setDescription(ApiRequest.optionalString(line, "description"));
+            try {
+                item.setQuantity(ApiRequest.amount(line, "quantity").intValueExact());
+            } catch (ArithmeticException e) {
+                throw ApiException.badRequest("quantity must be a whole number");
+            }
+            item.setPrice(ApiRequest.amount(line, "price"));
+            if (item.getQuantity() <= 0 || item.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+                throw ApiException.badRequest("quantity and price must be positive");
+            }
+            items.add(item);
+        }
+        if (items.isEmpty()) {
+            throw ApiException.badRequest("An invoice needs at least one item");
+        }
+
+        int invoiceId = invoiceService.createInvoice(request.userId(), request.string("customer"), items, dueDate);
+        if (invoiceId <= 0) {
+            throw new ApiException(422, "Failed to create invoice");
+        }
+        return ApiResponse.created(Map.of("invoiceId", invoiceId));
+    }
+
+    private Object getInvoices(ApiRequest request) {
+        String status = request.query("status");
+        List<Invoice> invoices;
+        if (status == null) {
+            invoices = invoiceService.getBusinessInvoices(request.userId());
+        } else if ("PAID".equalsIgnoreCase(status)) {
+            invoices = invoiceService.getPaidInvoices(request.userId());
+        } else if ("UNPAID".equalsIgnoreCase(status)) {
+            invoices = invoiceService.getUnpaidInvoices(request.userId());
+        } else {
+            throw ApiException.badRequest("status must be PAID or UNPAID");
+        }
+        return map(invoices, RevPayApi::toJson);
+    }
+
+    private Invoice ownedInvoice(ApiRequest request) {
+        Invoice invoice = invoiceService.getInvoiceWithItems(request.pathInt("id"));
+        if (invoice == null || invoice.getBusinessUserId() != request.userId()) {
+            throw ApiException.notFound("Invoice not found");
+        }
+        return invoice;
+    }
+
+    private Object payInvoice(ApiRequest request) {
+        Invoice invoice = ownedInvoice(request);
+        if (!invoiceService.processInvoicePayment(invoice.getInvoiceId(), request.string("method"),
+                request.optionalString("idempotencyKey"))) {
+            throw new ApiException(409, "Invoice is already paid");
+        }
+        return Map.of("invoiceId", invoice.getInvoiceId(), "status", "PAID");
+    }
+
+    private Object applyForLoan(ApiRequest request) {
+        BigDecimal amount = request.amount("amount");
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw ApiException.badRequest("amount must be positive");
+        }
+        int loanId = loanService.applyForLoan(request.userId(), amount, request.string("purpose"));
+        if (loanId <= 0) {
+            throw new ApiException(422, "Loan application failed");
+        }
+        return ApiResponse.created(Map.of("loanId", loanId));
+    }
+
+    private Object getAnalytics(ApiRequest request) {
+        BusinessAnalytics analytics = analyticsService.getBusinessAnalytics(request.userId());
+        if (analytics == null) {
+            throw ApiException.notFound("Wallet not found");
+        }
+        return toJson(analytics);
+    }
+
+    private Object bulkPayout(ApiRequest request) {
+        List<PayoutItem> items = new ArrayList<>();
+        for (Object value : request.list("items")) {
+            Map<String, Object> line = ApiRequest.object(value);
+            items.add(new PayoutItem(ApiRequest.string(line, "recipient"), ApiRequest.amount(line, "amount"),
+                    ApiRequest.optionalString(line, "note")));
+        }
+
+        BulkPayoutReport report = bulkPayoutService.payout(request.userId(), items, request.optionalString("idempotencyKey"));
+        List<Object> results = new ArrayList<>();
+        if (report.getResults() != null) {
+            for (PayoutItemResult result : report.getResults()) {
+                results.add(fields("recipient", result.getItem().getIdentifier(), "amount", result.getItem().getAmount(),
+                        "status", result.getStatus(), "transactionId", result.isPaid() ? result.getTransactionId() : null));
+            }
+        }
+        return fields("replayed", report.isReplayed(), "paidCount", report.getPaidCount(),
+                "totalPaid", report.getTotalPaid(), "payerBalance", report.getPayerBalance(), "results", results);
+    }
+
+    // ---- JSON mapping ----
+
+    static Map<String, Object> toJson(Transaction t) {
+        return fields("transactionId", t.getTransactionId(), "fromWalletId", t.getFromWalletId(),
+                "toWalletId", t.getToWalletId(), "amount", t.getAmount(), "type", t.getTransactionType(),
+                "status", t.getStatus(), "note", t.getNote(), "createdAt", t.getCreatedAt());
+    }
+
+    static Map<String, Object> toJson(MoneyRequest r) {
+        return fields("requestId", r.getRequestId(), "fromUserId", r.getFromUserId(), "toUserId", r.getToUserId(),
+                "amount", r.getAmount(), "status", r.getStatus(), "note", r.getNote(), "createdAt", r.getCreatedAt());
+    }
+
+    static Map<String, Object> toJson(Notification n) {
+        return fields("notificationId", n.getNotificationId(), "type", n.getType(), "message", n.getMessage(),
+                "read", n.isRead(), "createdAt", n.getCreatedAt());
+    }
+
+    static Map<String, Object> toJson(Invoice invoice) {
+        Map<String, Object> json = fields("invoiceId", invoice.getInvoiceId(), "customer", invoice.getCustomerIdentifier(),
+                "totalAmount", invoice.getTotalAmount(), "status", invoice.getStatus(), "dueDate", invoice.getDueDate(),
+                "createdAt", invoice.getCreatedAt());
+        if (invoice.getItems() != null) {
+            json.put("items", map(invoice.getItems(), item -> fields("itemId", item.getItemId(), "name", item.getItemName(),
+                    "description", item.getDescription(), "quantity", item.getQuantity(), "price", item.getPrice())));
+        }
+        return json;
+    }
+
+    static Map<String, Object> toJson(Loan loan) {
+        return fields("loanId", loan.getLoanId(), "amount", loan.getLoanAmount(), "purpose", loan.getPurpose(),
+                "status", loan.getStatus(), "repaymentAmount", loan.getRepaymentAmount(), "createdAt", loan.getCreatedAt());
+    }
+
+    static Map<String, Object> toJson(BusinessAnalytics a) {
+        return fields("generatedAt", a.getGeneratedAt(), "totalTransactions", a.getTotalTransactions(),
+                "successfulTransactions", a.getSuccessfulTransactions(), "failedTransactions", a.getFailedTransactions(),
+                "totalReceived", a.getTotalReceived(), "totalSent", a.getTotalSent(), "netRevenue", a.getNetRevenue(),
+                "todayRevenue", a.getTodayRevenue(), "monthRevenue", a.getMonthRevenue(),
+                "totalInvoices", a.getTotalInvoices(), "paidInvoices", a.getPaidInvoices(),
+                "unpaidInvoices", a.getUnpaidInvoices(), "totalInvoiceAmount", a.getTotalInvoiceAmount(),
+                "outstandingAmount", a.getOutstandingAmount(), "topCustomers", a.getTopCustomers());
+    }
+
+    private static <T> List<Object> map(List<T> items, java.util.function.Function<T, Object> mapper) {
+        List<Object> out = new ArrayList<>(items.size());
+        for (T item : items) {
+            out.add(mapper.apply(item));
+        }
+        return out;
+    }
+
+    // Ordered map from alternating keys and values; unlike Map.of it allows null values
+    private static Map<String, Object> fields(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+}
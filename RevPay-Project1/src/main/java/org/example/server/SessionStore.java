@@ -0,0 +1,89 @@
+package org.example.server;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory bearer tokens for the API server. Tokens are random, expire after a sliding TTL and
+// die with the process, so a restart logs every client out.
+public class SessionStore {
+
+    private static final int PURGE_EVERY = 1_000; // sweep expired sessions every N logins
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong created = new AtomicLong();
+    private final long ttlMs;
+
+    public SessionStore(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    public String create(int userId, String accountType) {
+        if (created.incrementAndGet() % PURGE_EVERY == 0) {
+            purgeExpired();
+        }
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(userId, accountType, System.currentTimeMillis() + ttlMs));
+        return token;
+    }
+
+    // Live session for the token (extending its expiry), or null
+    public Session get(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (session.expiresAt < now) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.expiresAt = now + ttlMs;
+        return session;
+    }
+
+    public void remove(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = sessions.size();
+        sessions.values().removeIf(session -> session.expiresAt < now);
+        return before - sessions.size();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public static final class Session {
+        private final int userId;
+        private final String accountType;
+        private volatile long expiresAt;
+
+        Session(int userId, String accountType, long expiresAt) {
+            this.userId = userId;
+            this.accountType = accountType;
+            this.expiresAt = expiresAt;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public boolean isBusiness() {
+            return "BUSINESS".equalsIgnoreCase(accountType);
+        }
+    }
+}
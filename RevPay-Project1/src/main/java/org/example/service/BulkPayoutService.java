@@ -0,0 +1,112 @@
+package org.example.service;
+
+import org.example.dao.IdempotencyDAO;
+import org.example.dao.WalletDAO;
+import org.example.model.BulkPayoutReport;
+import org.example.model.PayoutItem;
+import org.example.model.PayoutItemResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// One-to-many payouts for business accounts (salaries, refunds, vendor runs). Recipients are
+// resolved in one query and the whole batch settles in one DB transaction via WalletDAO.bulkPayout.
+public class BulkPayoutService {
+
+    private static final Logger logger = LogManager.getLogger(BulkPayoutService.class);
+
+    // Bounds the lock set and the size of the IN lists for one payout
+    static final int MAX_ITEMS = 1000;
+
+    private final WalletDAO walletDAO;
+    private final IdempotencyDAO idempotencyDAO;
+
+    // Default constructor for production use
+    public BulkPayoutService() {
+        this.walletDAO = new WalletDAO();
+        this.idempotencyDAO = new IdempotencyDAO();
+    }
+
+    // Constructor for testing with dependency injection
+    public BulkPayoutService(WalletDAO walletDAO, IdempotencyDAO idempotencyDAO) {
+        this.walletDAO = walletDAO;
+        this.idempotencyDAO = idempotencyDAO;
+    }
+
+    public BulkPayoutReport payout(int payerUserId, List<PayoutItem> items) {
+        return payout(payerUserId, items, null);
+    }
+
+    // Safe to retry with the same key: once this payout committed under the key, later calls with the
+    // same items return a report marked replayed without paying anyone again. The key reused for
+    // different items pays nobody (the items come back FAILED).
+    public BulkPayoutReport payout(int payerUserId, List<PayoutItem> items, String idempotencyKey) {
+        BulkPayoutReport report = new BulkPayoutReport();
+        if (items == null || items.isEmpty()) {
+            return report;
+        }
+
+        List<PayoutItemResult> results = new ArrayList<>(items.size());
+        if (items.size() > MAX_ITEMS) {
+            logger.warn("Rejected bulk payout of {} items for userId={} (max {})", items.size(), payerUserId, MAX_ITEMS);
+            for (PayoutItem item : items) {
+                results.add(new PayoutItemResult(item, PayoutItemResult.FAILED));
+            }
+            report.setResults(results);
+            return report;
+        }
+
+        if (idempotencyKey != null && idempotencyDAO.isCompleted(payerUserId, idempotencyKey, IdempotencyDAO.payoutFingerprint(items))) {
+            logger.info("Bulk payout already applied for userId={}, replaying result", payerUserId);
+            return BulkPayoutReport.replayed();
+        }
+
+        List<String> identifiers = new ArrayList<>(items.size());
+        for (PayoutItem item : items) {
+            if (item.getAmount() == null || item.getAmount().signum() <= 0) {
+                results.add(new PayoutItemResult(item, PayoutItemResult.INVALID_AMOUNT));
+            } else if (item.getIdentifier() == null || item.getIdentifier().isBlank()) {
+                results.add(new PayoutItemResult(item, PayoutItemResult.RECIPIENT_NOT_FOUND));
+            } else {
+                results.add(new PayoutItemResult(item, PayoutItemResult.PENDING));
+                identifiers.add(item.getIdentifier());
+            }
+        }
+
+        boolean anyPending = false;
+        if (!identifiers.isEmpty()) {
+            Map<String, Integer> userIds = walletDAO.getUserIdsByIdentifiers(identifiers);
+            for (PayoutItemResult result : results) {
+                if (!PayoutItemResult.PENDING.equals(result.getStatus())) {
+                    continue;
+                }
+                Integer recipientUserId = userIds.get(result.getItem().getIdentifier());
+                if (recipientUserId == null) {
+                    result.setStatus(PayoutItemResult.RECIPIENT_NOT_FOUND);
+                } else if (recipientUserId == payerUserId) {
+                    result.setStatus(PayoutItemResult.SELF_PAYMENT);
+                } else {
+                    result.setRecipientUserId(recipientUserId);
+                    anyPending = true;
+                }
+            }
+        }
+        if (!anyPending) {
+            report.setResults(results);
+            return report;
+        }
+
+        report = walletDAO.bulkPayout(payerUserId, results, idempotencyKey);
+        if (report.isReplayed()) {
+            // A concurrent attempt with the same key committed first
+            logger.info("Bulk payout already applied for userId={}, replaying result", payerUserId);
+        } else {
+            logger.info("Bulk payout for userId={}: {} of {} items paid, total {}",
+                    payerUserId, report.getPaidCount(), items.size(), report.getTotalPaid());
+        }
+        return report;
+    }
+}
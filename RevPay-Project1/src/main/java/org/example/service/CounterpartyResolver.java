@@ -0,0 +1,51 @@
+package org.example.service;
+
+import org.example.dao.WalletDAO;
+import org.example.model.User;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Per-request memo of wallet ID -> "Name (email)" labels. prefetch() resolves every
+// unseen wallet in a single query, so rendering a page costs one lookup, not two per row.
+public class CounterpartyResolver {
+
+    private static final String UNKNOWN = "Unknown User";
+
+    private final WalletDAO walletDAO;
+    private final Map<Integer, String> labels = new HashMap<>();
+
+    public CounterpartyResolver(WalletDAO walletDAO) {
+        this.walletDAO = walletDAO;
+    }
+
+    // Resolve all wallet IDs not already memoised in one batch query
+    public void prefetch(Collection<Integer> walletIds) {
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (int walletId : walletIds) {
+            if (walletId > 0 && !labels.containsKey(walletId)) {
+                missing.add(walletId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<Integer, User> owners = walletDAO.getOwnersByWalletIds(missing);
+        for (int walletId : missing) {
+            User owner = owners.get(walletId);
+            labels.put(walletId, owner != null ? owner.getFullName() + " (" + owner.getEmail() + ")" : UNKNOWN);
+        }
+    }
+
+    public String describe(int walletId) {
+        String label = labels.get(walletId);
+        if (label == null) {
+            prefetch(Set.of(walletId));
+            label = labels.getOrDefault(walletId, UNKNOWN);
+        }
+        return label;
+    }
+}
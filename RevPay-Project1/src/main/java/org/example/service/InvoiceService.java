@@ -1,5 +1,6 @@
 package org.example.service;
 
+import org.example.dao.IdempotencyDAO;
 import org.example.dao.InvoiceDAO;
 import org.example.dao.InvoiceItemDAO;
 import org.example.dao.WalletDAO;
@@ -18,19 +19,22 @@ public class InvoiceService {
     private final InvoiceDAO invoiceDAO;
     private final InvoiceItemDAO invoiceItemDAO;
     private final WalletDAO walletDAO;
+    private final IdempotencyDAO idempotencyDAO;
 
     // Default constructor for production use
     public InvoiceService() {
         this.invoiceDAO = new InvoiceDAO();
         this.invoiceItemDAO = new InvoiceItemDAO();
         this.walletDAO = new WalletDAO();
+        this.idempotencyDAO = new IdempotencyDAO();
     }
 
     // Constructor for testing with dependency injection
-    public InvoiceService(InvoiceDAO invoiceDAO, InvoiceItemDAO invoiceItemDAO, WalletDAO walletDAO) {
+    public InvoiceService(InvoiceDAO invoiceDAO, InvoiceItemDAO invoiceItemDAO, WalletDAO walletDAO, IdempotencyDAO idempotencyDAO) {
         this.invoiceDAO = invoiceDAO;
         this.invoiceItemDAO = invoiceItemDAO;
         this.walletDAO = walletDAO;
+        this.idempotencyDAO = idempotencyDAO;
     }
 
     // Create invoice with items
@@ -79,20 +83,32 @@ public class InvoiceService {
 
     // Process payment for invoice
     public boolean processInvoicePayment(int invoiceId, String paymentMethod) {
+        return processInvoicePayment(invoiceId, paymentMethod, null);
+    }
+
+    // With a key, a retry of a payment that already went through returns true instead of "already paid".
+    // The key is bound to this invoice: reusing it for another invoice does not pay that one.
+    public boolean processInvoicePayment(int invoiceId, String paymentMethod, String idempotencyKey) {
         Invoice invoice = invoiceDAO.getInvoiceById(invoiceId);
         if (invoice == null) {
             logger.warn("Invoice not found: invoiceId={}", invoiceId);
             return false;
         }
 
+        if (idempotencyKey != null && idempotencyDAO.isCompleted(invoice.getBusinessUserId(), idempotencyKey,
+                IdempotencyDAO.fingerprint(IdempotencyDAO.INVOICE_PAYMENT, invoiceId, "PAID"))) {
+            logger.info("Invoice payment already applied: invoiceId={}, replaying result", invoiceId);
+            return true;
+        }
+
         if ("PAID".equals(invoice.getStatus())) {
             logger.warn("Invoice already paid: invoiceId={}", invoiceId);
             return false;
         }
 
         // Mark as paid
-        boolean updated = invoiceDAO.updateInvoiceStatus(invoiceId, "PAID");
-        
+        boolean updated = invoiceDAO.updateInvoiceStatus(invoiceId, "PAID", idempotencyKey);
+
         if (updated) {
             logger.info("Invoice payment processed: invoiceId={}, amount={}, method={}", 
                 invoiceId, invoice.getTotalAmount(), paymentMethod);
@@ -1,40 +1,32 @@
 package org.example.service;
 
 import org.example.dao.MoneyRequestDAO;
-import org.example.dao.TransactionDAO;
 import org.example.dao.UserDAO;
 import org.example.dao.WalletDAO;
 import org.example.model.MoneyRequest;
-import org.example.model.Transaction;
+import org.example.model.OutboxEvent;
 import org.example.model.User;
-import org.example.model.Wallet;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.List;
 
 public class MoneyRequestService {
     private final MoneyRequestDAO dao;
     private final WalletDAO walletDAO;
-    private final TransactionDAO transactionDAO;
     private final NotificationService notificationService;
     private final UserDAO userDAO;
-    private static final BigDecimal LOW_BALANCE_THRESHOLD = new BigDecimal("500");
 
     // Default constructor for production use
     public MoneyRequestService() {
         this.dao = new MoneyRequestDAO();
         this.walletDAO = new WalletDAO();
-        this.transactionDAO = new TransactionDAO();
         this.notificationService = new NotificationService();
         this.userDAO = new UserDAO();
     }
 
     // Constructor for testing with dependency injection
-    public MoneyRequestService(MoneyRequestDAO dao, WalletDAO walletDAO, TransactionDAO transactionDAO, NotificationService notificationService, UserDAO userDAO) {
+    public MoneyRequestService(MoneyRequestDAO dao, WalletDAO walletDAO, NotificationService notificationService, UserDAO userDAO) {
         this.dao = dao;
         this.walletDAO = walletDAO;
-        this.transactionDAO = transactionDAO;
         this.notificationService = notificationService;
         this.userDAO = userDAO;
     }
@@ -56,6 +48,8 @@ public class MoneyRequestService {
         return dao.getRequestsForUser(userId);
     }
 
+    // False if the request was no longer pending, or if it was accepted but the transfer was
+    // refused (e.g. insufficient balance); the request is then PENDING again
     public boolean updateRequestStatus(int requestId, String status) {
         boolean updated = dao.updateRequestStatus(requestId, status);
         
@@ -65,44 +59,12 @@ public class MoneyRequestService {
             if (request != null) {
                 // Transfer money: from_user requested money from to_user
                 // So to_user sends money to from_user
-                boolean transferSuccess = walletDAO.transfer(request.getToUserId(), request.getFromUserId(), request.getAmount());
-                
-                // Log transaction
-                if (transferSuccess) {
-                    Wallet fromWallet = walletDAO.getWalletByUserId(request.getToUserId());
-                    Wallet toWallet = walletDAO.getWalletByUserId(request.getFromUserId());
-                    
-                    if (fromWallet != null && toWallet != null) {
-                        Transaction transaction = new Transaction();
-                        transaction.setFromWalletId(fromWallet.getWalletId());
-                        transaction.setToWalletId(toWallet.getWalletId());
-                        transaction.setAmount(request.getAmount());
-                        transaction.setTransactionType("SEND");
-                        transaction.setStatus("SUCCESS");
-                        transaction.setNote("Money request accepted: " + (request.getNote() != null ? request.getNote() : ""));
-                        transaction.setCreatedAt(LocalDateTime.now());
-                        transactionDAO.logTransaction(transaction);
-                        
-                        // Get user names
-                        User requester = userDAO.getUserById(request.getFromUserId());
-                        User accepter = userDAO.getUserById(request.getToUserId());
-                        
-                        // Notify requester that request was accepted
-                        if (requester != null && accepter != null) {
-                            notificationService.notifyMoneyRequest(request.getFromUserId(), "Request Accepted", 
-                                request.getAmount(), accepter.getFullName());
-                            
-                            // Notify accepter about transaction
-                            notificationService.notifyTransaction(request.getToUserId(), "Money Sent", 
-                                request.getAmount(), "Request accepted for " + requester.getFullName());
-                        }
-                        
-                        // Check accepter's balance for low balance alert
-                        Wallet updatedWallet = walletDAO.getWalletByUserId(request.getToUserId());
-                        if (updatedWallet != null && updatedWallet.getBalance().compareTo(LOW_BALANCE_THRESHOLD) < 0) {
-                            notificationService.notifyLowBalance(request.getToUserId(), updatedWallet.getBalance());
-                        }
-                    }
+                String note = "Money request accepted: " + (request.getNote() != null ? request.getNote() : "");
+                // Notifications for the requester and accepter go through the outbox (OutboxRelay)
+                if (walletDAO.transfer(request.getToUserId(), request.getFromUserId(), request.getAmount(),
+                        note, OutboxEvent.REQUEST_ACCEPTED) == null) {
+                    dao.revertAcceptance(requestId);
+                    return false;
                 }
             }
         } else if (updated && "REJECTED".equals(status)) {
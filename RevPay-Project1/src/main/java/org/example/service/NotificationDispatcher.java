@@ -0,0 +1,201 @@
+package org.example.service;
+
+import org.example.dao.NotificationDAO;
+import org.example.model.Notification;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Moves notification INSERTs off the payment path. submit() enqueues into a bounded queue;
+// one background writer coalesces queued rows into multi-row INSERTs, flushing when a batch
+// is full or flushMs after its first row arrived. When the queue is full the caller waits up
+// to offerTimeoutMs and then writes its row synchronously, so overload slows producers down
+// instead of dropping notifications. shutdown() drains whatever is still queued.
+public class NotificationDispatcher {
+
+    private static final Logger logger = LogManager.getLogger(NotificationDispatcher.class);
+
+    // Queued by shutdown() to wake a writer blocked in poll(); never written
+    private static final Notification STOP = new Notification();
+
+    private static volatile NotificationDispatcher shared;
+
+    private final NotificationDAO notificationDAO;
+    private final BlockingQueue<Notification> queue;
+    private final int batchSize;
+    private final long flushMs;
+    private final long offerTimeoutMs;
+    private final Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong synchronousWrites = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public NotificationDispatcher(NotificationDAO notificationDAO, int queueCapacity, int batchSize,
+                                  long flushMs, long offerTimeoutMs) {
+        this.notificationDAO = notificationDAO;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushMs = flushMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.writer = new Thread(this::drainLoop, "revpay-notification-writer");
+        this.writer.setDaemon(true);
+    }
+
+    // Process-wide dispatcher, started on first use and drained at JVM exit.
+    // Tunable with -Drevpay.notify.queueCapacity / batchSize / flushMs / offerTimeoutMs.
+    public static NotificationDispatcher shared() {
+        NotificationDispatcher current = shared;
+        if (current == null) {
+            synchronized (NotificationDispatcher.class) {
+                if (shared == null) {
+                    NotificationDispatcher dispatcher = new NotificationDispatcher(new NotificationDAO(),
+                            Integer.getInteger("revpay.notify.queueCapacity", 10_000),
+                            Integer.getInteger("revpay.notify.batchSize", 100),
+                            Long.getLong("revpay.notify.flushMs", 200),
+                            Long.getLong("revpay.notify.offerTimeoutMs", 50));
+                    dispatcher.start();
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> dispatcher.shutdown(5_000), "revpay-notification-drain"));
+                    shared = dispatcher;
+                }
+                current = shared;
+            }
+        }
+        return current;
+    }
+
+    public static void shutdownShared() {
+        NotificationDispatcher current = shared;
+        if (current != null) {
+            current.shutdown(5_000);
+        }
+    }
+
+    public void start() {
+        running = true;
+        writer.start();
+    }
+
+    public void submit(Notification notification) {
+        if (notification.getCreatedAt() == null) {
+            notification.setCreatedAt(LocalDateTime.now());
+        }
+        if (running) {
+            try {
+                // shutdown() may have finished its final drain between the running check and the
+                // offer. Then nobody would read the row, so take it back and write it here; if it
+                // is already gone, the writer or the final drain has it.
+                if (queue.offer(notification, offerTimeoutMs, TimeUnit.MILLISECONDS)
+                        && (running || !queue.remove(notification))) {
+                    enqueued.incrementAndGet();
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Queue full, dispatcher stopped or caller interrupted: write on the caller's thread
+        synchronousWrites.incrementAndGet();
+        write(List.of(notification));
+    }
+
+    // Stop accepting work, flush everything queued, and wait for the writer to finish. The writer
+    // is woken with a STOP marker, never interrupted: an interrupt landing mid-write would fail
+    // the connection pool's interruptible acquire and lose the batch. If the queue is full the
+    // marker is not needed, as the writer re-checks running before every blocking poll.
+    public void shutdown(long timeoutMs) {
+        if (!running) {
+            return;
+        }
+        running = false;
+        queue.offer(STOP);
+        try {
+            writer.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything submitted while the writer was exiting
+        List<Notification> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.removeIf(notification -> notification == STOP);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+        logger.info("Notification dispatcher stopped: {}", getStats());
+    }
+
+    public String getStats() {
+        return String.format("enqueued=%d, written=%d, batches=%d, synchronousWrites=%d, failed=%d, queued=%d",
+                enqueued.get(), written.get(), batches.get(), synchronousWrites.get(), failed.get(), queue.size());
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getSynchronousWriteCount() {
+        return synchronousWrites.get();
+    }
+
+    private void drainLoop() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                // Once stopping, only take what is already queued
+                Notification first = running ? queue.poll(flushMs, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null || first == STOP) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Notification next = remaining > 0 && running ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null || next == STOP) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Not how shutdown() stops the writer; flush what was gathered and carry on
+                logger.warn("Notification writer interrupted; continuing");
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    private void write(List<Notification> batch) {
+        int rows = notificationDAO.createNotifications(batch);
+        if (rows == batch.size()) {
+            written.addAndGet(rows);
+            batches.incrementAndGet();
+            return;
+        }
+        if (batch.size() == 1) {
+            failed.incrementAndGet();
+            return;
+        }
+        // The multi-row INSERT failed as a whole; retry row by row so one bad row cannot sink the batch
+        logger.warn("Notification batch of {} failed, retrying individually", batch.size());
+        for (Notification notification : batch) {
+            if (notificationDAO.createNotifications(List.of(notification)) == 1) {
+                written.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+        }
+    }
+}
@@ -12,25 +12,34 @@ public class NotificationService {
 
     private static final Logger logger = LogManager.getLogger(NotificationService.class);
     private final NotificationDAO notificationDAO;
+    // Null means write synchronously on the caller's thread
+    private final NotificationDispatcher dispatcher;
 
     // Default constructor for production use
     public NotificationService() {
-        this.notificationDAO = new NotificationDAO();
+        this(new NotificationDAO(), NotificationDispatcher.shared());
     }
 
     // Constructor for testing with dependency injection
     public NotificationService(NotificationDAO notificationDAO) {
+        this(notificationDAO, null);
+    }
+
+    // Constructor for testing with dependency injection
+    public NotificationService(NotificationDAO notificationDAO, NotificationDispatcher dispatcher) {
         this.notificationDAO = notificationDAO;
+        this.dispatcher = dispatcher;
     }
 
     // Create notification
     public void createNotification(int userId, String type, String message) {
-        Notification notification = new Notification();
-        notification.setUserId(userId);
-        notification.setType(type);
-        notification.setMessage(message);
-        notification.setRead(false);
-        
+        Notification notification = newNotification(userId, type, message);
+
+        // Off the payment path: the dispatcher batches the INSERT on its writer thread
+        if (dispatcher != null) {
+            dispatcher.submit(notification);
+            return;
+        }
         int notificationId = notificationDAO.createNotification(notification);
         if (notificationId > 0) {
             logger.debug("Notification created: userId={}, type={}", userId, type);
@@ -39,14 +48,12 @@ public class NotificationService {
 
     // Transaction notification
     public void notifyTransaction(int userId, String transactionType, BigDecimal amount, String details) {
-        String message = String.format("%s: ₹%s - %s", transactionType, amount, details);
-        createNotification(userId, "TRANSACTION", message);
+        createNotification(userId, "TRANSACTION", transactionMessage(transactionType, amount, details));
     }
 
     // Money request notification
     public void notifyMoneyRequest(int userId, String requestType, BigDecimal amount, String from) {
-        String message = String.format("%s: ₹%s from %s", requestType, amount, from);
-        createNotification(userId, "REQUEST", message);
+        createNotification(userId, "REQUEST", moneyRequestMessage(requestType, amount, from));
     }
 
     // Card change notification
@@ -57,8 +64,29 @@ public class NotificationService {
 
     // Low balance alert
     public void notifyLowBalance(int userId, BigDecimal currentBalance) {
-        String message = String.format("Low Balance Alert: Your balance is ₹%s", currentBalance);
-        createNotification(userId, "ALERT", message);
+        createNotification(userId, "ALERT", lowBalanceMessage(currentBalance));
+    }
+
+    // Message builders shared with OutboxRelay, which writes the same notifications after commit
+    static Notification newNotification(int userId, String type, String message) {
+        Notification notification = new Notification();
+        notification.setUserId(userId);
+        notification.setType(type);
+        notification.setMessage(message);
+        notification.setRead(false);
+        return notification;
+    }
+
+    static String transactionMessage(String transactionType, BigDecimal amount, String details) {
+        return String.format("%s: ₹%s - %s", transactionType, amount, details);
+    }
+
+    static String moneyRequestMessage(String requestType, BigDecimal amount, String from) {
+        return String.format("%s: ₹%s from %s", requestType, amount, from);
+    }
+
+    static String lowBalanceMessage(BigDecimal currentBalance) {
+        return String.format("Low Balance Alert: Your balance is ₹%s", currentBalance);
     }
 
     // Get unread notifications
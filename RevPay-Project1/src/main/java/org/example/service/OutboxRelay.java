@@ -0,0 +1,276 @@
+package org.example.service;
+
+import org.example.dao.NotificationDAO;
+import org.example.dao.OutboxDAO;
+import org.example.dao.UserDAO;
+import org.example.model.Notification;
+import org.example.model.OutboxEvent;
+import org.example.model.User;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Publishes outbox events written by WalletDAO.transfer and bulkPayout. A background thread
+// polls for pending events, turns a batch into notifications with one multi-row INSERT, and
+// then marks the batch published. Delivery is at-least-once: a crash between the INSERT and the
+// acknowledgement redelivers the batch, and each notification carries a dedupe key derived
+// from the event ID so the second INSERT is a no-op. Published rows are purged once they are
+// older than the retention window, so the table only holds recent history.
+public class OutboxRelay {
+
+    private static final Logger logger = LogManager.getLogger(OutboxRelay.class);
+    private static final BigDecimal LOW_BALANCE_THRESHOLD = new BigDecimal("500");
+    private static final long DEFAULT_RETENTION_HOURS = 168;
+    private static final long DEFAULT_PURGE_MS = 3_600_000;
+    // Rows per DELETE, so a purge never holds many row locks at once
+    private static final int PURGE_CHUNK = 1000;
+
+    private static volatile OutboxRelay shared;
+
+    private final OutboxDAO outboxDAO;
+    private final NotificationDAO notificationDAO;
+    private final UserDAO userDAO;
+    private final int batchSize;
+    private final long pollMs;
+    private final long retentionHours;
+    private final long purgeMs;
+    private final Thread worker;
+    // The worker waits on this between polls so shutdown can wake it without an interrupt
+    private final Object wakeup = new Object();
+    private volatile boolean running;
+    private long lastPurgeAt;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong purged = new AtomicLong();
+
+    // Constructor for testing with dependency injection
+    public OutboxRelay(OutboxDAO outboxDAO, NotificationDAO notificationDAO, UserDAO userDAO, int batchSize, long pollMs) {
+        this(outboxDAO, notificationDAO, userDAO, batchSize, pollMs, DEFAULT_RETENTION_HOURS, DEFAULT_PURGE_MS);
+    }
+
+    public OutboxRelay(OutboxDAO outboxDAO, NotificationDAO notificationDAO, UserDAO userDAO, int batchSize, long pollMs,
+                       long retentionHours, long purgeMs) {
+        this.outboxDAO = outboxDAO;
+        this.notificationDAO = notificationDAO;
+        this.userDAO = userDAO;
+        this.batchSize = batchSize;
+        this.pollMs = pollMs;
+        this.retentionHours = retentionHours;
+        this.purgeMs = purgeMs;
+        this.worker = new Thread(this::pollLoop, "revpay-outbox-relay");
+        this.worker.setDaemon(true);
+    }
+
+    // Process-wide relay, started on first use. Tunable with
+    // -Drevpay.outbox.batchSize / pollMs / retentionHours / purgeMs.
+    public static OutboxRelay shared() {
+        OutboxRelay current = shared;
+        if (current == null) {
+            synchronized (OutboxRelay.class) {
+                if (shared == null) {
+                    OutboxRelay relay = new OutboxRelay(new OutboxDAO(), new NotificationDAO(), new UserDAO(),
+                            Integer.getInteger("revpay.outbox.batchSize", 100),
+                            Long.getLong("revpay.outbox.pollMs", 100),
+                            Long.getLong("revpay.outbox.retentionHours", DEFAULT_RETENTION_HOURS),
+                            Long.getLong("revpay.outbox.purgeMs", DEFAULT_PURGE_MS));
+                    relay.start();
+                    shared = relay;
+                }
+                current = shared;
+            }
+        }
+        return current;
+    }
+
+    public static void shutdownShared() {
+        OutboxRelay current = shared;
+        if (current != null) {
+            current.shutdown(5_000);
+        }
+    }
+
+    public void start() {
+        running = true;
+        worker.start();
+    }
+
+    // Events left pending are picked up by the next start. The worker is woken, never interrupted:
+    // an interrupt landing mid-batch would fail the connection pool's interruptible acquire.
+    public void shutdown(long timeoutMs) {
+        if (!running) {
+            return;
+        }
+        synchronized (wakeup) {
+            running = false;
+            wakeup.notifyAll();
+        }
+        try {
+            worker.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Outbox relay stopped: {}", getStats());
+    }
+
+    public String getStats() {
+        return String.format("published=%d, retried=%d, purged=%d", published.get(), retried.get(), purged.get());
+    }
+
+    // Publish one batch; returns the number of events acknowledged
+    public int relayOnce() {
+        List<OutboxEvent> events = outboxDAO.fetchPending(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // Events whose users could not be loaded are retried, never acknowledged without their notifications
+        Map<OutboxEvent, List<Notification>> ready = new LinkedHashMap<>();
+        List<Notification> notifications = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            List<Notification> forEvent = toNotifications(event);
+            if (forEvent == null) {
+                retry(event);
+            } else {
+                ready.put(event, forEvent);
+                notifications.addAll(forEvent);
+            }
+        }
+        if (ready.isEmpty()) {
+            return 0;
+        }
+        if (notificationDAO.createNotifications(notifications) >= 0) {
+            return acknowledge(new ArrayList<>(ready.keySet()));
+        }
+
+        // One bad event must not hold back the rest: publish individually, back off the failures
+        int acknowledged = 0;
+        for (Map.Entry<OutboxEvent, List<Notification>> entry : ready.entrySet()) {
+            if (notificationDAO.createNotifications(entry.getValue()) >= 0) {
+                acknowledged += acknowledge(List.of(entry.getKey()));
+            } else {
+                retry(entry.getKey());
+            }
+        }
+        return acknowledged;
+    }
+
+    // Delete published events older than the retention window, a chunk at a time; returns the
+    // number of rows deleted. Pending events are never touched, however old.
+    public int purgeOnce() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = outboxDAO.purgePublished(cutoff, PURGE_CHUNK);
+            if (deleted > 0) {
+                total += deleted;
+            }
+        } while (deleted == PURGE_CHUNK);
+        purged.addAndGet(total);
+        if (total > 0) {
+            logger.info("Purged {} published outbox events older than {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private void retry(OutboxEvent event) {
+        outboxDAO.markRetry(List.of(event.getEventId()));
+        retried.incrementAndGet();
+        logger.warn("Outbox event {} failed, will retry (attempt {})", event.getEventId(), event.getAttempts() + 1);
+    }
+
+    private int acknowledge(List<OutboxEvent> events) {
+        List<Long> ids = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            ids.add(event.getEventId());
+        }
+        // If this fails the events are redelivered and deduplicated by the notification INSERT
+        if (!outboxDAO.markPublished(ids)) {
+            return 0;
+        }
+        published.addAndGet(ids.size());
+        return ids.size();
+    }
+
+    // The notifications the services used to write synchronously after the transfer, or null if
+    // a user they name could not be loaded (getUserById also returns null on a database error,
+    // and both users of a committed transfer exist, so the event is retried)
+    List<Notification> toNotifications(OutboxEvent event) {
+        List<Notification> notifications = new ArrayList<>();
+        String type = event.getEventType();
+        if (!OutboxEvent.MONEY_SENT.equals(type) && !OutboxEvent.REQUEST_ACCEPTED.equals(type)
+                && !OutboxEvent.BULK_PAYOUT.equals(type)) {
+            logger.warn("Unknown outbox event type {} for event {}", type, event.getEventId());
+            return notifications;
+        }
+        User sender = userDAO.getUserById(event.getFromUserId());
+        User recipient = userDAO.getUserById(event.getToUserId());
+        if (sender == null || recipient == null) {
+            logger.warn("Could not load the users of outbox event {}", event.getEventId());
+            return null;
+        }
+
+        if (OutboxEvent.MONEY_SENT.equals(type)) {
+            notifications.add(keyed(event, "sender", NotificationService.newNotification(event.getFromUserId(), "TRANSACTION",
+                    NotificationService.transactionMessage("Money Sent", event.getAmount(), "to " + recipient.getFullName()))));
+            notifications.add(keyed(event, "recipient", NotificationService.newNotification(event.getToUserId(), "TRANSACTION",
+                    NotificationService.transactionMessage("Money Received", event.getAmount(), "from " + sender.getFullName()))));
+        } else if (OutboxEvent.REQUEST_ACCEPTED.equals(type)) {
+            // The accepter pays (from) the requester (to)
+            notifications.add(keyed(event, "recipient", NotificationService.newNotification(event.getToUserId(), "REQUEST",
+                    NotificationService.moneyRequestMessage("Request Accepted", event.getAmount(), sender.getFullName()))));
+            notifications.add(keyed(event, "sender", NotificationService.newNotification(event.getFromUserId(), "TRANSACTION",
+                    NotificationService.transactionMessage("Money Sent", event.getAmount(), "Request accepted for " + recipient.getFullName()))));
+        } else {
+            // Bulk payout: the payer gets the per-item report synchronously; only the recipient is notified
+            notifications.add(keyed(event, "recipient", NotificationService.newNotification(event.getToUserId(), "TRANSACTION",
+                    NotificationService.transactionMessage("Money Received", event.getAmount(), "from " + sender.getFullName()))));
+        }
+
+        if (event.getSenderBalance() != null && event.getSenderBalance().compareTo(LOW_BALANCE_THRESHOLD) < 0) {
+            notifications.add(keyed(event, "low-balance", NotificationService.newNotification(event.getFromUserId(), "ALERT",
+                    NotificationService.lowBalanceMessage(event.getSenderBalance()))));
+        }
+        return notifications;
+    }
+
+    private static Notification keyed(OutboxEvent event, String role, Notification notification) {
+        notification.setDedupeKey("outbox:" + event.getEventId() + ":" + role);
+        if (event.getCreatedAt() != null) {
+            notification.setCreatedAt(event.getCreatedAt());
+        }
+        return notification;
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now - lastPurgeAt >= purgeMs) {
+                    lastPurgeAt = now;
+                    purgeOnce();
+                }
+                // A full batch means more are waiting: go again without sleeping
+                if (relayOnce() < batchSize) {
+                    synchronized (wakeup) {
+                        if (running) {
+                            wakeup.wait(pollMs);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Outbox relay iteration failed", e);
+            }
+        }
+    }
+}
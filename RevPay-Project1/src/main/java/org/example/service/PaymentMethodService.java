@@ -2,7 +2,7 @@ package org.example.service;
 
 import org.example.dao.PaymentMethodDAO;
 import org.example.model.PaymentMethod;
-import org.example.security.EncryptionUtil;
+import org.example.security.CryptoService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -12,45 +12,51 @@ public class PaymentMethodService {
 
     private static final Logger logger = LogManager.getLogger(PaymentMethodService.class);
     private final PaymentMethodDAO paymentMethodDAO;
+    private final CryptoService cryptoService;
 
     // Default constructor for production use
     public PaymentMethodService() {
-        this.paymentMethodDAO = new PaymentMethodDAO();
+        this(new PaymentMethodDAO(), CryptoService.shared());
     }
 
     // Constructor for testing with dependency injection
     public PaymentMethodService(PaymentMethodDAO paymentMethodDAO) {
+        this(paymentMethodDAO, CryptoService.shared());
+    }
+
+    // Constructor for testing with a specific key set
+    public PaymentMethodService(PaymentMethodDAO paymentMethodDAO, CryptoService cryptoService) {
         this.paymentMethodDAO = paymentMethodDAO;
+        this.cryptoService = cryptoService;
     }
 
     // Add card details
     public boolean addCard(int userId, String cardType, String cardNumber, String cardHolderName, String expiryDate, String cvv, boolean isDefault) {
+        // card_expiry holds at most MM/YYYY; reject free text before it reaches the INSERT
+        if (!validateExpiryDate(expiryDate)) {
+            logger.warn("Invalid card expiry for userId={}", userId);
+            return false;
+        }
         try {
             // Mask card number for display (show only last 4 digits)
             String maskedCardNumber = maskCardNumber(cardNumber);
             
             // Encrypt card details
             String cardDetails = String.format("%s|%s|%s|%s|%s", cardType, cardNumber, cardHolderName, expiryDate, cvv);
-            String encryptedDetails = EncryptionUtil.encrypt(cardDetails);
+            String encryptedDetails = cryptoService.encrypt(cardDetails);
 
             PaymentMethod pm = new PaymentMethod();
             pm.setUserId(userId);
             pm.setMethodType("CARD");
             pm.setEncryptedDetails(encryptedDetails);
             pm.setDefault(isDefault);
+            // Stored in the clear so listings never decrypt
+            pm.setCardBrand(cardType);
+            pm.setCardLast4(lastFour(cardNumber));
+            pm.setCardExpiry(expiryDate);
 
-            boolean added = paymentMethodDAO.addPaymentMethod(pm);
-            
-            if (added && isDefault) {
-                // If this is set as default, get the payment ID and update
-                List<PaymentMethod> methods = paymentMethodDAO.getPaymentMethodsByUserId(userId);
-                if (!methods.isEmpty()) {
-                    PaymentMethod latest = methods.get(0);
-                    paymentMethodDAO.setDefaultPaymentMethod(userId, latest.getPaymentId());
-                }
-            }
-            
-            return added;
+            // A default card replaces the previous default in the same transaction as the insert
+            return paymentMethodDAO.addPaymentMethod(pm);
         } catch (Exception e) {
             logger.error("Error adding card for userId={}", userId, e);
             return false;
@@ -67,7 +73,7 @@ public class PaymentMethodService {
         PaymentMethod pm = paymentMethodDAO.getPaymentMethodById(paymentId);
         if (pm != null) {
             try {
-                return EncryptionUtil.decrypt(pm.getEncryptedDetails());
+                return decrypt(pm);
             } catch (Exception e) {
                 logger.error("Error decrypting card details for paymentId={}", paymentId, e);
             }
@@ -75,23 +81,52 @@ public class PaymentMethodService {
         return null;
     }
 
-    // Get masked card info for display
+    // Get masked card info for display. Uses the stored display metadata; only a card written
+    // before it existed is decrypted, and its metadata is backfilled so that happens once.
     public String getMaskedCardInfo(PaymentMethod pm) {
         try {
-            String decrypted = EncryptionUtil.decrypt(pm.getEncryptedDetails());
-            String[] parts = decrypted.split("\\|");
-            if (parts.length >= 3) {
-                String cardType = parts[0];
-                String cardNumber = parts[1];
-                String maskedNumber = maskCardNumber(cardNumber);
-                return cardType + " " + maskedNumber;
+            if (pm.getCardLast4() == null && !backfillDisplayMetadata(pm)) {
+                return "Card ****";
             }
+            return pm.getCardBrand() + " " + maskCardNumber(pm.getCardLast4());
         } catch (Exception e) {
             logger.error("Error getting masked card info", e);
         }
         return "Card ****";
     }
 
+    // Decrypt a card once to fill in its brand, last four digits and expiry, on the object and
+    // in the database. False if the stored details do not parse; decryption errors propagate.
+    public boolean backfillDisplayMetadata(PaymentMethod pm) {
+        String[] parts = decrypt(pm).split("\\|");
+        if (parts.length < 3) {
+            return false;
+        }
+        pm.setCardBrand(parts[0]);
+        pm.setCardLast4(lastFour(parts[1]));
+        // Cards stored before expiry was validated may hold free text that does not fit card_expiry
+        pm.setCardExpiry(parts.length > 3 && validateExpiryDate(parts[3]) ? parts[3] : null);
+        if (pm.getCardLast4() == null) {
+            return false;
+        }
+        paymentMethodDAO.updateDisplayMetadata(pm.getPaymentId(), pm.getCardBrand(), pm.getCardLast4(), pm.getCardExpiry());
+        return true;
+    }
+
+    // Decrypt, and if the value is legacy ECB or under a retired key, rewrite it under the active
+    // key while the plaintext is at hand. A lost race just leaves the newer value in place.
+    private String decrypt(PaymentMethod pm) {
+        String stored = pm.getEncryptedDetails();
+        String plaintext = cryptoService.decrypt(stored);
+        if (cryptoService.needsReEncryption(stored)) {
+            String upgraded = cryptoService.encrypt(plaintext);
+            if (paymentMethodDAO.updateEncryptedDetails(pm.getPaymentId(), stored, upgraded)) {
+                pm.setEncryptedDetails(upgraded);
+            }
+        }
+        return plaintext;
+    }
+
     // Set default payment method
     public boolean setDefaultCard(int userId, int paymentId) {
         return paymentMethodDAO.setDefaultPaymentMethod(userId, paymentId);
@@ -107,6 +142,10 @@ public class PaymentMethodService {
         return paymentMethodDAO.getDefaultPaymentMethod(userId);
     }
 
+    private static String lastFour(String cardNumber) {
+        return cardNumber != null && cardNumber.length() >= 4 ? cardNumber.substring(cardNumber.length() - 4) : null;
+    }
+
     // Mask card number (show only last 4 digits)
     private String maskCardNumber(String cardNumber) {
         if (cardNumber != null && cardNumber.length() >= 4) {
@@ -132,4 +171,9 @@ public class PaymentMethodService {
         // Check length between 13-19 digits
         return cardNumber.length() >= 13 && cardNumber.length() <= 19;
     }
+
+    // Validate expiry date format (MM/YY or MM/YYYY)
+    public boolean validateExpiryDate(String expiryDate) {
+        return expiryDate != null && expiryDate.matches("(0[1-9]|1[0-2])/(\\d{2}|\\d{4})");
+    }
 }
@@ -1,43 +1,41 @@
 package org.example.service;
 
-import org.example.dao.TransactionDAO;
-import org.example.dao.UserDAO;
+import org.example.dao.IdempotencyDAO;
 import org.example.dao.WalletDAO;
-import org.example.model.Transaction;
-import org.example.model.User;
+import org.example.model.OutboxEvent;
+import org.example.model.TransferResult;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 
 public class SendMoneyService {
 
     private static final Logger logger = LogManager.getLogger(SendMoneyService.class);
     private final WalletDAO walletDAO;
-    private final TransactionDAO transactionDAO;
-    private final NotificationService notificationService;
-    private final UserDAO userDAO;
-    private static final BigDecimal LOW_BALANCE_THRESHOLD = new BigDecimal("500");
+    private final IdempotencyDAO idempotencyDAO;
 
     // Default constructor for production use
     public SendMoneyService() {
         this.walletDAO = new WalletDAO();
-        this.transactionDAO = new TransactionDAO();
-        this.notificationService = new NotificationService();
-        this.userDAO = new UserDAO();
+        this.idempotencyDAO = new IdempotencyDAO();
     }
 
     // Constructor for testing with dependency injection
-    public SendMoneyService(WalletDAO walletDAO, TransactionDAO transactionDAO, NotificationService notificationService, UserDAO userDAO) {
+    public SendMoneyService(WalletDAO walletDAO, IdempotencyDAO idempotencyDAO) {
         this.walletDAO = walletDAO;
-        this.transactionDAO = transactionDAO;
-        this.notificationService = notificationService;
-        this.userDAO = userDAO;
+        this.idempotencyDAO = idempotencyDAO;
     }
 
     // Send money logic
     public boolean sendMoney(int senderUserId, String recipientIdentifier, BigDecimal amount, String note) {
+        return sendMoney(senderUserId, recipientIdentifier, amount, note, null);
+    }
+
+    // Safe to retry with the same key: once this transfer committed under the key, later calls return
+    // true without moving money again. Reusing the key for a different recipient or amount returns false.
+    // Failed attempts move nothing and record nothing, so they simply rerun.
+    public boolean sendMoney(int senderUserId, String recipientIdentifier, BigDecimal amount, String note, String idempotencyKey) {
         try {
             int recipientUserId = walletDAO.getUserIdByIdentifier(recipientIdentifier);
             if (recipientUserId == -1) {
@@ -45,54 +43,28 @@ public class SendMoneyService {
                 return false;
             }
 
-            var senderWallet = walletDAO.getWalletByUserId(senderUserId);
-            var recipientWallet = walletDAO.getWalletByUserId(recipientUserId);
-
-            if (senderWallet == null || recipientWallet == null) {
-                logger.warn("Wallet missing for sender or recipient");
-                return false;
+            if (idempotencyKey != null && idempotencyDAO.isCompleted(senderUserId, idempotencyKey,
+                    IdempotencyDAO.fingerprint(IdempotencyDAO.SEND_MONEY, recipientUserId, amount))) {
+                logger.info("Send money already applied for userId={}, replaying result", senderUserId);
+                return true;
             }
 
-            if (senderWallet.getBalance().compareTo(amount) < 0) {
-                logger.warn("Insufficient balance");
+            // Balance check, debit/credit, ledger row and the outbox event for the sender/recipient
+            // notifications all commit together; OutboxRelay writes the notifications afterwards
+            TransferResult result = walletDAO.transfer(senderUserId, recipientUserId, amount,
+                    note != null ? note : "Money sent", OutboxEvent.MONEY_SENT, idempotencyKey);
+            if (result == null) {
+                logger.warn("Transfer failed: insufficient balance, wallet missing or idempotency key reused");
                 return false;
             }
-
-            // Use transfer method for atomic transaction
-            boolean success = walletDAO.transfer(senderUserId, recipientUserId, amount);
-            
-            // Log transaction
-            if (success) {
-                Transaction transaction = new Transaction();
-                transaction.setFromWalletId(senderWallet.getWalletId());
-                transaction.setToWalletId(recipientWallet.getWalletId());
-                transaction.setAmount(amount);
-                transaction.setTransactionType("SEND");
-                transaction.setStatus("SUCCESS");
-                transaction.setNote(note != null ? note : "Money sent");
-                transaction.setCreatedAt(LocalDateTime.now());
-                transactionDAO.logTransaction(transaction);
-                
-                logger.info("Transfer note: {}", note);
-                
-                // Get user names for notifications
-                User sender = userDAO.getUserById(senderUserId);
-                User recipient = userDAO.getUserById(recipientUserId);
-                
-                // Notify sender
-                notificationService.notifyTransaction(senderUserId, "Money Sent", amount, "to " + recipient.getFullName());
-                
-                // Notify recipient
-                notificationService.notifyTransaction(recipientUserId, "Money Received", amount, "from " + sender.getFullName());
-                
-                // Check sender's balance for low balance alert
-                var updatedSenderWallet = walletDAO.getWalletByUserId(senderUserId);
-                if (updatedSenderWallet.getBalance().compareTo(LOW_BALANCE_THRESHOLD) < 0) {
-                    notificationService.notifyLowBalance(senderUserId, updatedSenderWallet.getBalance());
-                }
+            if (result.isReplayed()) {
+                // A concurrent attempt with the same key committed first
+                logger.info("Send money already applied for userId={}, replaying result", senderUserId);
+                return true;
             }
-            
-            return success;
+
+            logger.info("Transfer note: {}", note);
+            return true;
 
         } catch (Exception e) {
             logger.error("Send money failed", e);
@@ -0,0 +1,117 @@
+package org.example.service;
+
+import org.example.dao.WalletDAO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Folds the credits that striped wallets collect in wallet_stripes back into wallets.balance,
+// one wallet per short DB transaction, so stripes stay small and debits rarely have to fold
+// them inline.
+public class StripeCompactor {
+
+    private static final Logger logger = LogManager.getLogger(StripeCompactor.class);
+
+    private static volatile StripeCompactor shared;
+
+    private final WalletDAO walletDAO;
+    private final long intervalMs;
+    private final Thread worker;
+    // The worker waits on this between passes so shutdown can wake it without an interrupt
+    private final Object wakeup = new Object();
+    private volatile boolean running;
+
+    private final AtomicLong compacted = new AtomicLong();
+
+    // Constructor for testing with dependency injection
+    public StripeCompactor(WalletDAO walletDAO, long intervalMs) {
+        this.walletDAO = walletDAO;
+        this.intervalMs = intervalMs;
+        this.worker = new Thread(this::compactLoop, "revpay-stripe-compactor");
+        this.worker.setDaemon(true);
+    }
+
+    // Process-wide compactor, started on first use. Tunable with -Drevpay.stripes.compactMs.
+    public static StripeCompactor shared() {
+        StripeCompactor current = shared;
+        if (current == null) {
+            synchronized (StripeCompactor.class) {
+                if (shared == null) {
+                    StripeCompactor compactor = new StripeCompactor(new WalletDAO(), Long.getLong("revpay.stripes.compactMs", 1_000));
+                    compactor.start();
+                    shared = compactor;
+                }
+                current = shared;
+            }
+        }
+        return current;
+    }
+
+    public static void shutdownShared() {
+        StripeCompactor current = shared;
+        if (current != null) {
+            current.shutdown(5_000);
+        }
+    }
+
+    public void start() {
+        running = true;
+        worker.start();
+    }
+
+    // Stripes left unfolded still count towards the balance; the next start picks them up. The
+    // worker is woken, never interrupted, so a fold in progress is not failed mid-transaction.
+    public void shutdown(long timeoutMs) {
+        if (!running) {
+            return;
+        }
+        synchronized (wakeup) {
+            running = false;
+            wakeup.notifyAll();
+        }
+        try {
+            worker.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Stripe compactor stopped: {}", getStats());
+    }
+
+    public String getStats() {
+        return String.format("compacted=%d", compacted.get());
+    }
+
+    // Fold every wallet that has stripe balances; returns the number of wallets folded
+    public int compactOnce() {
+        List<Integer> walletIds = walletDAO.getWalletIdsWithStripeBalance();
+        int folded = 0;
+        for (int walletId : walletIds) {
+            BigDecimal moved = walletDAO.compactStripes(walletId);
+            if (moved.signum() != 0) {
+                folded++;
+            }
+        }
+        compacted.addAndGet(folded);
+        return folded;
+    }
+
+    private void compactLoop() {
+        while (running) {
+            try {
+                compactOnce();
+                synchronized (wakeup) {
+                    if (running) {
+                        wakeup.wait(intervalMs);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Stripe compaction failed", e);
+            }
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package org.example.service;
 
 import org.example.dao.TransactionDAO;
-import org.example.dao.UserDAO;
 import org.example.dao.WalletDAO;
 import org.example.model.Transaction;
-import org.example.model.User;
+import org.example.model.TransactionCursor;
+import org.example.model.TransactionFilter;
 import org.example.model.Wallet;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,28 +12,26 @@ import org.apache.logging.log4j.Logger;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class TransactionService {
 
     private static final Logger logger = LogManager.getLogger(TransactionService.class);
+    private static final int HISTORY_PAGE_SIZE = 50;
     private final TransactionDAO transactionDAO;
     private final WalletDAO walletDAO;
-    private final UserDAO userDAO;
 
     // Default constructor for production use
     public TransactionService() {
         this.transactionDAO = new TransactionDAO();
         this.walletDAO = new WalletDAO();
-        this.userDAO = new UserDAO();
     }
 
     // Constructor for testing with dependency injection
-    public TransactionService(TransactionDAO transactionDAO, WalletDAO walletDAO, UserDAO userDAO) {
+    public TransactionService(TransactionDAO transactionDAO, WalletDAO walletDAO) {
         this.transactionDAO = transactionDAO;
         this.walletDAO = walletDAO;
-        this.userDAO = userDAO;
     }
 
     // Display transaction history for a user with optional filters
@@ -49,11 +47,17 @@ public class TransactionService {
             return;
         }
 
-        List<Transaction> transactions = transactionDAO.getTransactionsByWalletId(wallet.getWalletId());
-        
-        // Apply filters
-        transactions = filterTransactions(transactions, wallet.getWalletId(), typeFilter, 
-                                         startDate, endDate, minAmount, maxAmount, statusFilter, searchTerm);
+        TransactionFilter filter = new TransactionFilter();
+        filter.setType(typeFilter);
+        filter.setStartDate(startDate);
+        filter.setEndDate(endDate);
+        filter.setMinAmount(minAmount);
+        filter.setMaxAmount(maxAmount);
+        filter.setStatus(statusFilter);
+        filter.setSearchTerm(searchTerm);
+
+        // Filters are applied in SQL, so the 50 rows shown are the newest 50 matches
+        List<Transaction> transactions = transactionDAO.findTransactions(wallet.getWalletId(), filter, null, HISTORY_PAGE_SIZE);
         
         if (transactions.isEmpty()) {
             logger.info("No transactions found matching the filters.");
@@ -79,6 +83,14 @@ public class TransactionService {
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+        // Resolve every counterparty on the page in one query before rendering
+        CounterpartyResolver counterparties = new CounterpartyResolver(walletDAO);
+        List<Integer> counterpartyWalletIds = new ArrayList<>();
+        for (Transaction t : transactions) {
+            counterpartyWalletIds.add(t.getFromWalletId() == wallet.getWalletId() ? t.getToWalletId() : t.getFromWalletId());
+        }
+        counterparties.prefetch(counterpartyWalletIds);
+
         for (Transaction t : transactions) {
             String direction = "";
             String counterparty = "";
@@ -93,11 +105,11 @@ public class TransactionService {
             } else if (t.getFromWalletId() == wallet.getWalletId()) {
                 // Money sent
                 direction = "📤 SENT";
-                counterparty = getUserInfoByWalletId(t.getToWalletId());
+                counterparty = counterparties.describe(t.getToWalletId());
             } else if (t.getToWalletId() == wallet.getWalletId()) {
                 // Money received
                 direction = "📥 RECEIVED";
-                counterparty = getUserInfoByWalletId(t.getFromWalletId());
+                counterparty = counterparties.describe(t.getFromWalletId());
             }
 
             logger.info("-----------------------------------------------------");
@@ -117,70 +129,14 @@ public class TransactionService {
         displayTransactionHistory(userId, null, null, null, null, null, null, null);
     }
 
-    // Filter transactions based on criteria
-    private List<Transaction> filterTransactions(List<Transaction> transactions, int userWalletId,
-                                                String typeFilter, LocalDateTime startDate, 
-                                                LocalDateTime endDate, BigDecimal minAmount, 
-                                                BigDecimal maxAmount, String statusFilter, String searchTerm) {
-        return transactions.stream()
-            .filter(t -> {
-                // Type filter (SEND, RECEIVE, ADD, WITHDRAW, or direction-based like SENT, RECEIVED)
-                if (typeFilter != null) {
-                    if (typeFilter.equals("SENT") && t.getFromWalletId() != userWalletId) return false;
-                    if (typeFilter.equals("RECEIVED") && t.getToWalletId() != userWalletId) return false;
-                    if (typeFilter.equals("DEPOSIT") && !t.getTransactionType().equals("ADD")) return false;
-                    if (typeFilter.equals("WITHDRAWAL") && !t.getTransactionType().equals("WITHDRAW")) return false;
-                    if (!typeFilter.equals("SENT") && !typeFilter.equals("RECEIVED") && 
-                        !typeFilter.equals("DEPOSIT") && !typeFilter.equals("WITHDRAWAL") &&
-                        !t.getTransactionType().equals(typeFilter)) return false;
-                }
-                
-                // Date range filter
-                if (startDate != null && t.getCreatedAt().isBefore(startDate)) return false;
-                if (endDate != null && t.getCreatedAt().isAfter(endDate)) return false;
-                
-                // Amount range filter
-                if (minAmount != null && t.getAmount().compareTo(minAmount) < 0) return false;
-                if (maxAmount != null && t.getAmount().compareTo(maxAmount) > 0) return false;
-                
-                // Status filter
-                if (statusFilter != null && !t.getStatus().equalsIgnoreCase(statusFilter)) return false;
-                
-                // Search term (searches in note and counterparty info)
-                if (searchTerm != null && !searchTerm.isEmpty()) {
-                    String note = t.getNote() != null ? t.getNote().toLowerCase() : "";
-                    String counterparty = "";
-                    
-                    if (t.getFromWalletId() > 0 && t.getFromWalletId() != userWalletId) {
-                        counterparty = getUserInfoByWalletId(t.getFromWalletId()).toLowerCase();
-                    } else if (t.getToWalletId() > 0 && t.getToWalletId() != userWalletId) {
-                        counterparty = getUserInfoByWalletId(t.getToWalletId()).toLowerCase();
-                    }
-                    
-                    String search = searchTerm.toLowerCase();
-                    if (!note.contains(search) && !counterparty.contains(search)) {
-                        return false;
-                    }
-                }
-                
-                return true;
-            })
-            .collect(Collectors.toList());
-    }
-
-    // Helper method to get user info by wallet ID
-    private String getUserInfoByWalletId(int walletId) {
-        Wallet wallet = walletDAO.getWalletById(walletId);
+    // Get one keyset page of history for a user; pass the returned last row as the next cursor
+    public List<Transaction> getTransactionHistoryPage(int userId, TransactionCursor after, int pageSize) {
+        Wallet wallet = walletDAO.getWalletByUserId(userId);
         if (wallet == null) {
-            return "Unknown User";
-        }
-        
-        User user = userDAO.getUserById(wallet.getUserId());
-        if (user == null) {
-            return "Unknown User (WalletID: " + walletId + ")";
+            logger.warn("No wallet found for userId={}", userId);
+            return List.of();
         }
-        
-        return user.getFullName() + " (" + user.getEmail() + ")";
+        return transactionDAO.getTransactionPage(wallet.getWalletId(), after, pageSize);
     }
 
     // Get transactions by user ID (for programmatic use)
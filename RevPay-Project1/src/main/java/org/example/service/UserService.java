@@ -5,30 +5,40 @@ import org.example.dao.UserDAO;
 import org.example.dao.WalletDAO;
 import org.example.model.BusinessDetails;
 import org.example.model.User;
-import org.example.security.PasswordUtil;
+import org.example.security.LoginThrottle;
+import org.example.security.PasswordHasher;
 
 import java.util.Random;
 
 public class UserService {
 
+    private static final int MAX_FAILED_ATTEMPTS = 3;
+
     private final UserDAO userDAO;
     private final WalletDAO walletDAO;
     private final BusinessDetailsDAO businessDetailsDAO;
+    private final PasswordHasher passwordHasher;
+    private final LoginThrottle loginThrottle;
     private final Random random;
 
     // Default constructor for production use
     public UserService() {
-        this.userDAO = new UserDAO();
-        this.walletDAO = new WalletDAO();
-        this.businessDetailsDAO = new BusinessDetailsDAO();
-        this.random = new Random();
+        this(new UserDAO(), new WalletDAO(), new BusinessDetailsDAO(), PasswordHasher.shared(), LoginThrottle.shared());
     }
 
     // Constructor for testing with dependency injection
     public UserService(UserDAO userDAO, WalletDAO walletDAO, BusinessDetailsDAO businessDetailsDAO) {
+        this(userDAO, walletDAO, businessDetailsDAO, PasswordHasher.shared(), new LoginThrottle(1_000, 60_000));
+    }
+
+    // Constructor for testing with the hashing pool and login throttle injected as well
+    public UserService(UserDAO userDAO, WalletDAO walletDAO, BusinessDetailsDAO businessDetailsDAO,
+                       PasswordHasher passwordHasher, LoginThrottle loginThrottle) {
         this.userDAO = userDAO;
         this.walletDAO = walletDAO;
         this.businessDetailsDAO = businessDetailsDAO;
+        this.passwordHasher = passwordHasher;
+        this.loginThrottle = loginThrottle;
         this.random = new Random();
     }
 
@@ -53,7 +63,9 @@ public class UserService {
         return userId;
     }
 
-    // Login with failed attempts tracking
+    // Login with failed attempts tracking. Unknown, locked and throttled accounts are turned away
+    // before bcrypt runs; bcrypt itself runs on the bounded hashing pool, which throws
+    // PasswordHasher.BusyException when it is saturated.
     public User login(String emailOrPhone, String password) {
         User user = userDAO.getUserByEmailOrPhone(emailOrPhone);
         if (user == null) {
@@ -65,24 +77,47 @@ public class UserService {
             return null; // Return null for locked accounts
         }
 
-        // Verify password
-        if (PasswordUtil.verify(password, user.getPasswordHash())) {
+        // Another guess for this account is being verified, or it is backing off after a failure
+        if (!loginThrottle.tryAcquire(user.getUserId())) {
+            return null;
+        }
+
+        boolean verified;
+        try {
+            verified = passwordHasher.verify(password, user.getPasswordHash());
+        } catch (RuntimeException e) {
+            loginThrottle.release(user.getUserId());
+            throw e;
+        }
+
+        if (verified) {
             // Successful login - reset failed attempts
+            loginThrottle.onSuccess(user.getUserId());
             userDAO.resetFailedAttempts(user.getUserId());
+            upgradePasswordHash(user, password);
             return user;
         } else {
-            // Failed login - increment attempts
-            userDAO.incrementFailedAttempts(user.getUserId());
-            int newFailedAttempts = user.getFailedAttempts() + 1;
-            
-            // Lock account if 3 or more failed attempts
-            if (newFailedAttempts >= 3) {
-                userDAO.lockAccount(user.getUserId());
-            }
+            // Failed login - count it and lock at the limit in one atomic UPDATE
+            loginThrottle.onFailure(user.getUserId());
+            userDAO.recordFailedLogin(user.getUserId(), MAX_FAILED_ATTEMPTS);
             return null;
         }
     }
 
+    // Rehash at the current bcrypt cost if the stored hash predates it. Best effort: a busy
+    // hashing pool or a lost race with a password reset leaves the old hash for the next login.
+    private void upgradePasswordHash(User user, String password) {
+        String upgraded;
+        try {
+            upgraded = passwordHasher.rehashIfOutdated(password, user.getPasswordHash());
+        } catch (PasswordHasher.BusyException e) {
+            return;
+        }
+        if (upgraded != null && userDAO.upgradePasswordHash(user.getUserId(), user.getPasswordHash(), upgraded)) {
+            user.setPasswordHash(upgraded);
+        }
+    }
+
     // Generate 4-digit OTP
     public int generateOTP() {
         return 1000 + random.nextInt(9000);
@@ -95,7 +130,7 @@ public class UserService {
 
     // Reset password and unlock account
     public boolean resetPassword(int userId, String newPassword) {
-        boolean passwordUpdated = userDAO.updatePassword(userId, PasswordUtil.hash(newPassword));
+        boolean passwordUpdated = userDAO.updatePassword(userId, passwordHasher.hash(newPassword));
         if (passwordUpdated) {
             // Also unlock the account and reset failed attempts
             userDAO.unlockAccount(userId);
@@ -123,6 +158,6 @@ public class UserService {
     // Verify security answer
     public boolean verifySecurityAnswer(int userId, String answer) {
         User user = userDAO.getUserById(userId);
-        return user != null && user.getSecurityAnswerHash() != null && PasswordUtil.verify(answer, user.getSecurityAnswerHash());
+        return user != null && user.getSecurityAnswerHash() != null && passwordHasher.verify(answer, user.getSecurityAnswerHash());
     }
 }
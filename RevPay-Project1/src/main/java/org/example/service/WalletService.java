@@ -1,31 +1,30 @@
 package org.example.service;
 
-import org.example.dao.TransactionDAO;
+import org.example.dao.IdempotencyDAO;
 import org.example.dao.WalletDAO;
-import org.example.model.Transaction;
 import org.example.model.Wallet;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 
 public class WalletService {
 
     private static final Logger logger = LogManager.getLogger(WalletService.class);
+    static final int MAX_STRIPES = 64;
     private final WalletDAO walletDAO;
-    private final TransactionDAO transactionDAO;
+    private final IdempotencyDAO idempotencyDAO;
 
     // Default constructor for production use
     public WalletService() {
         this.walletDAO = new WalletDAO();
-        this.transactionDAO = new TransactionDAO();
+        this.idempotencyDAO = new IdempotencyDAO();
     }
 
     // Constructor for testing with dependency injection
-    public WalletService(WalletDAO walletDAO, TransactionDAO transactionDAO) {
+    public WalletService(WalletDAO walletDAO, IdempotencyDAO idempotencyDAO) {
         this.walletDAO = walletDAO;
-        this.transactionDAO = transactionDAO;
+        this.idempotencyDAO = idempotencyDAO;
     }
 
     // Check if wallet exists
@@ -45,49 +44,57 @@ public class WalletService {
         return walletDAO.getWalletByUserId(userId);
     }
 
+    // Striped mode for hot (merchant) wallets: credits spread over this many stripe rows instead
+    // of one row lock; 0 or 1 turns it off
+    public boolean setStripeCount(int userId, int stripeCount) {
+        if (stripeCount < 0 || stripeCount > MAX_STRIPES) {
+            logger.warn("Invalid stripe count {} for userId={}", stripeCount, userId);
+            return false;
+        }
+        return walletDAO.setStripeCount(userId, stripeCount);
+    }
+
     public boolean deposit(int userId, BigDecimal amount) {
-        Wallet wallet = getWallet(userId);
-        if (wallet == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            logger.warn("Deposit failed. Invalid amount or wallet missing for userId={}", userId);
+        return deposit(userId, amount, null);
+    }
+
+    // Balance change, ledger row and key commit together; a retried key returns true without re-applying
+    public boolean deposit(int userId, BigDecimal amount, String idempotencyKey) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            logger.warn("Deposit failed. Invalid amount for userId={}", userId);
             return false;
         }
-        boolean success = walletDAO.updateBalance(userId, wallet.getBalance().add(amount));
-        
-        // Log transaction
-        if (success) {
-            Transaction transaction = new Transaction();
-            transaction.setToWalletId(wallet.getWalletId());
-            transaction.setAmount(amount);
-            transaction.setTransactionType("ADD");
-            transaction.setStatus("SUCCESS");
-            transaction.setNote("Deposit to wallet");
-            transaction.setCreatedAt(LocalDateTime.now());
-            transactionDAO.logTransaction(transaction);
+        if (idempotencyKey != null
+                && idempotencyDAO.isCompleted(userId, idempotencyKey, IdempotencyDAO.fingerprint(IdempotencyDAO.DEPOSIT, amount))) {
+            logger.info("Deposit already applied for userId={}, replaying result", userId);
+            return true;
+        }
+        boolean success = walletDAO.adjustBalance(userId, amount, "ADD", "Deposit to wallet", idempotencyKey);
+        if (!success) {
+            logger.warn("Deposit failed. Wallet missing for userId={}", userId);
         }
-        
         return success;
     }
 
     public boolean withdraw(int userId, BigDecimal amount) {
-        Wallet wallet = getWallet(userId);
-        if (wallet == null || amount.compareTo(BigDecimal.ZERO) <= 0 || wallet.getBalance().compareTo(amount) < 0) {
-            logger.warn("Withdrawal failed. Check balance or wallet missing for userId={}", userId);
+        return withdraw(userId, amount, null);
+    }
+
+    // The funds check happens under the row lock inside adjustBalance, not on a cached balance
+    public boolean withdraw(int userId, BigDecimal amount, String idempotencyKey) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            logger.warn("Withdrawal failed. Invalid amount for userId={}", userId);
             return false;
         }
-        boolean success = walletDAO.updateBalance(userId, wallet.getBalance().subtract(amount));
-        
-        // Log transaction
-        if (success) {
-            Transaction transaction = new Transaction();
-            transaction.setFromWalletId(wallet.getWalletId());
-            transaction.setAmount(amount);
-            transaction.setTransactionType("WITHDRAW");
-            transaction.setStatus("SUCCESS");
-            transaction.setNote("Withdrawal from wallet");
-            transaction.setCreatedAt(LocalDateTime.now());
-            transactionDAO.logTransaction(transaction);
+        if (idempotencyKey != null
+                && idempotencyDAO.isCompleted(userId, idempotencyKey, IdempotencyDAO.fingerprint(IdempotencyDAO.WITHDRAW, amount))) {
+            logger.info("Withdrawal already applied for userId={}, replaying result", userId);
+            return true;
+        }
+        boolean success = walletDAO.adjustBalance(userId, amount.negate(), "WITHDRAW", "Withdrawal from wallet", idempotencyKey);
+        if (!success) {
+            logger.warn("Withdrawal failed. Check balance or wallet missing for userId={}", userId);
         }
-        
         return success;
     }
 }
@@ -0,0 +1,56 @@
+package org.example.service;
+
+import org.example.security.BcryptCostTuner;
+import org.example.security.PasswordUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BcryptCostTunerTest {
+
+    // 1 ms at cost 4, doubling with each step: cost 10 = 64 ms, 11 = 128 ms, 12 = 256 ms
+    private final List<Integer> measured = new ArrayList<>();
+    private final IntToLongFunction timer = cost -> {
+        measured.add(cost);
+        return 1L << (cost - 4);
+    };
+
+    @Test
+    void testPicksHighestCostUnderTarget() {
+        assertEquals(11, BcryptCostTuner.tune(250, 10, 16, timer));
+        // 11 took 128 ms, so 12 would be ~256 ms and is not benchmarked at all
+        assertEquals(List.of(10, 11), measured);
+    }
+
+    @Test
+    void testRespectsMaxCost() {
+        assertEquals(12, BcryptCostTuner.tune(10_000, 10, 12, timer));
+    }
+
+    @Test
+    void testSlowMachineKeepsMinimumCost() {
+        assertEquals(10, BcryptCostTuner.tune(20, 10, 16, timer));
+        assertEquals(List.of(10), measured);
+    }
+
+    @Test
+    void testCostOfAndNeedsRehash() {
+        assertEquals(10, PasswordUtil.costOf("$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG"));
+        assertEquals(-1, PasswordUtil.costOf("hashedPassword"));
+        assertEquals(-1, PasswordUtil.costOf(null));
+
+        assertTrue(PasswordUtil.needsRehash(PasswordUtil.hash("pw", 4)));
+        assertFalse(PasswordUtil.needsRehash(PasswordUtil.hash("pw")));
+        assertFalse(PasswordUtil.needsRehash("hashedPassword"));
+    }
+
+    @Test
+    void testRejectsOutOfRangeCost() {
+        assertThrows(IllegalArgumentException.class, () -> PasswordUtil.setCost(3));
+        assertThrows(IllegalArgumentException.class, () -> PasswordUtil.setCost(32));
+    }
+}
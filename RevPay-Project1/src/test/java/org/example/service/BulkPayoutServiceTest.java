@@ -0,0 +1,114 @@
+package org.example.service;
+
+import org.example.dao.IdempotencyDAO;
+import org.example.dao.WalletDAO;
+import org.example.model.BulkPayoutReport;
+import org.example.model.PayoutItem;
+import org.example.model.PayoutItemResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkPayoutServiceTest {
+
+    @Mock
+    private WalletDAO walletDAO;
+
+    @Mock
+    private IdempotencyDAO idempotencyDAO;
+
+    private BulkPayoutService bulkPayoutService;
+
+    @BeforeEach
+    void setUp() {
+        bulkPayoutService = new BulkPayoutService(walletDAO, idempotencyDAO);
+    }
+
+    @Test
+    void testPayout_ResolvesRecipientsOnceAndReportsEveryItem() {
+        // Arrange
+        List<PayoutItem> items = List.of(
+                new PayoutItem("bob@mail.com", new BigDecimal("100.00"), "June salary"),
+                new PayoutItem("carol@mail.com", new BigDecimal("-5.00"), null),
+                new PayoutItem("ghost@mail.com", new BigDecimal("10.00"), null),
+                new PayoutItem("me@mail.com", new BigDecimal("10.00"), null));
+        when(walletDAO.getUserIdsByIdentifiers(anyCollection())).thenReturn(Map.of("bob@mail.com", 2, "me@mail.com", 1));
+        when(walletDAO.bulkPayout(eq(1), anyList(), isNull())).thenAnswer(invocation -> {
+            List<PayoutItemResult> results = invocation.getArgument(1);
+            results.get(0).setStatus(PayoutItemResult.PAID);
+            BulkPayoutReport report = new BulkPayoutReport();
+            report.setResults(results);
+            report.setTotalPaid(new BigDecimal("100.00"));
+            return report;
+        });
+
+        // Act
+        BulkPayoutReport report = bulkPayoutService.payout(1, items);
+
+        // Assert - invalid lines never reach the DAO, and the report keeps submission order
+        verify(walletDAO, times(1)).getUserIdsByIdentifiers(List.of("bob@mail.com", "ghost@mail.com", "me@mail.com"));
+        List<PayoutItemResult> results = report.getResults();
+        assertEquals(4, results.size());
+        assertEquals(PayoutItemResult.PAID, results.get(0).getStatus());
+        assertEquals(2, results.get(0).getRecipientUserId());
+        assertEquals(PayoutItemResult.INVALID_AMOUNT, results.get(1).getStatus());
+        assertEquals(PayoutItemResult.RECIPIENT_NOT_FOUND, results.get(2).getStatus());
+        assertEquals(PayoutItemResult.SELF_PAYMENT, results.get(3).getStatus());
+        assertEquals(1, report.getPaidCount());
+    }
+
+    @Test
+    void testPayout_NothingPayableSkipsTransaction() {
+        // Arrange
+        when(walletDAO.getUserIdsByIdentifiers(anyCollection())).thenReturn(Map.of());
+
+        // Act
+        BulkPayoutReport report = bulkPayoutService.payout(1, List.of(new PayoutItem("ghost", BigDecimal.TEN, null)));
+
+        // Assert
+        assertEquals(PayoutItemResult.RECIPIENT_NOT_FOUND, report.getResults().get(0).getStatus());
+        verify(walletDAO, never()).bulkPayout(anyInt(), anyList(), any());
+    }
+
+    @Test
+    void testPayout_CompletedKeyReplays() {
+        // Arrange
+        List<PayoutItem> items = List.of(new PayoutItem("bob@mail.com", BigDecimal.TEN, null));
+        when(idempotencyDAO.isCompleted(1, "payroll-june", IdempotencyDAO.payoutFingerprint(items))).thenReturn(true);
+
+        // Act
+        BulkPayoutReport report = bulkPayoutService.payout(1, items, "payroll-june");
+
+        // Assert
+        assertTrue(report.isReplayed());
+        verifyNoInteractions(walletDAO);
+    }
+
+    @Test
+    void testPayout_OversizedBatchRejected() {
+        // Arrange
+        List<PayoutItem> items = new ArrayList<>(Collections.nCopies(BulkPayoutService.MAX_ITEMS + 1,
+                new PayoutItem("bob@mail.com", BigDecimal.TEN, null)));
+
+        // Act
+        BulkPayoutReport report = bulkPayoutService.payout(1, items);
+
+        // Assert
+        assertEquals(0, report.getPaidCount());
+        assertEquals(PayoutItemResult.FAILED, report.getResults().get(0).getStatus());
+        verifyNoInteractions(walletDAO);
+    }
+}
@@ -1,8 +1,10 @@
 package org.example.service;
 
 import org.example.dao.InvoiceDAO;
-import org.example.dao.TransactionDAO;
+import org.example.dao.RollupDAO;
 import org.example.dao.WalletDAO;
+import org.example.model.BusinessAnalytics;
+import org.example.model.InvoiceTotal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,14 +13,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class BusinessAnalyticsServiceTest {
 
     @Mock
-    private TransactionDAO transactionDAO;
+    private RollupDAO rollupDAO;
 
     @Mock
     private InvoiceDAO invoiceDAO;
@@ -30,7 +35,7 @@ class BusinessAnalyticsServiceTest {
 
     @BeforeEach
     void setUp() {
-        businessAnalyticsService = new BusinessAnalyticsService(transactionDAO, invoiceDAO, walletDAO);
+        businessAnalyticsService = new BusinessAnalyticsService(rollupDAO, invoiceDAO, walletDAO);
         // Setup mocks if needed
     }
 
@@ -44,7 +49,7 @@ class BusinessAnalyticsServiceTest {
 
         // Assert
         verify(walletDAO, times(1)).getWalletByUserId(1);
-        verify(transactionDAO, never()).getTransactionsByWalletId(anyInt());
+        verify(rollupDAO, never()).summarizeWallet(anyInt(), any());
     }
 
     @Test
@@ -55,15 +60,50 @@ class BusinessAnalyticsServiceTest {
         wallet.setUserId(1);
         
         when(walletDAO.getWalletByUserId(1)).thenReturn(wallet);
-        when(transactionDAO.getTransactionsByWalletId(1)).thenReturn(new java.util.ArrayList<>());
-        when(invoiceDAO.getInvoicesByBusinessUserId(1)).thenReturn(new java.util.ArrayList<>());
+        when(rollupDAO.summarizeWallet(eq(1), any())).thenReturn(new BusinessAnalytics());
+        when(invoiceDAO.getInvoiceTotalsByCustomer(1)).thenReturn(new java.util.ArrayList<>());
 
         // Act
         businessAnalyticsService.displayBusinessAnalytics(1);
 
         // Assert
         verify(walletDAO, times(1)).getWalletByUserId(1);
-        verify(transactionDAO, times(3)).getTransactionsByWalletId(1); // Called 3 times for different metrics
-        verify(invoiceDAO, times(2)).getInvoicesByBusinessUserId(1); // Called 2 times (invoice summary and top customers)
+        verify(rollupDAO, times(1)).summarizeWallet(eq(1), any()); // rollup read, no raw transaction scan
+        verify(invoiceDAO, times(1)).getInvoiceTotalsByCustomer(1);
+        verify(invoiceDAO, never()).getInvoicesByBusinessUserId(anyInt());
+    }
+
+    @Test
+    void testGetBusinessAnalytics_FoldsInvoiceTotals() {
+        // Arrange
+        org.example.model.Wallet wallet = new org.example.model.Wallet();
+        wallet.setWalletId(1);
+        wallet.setUserId(1);
+        when(walletDAO.getWalletByUserId(1)).thenReturn(wallet);
+        when(rollupDAO.summarizeWallet(eq(1), any())).thenReturn(new BusinessAnalytics());
+        when(invoiceDAO.getInvoiceTotalsByCustomer(1)).thenReturn(List.of(
+                total("a@mail.com", "PAID", 2, "300.00"),
+                total("a@mail.com", "UNPAID", 1, "50.00"),
+                total("b@mail.com", "PAID", 1, "500.00")));
+
+        // Act
+        BusinessAnalytics analytics = businessAnalyticsService.getBusinessAnalytics(1);
+
+        // Assert
+        assertEquals(4, analytics.getTotalInvoices());
+        assertEquals(3, analytics.getPaidInvoices());
+        assertEquals(1, analytics.getUnpaidInvoices());
+        assertEquals(new BigDecimal("850.00"), analytics.getTotalInvoiceAmount());
+        assertEquals(new BigDecimal("50.00"), analytics.getOutstandingAmount());
+        assertEquals(List.of("b@mail.com", "a@mail.com"), List.copyOf(analytics.getTopCustomers().keySet()));
+    }
+
+    private static InvoiceTotal total(String customer, String status, long count, String amount) {
+        InvoiceTotal total = new InvoiceTotal();
+        total.setCustomerIdentifier(customer);
+        total.setStatus(status);
+        total.setInvoiceCount(count);
+        total.setTotalAmount(new BigDecimal(amount));
+        return total;
     }
 }
@@ -0,0 +1,175 @@
+package org.example.service;
+
+import org.example.config.ConnectionPool;
+import org.example.config.PoolConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionPoolTest {
+
+    private PoolConfig config;
+    private AtomicInteger created;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        config = new PoolConfig();
+        config.setMaxPoolSize(1);
+        config.setMinIdle(0);
+        config.setConnectionTimeoutMs(50);
+        config.setHousekeepingPeriodMs(0); // no background thread in unit tests
+        created = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ConnectionPool newPool(Connection raw) {
+        return new ConnectionPool(config, () -> {
+            created.incrementAndGet();
+            return raw;
+        });
+    }
+
+    @Test
+    void testReturnedConnectionIsReused() throws Exception {
+        Connection raw = mock(Connection.class);
+        when(raw.getAutoCommit()).thenReturn(true);
+        pool = newPool(raw);
+
+        pool.getConnection().close();
+        pool.getConnection().close();
+
+        assertEquals(1, created.get());
+        verify(raw, never()).close();
+        assertEquals(2, pool.getMetrics().getBorrowCount());
+        assertEquals(0, pool.getMetrics().getActiveConnections());
+    }
+
+    @Test
+    void testBorrowTimesOutWhenPoolExhausted() throws Exception {
+        Connection raw = mock(Connection.class);
+        pool = newPool(raw);
+
+        Connection held = pool.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, () -> pool.getConnection());
+        assertEquals(1, pool.getMetrics().getTimeoutCount());
+        assertEquals(1, pool.getMetrics().getActiveConnections());
+        held.close();
+    }
+
+    @Test
+    void testOpenTransactionRolledBackOnReturn() throws Exception {
+        Connection raw = mock(Connection.class);
+        when(raw.getAutoCommit()).thenReturn(false);
+        pool = newPool(raw);
+
+        Connection conn = pool.getConnection();
+        conn.close();
+
+        verify(raw).rollback();
+        verify(raw).setAutoCommit(true);
+    }
+
+    @Test
+    void testExpiredConnectionReplacedOnBorrow() throws Exception {
+        config.setMaxLifetimeMs(1);
+        Connection raw = mock(Connection.class);
+        when(raw.getAutoCommit()).thenReturn(true);
+        pool = newPool(raw);
+
+        pool.getConnection().close();
+        Thread.sleep(5);
+        pool.getConnection().close();
+
+        assertEquals(2, created.get());
+        verify(raw, atLeastOnce()).close();
+    }
+
+    @Test
+    void testIdleTopUpNeverExceedsMaxPoolSize() throws Exception {
+        config.setHousekeepingPeriodMs(5);
+        Connection raw = mock(Connection.class);
+        when(raw.getAutoCommit()).thenReturn(true);
+        CountDownLatch proceed = new CountDownLatch(1);
+        pool = new ConnectionPool(config, () -> {
+            created.incrementAndGet();
+            // Hold the borrower mid-open while the housekeeper runs
+            if (Thread.currentThread().getName().equals("borrower")) {
+                try {
+                    proceed.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return raw;
+        });
+
+        AtomicReference<SQLException> borrowError = new AtomicReference<>();
+        Thread borrower = new Thread(() -> {
+            try {
+                pool.getConnection().close();
+            } catch (SQLException e) {
+                borrowError.set(e);
+            }
+        }, "borrower");
+        borrower.start();
+        Thread.sleep(10);
+        config.setMinIdle(1); // housekeeper now wants an idle connection while the only permit is held
+        Thread.sleep(50);
+        proceed.countDown();
+        borrower.join();
+
+        assertNull(borrowError.get());
+        assertEquals(1, created.get());
+        assertTrue(pool.getMetrics().getTotalConnections() <= 1);
+    }
+
+    @Test
+    void testLeakDetectedWithoutSampledTrace() throws Exception {
+        config.setLeakDetectionThresholdMs(1);
+        config.setLeakTraceSampleEvery(0);
+        config.setHousekeepingPeriodMs(5);
+        Connection raw = mock(Connection.class);
+        when(raw.getAutoCommit()).thenReturn(true);
+        pool = newPool(raw);
+
+        Connection held = pool.getConnection();
+        Thread.sleep(50);
+
+        assertEquals(1, pool.getMetrics().getLeakCount());
+        held.close();
+    }
+
+    @Test
+    void testReturnedProxyRejectsFurtherUse() throws Exception {
+        Connection raw = mock(Connection.class);
+        when(raw.getAutoCommit()).thenReturn(true);
+        pool = newPool(raw);
+
+        Connection conn = pool.getConnection();
+        conn.close();
+        conn.close(); // second close is a no-op
+
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, () -> conn.prepareStatement("SELECT 1"));
+        assertEquals(0, pool.getMetrics().getActiveConnections());
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.service;
+
+import org.example.security.CryptoService;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoServiceTest {
+
+    private static final String CARD = "VISA|4111111111111111|Alice Example|12/29|123";
+    private static final byte[] KEY_1 = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_2 = "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII);
+
+    private final CryptoService crypto = new CryptoService(Map.of(1, KEY_1), 1);
+
+    @Test
+    void testRoundTripWithFreshIvPerRecord() {
+        String first = crypto.encrypt(CARD);
+        String second = crypto.encrypt(CARD);
+
+        assertTrue(first.startsWith("v1:"));
+        assertNotEquals(first, second);
+        assertEquals(CARD, crypto.decrypt(first));
+        assertEquals(CARD, crypto.decrypt(second));
+        assertFalse(crypto.needsReEncryption(first));
+    }
+
+    @Test
+    void testTamperedValueIsRejected() {
+        byte[] data = Base64.getDecoder().decode(crypto.encrypt(CARD).substring(3));
+        data[data.length - 1] ^= 1;
+
+        assertThrows(IllegalStateException.class, () -> crypto.decrypt("v1:" + Base64.getEncoder().encodeToString(data)));
+    }
+
+    @Test
+    void testLegacyEcbValueDecryptsAndIsFlaggedForReEncryption() throws Exception {
+        // Written the way the old EncryptionUtil did it
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec("RevPaySecretKey12345678901234567".getBytes(), "AES"));
+        String legacy = Base64.getEncoder().encodeToString(cipher.doFinal(CARD.getBytes()));
+
+        assertEquals(CARD, crypto.decrypt(legacy));
+        assertTrue(crypto.needsReEncryption(legacy));
+        String upgraded = crypto.reEncrypt(legacy);
+        assertTrue(upgraded.startsWith("v1:"));
+        assertEquals(CARD, crypto.decrypt(upgraded));
+    }
+
+    @Test
+    void testKeyRotation() {
+        String underOldKey = crypto.encrypt(CARD);
+        CryptoService rotated = new CryptoService(Map.of(1, KEY_1, 2, KEY_2), 2);
+
+        assertEquals(CARD, rotated.decrypt(underOldKey));
+        assertTrue(rotated.needsReEncryption(underOldKey));
+        assertTrue(rotated.reEncrypt(underOldKey).startsWith("v2:"));
+        assertNull(rotated.reEncrypt(rotated.encrypt(CARD)));
+        // A retired key that is no longer configured cannot be read
+        assertThrows(IllegalStateException.class, () -> new CryptoService(Map.of(2, KEY_2), 2).decrypt(underOldKey));
+    }
+
+    @Test
+    void testConfiguringFirstKeyKeepsBuiltInValuesReadable() {
+        // Written before any key was configured
+        CryptoService unconfigured = CryptoService.fromProperties(new Properties());
+        String underBuiltInKey = unconfigured.encrypt(CARD);
+        assertTrue(underBuiltInKey.startsWith("v0:"));
+
+        Properties props = new Properties();
+        props.setProperty("revpay.crypto.key.1", Base64.getEncoder().encodeToString(KEY_1));
+        CryptoService configured = CryptoService.fromProperties(props);
+
+        assertEquals(1, configured.getActiveVersion());
+        assertEquals(CARD, configured.decrypt(underBuiltInKey));
+        assertTrue(configured.needsReEncryption(underBuiltInKey));
+        assertTrue(configured.reEncrypt(underBuiltInKey).startsWith("v1:"));
+    }
+
+    @Test
+    void testBuiltInVersionIsReserved() {
+        assertThrows(IllegalArgumentException.class, () -> new CryptoService(Map.of(0, KEY_1), 0));
+        // Decrypt-only once real keys exist
+        assertThrows(IllegalArgumentException.class, () -> new CryptoService(Map.of(1, KEY_1), 0));
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.service;
+
+import org.example.dao.IdempotencyDAO;
+
+import org.example.cache.IdempotencyCache;
+import org.example.config.DBConnection;
+import org.example.model.IdempotencyRecord;
+import org.example.model.PayoutItem;
+import org.junit.jupiter.api.*;
+import org.mockito.MockedStatic;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyDAOTest {
+
+    private IdempotencyDAO idempotencyDAO;
+    private IdempotencyCache cache;
+    private Connection connection;
+    private PreparedStatement preparedStatement;
+    private ResultSet resultSet;
+
+    private MockedStatic<DBConnection> dbMock;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new IdempotencyCache(100, 60_000);
+        idempotencyDAO = new IdempotencyDAO(cache);
+
+        connection = mock(Connection.class);
+        preparedStatement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+
+        dbMock = mockStatic(DBConnection.class);
+        dbMock.when(DBConnection::getInstance).thenReturn(connection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dbMock.close();
+    }
+
+    private static final String DEPOSIT_50 = IdempotencyDAO.fingerprint(IdempotencyDAO.DEPOSIT, new BigDecimal("50.00"));
+
+    @Test
+    void testClaim_NewKey() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        assertTrue(idempotencyDAO.claim(connection, 1, "key-1", IdempotencyDAO.DEPOSIT, DEPOSIT_50));
+        verify(preparedStatement).setString(2, "key-1");
+        verify(preparedStatement).setString(4, DEPOSIT_50);
+        // Not completed until the caller commits and calls markCompleted
+        assertNull(cache.getCompleted(1, "key-1"));
+    }
+
+    @Test
+    void testClaim_DuplicateKey() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenThrow(new SQLIntegrityConstraintViolationException("Duplicate entry"));
+
+        assertFalse(idempotencyDAO.claim(connection, 1, "key-1", IdempotencyDAO.DEPOSIT, DEPOSIT_50));
+    }
+
+    @Test
+    void testClaim_OtherErrorsPropagate() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenThrow(new SQLException("Lock wait timeout"));
+
+        assertThrows(SQLException.class, () -> idempotencyDAO.claim(connection, 1, "key-1", IdempotencyDAO.DEPOSIT, DEPOSIT_50));
+    }
+
+    @Test
+    void testFingerprint_ComparesAmountsByValue() {
+        assertEquals(DEPOSIT_50, IdempotencyDAO.fingerprint(IdempotencyDAO.DEPOSIT, new BigDecimal("50")));
+        assertNotEquals(DEPOSIT_50, IdempotencyDAO.fingerprint(IdempotencyDAO.WITHDRAW, new BigDecimal("50.00")));
+        assertNotEquals(DEPOSIT_50, IdempotencyDAO.fingerprint(IdempotencyDAO.DEPOSIT, new BigDecimal("50.01")));
+        assertNotEquals(
+                IdempotencyDAO.payoutFingerprint(List.of(new PayoutItem("a", BigDecimal.ONE, null), new PayoutItem("b", BigDecimal.TEN, null))),
+                IdempotencyDAO.payoutFingerprint(List.of(new PayoutItem("b", BigDecimal.TEN, null), new PayoutItem("a", BigDecimal.ONE, null))));
+    }
+
+    @Test
+    void testFindReplay_SameRequestReturnsOriginalTransaction() throws Exception {
+        stubKeyRow(DEPOSIT_50, 700);
+
+        IdempotencyRecord record = idempotencyDAO.findReplay(connection, 1, "key-1", DEPOSIT_50);
+
+        assertNotNull(record);
+        assertEquals(700, record.getTransactionId());
+    }
+
+    @Test
+    void testFindReplay_DifferentRequestIsRejected() throws Exception {
+        stubKeyRow(IdempotencyDAO.fingerprint(IdempotencyDAO.WITHDRAW, new BigDecimal("50.00")), 700);
+
+        assertNull(idempotencyDAO.findReplay(connection, 1, "key-1", DEPOSIT_50));
+    }
+
+    @Test
+    void testFindReplay_KeyWithoutTransactionReplays() throws Exception {
+        // Invoice payments and bulk payouts record no single transaction
+        stubKeyRow(DEPOSIT_50, 0);
+
+        IdempotencyRecord record = idempotencyDAO.findReplay(connection, 1, "key-1", DEPOSIT_50);
+
+        assertNotNull(record);
+        assertNull(record.getTransactionId());
+    }
+
+    @Test
+    void testIsCompleted_HotKeySkipsDatabase() throws Exception {
+        idempotencyDAO.markCompleted(1, "key-1", new IdempotencyRecord(DEPOSIT_50, 700));
+
+        assertTrue(idempotencyDAO.isCompleted(1, "key-1", DEPOSIT_50));
+        verify(connection, never()).prepareStatement(anyString());
+    }
+
+    @Test
+    void testIsCompleted_LoadsFromTableAndCaches() throws Exception {
+        stubKeyRow(DEPOSIT_50, 700);
+
+        assertTrue(idempotencyDAO.isCompleted(2, "key-2", DEPOSIT_50));
+        assertTrue(idempotencyDAO.isCompleted(2, "key-2", DEPOSIT_50));
+
+        verify(preparedStatement, times(1)).executeQuery();
+    }
+
+    @Test
+    void testIsCompleted_KeyUsedForAnotherRequest() throws Exception {
+        idempotencyDAO.markCompleted(1, "key-1", new IdempotencyRecord(DEPOSIT_50, 700));
+
+        assertFalse(idempotencyDAO.isCompleted(1, "key-1", IdempotencyDAO.fingerprint(IdempotencyDAO.DEPOSIT, new BigDecimal("60.00"))));
+    }
+
+    @Test
+    void testIsCompleted_UnknownKey() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(false);
+
+        assertFalse(idempotencyDAO.isCompleted(3, "key-3", DEPOSIT_50));
+        // Keys are scoped per user
+        idempotencyDAO.markCompleted(4, "key-3", new IdempotencyRecord(DEPOSIT_50, 700));
+        assertFalse(idempotencyDAO.isCompleted(3, "key-3", DEPOSIT_50));
+    }
+
+    private void stubKeyRow(String requestHash, int transactionId) throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getString("request_hash")).thenReturn(requestHash);
+        when(resultSet.getInt("transaction_id")).thenReturn(transactionId);
+        when(resultSet.wasNull()).thenReturn(transactionId == 0);
+    }
+}
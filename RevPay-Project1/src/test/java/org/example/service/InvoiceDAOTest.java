@@ -1,5 +1,6 @@
 package org.example.service;
 
+import org.example.dao.IdempotencyDAO;
 import org.example.dao.InvoiceDAO;
 
 import org.example.config.DBConnection;
@@ -39,7 +40,10 @@ class InvoiceDAOTest {
         PreparedStatement mockPs = mock(PreparedStatement.class);
         ResultSet mockRs = mock(ResultSet.class);
 
+        PreparedStatement rollupPs = mock(PreparedStatement.class);
+
         when(mockConn.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(mockPs);
+        when(mockConn.prepareStatement(startsWith("INSERT INTO customer_invoice_totals"))).thenReturn(rollupPs);
         when(mockPs.executeUpdate()).thenReturn(1);
         when(mockPs.getGeneratedKeys()).thenReturn(mockRs);
         when(mockRs.next()).thenReturn(true);
@@ -57,6 +61,10 @@ class InvoiceDAOTest {
             verify(mockPs).setString(4, invoice.getStatus());
             verify(mockPs).setDate(5, Date.valueOf(invoice.getDueDate()));
             verify(mockPs).executeUpdate();
+            // new invoice counted in its customer's UNPAID bucket in the same transaction
+            verify(rollupPs).setString(3, "UNPAID");
+            verify(rollupPs).executeBatch();
+            verify(mockConn).commit();
         }
     }
 
@@ -129,7 +137,19 @@ class InvoiceDAOTest {
         Connection mockConn = mock(Connection.class);
         PreparedStatement mockPs = mock(PreparedStatement.class);
 
-        when(mockConn.prepareStatement(anyString())).thenReturn(mockPs);
+        PreparedStatement lockPs = mock(PreparedStatement.class);
+        PreparedStatement rollupPs = mock(PreparedStatement.class);
+        ResultSet lockRs = mock(ResultSet.class);
+
+        when(mockConn.prepareStatement(startsWith("UPDATE invoices"))).thenReturn(mockPs);
+        when(mockConn.prepareStatement(startsWith("SELECT"))).thenReturn(lockPs);
+        when(mockConn.prepareStatement(startsWith("INSERT INTO customer_invoice_totals"))).thenReturn(rollupPs);
+        when(lockPs.executeQuery()).thenReturn(lockRs);
+        when(lockRs.next()).thenReturn(true);
+        when(lockRs.getInt("business_user_id")).thenReturn(5);
+        when(lockRs.getString("customer_identifier")).thenReturn("customer@test.com");
+        when(lockRs.getBigDecimal("total_amount")).thenReturn(new BigDecimal("1000.00"));
+        when(lockRs.getString("status")).thenReturn("UNPAID");
         when(mockPs.executeUpdate()).thenReturn(1);
 
         try (MockedStatic<DBConnection> mockedStatic = mockStatic(DBConnection.class)) {
@@ -141,6 +161,43 @@ class InvoiceDAOTest {
             verify(mockPs).setString(1, status);
             verify(mockPs).setInt(2, invoiceId);
             verify(mockPs).executeUpdate();
+            // UNPAID -> PAID moves the amount between buckets: -1 / +1
+            verify(rollupPs).setInt(4, -1);
+            verify(rollupPs).setInt(4, 1);
+            verify(rollupPs, times(2)).addBatch();
+            verify(mockConn).commit();
+        }
+    }
+
+    @Test
+    void testUpdateInvoiceStatus_KeyReusedForAnotherInvoiceIsRejected() throws SQLException {
+        Connection mockConn = mock(Connection.class);
+        PreparedStatement lockPs = mock(PreparedStatement.class);
+        PreparedStatement claimPs = mock(PreparedStatement.class);
+        PreparedStatement keyPs = mock(PreparedStatement.class);
+        ResultSet lockRs = mock(ResultSet.class);
+        ResultSet keyRs = mock(ResultSet.class);
+
+        when(mockConn.prepareStatement(startsWith("SELECT business_user_id"))).thenReturn(lockPs);
+        when(mockConn.prepareStatement(startsWith("INSERT INTO idempotency_keys"))).thenReturn(claimPs);
+        when(mockConn.prepareStatement(startsWith("SELECT request_hash"))).thenReturn(keyPs);
+        when(lockPs.executeQuery()).thenReturn(lockRs);
+        when(lockRs.next()).thenReturn(true);
+        when(lockRs.getInt("business_user_id")).thenReturn(5);
+        when(lockRs.getString("status")).thenReturn("UNPAID");
+        when(claimPs.executeUpdate()).thenThrow(new SQLIntegrityConstraintViolationException("Duplicate entry"));
+        // The key already paid invoice 1
+        when(keyPs.executeQuery()).thenReturn(keyRs);
+        when(keyRs.next()).thenReturn(true);
+        when(keyRs.getString("request_hash")).thenReturn(IdempotencyDAO.fingerprint(IdempotencyDAO.INVOICE_PAYMENT, 1, "PAID"));
+
+        try (MockedStatic<DBConnection> mockedStatic = mockStatic(DBConnection.class)) {
+            mockedStatic.when(DBConnection::getInstance).thenReturn(mockConn);
+
+            assertFalse(invoiceDAO.updateInvoiceStatus(2, "PAID", "pay-1"));
+            verify(mockConn).rollback();
+            verify(mockConn, never()).prepareStatement(startsWith("UPDATE invoices"));
+            verify(mockConn, never()).commit();
         }
     }
 
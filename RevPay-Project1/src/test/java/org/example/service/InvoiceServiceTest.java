@@ -1,5 +1,6 @@
 package org.example.service;
 
+import org.example.dao.IdempotencyDAO;
 import org.example.dao.InvoiceDAO;
 import org.example.dao.InvoiceItemDAO;
 import org.example.dao.WalletDAO;
@@ -33,6 +34,9 @@ class InvoiceServiceTest {
     @Mock
     private WalletDAO walletDAO;
 
+    @Mock
+    private IdempotencyDAO idempotencyDAO;
+
     private InvoiceService invoiceService;
 
     private Invoice testInvoice;
@@ -40,7 +44,7 @@ class InvoiceServiceTest {
 
     @BeforeEach
     void setUp() {
-        invoiceService = new InvoiceService(invoiceDAO, invoiceItemDAO, walletDAO);
+        invoiceService = new InvoiceService(invoiceDAO, invoiceItemDAO, walletDAO, idempotencyDAO);
         testInvoice = new Invoice();
         testInvoice.setInvoiceId(1);
         testInvoice.setBusinessUserId(1);
@@ -107,7 +111,7 @@ class InvoiceServiceTest {
     void testProcessInvoicePayment_Success() {
         // Arrange
         when(invoiceDAO.getInvoiceById(1)).thenReturn(testInvoice);
-        when(invoiceDAO.updateInvoiceStatus(1, "PAID")).thenReturn(true);
+        when(invoiceDAO.updateInvoiceStatus(1, "PAID", null)).thenReturn(true);
 
         // Act
         boolean result = invoiceService.processInvoicePayment(1, "CASH");
@@ -115,7 +119,7 @@ class InvoiceServiceTest {
         // Assert
         assertTrue(result);
         verify(invoiceDAO, times(1)).getInvoiceById(1);
-        verify(invoiceDAO, times(1)).updateInvoiceStatus(1, "PAID");
+        verify(invoiceDAO, times(1)).updateInvoiceStatus(1, "PAID", null);
     }
 
     @Test
@@ -130,7 +134,57 @@ class InvoiceServiceTest {
         // Assert
         assertFalse(result);
         verify(invoiceDAO, times(1)).getInvoiceById(1);
-        verify(invoiceDAO, never()).updateInvoiceStatus(anyInt(), anyString());
+        verify(invoiceDAO, never()).updateInvoiceStatus(anyInt(), anyString(), any());
+    }
+
+    @Test
+    void testProcessInvoicePayment_RetriedKeyReplays() {
+        // Arrange - the first attempt with this key already marked the invoice paid
+        testInvoice.setStatus("PAID");
+        when(invoiceDAO.getInvoiceById(1)).thenReturn(testInvoice);
+        when(idempotencyDAO.isCompleted(1, "key-1",
+                IdempotencyDAO.fingerprint(IdempotencyDAO.INVOICE_PAYMENT, 1, "PAID"))).thenReturn(true);
+
+        // Act
+        boolean result = invoiceService.processInvoicePayment(1, "CASH", "key-1");
+
+        // Assert
+        assertTrue(result);
+        verify(invoiceDAO, never()).updateInvoiceStatus(anyInt(), anyString(), any());
+    }
+
+    @Test
+    void testProcessInvoicePayment_KeyReusedForAnotherInvoiceDoesNotReplay() {
+        // Arrange - "key-1" already paid invoice 1; invoice 2 is still unpaid
+        Invoice other = new Invoice();
+        other.setInvoiceId(2);
+        other.setBusinessUserId(1);
+        other.setStatus("UNPAID");
+        when(invoiceDAO.getInvoiceById(2)).thenReturn(other);
+        when(idempotencyDAO.isCompleted(1, "key-1",
+                IdempotencyDAO.fingerprint(IdempotencyDAO.INVOICE_PAYMENT, 2, "PAID"))).thenReturn(false);
+        when(invoiceDAO.updateInvoiceStatus(2, "PAID", "key-1")).thenReturn(false);
+
+        // Act
+        boolean result = invoiceService.processInvoicePayment(2, "CASH", "key-1");
+
+        // Assert - the DAO's claim rejects the reused key
+        assertFalse(result);
+    }
+
+    @Test
+    void testProcessInvoicePayment_NewKeyIsClaimedInUpdate() {
+        // Arrange
+        when(invoiceDAO.getInvoiceById(1)).thenReturn(testInvoice);
+        when(idempotencyDAO.isCompleted(eq(1), eq("key-2"), anyString())).thenReturn(false);
+        when(invoiceDAO.updateInvoiceStatus(1, "PAID", "key-2")).thenReturn(true);
+
+        // Act
+        boolean result = invoiceService.processInvoicePayment(1, "CASH", "key-2");
+
+        // Assert
+        assertTrue(result);
+        verify(invoiceDAO, times(1)).updateInvoiceStatus(1, "PAID", "key-2");
     }
 
     @Test
@@ -144,7 +198,7 @@ class InvoiceServiceTest {
         // Assert
         assertFalse(result);
         verify(invoiceDAO, times(1)).getInvoiceById(1);
-        verify(invoiceDAO, never()).updateInvoiceStatus(anyInt(), anyString());
+        verify(invoiceDAO, never()).updateInvoiceStatus(anyInt(), anyString(), any());
     }
 
     @Test
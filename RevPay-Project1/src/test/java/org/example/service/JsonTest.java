@@ -0,0 +1,63 @@
+package org.example.service;
+
+import org.example.server.Json;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTest {
+
+    @Test
+    void testParse_NumbersStayExactDecimals() {
+        Map<?, ?> parsed = (Map<?, ?>) Json.parse("{\"amount\": 0.10, \"count\": 3}");
+
+        assertEquals(new BigDecimal("0.10"), parsed.get("amount"));
+        assertEquals(new BigDecimal("3"), parsed.get("count"));
+    }
+
+    @Test
+    void testParse_NestedStructures() {
+        Map<?, ?> parsed = (Map<?, ?>) Json.parse(
+                "{\"items\": [{\"name\": \"a\\\"b\\u0041\"}, true, null], \"empty\": {}}");
+
+        List<?> items = (List<?>) parsed.get("items");
+        assertEquals("a\"bA", ((Map<?, ?>) items.get(0)).get("name"));
+        assertEquals(Boolean.TRUE, items.get(1));
+        assertNull(items.get(2));
+        assertTrue(((Map<?, ?>) parsed.get("empty")).isEmpty());
+    }
+
+    @Test
+    void testParse_RejectsMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\": 1"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\": 1} x"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[1, @]"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[".repeat(100) + "]".repeat(100)));
+    }
+
+    @Test
+    void testWrite_EscapesAndPlainDecimals() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("note", "line1\n\"quoted\"");
+        value.put("amount", new BigDecimal("1E+3"));
+        value.put("due", LocalDate.of(2024, 3, 1));
+        value.put("tags", Arrays.asList("x", null));
+
+        assertEquals("{\"note\":\"line1\\n\\\"quoted\\\"\",\"amount\":1000,\"due\":\"2024-03-01\",\"tags\":[\"x\",null]}",
+                Json.write(value));
+    }
+
+    @Test
+    void testRoundTrip() {
+        String json = "{\"a\":[1,2.50,\"x\"],\"b\":false}";
+
+        assertEquals(json, Json.write(Json.parse(json)));
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.service;
+
+import org.example.dao.LedgerDAO;
+
+import org.example.config.DBConnection;
+import org.example.model.LedgerMismatch;
+import org.example.model.Transaction;
+import org.junit.jupiter.api.*;
+import org.mockito.MockedStatic;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LedgerDAOTest {
+
+    private LedgerDAO ledgerDAO;
+    private Connection connection;
+    private PreparedStatement preparedStatement;
+    private ResultSet resultSet;
+
+    private MockedStatic<DBConnection> dbMock;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledgerDAO = new LedgerDAO();
+
+        connection = mock(Connection.class);
+        preparedStatement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+
+        dbMock = mockStatic(DBConnection.class);
+        dbMock.when(DBConnection::getInstance).thenReturn(connection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dbMock.close();
+    }
+
+    private static Transaction transaction(int id, int fromWalletId, int toWalletId, String amount, String status) {
+        Transaction t = new Transaction();
+        t.setTransactionId(id);
+        t.setFromWalletId(fromWalletId);
+        t.setToWalletId(toWalletId);
+        t.setAmount(new BigDecimal(amount));
+        t.setStatus(status);
+        t.setCreatedAt(LocalDateTime.of(2024, 3, 15, 10, 0));
+        return t;
+    }
+
+    @Test
+    void testAppendEntries_TransferIsBalancedPair() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+
+        ledgerDAO.appendEntries(connection, List.of(transaction(7, 1, 2, "40.00", "SUCCESS")));
+
+        verify(preparedStatement).setBigDecimal(3, new BigDecimal("-40.00"));
+        verify(preparedStatement).setBigDecimal(3, new BigDecimal("40.00"));
+        verify(preparedStatement, times(2)).addBatch();
+        verify(preparedStatement, times(1)).executeBatch();
+        // The caller owns the transaction and the connection
+        verify(connection, never()).commit();
+        dbMock.verify(DBConnection::getInstance, never());
+    }
+
+    @Test
+    void testAppendEntries_DepositDebitsExternalAccount() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+
+        ledgerDAO.appendEntries(connection, List.of(transaction(8, 0, 2, "100.00", "SUCCESS")));
+
+        verify(preparedStatement).setNull(2, Types.INTEGER);
+        verify(preparedStatement).setInt(2, 2);
+    }
+
+    @Test
+    void testAppendEntries_FailedRowsWriteNothing() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+
+        ledgerDAO.appendEntries(connection, List.of(transaction(9, 1, 2, "40.00", "FAILED")));
+
+        verify(preparedStatement, never()).addBatch();
+        verify(preparedStatement, never()).executeBatch();
+    }
+
+    @Test
+    void testGetBalance_SnapshotPlusDelta() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getBigDecimal("balance")).thenReturn(new BigDecimal("260.00"));
+
+        assertEquals(new BigDecimal("260.00"), ledgerDAO.getBalance(10));
+        verify(connection).prepareStatement(contains("wallet_balance_snapshots"));
+        verify(preparedStatement).setInt(3, 10);
+    }
+
+    @Test
+    void testTakeSnapshots_OneStatementPerChunk() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(12);
+
+        int written = ledgerDAO.takeSnapshots(1, 1001, 500L, LocalDateTime.of(2024, 3, 15, 10, 0));
+
+        assertEquals(12, written);
+        verify(connection, times(1)).prepareStatement(contains("INSERT INTO wallet_balance_snapshots"));
+        verify(preparedStatement).setLong(2, 500L);
+        verify(preparedStatement).setInt(3, 1);
+        verify(preparedStatement).setInt(4, 1001);
+    }
+
+    @Test
+    void testFindBalanceMismatches_MapsRows() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getInt("wallet_id")).thenReturn(4);
+        when(resultSet.getBigDecimal("wallet_balance")).thenReturn(new BigDecimal("150.00"));
+        when(resultSet.getBigDecimal("ledger_balance")).thenReturn(new BigDecimal("100.00"));
+
+        List<LedgerMismatch> mismatches = ledgerDAO.findBalanceMismatches(1, 1001);
+
+        assertEquals(1, mismatches.size());
+        assertEquals(4, mismatches.get(0).getWalletId());
+        assertEquals(new BigDecimal("50.00"), mismatches.get(0).getDifference());
+        // Read-only audit: no locking reads
+        verify(connection, never()).prepareStatement(contains("FOR UPDATE"));
+    }
+
+    @Test
+    void testFindUnbalancedTransactions_ChecksPairs() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getInt(1)).thenReturn(77);
+
+        assertEquals(List.of(77), ledgerDAO.findUnbalancedTransactions(1, 1001));
+        verify(connection).prepareStatement(contains("HAVING SUM(amount) <> 0 OR COUNT(*) <> 2"));
+    }
+}
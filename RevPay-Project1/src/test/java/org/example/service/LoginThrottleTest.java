@@ -0,0 +1,62 @@
+package org.example.service;
+
+import org.example.security.LoginThrottle;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final LoginThrottle throttle = new LoginThrottle(100, 1_000, 4_000, now::get);
+
+    @Test
+    void testOneVerificationAtATimePerAccount() {
+        assertTrue(throttle.tryAcquire(1));
+        assertFalse(throttle.tryAcquire(1));   // parallel guess for the same account
+        assertTrue(throttle.tryAcquire(2));    // other accounts are unaffected
+
+        throttle.release(1);
+        assertTrue(throttle.tryAcquire(1));
+    }
+
+    @Test
+    void testBackoffDoublesAndIsCapped() {
+        assertTrue(throttle.tryAcquire(1));
+        throttle.onFailure(1);                 // 1s
+        now.addAndGet(999);
+        assertFalse(throttle.tryAcquire(1));
+        now.addAndGet(1);
+        assertTrue(throttle.tryAcquire(1));
+
+        throttle.onFailure(1);                 // 2s
+        now.addAndGet(1_999);
+        assertFalse(throttle.tryAcquire(1));
+        now.addAndGet(1);
+        assertTrue(throttle.tryAcquire(1));
+
+        throttle.onFailure(1);                 // 4s
+        throttle.tryAcquire(1);
+        now.addAndGet(4_000);
+        assertTrue(throttle.tryAcquire(1));
+        throttle.onFailure(1);                 // would be 8s, capped at 4s
+        now.addAndGet(4_000);
+        assertTrue(throttle.tryAcquire(1));
+    }
+
+    @Test
+    void testSuccessClearsFailures() {
+        assertTrue(throttle.tryAcquire(1));
+        throttle.onFailure(1);
+        now.addAndGet(1_000);
+        assertTrue(throttle.tryAcquire(1));
+        throttle.onSuccess(1);
+
+        assertTrue(throttle.tryAcquire(1));
+        throttle.onFailure(1);
+        now.addAndGet(1_000);                  // back to the base delay
+        assertTrue(throttle.tryAcquire(1));
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.service;
+
+import org.example.cache.LruCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void testLeastRecentlyUsedEntryEvicted() {
+        LruCache<String, Integer> cache = new LruCache<>(2, 60_000, now::get);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");        // "b" is now the eldest
+        cache.put("c", 3);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void testEntryExpiresAfterTtl() {
+        LruCache<String, Integer> cache = new LruCache<>(10, 100, now::get);
+        cache.put("a", 1);
+
+        now.addAndGet(99);
+        assertEquals(1, cache.get("a"));
+        now.addAndGet(1);
+        assertNull(cache.get("a"));
+
+        assertEquals(1, cache.getStats().getExpirations());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testStalePutAfterInvalidationIsDropped() {
+        LruCache<String, Integer> cache = new LruCache<>(10, 60_000, now::get);
+        long stamp = cache.stamp();   // reader starts loading the old value
+        cache.invalidate("a");        // writer commits a change meanwhile
+
+        assertFalse(cache.put("a", 1, stamp));
+        assertNull(cache.get("a"));
+        assertTrue(cache.put("a", 2, cache.stamp()));
+    }
+
+    @Test
+    void testHitAndMissCounters() {
+        LruCache<String, Integer> cache = new LruCache<>(10, 60_000, now::get);
+        cache.get("a");
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+
+        assertEquals(2, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+        assertEquals(2.0 / 3, cache.getStats().getHitRatio(), 1e-9);
+    }
+}
@@ -1,10 +1,11 @@
 package org.example.service;
 
 import org.example.dao.MoneyRequestDAO;
-import org.example.dao.TransactionDAO;
 import org.example.dao.UserDAO;
 import org.example.dao.WalletDAO;
 import org.example.model.MoneyRequest;
+import org.example.model.OutboxEvent;
+import org.example.model.TransferResult;
 import org.example.model.User;
 import org.example.model.Wallet;
 import org.junit.jupiter.api.BeforeEach;
@@ -31,9 +32,6 @@ class MoneyRequestServiceTest {
     @Mock
     private WalletDAO walletDAO;
 
-    @Mock
-    private TransactionDAO transactionDAO;
-
     @Mock
     private NotificationService notificationService;
 
@@ -49,7 +47,7 @@ class MoneyRequestServiceTest {
 
     @BeforeEach
     void setUp() {
-        moneyRequestService = new MoneyRequestService(dao, walletDAO, transactionDAO, notificationService, userDAO);
+        moneyRequestService = new MoneyRequestService(dao, walletDAO, notificationService, userDAO);
         testRequest = new MoneyRequest();
         testRequest.setRequestId(1);
         testRequest.setFromUserId(1);
@@ -123,11 +121,10 @@ class MoneyRequestServiceTest {
         // Arrange
         when(dao.updateRequestStatus(1, "ACCEPTED")).thenReturn(true);
         when(dao.getRequestById(1)).thenReturn(testRequest);
-        when(walletDAO.transfer(2, 1, new BigDecimal("500.00"))).thenReturn(true);
-        when(walletDAO.getWalletByUserId(2)).thenReturn(fromWallet);
-        when(walletDAO.getWalletByUserId(1)).thenReturn(toWallet);
-        when(userDAO.getUserById(1)).thenReturn(testUser);
-        when(userDAO.getUserById(2)).thenReturn(testUser);
+        TransferResult transferResult = new TransferResult();
+        transferResult.setSenderBalance(fromWallet.getBalance().subtract(testRequest.getAmount()));
+        when(walletDAO.transfer(eq(2), eq(1), eq(new BigDecimal("500.00")), anyString(), eq(OutboxEvent.REQUEST_ACCEPTED)))
+                .thenReturn(transferResult);
 
         // Act
         boolean result = moneyRequestService.updateRequestStatus(1, "ACCEPTED");
@@ -135,8 +132,9 @@ class MoneyRequestServiceTest {
         // Assert
         assertTrue(result);
         verify(dao, times(1)).updateRequestStatus(1, "ACCEPTED");
-        verify(walletDAO, times(1)).transfer(2, 1, new BigDecimal("500.00"));
-        verify(transactionDAO, times(1)).logTransaction(any());
+        verify(walletDAO, times(1)).transfer(eq(2), eq(1), eq(new BigDecimal("500.00")), anyString(), eq(OutboxEvent.REQUEST_ACCEPTED));
+        // Accept notifications are published from the outbox event, not written inline
+        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -152,7 +150,7 @@ class MoneyRequestServiceTest {
         // Assert
         assertTrue(result);
         verify(dao, times(1)).updateRequestStatus(1, "REJECTED");
-        verify(walletDAO, never()).transfer(anyInt(), anyInt(), any(BigDecimal.class));
+        verify(walletDAO, never()).transfer(anyInt(), anyInt(), any(BigDecimal.class), anyString(), any());
         verify(notificationService, times(1)).notifyMoneyRequest(eq(1), anyString(), any(BigDecimal.class), anyString());
     }
 
@@ -161,14 +159,15 @@ class MoneyRequestServiceTest {
         // Arrange
         when(dao.updateRequestStatus(1, "ACCEPTED")).thenReturn(true);
         when(dao.getRequestById(1)).thenReturn(testRequest);
-        when(walletDAO.transfer(2, 1, new BigDecimal("500.00"))).thenReturn(false);
+        when(walletDAO.transfer(eq(2), eq(1), eq(new BigDecimal("500.00")), anyString(), anyString())).thenReturn(null);
 
         // Act
         boolean result = moneyRequestService.updateRequestStatus(1, "ACCEPTED");
 
-        // Assert
-        assertTrue(result); // Status update succeeded
-        verify(walletDAO, times(1)).transfer(2, 1, new BigDecimal("500.00"));
-        verify(transactionDAO, never()).logTransaction(any()); // Transaction not logged due to transfer failure
+        // Assert - a refused transfer puts the request back to PENDING
+        assertFalse(result);
+        verify(walletDAO, times(1)).transfer(eq(2), eq(1), eq(new BigDecimal("500.00")), anyString(), anyString());
+        verify(dao).revertAcceptance(1);
+        verify(notificationService, never()).notifyTransaction(anyInt(), anyString(), any(BigDecimal.class), anyString());
     }
 }
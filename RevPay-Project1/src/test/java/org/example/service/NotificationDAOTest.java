@@ -2,9 +2,11 @@ package org.example.service;
 
 import org.example.dao.NotificationDAO;
 
+import org.example.cache.UnreadCountCache;
 import org.example.config.DBConnection;
 import org.example.model.Notification;
 import org.junit.jupiter.api.*;
+import org.mockito.InOrder;
 import org.mockito.MockedStatic;
 
 import java.sql.*;
@@ -12,6 +14,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.*;
 
 class NotificationDAOTest {
@@ -25,7 +28,7 @@ class NotificationDAOTest {
 
     @BeforeEach
     void setUp() throws Exception {
-        notificationDAO = new NotificationDAO();
+        notificationDAO = new NotificationDAO(new UnreadCountCache(100, 30_000));
 
         connection = mock(Connection.class);
         preparedStatement = mock(PreparedStatement.class);
@@ -43,8 +46,10 @@ class NotificationDAOTest {
     // ✅ createNotification
     @Test
     void testCreateNotification_Success() throws Exception {
+        PreparedStatement counterStatement = mock(PreparedStatement.class);
         when(connection.prepareStatement(anyString(), anyInt()))
                 .thenReturn(preparedStatement);
+        when(connection.prepareStatement(contains("notification_counters"))).thenReturn(counterStatement);
         when(preparedStatement.executeUpdate()).thenReturn(1);
         when(preparedStatement.getGeneratedKeys()).thenReturn(resultSet);
         when(resultSet.next()).thenReturn(true);
@@ -59,6 +64,11 @@ class NotificationDAOTest {
         int id = notificationDAO.createNotification(n);
 
         assertEquals(10, id);
+        // The unread counter moves in the same transaction as the insert
+        verify(counterStatement).setInt(1, 1);
+        verify(counterStatement).setInt(2, 1);
+        verify(counterStatement).executeUpdate();
+        verify(connection).commit();
     }
 
     // ❌ createNotification failure
@@ -73,6 +83,109 @@ class NotificationDAOTest {
         assertEquals(0, id);
     }
 
+    // ✅ createNotifications writes the whole batch in one statement
+    @Test
+    void testCreateNotifications_MultiRowInsert() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(3);
+
+        List<Notification> batch = new java.util.ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Notification n = new Notification();
+            n.setUserId(i);
+            n.setType("TRANSACTION");
+            n.setMessage("msg " + i);
+            n.setCreatedAt(LocalDateTime.now());
+            batch.add(n);
+        }
+
+        int rows = notificationDAO.createNotifications(batch);
+
+        assertEquals(3, rows);
+        verify(connection, times(1)).prepareStatement(contains("(?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?)"));
+        verify(preparedStatement).setInt(13, 3);
+        verify(preparedStatement, times(1)).executeUpdate();
+        // No dedupe keys, so no lookup; one counter batch covers all three users
+        verify(connection, never()).prepareStatement(contains("SELECT dedupe_key"));
+        verify(preparedStatement, times(3)).addBatch();
+        verify(preparedStatement, times(1)).executeBatch();
+    }
+
+    // ✅ createNotifications skips redelivered notifications, so they are not counted twice
+    @Test
+    void testCreateNotifications_SkipsAlreadyDelivered() throws Exception {
+        PreparedStatement lookup = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.prepareStatement(contains("SELECT dedupe_key"))).thenReturn(lookup);
+        when(lookup.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString(1)).thenReturn("evt-1");
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        List<Notification> batch = keyedBatch();
+
+        int rows = notificationDAO.createNotifications(batch);
+
+        assertEquals(2, rows);
+        verify(connection).prepareStatement(contains("INSERT IGNORE INTO notifications"));
+        verify(preparedStatement).setString(6, "evt-2");
+        verify(preparedStatement, times(1)).addBatch();
+    }
+
+    // ✅ two relays delivering the same keyed batch at once: only the rows this writer inserted count
+    @Test
+    void testCreateNotifications_ConcurrentDuplicateDeliveryCountsOnce() throws Exception {
+        PreparedStatement lookup = mock(PreparedStatement.class);
+        PreparedStatement insert = mock(PreparedStatement.class);
+        PreparedStatement counters = mock(PreparedStatement.class);
+        when(connection.prepareStatement(contains("SELECT dedupe_key"))).thenReturn(lookup);
+        when(connection.prepareStatement(contains("INSERT IGNORE INTO notifications"))).thenReturn(insert);
+        when(connection.prepareStatement(contains("notification_counters"))).thenReturn(counters);
+        when(lookup.executeQuery()).thenReturn(resultSet);
+        // First lookup: nothing delivered yet. The other relay then commits evt-1, so the INSERT
+        // stores only evt-2. The retry's lookup sees evt-1.
+        when(resultSet.next()).thenReturn(false, true, false);
+        when(resultSet.getString(1)).thenReturn("evt-1");
+        when(insert.executeUpdate()).thenReturn(1, 1);
+
+        int rows = notificationDAO.createNotifications(keyedBatch());
+
+        assertEquals(2, rows);
+        InOrder order = inOrder(connection, counters);
+        order.verify(connection).rollback();
+        order.verify(counters).setInt(2, 2);
+        order.verify(counters).addBatch();
+        order.verify(counters).executeBatch();
+        order.verify(connection).commit();
+        // User 1's notification was the other relay's insert, so only user 2 is counted
+        verify(counters, never()).setInt(2, 1);
+        verify(counters, times(1)).addBatch();
+    }
+
+    private static List<Notification> keyedBatch() {
+        List<Notification> batch = new java.util.ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            Notification n = new Notification();
+            n.setUserId(i);
+            n.setType("TRANSACTION");
+            n.setMessage("msg " + i);
+            n.setDedupeKey("evt-" + i);
+            batch.add(n);
+        }
+        return batch;
+    }
+
+    // ❌ createNotifications failure
+    @Test
+    void testCreateNotifications_Failure() throws Exception {
+        when(connection.prepareStatement(anyString())).thenThrow(SQLException.class);
+
+        Notification n = new Notification();
+        n.setUserId(1);
+
+        assertEquals(-1, notificationDAO.createNotifications(List.of(n)));
+    }
+
     // ✅ getUnreadNotifications
     @Test
     void testGetUnreadNotifications() throws Exception {
@@ -106,17 +219,56 @@ class NotificationDAOTest {
         int count = notificationDAO.getUnreadCount(1);
 
         assertEquals(3, count);
+        verify(connection).prepareStatement(contains("FROM notification_counters WHERE user_id = ?"));
+        verify(connection, never()).prepareStatement(contains("COUNT(*)"));
+
+        // Served from the cache on the next redraw
+        assertEquals(3, notificationDAO.getUnreadCount(1));
+        verify(preparedStatement, times(1)).executeQuery();
+    }
+
+    // ✅ getUnreadCount seeds a missing counter row once from the notifications table
+    @Test
+    void testGetUnreadCount_SeedsMissingCounter() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+
+        when(resultSet.next()).thenReturn(false, true);
+        when(resultSet.getInt(1)).thenReturn(7);
+
+        assertEquals(7, notificationDAO.getUnreadCount(1));
+        verify(connection).prepareStatement(contains("INSERT INTO notification_counters"));
     }
 
     // ✅ markAsRead
     @Test
     void testMarkAsRead() throws Exception {
         when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getInt("user_id")).thenReturn(1);
+        when(resultSet.getBoolean("is_read")).thenReturn(false);
         when(preparedStatement.executeUpdate()).thenReturn(1);
 
         boolean result = notificationDAO.markAsRead(5);
 
         assertTrue(result);
+        verify(connection).prepareStatement(contains("UPDATE notification_counters"));
+        verify(preparedStatement).setInt(1, -1);
+        verify(connection).commit();
+    }
+
+    // ✅ markAsRead on an already-read notification leaves the counter alone
+    @Test
+    void testMarkAsRead_AlreadyRead() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getInt("user_id")).thenReturn(1);
+        when(resultSet.getBoolean("is_read")).thenReturn(true);
+
+        assertTrue(notificationDAO.markAsRead(5));
+        verify(preparedStatement, never()).executeUpdate();
     }
 
     // ❌ markAsRead failure
@@ -138,6 +290,8 @@ class NotificationDAOTest {
         boolean result = notificationDAO.markAllAsRead(1);
 
         assertTrue(result);
+        verify(preparedStatement).setInt(1, -2);
+        verify(connection).commit();
     }
 
     // ✅ getAllNotifications
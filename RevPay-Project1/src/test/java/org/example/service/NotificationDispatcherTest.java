@@ -0,0 +1,168 @@
+package org.example.service;
+
+import org.example.dao.NotificationDAO;
+import org.example.model.Notification;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDispatcherTest {
+
+    // Records every batch handed to the DAO instead of touching the database
+    private static class RecordingNotificationDAO extends NotificationDAO {
+        final List<List<Notification>> batches = new CopyOnWriteArrayList<>();
+        final List<String> threads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public int createNotifications(List<Notification> notifications) {
+            batches.add(List.copyOf(notifications));
+            threads.add(Thread.currentThread().getName());
+            return notifications.size();
+        }
+    }
+
+    private static Notification notification(int userId) {
+        Notification n = new Notification();
+        n.setUserId(userId);
+        n.setType("TRANSACTION");
+        n.setMessage("msg " + userId);
+        return n;
+    }
+
+    @Test
+    void testQueuedNotificationsCoalesceIntoOneBatch() {
+        RecordingNotificationDAO dao = new RecordingNotificationDAO();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(dao, 100, 5, 10_000, 50);
+        dispatcher.start();
+
+        for (int i = 1; i <= 5; i++) {
+            dispatcher.submit(notification(i));
+        }
+        dispatcher.shutdown(5_000);
+
+        assertEquals(1, dao.batches.size());
+        assertEquals(5, dao.batches.get(0).size());
+        assertEquals("revpay-notification-writer", dao.threads.get(0));
+        assertEquals(5, dispatcher.getWrittenCount());
+        assertNotNull(dao.batches.get(0).get(0).getCreatedAt());
+    }
+
+    @Test
+    void testShutdownDrainsPartialBatch() {
+        RecordingNotificationDAO dao = new RecordingNotificationDAO();
+        // A flush interval far longer than the test: only shutdown can write these
+        NotificationDispatcher dispatcher = new NotificationDispatcher(dao, 100, 100, 60_000, 50);
+        dispatcher.start();
+
+        for (int i = 1; i <= 3; i++) {
+            dispatcher.submit(notification(i));
+        }
+        dispatcher.shutdown(5_000);
+
+        assertEquals(3, dao.batches.stream().mapToInt(List::size).sum());
+        assertEquals(3, dispatcher.getWrittenCount());
+        assertEquals(0, dispatcher.getSynchronousWriteCount());
+    }
+
+    @Test
+    void testShutdownDoesNotInterruptWriteInProgress() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        RecordingNotificationDAO dao = new RecordingNotificationDAO() {
+            @Override
+            public int createNotifications(List<Notification> notifications) {
+                writing.countDown();
+                try {
+                    Thread.sleep(100); // stands in for the pool's interruptible acquire and the INSERT
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    return -1;
+                }
+                return super.createNotifications(notifications);
+            }
+        };
+        NotificationDispatcher dispatcher = new NotificationDispatcher(dao, 100, 1, 10, 50);
+        dispatcher.start();
+
+        dispatcher.submit(notification(1));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        dispatcher.shutdown(5_000);
+
+        assertFalse(interrupted.get());
+        assertEquals(1, dispatcher.getWrittenCount());
+    }
+
+    @Test
+    void testFullQueueFallsBackToCallerThread() throws Exception {
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingNotificationDAO dao = new RecordingNotificationDAO() {
+            @Override
+            public int createNotifications(List<Notification> notifications) {
+                if (Thread.currentThread().getName().equals("revpay-notification-writer")) {
+                    writerBusy.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.createNotifications(notifications);
+            }
+        };
+        NotificationDispatcher dispatcher = new NotificationDispatcher(dao, 1, 1, 10, 10);
+        dispatcher.start();
+
+        dispatcher.submit(notification(1));      // taken by the writer, which then stalls
+        assertTrue(writerBusy.await(5, TimeUnit.SECONDS));
+        dispatcher.submit(notification(2));      // fills the queue
+        dispatcher.submit(notification(3));      // no room: written by this thread
+
+        assertEquals(1, dispatcher.getSynchronousWriteCount());
+        assertTrue(dao.threads.contains(Thread.currentThread().getName()));
+
+        release.countDown();
+        dispatcher.shutdown(5_000);
+        assertEquals(3, dispatcher.getWrittenCount());
+    }
+
+    @Test
+    void testFailedBatchIsRetriedRowByRow() {
+        RecordingNotificationDAO dao = new RecordingNotificationDAO() {
+            @Override
+            public int createNotifications(List<Notification> notifications) {
+                super.createNotifications(notifications);
+                return notifications.size() == 1 ? 1 : 0;
+            }
+        };
+        NotificationDispatcher dispatcher = new NotificationDispatcher(dao, 100, 3, 10_000, 50);
+        dispatcher.start();
+
+        for (int i = 1; i <= 3; i++) {
+            dispatcher.submit(notification(i));
+        }
+        dispatcher.shutdown(5_000);
+
+        assertEquals(3, dispatcher.getWrittenCount());
+        assertEquals(4, dao.batches.size());     // the failed batch plus three single-row retries
+    }
+
+    @Test
+    void testSubmitAfterShutdownWritesSynchronously() {
+        RecordingNotificationDAO dao = new RecordingNotificationDAO();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(dao, 100, 10, 10_000, 50);
+        dispatcher.start();
+        dispatcher.shutdown(5_000);
+
+        dispatcher.submit(notification(1));
+
+        assertEquals(1, dispatcher.getWrittenCount());
+        assertEquals(1, dispatcher.getSynchronousWriteCount());
+    }
+}
@@ -52,6 +52,20 @@ class NotificationServiceTest {
         verify(notificationDAO, times(1)).createNotification(any(Notification.class));
     }
 
+    @Test
+    void testCreateNotification_WithDispatcherIsQueued() {
+        // Arrange
+        NotificationDispatcher dispatcher = mock(NotificationDispatcher.class);
+        NotificationService asyncService = new NotificationService(notificationDAO, dispatcher);
+
+        // Act
+        asyncService.createNotification(1, "TRANSACTION", "Queued message");
+
+        // Assert
+        verify(dispatcher, times(1)).submit(argThat(n -> n.getUserId() == 1 && "Queued message".equals(n.getMessage())));
+        verify(notificationDAO, never()).createNotification(any(Notification.class));
+    }
+
     @Test
     void testNotifyTransaction() {
         // Arrange
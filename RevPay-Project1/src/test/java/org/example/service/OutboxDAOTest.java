@@ -0,0 +1,123 @@
+package org.example.service;
+
+import org.example.dao.OutboxDAO;
+
+import org.example.config.DBConnection;
+import org.example.model.OutboxEvent;
+import org.junit.jupiter.api.*;
+import org.mockito.MockedStatic;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+class OutboxDAOTest {
+
+    private OutboxDAO outboxDAO;
+    private Connection connection;
+    private PreparedStatement preparedStatement;
+    private ResultSet resultSet;
+
+    private MockedStatic<DBConnection> dbMock;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        outboxDAO = new OutboxDAO();
+
+        connection = mock(Connection.class);
+        preparedStatement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+
+        dbMock = mockStatic(DBConnection.class);
+        dbMock.when(DBConnection::getInstance).thenReturn(connection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dbMock.close();
+    }
+
+    @Test
+    void testInsertEvent_UsesCallerConnection() throws Exception {
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(preparedStatement);
+        when(preparedStatement.getGeneratedKeys()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(1)).thenReturn(42L);
+
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(OutboxEvent.MONEY_SENT);
+        event.setTransactionId(5);
+        event.setFromUserId(1);
+        event.setToUserId(2);
+        event.setAmount(new BigDecimal("10.00"));
+
+        outboxDAO.insertEvent(connection, event);
+
+        assertEquals(42L, event.getEventId());
+        verify(preparedStatement).setString(1, OutboxEvent.MONEY_SENT);
+        verify(preparedStatement).setInt(2, 5);
+        // The caller owns the transaction and the connection
+        verify(connection, never()).commit();
+        verify(connection, never()).close();
+        dbMock.verify(DBConnection::getInstance, never());
+    }
+
+    @Test
+    void testFetchPending_MapsRows() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getLong("event_id")).thenReturn(3L);
+        when(resultSet.getString("event_type")).thenReturn(OutboxEvent.REQUEST_ACCEPTED);
+        when(resultSet.getInt("from_user_id")).thenReturn(1);
+        when(resultSet.getInt("to_user_id")).thenReturn(2);
+        when(resultSet.getBigDecimal("amount")).thenReturn(new BigDecimal("25.00"));
+        when(resultSet.getInt("attempts")).thenReturn(1);
+
+        List<OutboxEvent> events = outboxDAO.fetchPending(50);
+
+        assertEquals(1, events.size());
+        assertEquals(3L, events.get(0).getEventId());
+        assertEquals(OutboxEvent.REQUEST_ACCEPTED, events.get(0).getEventType());
+        assertEquals(1, events.get(0).getAttempts());
+        verify(preparedStatement).setInt(1, 50);
+    }
+
+    @Test
+    void testFetchPending_ErrorReturnsEmpty() throws Exception {
+        when(connection.prepareStatement(anyString())).thenThrow(SQLException.class);
+
+        assertTrue(outboxDAO.fetchPending(50).isEmpty());
+    }
+
+    @Test
+    void testMarkPublished_SingleStatementForBatch() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(3);
+
+        boolean result = outboxDAO.markPublished(List.of(1L, 2L, 3L));
+
+        assertTrue(result);
+        verify(connection).prepareStatement(contains("IN (?, ?, ?)"));
+        verify(preparedStatement).setLong(3, 3L);
+    }
+
+    @Test
+    void testMarkRetry_BacksOff() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        assertTrue(outboxDAO.markRetry(List.of(9L)));
+        verify(connection).prepareStatement(contains("attempts = attempts + 1"));
+    }
+
+    @Test
+    void testMarkPublished_EmptyIsNoOp() throws Exception {
+        assertTrue(outboxDAO.markPublished(List.of()));
+        verify(connection, never()).prepareStatement(anyString());
+    }
+}
@@ -0,0 +1,223 @@
+package org.example.service;
+
+import org.example.dao.NotificationDAO;
+import org.example.dao.OutboxDAO;
+import org.example.dao.UserDAO;
+import org.example.model.Notification;
+import org.example.model.OutboxEvent;
+import org.example.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxDAO outboxDAO;
+
+    @Mock
+    private NotificationDAO notificationDAO;
+
+    @Mock
+    private UserDAO userDAO;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxDAO, notificationDAO, userDAO, 100, 100);
+
+        User alice = new User();
+        alice.setUserId(1);
+        alice.setFullName("Alice");
+        User bob = new User();
+        bob.setUserId(2);
+        bob.setFullName("Bob");
+        lenient().when(userDAO.getUserById(1)).thenReturn(alice);
+        lenient().when(userDAO.getUserById(2)).thenReturn(bob);
+    }
+
+    private OutboxEvent event(long eventId, String type, String senderBalance) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventId(eventId);
+        event.setEventType(type);
+        event.setFromUserId(1);
+        event.setToUserId(2);
+        event.setAmount(new BigDecimal("200.00"));
+        event.setSenderBalance(new BigDecimal(senderBalance));
+        return event;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testRelayOnce_PublishesBatchAndAcknowledges() {
+        // Arrange
+        when(outboxDAO.fetchPending(100)).thenReturn(List.of(
+                event(7, OutboxEvent.MONEY_SENT, "800.00"),
+                event(8, OutboxEvent.MONEY_SENT, "400.00")));
+        when(notificationDAO.createNotifications(anyList())).thenReturn(5);
+        when(outboxDAO.markPublished(anyCollection())).thenReturn(true);
+
+        // Act
+        int published = outboxRelay.relayOnce();
+
+        // Assert - one INSERT for the whole batch: 2 + 2 transaction notifications + 1 low balance alert
+        assertEquals(2, published);
+        ArgumentCaptor<List<Notification>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationDAO, times(1)).createNotifications(captor.capture());
+        List<Notification> written = captor.getValue();
+        assertEquals(5, written.size());
+        assertEquals("outbox:7:sender", written.get(0).getDedupeKey());
+        assertEquals("Money Sent: ₹200.00 - to Bob", written.get(0).getMessage());
+        assertEquals("Money Received: ₹200.00 - from Alice", written.get(1).getMessage());
+        assertEquals("outbox:8:low-balance", written.get(4).getDedupeKey());
+        verify(outboxDAO).markPublished(List.of(7L, 8L));
+    }
+
+    @Test
+    void testToNotifications_RequestAccepted() {
+        // Act
+        List<Notification> notifications = outboxRelay.toNotifications(event(9, OutboxEvent.REQUEST_ACCEPTED, "900.00"));
+
+        // Assert - the requester (to) hears it was accepted, the accepter (from) sees the debit
+        assertEquals(2, notifications.size());
+        assertEquals(2, notifications.get(0).getUserId());
+        assertEquals("Request Accepted: ₹200.00 from Alice", notifications.get(0).getMessage());
+        assertEquals(1, notifications.get(1).getUserId());
+        assertEquals("Money Sent: ₹200.00 - Request accepted for Bob", notifications.get(1).getMessage());
+    }
+
+    @Test
+    void testToNotifications_BulkPayoutNotifiesRecipientOnly() {
+        // Arrange - only the last event of a payout carries the payer's balance
+        OutboxEvent event = event(10, OutboxEvent.BULK_PAYOUT, "900.00");
+        event.setSenderBalance(null);
+
+        // Act
+        List<Notification> notifications = outboxRelay.toNotifications(event);
+
+        // Assert
+        assertEquals(1, notifications.size());
+        assertEquals(2, notifications.get(0).getUserId());
+        assertEquals("Money Received: ₹200.00 - from Alice", notifications.get(0).getMessage());
+    }
+
+    @Test
+    void testRelayOnce_FailedBatchRetriesOnlyBadEvent() {
+        // Arrange - the batch INSERT fails, then event 11 succeeds alone and event 12 fails again
+        when(outboxDAO.fetchPending(100)).thenReturn(List.of(
+                event(11, OutboxEvent.MONEY_SENT, "800.00"),
+                event(12, OutboxEvent.MONEY_SENT, "800.00")));
+        when(notificationDAO.createNotifications(anyList())).thenReturn(-1, 2, -1);
+        when(outboxDAO.markPublished(anyCollection())).thenReturn(true);
+
+        // Act
+        int published = outboxRelay.relayOnce();
+
+        // Assert
+        assertEquals(1, published);
+        verify(outboxDAO).markPublished(List.of(11L));
+        verify(outboxDAO).markRetry(List.of(12L));
+    }
+
+    @Test
+    void testRelayOnce_UnloadableUserRetriesInsteadOfAcknowledging() {
+        // Arrange - getUserById returns null on a database error (e.g. a pool timeout)
+        OutboxEvent failing = event(14, OutboxEvent.MONEY_SENT, "800.00");
+        failing.setToUserId(3);
+        when(userDAO.getUserById(3)).thenReturn(null);
+        when(outboxDAO.fetchPending(100)).thenReturn(List.of(event(15, OutboxEvent.MONEY_SENT, "800.00"), failing));
+        when(notificationDAO.createNotifications(anyList())).thenReturn(2);
+        when(outboxDAO.markPublished(anyCollection())).thenReturn(true);
+
+        // Act
+        int published = outboxRelay.relayOnce();
+
+        // Assert - only the event whose notifications were written is acknowledged
+        assertEquals(1, published);
+        verify(outboxDAO).markPublished(List.of(15L));
+        verify(outboxDAO).markRetry(List.of(14L));
+    }
+
+    @Test
+    void testPurgeOnce_DeletesChunksUntilShortChunk() {
+        // Arrange
+        when(outboxDAO.purgePublished(any(LocalDateTime.class), eq(1000))).thenReturn(1000, 1000, 37);
+
+        // Act
+        int purged = outboxRelay.purgeOnce();
+
+        // Assert - cutoff is the default seven days back
+        assertEquals(2037, purged);
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxDAO, times(3)).purgePublished(cutoff.capture(), eq(1000));
+        LocalDateTime expected = LocalDateTime.now().minusHours(168);
+        assertTrue(cutoff.getValue().isAfter(expected.minusMinutes(1)) && !cutoff.getValue().isAfter(expected));
+    }
+
+    @Test
+    void testPurgeOnce_StopsOnError() {
+        // Arrange
+        when(outboxDAO.purgePublished(any(LocalDateTime.class), anyInt())).thenReturn(-1);
+
+        // Act & Assert
+        assertEquals(0, outboxRelay.purgeOnce());
+        verify(outboxDAO, times(1)).purgePublished(any(LocalDateTime.class), anyInt());
+    }
+
+    @Test
+    void testShutdown_WakesIdleWorkerWithoutWaitingForPoll() {
+        // Arrange - an idle relay that would otherwise sleep a minute between polls
+        lenient().when(outboxDAO.fetchPending(anyInt())).thenReturn(List.of());
+        OutboxRelay idle = new OutboxRelay(outboxDAO, notificationDAO, userDAO, 100, 60_000);
+        idle.start();
+        verify(outboxDAO, timeout(5_000)).fetchPending(100);
+
+        // Act
+        long started = System.currentTimeMillis();
+        idle.shutdown(10_000);
+
+        // Assert
+        assertTrue(System.currentTimeMillis() - started < 5_000);
+    }
+
+    @Test
+    void testRelayOnce_NothingPending() {
+        // Arrange
+        when(outboxDAO.fetchPending(100)).thenReturn(List.of());
+
+        // Act
+        int published = outboxRelay.relayOnce();
+
+        // Assert
+        assertEquals(0, published);
+        verifyNoInteractions(notificationDAO);
+    }
+
+    @Test
+    void testRelayOnce_AckFailureLeavesEventsPending() {
+        // Arrange - redelivery is safe because the notifications carry dedupe keys
+        when(outboxDAO.fetchPending(100)).thenReturn(List.of(event(13, OutboxEvent.MONEY_SENT, "800.00")));
+        when(notificationDAO.createNotifications(anyList())).thenReturn(2);
+        when(outboxDAO.markPublished(anyCollection())).thenReturn(false);
+
+        // Act
+        int published = outboxRelay.relayOnce();
+
+        // Assert
+        assertEquals(0, published);
+        verify(outboxDAO, never()).markRetry(anyCollection());
+    }
+}
@@ -5,6 +5,7 @@ import org.example.dao.PaymentMethodDAO;
 import org.example.config.DBConnection;
 import org.example.model.PaymentMethod;
 import org.junit.jupiter.api.*;
+import org.mockito.InOrder;
 import org.mockito.MockedStatic;
 
 import java.sql.*;
@@ -43,8 +44,16 @@ class PaymentMethodDAOTest {
     // ✅ addPaymentMethod
     @Test
     void testAddPaymentMethod_Success() throws Exception {
+        PreparedStatement lock = mock(PreparedStatement.class);
+        PreparedStatement insert = mock(PreparedStatement.class);
         when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
-        when(preparedStatement.executeUpdate()).thenReturn(1);
+        when(connection.prepareStatement(contains("FOR UPDATE"))).thenReturn(lock);
+        when(connection.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(insert);
+        when(lock.executeQuery()).thenReturn(resultSet);
+        when(insert.executeUpdate()).thenReturn(1);
+        when(insert.getGeneratedKeys()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getInt(1)).thenReturn(42);
 
         PaymentMethod pm = new PaymentMethod();
         pm.setUserId(1);
@@ -55,11 +64,57 @@ class PaymentMethodDAOTest {
         boolean result = paymentMethodDAO.addPaymentMethod(pm);
 
         assertTrue(result);
+        assertEquals(42, pm.getPaymentId());
+        // User row locked, previous default cleared, then the new card inserted as default, in one transaction
+        InOrder order = inOrder(connection, lock, preparedStatement, insert);
+        order.verify(connection).setAutoCommit(false);
+        order.verify(connection).prepareStatement("SELECT user_id FROM users WHERE user_id = ? FOR UPDATE");
+        order.verify(lock).setInt(1, 1);
+        order.verify(lock).executeQuery();
+        order.verify(connection).prepareStatement(contains("SET is_default = 0 WHERE user_id = ? AND is_default = 1"));
+        order.verify(preparedStatement).executeUpdate();
+        order.verify(insert).setBoolean(4, true);
+        order.verify(insert).executeUpdate();
+        order.verify(connection).commit();
+    }
+
+    @Test
+    void testAddPaymentMethod_DefaultForUnknownUser_InsertsNothing() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(false);
+
+        PaymentMethod pm = new PaymentMethod();
+        pm.setUserId(99);
+        pm.setDefault(true);
+
+        assertFalse(paymentMethodDAO.addPaymentMethod(pm));
+        verify(connection, never()).prepareStatement(anyString(), anyInt());
+        verify(connection).rollback();
+    }
+
+    @Test
+    void testAddPaymentMethod_NotDefault_LeavesOtherCardsAlone() throws Exception {
+        when(connection.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+        when(preparedStatement.getGeneratedKeys()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getInt(1)).thenReturn(43);
+
+        PaymentMethod pm = new PaymentMethod();
+        pm.setUserId(1);
+        pm.setMethodType("CARD");
+        pm.setEncryptedDetails("enc-data");
+
+        assertTrue(paymentMethodDAO.addPaymentMethod(pm));
+        assertEquals(43, pm.getPaymentId());
+        verify(connection, never()).prepareStatement(anyString());
+        verify(connection).commit();
     }
 
     @Test
     void testAddPaymentMethod_Failure() throws Exception {
-        when(connection.prepareStatement(anyString()))
+        when(connection.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS)))
                 .thenThrow(SQLException.class);
 
         boolean result = paymentMethodDAO.addPaymentMethod(new PaymentMethod());
@@ -67,6 +122,33 @@ class PaymentMethodDAOTest {
         assertFalse(result);
     }
 
+    // ✅ updateEncryptedDetails only replaces the value that was decrypted
+    @Test
+    void testUpdateEncryptedDetails_IsConditional() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(0);
+
+        assertFalse(paymentMethodDAO.updateEncryptedDetails(7, "legacy", "v1:new"));
+        verify(connection).prepareStatement(contains("WHERE payment_id = ? AND encrypted_details = ?"));
+        verify(preparedStatement).setString(1, "v1:new");
+        verify(preparedStatement).setInt(2, 7);
+        verify(preparedStatement).setString(3, "legacy");
+    }
+
+    // ✅ updateDisplayMetadata never overwrites metadata that is already there
+    @Test
+    void testUpdateDisplayMetadata_OnlyFillsMissingMetadata() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        assertTrue(paymentMethodDAO.updateDisplayMetadata(7, "VISA", "1111", "12/25"));
+        verify(connection).prepareStatement(contains("WHERE payment_id = ? AND card_last4 IS NULL"));
+        verify(preparedStatement).setString(1, "VISA");
+        verify(preparedStatement).setString(2, "1111");
+        verify(preparedStatement).setString(3, "12/25");
+        verify(preparedStatement).setInt(4, 7);
+    }
+
     // ✅ getPaymentMethodsByUserId
     @Test
     void testGetPaymentMethodsByUserId() throws Exception {
@@ -102,11 +184,17 @@ class PaymentMethodDAOTest {
         when(resultSet.getBoolean("is_default")).thenReturn(false);
         when(resultSet.getTimestamp("created_at"))
                 .thenReturn(Timestamp.valueOf(LocalDateTime.now()));
+        when(resultSet.getString("card_brand")).thenReturn("VISA");
+        when(resultSet.getString("card_last4")).thenReturn("1111");
+        when(resultSet.getString("card_expiry")).thenReturn("12/25");
 
         PaymentMethod pm = paymentMethodDAO.getPaymentMethodById(2);
 
         assertNotNull(pm);
         assertEquals("CARD", pm.getMethodType());
+        assertEquals("VISA", pm.getCardBrand());
+        assertEquals("1111", pm.getCardLast4());
+        assertEquals("12/25", pm.getCardExpiry());
     }
 
     // ✅ setDefaultPaymentMethod
@@ -2,6 +2,7 @@ package org.example.service;
 
 import org.example.dao.PaymentMethodDAO;
 import org.example.model.PaymentMethod;
+import org.example.security.CryptoService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,8 +10,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -68,14 +73,43 @@ class PaymentMethodServiceTest {
         verify(paymentMethodDAO, times(1)).addPaymentMethod(any(PaymentMethod.class));
     }
 
+    @Test
+    void testAddCard_StoresDisplayMetadata() {
+        // Arrange
+        when(paymentMethodDAO.addPaymentMethod(any(PaymentMethod.class))).thenReturn(true);
+
+        // Act
+        paymentMethodService.addCard(1, "VISA", "4111111111111111", "John Doe", "12/25", "123", false);
+
+        // Assert
+        verify(paymentMethodDAO).addPaymentMethod(argThat(pm -> "VISA".equals(pm.getCardBrand())
+                && "1111".equals(pm.getCardLast4())
+                && "12/25".equals(pm.getCardExpiry())
+                && !pm.getEncryptedDetails().contains("4111")));
+    }
+
+    @Test
+    void testAddCard_InvalidExpiryIsRejectedBeforeInsert() {
+        // Act & Assert - would not fit card_expiry VARCHAR(7)
+        assertFalse(paymentMethodService.addCard(1, "VISA", "4111111111111111", "John Doe", "December 2029", "123", false));
+        assertFalse(paymentMethodService.addCard(1, "VISA", "4111111111111111", "John Doe", "13/25", "123", false));
+        assertFalse(paymentMethodService.addCard(1, "VISA", "4111111111111111", "John Doe", null, "123", false));
+        verify(paymentMethodDAO, never()).addPaymentMethod(any(PaymentMethod.class));
+    }
+
+    @Test
+    void testValidateExpiryDate() {
+        assertTrue(paymentMethodService.validateExpiryDate("12/25"));
+        assertTrue(paymentMethodService.validateExpiryDate("01/2031"));
+        assertFalse(paymentMethodService.validateExpiryDate("1/25"));
+        assertFalse(paymentMethodService.validateExpiryDate("00/25"));
+        assertFalse(paymentMethodService.validateExpiryDate("12/250"));
+    }
+
     @Test
     void testAddCard_AsDefault() {
         // Arrange
-        List<PaymentMethod> methods = new ArrayList<>();
-        methods.add(testPaymentMethod);
         when(paymentMethodDAO.addPaymentMethod(any(PaymentMethod.class))).thenReturn(true);
-        when(paymentMethodDAO.getPaymentMethodsByUserId(1)).thenReturn(methods);
-        when(paymentMethodDAO.setDefaultPaymentMethod(1, 1)).thenReturn(true);
 
         // Act
         boolean result = paymentMethodService.addCard(1, "CREDIT", "1234567890123456", 
@@ -83,8 +117,61 @@ class PaymentMethodServiceTest {
 
         // Assert
         assertTrue(result);
-        verify(paymentMethodDAO, times(1)).addPaymentMethod(any(PaymentMethod.class));
-        verify(paymentMethodDAO, times(1)).setDefaultPaymentMethod(1, 1);
+        verify(paymentMethodDAO, times(1)).addPaymentMethod(argThat(PaymentMethod::isDefault));
+        verify(paymentMethodDAO, never()).getPaymentMethodsByUserId(anyInt());
+        verify(paymentMethodDAO, never()).setDefaultPaymentMethod(anyInt(), anyInt());
+    }
+
+    @Test
+    void testGetMaskedCardInfo_ReEncryptsLegacyValue() throws Exception {
+        // Arrange
+        CryptoService crypto = new CryptoService(Map.of(1, "0123456789abcdef0123456789abcdef".getBytes()), 1);
+        paymentMethodService = new PaymentMethodService(paymentMethodDAO, crypto);
+        Cipher ecb = Cipher.getInstance("AES");
+        ecb.init(Cipher.ENCRYPT_MODE, new SecretKeySpec("RevPaySecretKey12345678901234567".getBytes(), "AES"));
+        String legacy = Base64.getEncoder().encodeToString(ecb.doFinal("VISA|4111111111111111|John Doe|12/25|123".getBytes()));
+        testPaymentMethod.setEncryptedDetails(legacy);
+        when(paymentMethodDAO.updateEncryptedDetails(eq(1), eq(legacy), startsWith("v1:"))).thenReturn(true);
+
+        // Act
+        String masked = paymentMethodService.getMaskedCardInfo(testPaymentMethod);
+
+        // Assert
+        assertEquals("VISA **** **** **** 1111", masked);
+        verify(paymentMethodDAO).updateEncryptedDetails(eq(1), eq(legacy), startsWith("v1:"));
+        assertTrue(testPaymentMethod.getEncryptedDetails().startsWith("v1:"));
+        verify(paymentMethodDAO).updateDisplayMetadata(1, "VISA", "1111", "12/25");
+    }
+
+    @Test
+    void testGetMaskedCardInfo_StoredMetadata_DoesNotDecrypt() {
+        // Arrange
+        testPaymentMethod.setEncryptedDetails("v9:not-decryptable");
+        testPaymentMethod.setCardBrand("VISA");
+        testPaymentMethod.setCardLast4("1111");
+        testPaymentMethod.setCardExpiry("12/25");
+
+        // Act
+        String masked = paymentMethodService.getMaskedCardInfo(testPaymentMethod);
+
+        // Assert
+        assertEquals("VISA **** **** **** 1111", masked);
+        verifyNoInteractions(paymentMethodDAO);
+    }
+
+    @Test
+    void testGetMaskedCardInfo_CurrentValueIsNotRewritten() {
+        // Arrange
+        CryptoService crypto = new CryptoService(Map.of(1, "0123456789abcdef0123456789abcdef".getBytes()), 1);
+        paymentMethodService = new PaymentMethodService(paymentMethodDAO, crypto);
+        testPaymentMethod.setEncryptedDetails(crypto.encrypt("VISA|4111111111111111|John Doe|12/25|123"));
+
+        // Act
+        String masked = paymentMethodService.getMaskedCardInfo(testPaymentMethod);
+
+        // Assert
+        assertEquals("VISA **** **** **** 1111", masked);
+        verify(paymentMethodDAO, never()).updateEncryptedDetails(anyInt(), anyString(), anyString());
     }
 
     @Test
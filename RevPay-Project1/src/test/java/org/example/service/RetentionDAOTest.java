@@ -0,0 +1,96 @@
+package org.example.service;
+
+import org.example.dao.RetentionDAO;
+
+import org.example.config.DBConnection;
+import org.example.model.RetentionChunk;
+import org.junit.jupiter.api.*;
+import org.mockito.MockedStatic;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RetentionDAOTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private RetentionDAO retentionDAO;
+    private Connection connection;
+    private PreparedStatement preparedStatement;
+    private ResultSet resultSet;
+
+    private MockedStatic<DBConnection> dbMock;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        retentionDAO = new RetentionDAO();
+
+        connection = mock(Connection.class);
+        preparedStatement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+
+        dbMock = mockStatic(DBConnection.class);
+        dbMock.when(DBConnection::getInstance).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dbMock.close();
+    }
+
+    @Test
+    void testGetIdBounds_EmptyTable() throws Exception {
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getObject(1)).thenReturn(null);
+
+        assertNull(retentionDAO.getIdBounds(RetentionDAO.Table.NOTIFICATIONS));
+    }
+
+    @Test
+    void testFetchExpired_ReadsOnlyFinishedRowsInRange() throws Exception {
+        ResultSetMetaData meta = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(meta);
+        when(meta.getColumnCount()).thenReturn(2);
+        when(meta.getColumnLabel(1)).thenReturn("request_id");
+        when(meta.getColumnLabel(2)).thenReturn("note");
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString(1)).thenReturn("7");
+        when(resultSet.getString(2)).thenReturn(null);
+        when(resultSet.getLong("request_id")).thenReturn(7L);
+
+        RetentionChunk chunk = retentionDAO.fetchExpired(RetentionDAO.Table.MONEY_REQUESTS, 1, 501, CUTOFF);
+
+        verify(connection).prepareStatement(contains("request_id >= ? AND request_id < ? AND status IN ('ACCEPTED', 'DECLINED', 'CANCELED') AND created_at < ?"));
+        verify(preparedStatement).setLong(1, 1);
+        verify(preparedStatement).setLong(2, 501);
+        verify(preparedStatement).setTimestamp(3, Timestamp.valueOf(CUTOFF));
+        assertEquals(List.of("request_id", "note"), chunk.getColumns());
+        assertEquals(List.of(7L), chunk.getIds());
+        assertArrayEquals(new String[]{"7", null}, chunk.getRows().get(0));
+    }
+
+    @Test
+    void testDeleteByIds_RechecksExpiry() throws Exception {
+        when(preparedStatement.executeUpdate()).thenReturn(2);
+
+        int rows = retentionDAO.deleteByIds(RetentionDAO.Table.NOTIFICATIONS, List.of(3L, 4L), CUTOFF);
+
+        assertEquals(2, rows);
+        verify(connection).prepareStatement(contains("notification_id IN (?, ?) AND is_read = TRUE AND created_at < ?"));
+        verify(preparedStatement).setLong(1, 3L);
+        verify(preparedStatement).setLong(2, 4L);
+        verify(preparedStatement).setTimestamp(3, Timestamp.valueOf(CUTOFF));
+    }
+
+    @Test
+    void testDeleteByIds_EmptyIsNoOp() throws Exception {
+        assertEquals(0, retentionDAO.deleteByIds(RetentionDAO.Table.NOTIFICATIONS, List.of(), CUTOFF));
+        verify(connection, never()).prepareStatement(anyString());
+    }
+}
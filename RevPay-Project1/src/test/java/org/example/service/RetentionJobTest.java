@@ -0,0 +1,93 @@
+package org.example.service;
+
+import org.example.dao.RetentionDAO;
+import org.example.job.RetentionJob;
+import org.example.model.RetentionChunk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetentionJobTest {
+
+    @Mock
+    private RetentionDAO retentionDAO;
+
+    @TempDir
+    Path archiveDir;
+
+    // Notifications 1..10: IDs 1-6 are a year old, 7-10 are from today
+    private void stubNotifications() throws Exception {
+        when(retentionDAO.getIdBounds(RetentionDAO.Table.NOTIFICATIONS)).thenReturn(new long[]{1, 10});
+        when(retentionDAO.getCreatedAtFrom(eq(RetentionDAO.Table.NOTIFICATIONS), anyLong())).thenAnswer(invocation -> {
+            long id = invocation.getArgument(1);
+            return id <= 6 ? LocalDateTime.now().minusDays(365) : LocalDateTime.now();
+        });
+        when(retentionDAO.getIdBounds(RetentionDAO.Table.MONEY_REQUESTS)).thenReturn(null);
+    }
+
+    @Test
+    void testDeletesInChunksUpToTheCutoff() throws Exception {
+        // Arrange
+        stubNotifications();
+        when(retentionDAO.deleteExpired(eq(RetentionDAO.Table.NOTIFICATIONS), anyLong(), anyLong(), any())).thenReturn(4, 1);
+        RetentionJob job = new RetentionJob(retentionDAO, null, 4, 0, 90, 365);
+
+        // Act
+        int removed = job.run();
+
+        // Assert: chunks [1, 5) and [5, 7); recent IDs 7-10 are never touched
+        assertEquals(5, removed);
+        verify(retentionDAO).deleteExpired(eq(RetentionDAO.Table.NOTIFICATIONS), eq(1L), eq(5L), any());
+        verify(retentionDAO).deleteExpired(eq(RetentionDAO.Table.NOTIFICATIONS), eq(5L), eq(7L), any());
+        verifyNoMoreInteractions(ignoreStubs(retentionDAO));
+    }
+
+    @Test
+    void testArchivesBeforeDeleting() throws Exception {
+        // Arrange
+        stubNotifications();
+        RetentionChunk chunk = new RetentionChunk(List.of("notification_id", "message"));
+        chunk.add(2, new String[]{"2", "Sent\tto\\you"});
+        chunk.add(3, new String[]{"3", null});
+        when(retentionDAO.fetchExpired(eq(RetentionDAO.Table.NOTIFICATIONS), anyLong(), anyLong(), any()))
+                .thenReturn(chunk);
+        when(retentionDAO.deleteByIds(eq(RetentionDAO.Table.NOTIFICATIONS), eq(List.of(2L, 3L)), any())).thenReturn(2);
+        RetentionJob job = new RetentionJob(retentionDAO, archiveDir, 10, 0, 90, 365);
+
+        // Act
+        int removed = job.run();
+
+        // Assert
+        assertEquals(2, removed);
+        Path file;
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            file = files.findFirst().orElseThrow();
+        }
+        assertTrue(file.getFileName().toString().startsWith("notifications-"));
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            assertEquals("notification_id\tmessage", in.readLine());
+            assertEquals("2\tSent\\tto\\\\you", in.readLine());
+            assertEquals("3\t\\N", in.readLine());
+            assertNull(in.readLine());
+        }
+        verify(retentionDAO, never()).deleteExpired(any(), anyLong(), anyLong(), any());
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.service;
+
+import org.example.model.MoneyRequest;
+import org.example.model.Transaction;
+import org.example.model.User;
+import org.example.model.Wallet;
+import org.example.server.ApiResponse;
+import org.example.server.Json;
+import org.example.server.RevPayApi;
+import org.example.server.SessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevPayApiTest {
+
+    @Mock private UserService userService;
+    @Mock private WalletService walletService;
+    @Mock private SendMoneyService sendMoneyService;
+    @Mock private MoneyRequestService moneyRequestService;
+    @Mock private InvoiceService invoiceService;
+    @Mock private LoanService loanService;
+    @Mock private BusinessAnalyticsService analyticsService;
+    @Mock private NotificationService notificationService;
+    @Mock private TransactionService transactionService;
+    @Mock private BulkPayoutService bulkPayoutService;
+
+    private SessionStore sessions;
+    private RevPayApi api;
+    private String personalAuth;
+
+    @BeforeEach
+    void setUp() {
+        sessions = new SessionStore(60_000);
+        api = new RevPayApi(userService, walletService, sendMoneyService, moneyRequestService, invoiceService,
+                loanService, analyticsService, notificationService, transactionService, bulkPayoutService, sessions);
+        personalAuth = "Bearer " + sessions.create(1, "PERSONAL");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> json(ApiResponse response) {
+        return (Map<String, Object>) Json.parse(response.getBody());
+    }
+
+    @Test
+    void testLogin_IssuesTokenThatAuthenticatesLaterCalls() {
+        // Arrange
+        User user = new User();
+        user.setUserId(7);
+        user.setAccountType("PERSONAL");
+        when(userService.login("alice@example.com", "secret")).thenReturn(user);
+        Wallet wallet = new Wallet();
+        wallet.setWalletId(70);
+        wallet.setBalance(new BigDecimal("125.50"));
+        when(walletService.getWallet(7)).thenReturn(wallet);
+
+        // Act
+        ApiResponse login = api.handle("POST", "/api/sessions", null, null,
+                "{\"identifier\": \"alice@example.com\", \"password\": \"secret\"}");
+        String token = (String) json(login).get("token");
+        ApiResponse walletResponse = api.handle("GET", "/api/wallet", null, "Bearer " + token, null);
+
+        // Assert
+        assertEquals(201, login.getStatus());
+        assertEquals(200, walletResponse.getStatus());
+        assertEquals(new BigDecimal("125.50"), json(walletResponse).get("balance"));
+    }
+
+    @Test
+    void testLogin_BadCredentials() {
+        // Arrange
+        when(userService.login(anyString(), anyString())).thenReturn(null);
+
+        // Act
+        ApiResponse response = api.handle("POST", "/api/sessions", null, null,
+                "{\"identifier\": \"alice@example.com\", \"password\": \"wrong\"}");
+
+        // Assert
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void testMissingToken_Unauthorized() {
+        // Act
+        ApiResponse response = api.handle("GET", "/api/wallet", null, null, null);
+
+        // Assert
+        assertEquals(401, response.getStatus());
+        verifyNoInteractions(walletService);
+    }
+
+    @Test
+    void testBusinessRoute_ForbiddenForPersonalAccount() {
+        // Act
+        ApiResponse response = api.handle("GET", "/api/analytics", null, personalAuth, null);
+
+        // Assert
+        assertEquals(403, response.getStatus());
+        verifyNoInteractions(analyticsService);
+    }
+
+    @Test
+    void testTransfer_PassesIdempotencyKeyAndMapsFailure() {
+        // Arrange
+        when(sendMoneyService.sendMoney(1, "bob@example.com", new BigDecimal("10.00"), null, "key-1")).thenReturn(false);
+
+        // Act
+        ApiResponse response = api.handle("POST", "/api/transfers", null, personalAuth,
+                "{\"recipient\": \"bob@example.com\", \"amount\": 10.00, \"idempotencyKey\": \"key-1\"}");
+
+        // Assert
+        assertEquals(422, response.getStatus());
+        verify(sendMoneyService).sendMoney(1, "bob@example.com", new BigDecimal("10.00"), null, "key-1");
+    }
+
+    @Test
+    void testAcceptRequest_OnlyForRequestsSentToCaller() {
+        // Arrange - user 1 has received request 5 only
+        MoneyRequest received = new MoneyRequest();
+        received.setRequestId(5);
+        received.setToUserId(1);
+        received.setStatus("PENDING");
+        when(moneyRequestService.getRequestsForUser(1)).thenReturn(List.of(received));
+
+        // Act
+        ApiResponse response = api.handle("POST", "/api/money-requests/6/accept", null, personalAuth, null);
+
+        // Assert
+        assertEquals(404, response.getStatus());
+        verify(moneyRequestService, never()).updateRequestStatus(anyInt(), anyString());
+    }
+
+    @Test
+    void testAcceptRequest_ConcurrentAcceptLoses() {
+        // Arrange - the guarded UPDATE matched nothing: another call answered it first
+        MoneyRequest received = new MoneyRequest();
+        received.setRequestId(5);
+        received.setToUserId(1);
+        received.setStatus("PENDING");
+        MoneyRequest answered = new MoneyRequest();
+        answered.setRequestId(5);
+        answered.setToUserId(1);
+        answered.setStatus("ACCEPTED");
+        when(moneyRequestService.getRequestsForUser(1)).thenReturn(List.of(received), List.of(answered));
+        when(moneyRequestService.updateRequestStatus(5, "ACCEPTED")).thenReturn(false);
+
+        // Act
+        ApiResponse response = api.handle("POST", "/api/money-requests/5/accept", null, personalAuth, null);
+
+        // Assert
+        assertEquals(409, response.getStatus());
+    }
+
+    @Test
+    void testAcceptRequest_RefusedTransferIsUnprocessable() {
+        // Arrange - the accept failed and the request was put back to PENDING
+        MoneyRequest received = new MoneyRequest();
+        received.setRequestId(5);
+        received.setToUserId(1);
+        received.setStatus("PENDING");
+        when(moneyRequestService.getRequestsForUser(1)).thenReturn(List.of(received));
+        when(moneyRequestService.updateRequestStatus(5, "ACCEPTED")).thenReturn(false);
+
+        // Act
+        ApiResponse response = api.handle("POST", "/api/money-requests/5/accept", null, personalAuth, null);
+
+        // Assert
+        assertEquals(422, response.getStatus());
+    }
+
+    @Test
+    void testTransactions_FullPageReturnsNextCursor() {
+        // Arrange
+        Transaction t1 = new Transaction();
+        t1.setTransactionId(9);
+        t1.setCreatedAt(LocalDateTime.of(2024, 1, 2, 10, 0));
+        Transaction t2 = new Transaction();
+        t2.setTransactionId(8);
+        t2.setCreatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        when(transactionService.getTransactionHistoryPage(eq(1), isNull(), eq(2))).thenReturn(List.of(t1, t2));
+
+        // Act
+        ApiResponse response = api.handle("GET", "/api/transactions", "limit=2", personalAuth, null);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> next = (Map<String, Object>) json(response).get("nextCursor");
+        assertEquals("2024-01-01T10:00", next.get("afterCreatedAt"));
+        assertEquals(new BigDecimal("8"), next.get("afterId"));
+    }
+
+    @Test
+    void testMalformedJson_BadRequest() {
+        // Act
+        ApiResponse response = api.handle("POST", "/api/transfers", null, personalAuth, "{\"recipient\": ");
+
+        // Assert
+        assertEquals(400, response.getStatus());
+        verifyNoInteractions(sendMoneyService);
+    }
+
+    @Test
+    void testUnknownPathAndWrongMethod() {
+        // Act
+        ApiResponse notFound = api.handle("GET", "/api/nope", null, personalAuth, null);
+        ApiResponse wrongMethod = api.handle("DELETE", "/api/wallet", null, personalAuth, null);
+
+        // Assert
+        assertEquals(404, notFound.getStatus());
+        assertEquals(405, wrongMethod.getStatus());
+    }
+
+    @Test
+    void testLogout_InvalidatesToken() {
+        // Act
+        api.handle("DELETE", "/api/sessions", null, personalAuth, null);
+        ApiResponse response = api.handle("GET", "/api/wallet", null, personalAuth, null);
+
+        // Assert
+        assertEquals(401, response.getStatus());
+    }
+}
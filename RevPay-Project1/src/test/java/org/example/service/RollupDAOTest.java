@@ -0,0 +1,110 @@
+package org.example.service;
+
+import org.example.dao.RollupDAO;
+
+import org.example.config.DBConnection;
+import org.example.model.BusinessAnalytics;
+import org.example.model.Transaction;
+import org.junit.jupiter.api.*;
+import org.mockito.MockedStatic;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RollupDAOTest {
+
+    private RollupDAO rollupDAO;
+    private Connection connection;
+    private PreparedStatement preparedStatement;
+    private ResultSet resultSet;
+
+    private MockedStatic<DBConnection> dbMock;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rollupDAO = new RollupDAO();
+
+        connection = mock(Connection.class);
+        preparedStatement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+
+        dbMock = mockStatic(DBConnection.class);
+        dbMock.when(DBConnection::getInstance).thenReturn(connection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dbMock.close();
+    }
+
+    @Test
+    void testApplyTransaction_UpdatesBothWalletsDailyAndMonthly() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+
+        Transaction tx = new Transaction();
+        tx.setFromWalletId(1);
+        tx.setToWalletId(2);
+        tx.setAmount(new BigDecimal("250.00"));
+        tx.setStatus("SUCCESS");
+        tx.setCreatedAt(LocalDateTime.of(2024, 3, 15, 10, 0));
+
+        rollupDAO.applyTransaction(connection, tx);
+
+        verify(connection).prepareStatement(contains("wallet_daily_rollups"));
+        verify(connection).prepareStatement(contains("wallet_monthly_rollups"));
+        verify(preparedStatement, times(4)).addBatch();
+        verify(preparedStatement, times(2)).executeBatch();
+        verify(preparedStatement, times(2)).setDate(2, Date.valueOf("2024-03-15"));
+        verify(preparedStatement, times(2)).setDate(2, Date.valueOf("2024-03-01"));
+    }
+
+    @Test
+    void testApplyTransaction_DepositTouchesOnlyCreditedWallet() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+
+        Transaction tx = new Transaction();
+        tx.setToWalletId(2);
+        tx.setAmount(new BigDecimal("100.00"));
+        tx.setTransactionType("ADD");
+        tx.setCreatedAt(LocalDateTime.now());
+
+        rollupDAO.applyTransaction(connection, tx);
+
+        verify(preparedStatement, times(2)).addBatch();
+        verify(preparedStatement, never()).setInt(1, 0);
+    }
+
+    @Test
+    void testApplyInvoiceStatusChange_SameStatusIsNoOp() throws Exception {
+        rollupDAO.applyInvoiceStatusChange(connection, 5, "c@mail.com", BigDecimal.TEN, "PAID", "PAID");
+
+        verify(connection, never()).prepareStatement(anyString());
+    }
+
+    @Test
+    void testSummarizeWallet_ReadsRollupsNotTransactions() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong("total_count")).thenReturn(40L);
+        when(resultSet.getLong("success_count")).thenReturn(38L);
+        when(resultSet.getBigDecimal("total_received")).thenReturn(new BigDecimal("900.00"));
+        when(resultSet.getBigDecimal("total_sent")).thenReturn(new BigDecimal("100.00"));
+        when(resultSet.getBigDecimal("month_revenue")).thenReturn(new BigDecimal("300.00"));
+        when(resultSet.getBigDecimal("today_revenue")).thenReturn(new BigDecimal("50.00"));
+        when(resultSet.getLong("week_count")).thenReturn(4L);
+        when(resultSet.getBigDecimal("week_revenue")).thenReturn(new BigDecimal("200.00"));
+
+        BusinessAnalytics analytics = rollupDAO.summarizeWallet(7, LocalDate.of(2024, 3, 15));
+
+        assertEquals(2, analytics.getFailedTransactions());
+        assertEquals(new BigDecimal("50.00"), analytics.getLast7DaysAverage());
+        verify(connection, never()).prepareStatement(contains("FROM transactions"));
+        verify(preparedStatement).setDate(3, Date.valueOf("2024-03-09"));
+    }
+}
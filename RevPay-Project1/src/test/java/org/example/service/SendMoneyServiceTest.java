@@ -1,10 +1,10 @@
 package org.example.service;
 
-import org.example.dao.TransactionDAO;
-import org.example.dao.UserDAO;
+import org.example.dao.IdempotencyDAO;
 import org.example.dao.WalletDAO;
+import org.example.model.OutboxEvent;
 import org.example.model.Transaction;
-import org.example.model.User;
+import org.example.model.TransferResult;
 import org.example.model.Wallet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,24 +26,16 @@ class SendMoneyServiceTest {
     private WalletDAO walletDAO;
 
     @Mock
-    private TransactionDAO transactionDAO;
-
-    @Mock
-    private NotificationService notificationService;
-
-    @Mock
-    private UserDAO userDAO;
+    private IdempotencyDAO idempotencyDAO;
 
     private SendMoneyService sendMoneyService;
 
     private Wallet senderWallet;
     private Wallet recipientWallet;
-    private User senderUser;
-    private User recipientUser;
 
     @BeforeEach
     void setUp() {
-        sendMoneyService = new SendMoneyService(walletDAO, transactionDAO, notificationService, userDAO);
+        sendMoneyService = new SendMoneyService(walletDAO, idempotencyDAO);
         senderWallet = new Wallet();
         senderWallet.setWalletId(1);
         senderWallet.setUserId(1);
@@ -53,34 +45,32 @@ class SendMoneyServiceTest {
         recipientWallet.setWalletId(2);
         recipientWallet.setUserId(2);
         recipientWallet.setBalance(new BigDecimal("500.00"));
+    }
 
-        senderUser = new User();
-        senderUser.setUserId(1);
-        senderUser.setFullName("Sender User");
-
-        recipientUser = new User();
-        recipientUser.setUserId(2);
-        recipientUser.setFullName("Recipient User");
+    private TransferResult transferResult(BigDecimal senderBalanceAfter) {
+        Transaction transaction = new Transaction();
+        transaction.setFromWalletId(senderWallet.getWalletId());
+        transaction.setToWalletId(recipientWallet.getWalletId());
+        TransferResult result = new TransferResult();
+        result.setTransaction(transaction);
+        result.setSenderBalance(senderBalanceAfter);
+        return result;
     }
 
     @Test
     void testSendMoney_Success() {
         // Arrange
         when(walletDAO.getUserIdByIdentifier("recipient@example.com")).thenReturn(2);
-        when(walletDAO.getWalletByUserId(1)).thenReturn(senderWallet);
-        when(walletDAO.getWalletByUserId(2)).thenReturn(recipientWallet);
-        when(walletDAO.transfer(1, 2, new BigDecimal("200.00"))).thenReturn(true);
-        when(userDAO.getUserById(1)).thenReturn(senderUser);
-        when(userDAO.getUserById(2)).thenReturn(recipientUser);
+        when(walletDAO.transfer(1, 2, new BigDecimal("200.00"), "Test payment", OutboxEvent.MONEY_SENT, null))
+                .thenReturn(transferResult(new BigDecimal("800.00")));
 
         // Act
         boolean result = sendMoneyService.sendMoney(1, "recipient@example.com", new BigDecimal("200.00"), "Test payment");
 
-        // Assert
+        // Assert - notifications ride on the outbox event committed with the transfer
         assertTrue(result);
-        verify(walletDAO, times(1)).transfer(1, 2, new BigDecimal("200.00"));
-        verify(transactionDAO, times(1)).logTransaction(any(Transaction.class));
-        verify(notificationService, times(2)).notifyTransaction(anyInt(), anyString(), any(BigDecimal.class), anyString());
+        verify(walletDAO, times(1)).transfer(1, 2, new BigDecimal("200.00"), "Test payment", OutboxEvent.MONEY_SENT, null);
+        verify(walletDAO, never()).getWalletByUserId(anyInt());
     }
 
     @Test
@@ -93,72 +83,91 @@ class SendMoneyServiceTest {
 
         // Assert
         assertFalse(result);
-        verify(walletDAO, never()).transfer(anyInt(), anyInt(), any(BigDecimal.class));
+        verify(walletDAO, never()).transfer(anyInt(), anyInt(), any(BigDecimal.class), anyString(), anyString(), any());
     }
 
     @Test
     void testSendMoney_InsufficientBalance() {
-        // Arrange
+        // Arrange - transfer engine rejects under lock
         when(walletDAO.getUserIdByIdentifier("recipient@example.com")).thenReturn(2);
-        when(walletDAO.getWalletByUserId(1)).thenReturn(senderWallet);
-        when(walletDAO.getWalletByUserId(2)).thenReturn(recipientWallet);
+        when(walletDAO.transfer(1, 2, new BigDecimal("2000.00"), "Test", OutboxEvent.MONEY_SENT, null)).thenReturn(null);
 
         // Act
         boolean result = sendMoneyService.sendMoney(1, "recipient@example.com", new BigDecimal("2000.00"), "Test");
 
         // Assert
         assertFalse(result);
-        verify(walletDAO, never()).transfer(anyInt(), anyInt(), any(BigDecimal.class));
     }
 
     @Test
-    void testSendMoney_SenderWalletNotFound() {
+    void testSendMoney_WalletNotFound() {
         // Arrange
         when(walletDAO.getUserIdByIdentifier("recipient@example.com")).thenReturn(2);
-        when(walletDAO.getWalletByUserId(1)).thenReturn(null);
+        when(walletDAO.transfer(1, 2, new BigDecimal("200.00"), "Test", OutboxEvent.MONEY_SENT, null)).thenReturn(null);
 
         // Act
         boolean result = sendMoneyService.sendMoney(1, "recipient@example.com", new BigDecimal("200.00"), "Test");
 
         // Assert
         assertFalse(result);
-        verify(walletDAO, never()).transfer(anyInt(), anyInt(), any(BigDecimal.class));
     }
 
     @Test
-    void testSendMoney_RecipientWalletNotFound() {
+    void testSendMoney_DefaultNote() {
         // Arrange
         when(walletDAO.getUserIdByIdentifier("recipient@example.com")).thenReturn(2);
-        when(walletDAO.getWalletByUserId(1)).thenReturn(senderWallet);
-        when(walletDAO.getWalletByUserId(2)).thenReturn(null);
+        when(walletDAO.transfer(1, 2, new BigDecimal("200.00"), "Money sent", OutboxEvent.MONEY_SENT, null))
+                .thenReturn(transferResult(new BigDecimal("400.00")));
 
         // Act
-        boolean result = sendMoneyService.sendMoney(1, "recipient@example.com", new BigDecimal("200.00"), "Test");
+        boolean result = sendMoneyService.sendMoney(1, "recipient@example.com", new BigDecimal("200.00"), null);
 
         // Assert
-        assertFalse(result);
-        verify(walletDAO, never()).transfer(anyInt(), anyInt(), any(BigDecimal.class));
+        assertTrue(result);
     }
 
     @Test
-    void testSendMoney_LowBalanceAlert() {
+    void testSendMoney_RetriedKeyReplays() {
         // Arrange
-        senderWallet.setBalance(new BigDecimal("600.00"));
-        Wallet updatedWallet = new Wallet();
-        updatedWallet.setBalance(new BigDecimal("400.00")); // Below threshold
+        when(walletDAO.getUserIdByIdentifier("recipient@example.com")).thenReturn(2);
+        when(idempotencyDAO.isCompleted(1, "send-1",
+                IdempotencyDAO.fingerprint(IdempotencyDAO.SEND_MONEY, 2, new BigDecimal("200.00")))).thenReturn(true);
+
+        // Act
+        boolean result = sendMoneyService.sendMoney(1, "recipient@example.com", new BigDecimal("200.00"), "Test", "send-1");
 
+        // Assert - no transfer
+        assertTrue(result);
+        verify(walletDAO, never()).transfer(anyInt(), anyInt(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testSendMoney_ConcurrentDuplicateReplays() {
+        // Arrange - the key was claimed by a concurrent attempt between the check and the transfer
+        when(idempotencyDAO.isCompleted(eq(1), eq("send-2"), anyString())).thenReturn(false);
         when(walletDAO.getUserIdByIdentifier("recipient@example.com")).thenReturn(2);
-        when(walletDAO.getWalletByUserId(1)).thenReturn(senderWallet, updatedWallet);
-        when(walletDAO.getWalletByUserId(2)).thenReturn(recipientWallet);
-        when(walletDAO.transfer(1, 2, new BigDecimal("200.00"))).thenReturn(true);
-        when(userDAO.getUserById(1)).thenReturn(senderUser);
-        when(userDAO.getUserById(2)).thenReturn(recipientUser);
+        when(walletDAO.transfer(1, 2, new BigDecimal("200.00"), "Test", OutboxEvent.MONEY_SENT, "send-2"))
+                .thenReturn(TransferResult.replayed(900));
 
         // Act
-        boolean result = sendMoneyService.sendMoney(1, "recipient@example.com", new BigDecimal("200.00"), "Test");
+        boolean result = sendMoneyService.sendMoney(1, "recipient@example.com", new BigDecimal("200.00"), "Test", "send-2");
 
         // Assert
         assertTrue(result);
-        verify(notificationService, times(1)).notifyLowBalance(eq(1), any(BigDecimal.class));
+    }
+
+    @Test
+    void testSendMoney_KeyReusedForAnotherAmountFails() {
+        // Arrange - "send-1" already paid 200.00 to this recipient
+        when(walletDAO.getUserIdByIdentifier("recipient@example.com")).thenReturn(2);
+        when(idempotencyDAO.isCompleted(1, "send-1",
+                IdempotencyDAO.fingerprint(IdempotencyDAO.SEND_MONEY, 2, new BigDecimal("300.00")))).thenReturn(false);
+        when(walletDAO.transfer(1, 2, new BigDecimal("300.00"), "Test", OutboxEvent.MONEY_SENT, "send-1")).thenReturn(null);
+
+        // Act
+        boolean result = sendMoneyService.sendMoney(1, "recipient@example.com", new BigDecimal("300.00"), "Test", "send-1");
+
+        // Assert
+        assertFalse(result);
     }
 }
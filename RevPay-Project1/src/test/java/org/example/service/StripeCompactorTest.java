@@ -0,0 +1,72 @@
+package org.example.service;
+
+import org.example.dao.WalletDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripeCompactorTest {
+
+    @Mock
+    private WalletDAO walletDAO;
+
+    private StripeCompactor stripeCompactor;
+
+    @BeforeEach
+    void setUp() {
+        stripeCompactor = new StripeCompactor(walletDAO, 100);
+    }
+
+    @Test
+    void testCompactOnce_FoldsEachWalletInItsOwnTransaction() {
+        // Arrange - wallet 5 was folded by a debit in the meantime
+        when(walletDAO.getWalletIdsWithStripeBalance()).thenReturn(List.of(4, 5));
+        when(walletDAO.compactStripes(4)).thenReturn(new BigDecimal("30.00"));
+        when(walletDAO.compactStripes(5)).thenReturn(BigDecimal.ZERO);
+
+        // Act
+        int folded = stripeCompactor.compactOnce();
+
+        // Assert
+        assertEquals(1, folded);
+        verify(walletDAO, times(2)).compactStripes(anyInt());
+    }
+
+    @Test
+    void testCompactOnce_NothingToFold() {
+        // Arrange
+        when(walletDAO.getWalletIdsWithStripeBalance()).thenReturn(List.of());
+
+        // Act
+        int folded = stripeCompactor.compactOnce();
+
+        // Assert
+        assertEquals(0, folded);
+        verify(walletDAO, never()).compactStripes(anyInt());
+    }
+
+    @Test
+    void testShutdown_WakesIdleWorkerWithoutWaitingForInterval() {
+        // Arrange - a compactor that would otherwise sleep a minute between passes
+        when(walletDAO.getWalletIdsWithStripeBalance()).thenReturn(List.of());
+        StripeCompactor idle = new StripeCompactor(walletDAO, 60_000);
+        idle.start();
+        verify(walletDAO, timeout(5_000)).getWalletIdsWithStripeBalance();
+
+        // Act
+        long started = System.currentTimeMillis();
+        idle.shutdown(10_000);
+
+        // Assert
+        assertTrue(System.currentTimeMillis() - started < 5_000);
+    }
+}
@@ -4,6 +4,7 @@ import org.example.dao.TransactionDAO;
 
 import org.example.config.DBConnection;
 import org.example.model.Transaction;
+import org.example.model.TransactionCursor;
 import org.junit.jupiter.api.*;
 import org.mockito.MockedStatic;
 
@@ -41,41 +42,6 @@ class TransactionDAOTest {
         dbMock.close();
     }
 
-    // ✅ logTransaction
-    @Test
-    void testLogTransaction_Success() throws Exception {
-        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
-        when(preparedStatement.executeUpdate()).thenReturn(1);
-
-        Transaction tx = new Transaction();
-        tx.setFromWalletId(1);
-        tx.setToWalletId(2);
-        tx.setAmount(BigDecimal.valueOf(500));
-        tx.setTransactionType("TRANSFER");
-        tx.setStatus("SUCCESS");
-        tx.setNote("Test transfer");
-        tx.setCreatedAt(LocalDateTime.now());
-
-        boolean result = transactionDAO.logTransaction(tx);
-
-        assertTrue(result);
-        verify(preparedStatement).executeUpdate();
-    }
-
-    // ❌ logTransaction failure
-    @Test
-    void testLogTransaction_Failure() throws Exception {
-        when(connection.prepareStatement(anyString())).thenThrow(SQLException.class);
-
-        Transaction tx = new Transaction();
-        tx.setAmount(BigDecimal.valueOf(100));
-        tx.setTransactionType("CREDIT");
-
-        boolean result = transactionDAO.logTransaction(tx);
-
-        assertFalse(result);
-    }
-
     // ✅ getTransactionsByWalletId
     @Test
     void testGetTransactionsByWalletId() throws Exception {
@@ -99,29 +65,43 @@ class TransactionDAOTest {
         assertEquals(BigDecimal.valueOf(300), list.get(0).getAmount());
     }
 
-    // ✅ getTransactionsByUserId
+    // ✅ getTransactionPage with cursor binds the seek predicate in both UNION branches
+    @Test
+    void testGetTransactionPage_WithCursor() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(false);
+
+        LocalDateTime lastSeen = LocalDateTime.of(2024, 1, 1, 10, 0);
+        List<Transaction> page = transactionDAO.getTransactionPage(10, new TransactionCursor(lastSeen, 99), 20);
+
+        assertTrue(page.isEmpty());
+        verify(preparedStatement, times(2)).setInt(anyInt(), eq(10));
+        verify(preparedStatement, times(4)).setTimestamp(anyInt(), eq(Timestamp.valueOf(lastSeen)));
+        verify(preparedStatement, times(2)).setInt(anyInt(), eq(99));
+        verify(preparedStatement, times(3)).setInt(anyInt(), eq(20));
+    }
+
+    // ✅ streamTransactionsByWalletId fetches the next page only when the current one is consumed
     @Test
-    void testGetTransactionsByUserId() throws Exception {
+    void testStreamTransactionsByWalletId_FetchesPagesLazily() throws Exception {
         when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
         when(preparedStatement.executeQuery()).thenReturn(resultSet);
 
-        when(resultSet.next()).thenReturn(true, true, false);
-        when(resultSet.getInt("transaction_id")).thenReturn(1, 2);
-        when(resultSet.getInt("from_wallet_id")).thenReturn(5, 6);
-        when(resultSet.getInt("to_wallet_id")).thenReturn(7, 8);
-        when(resultSet.getBigDecimal("amount")).thenReturn(
-                BigDecimal.valueOf(100),
-                BigDecimal.valueOf(200)
-        );
-        when(resultSet.getString("transaction_type")).thenReturn("CREDIT");
+        // first page: 2 rows (full page), second page: empty
+        when(resultSet.next()).thenReturn(true, true, false, false);
+        when(resultSet.getInt("transaction_id")).thenReturn(2, 1);
+        when(resultSet.getBigDecimal("amount")).thenReturn(BigDecimal.valueOf(100));
+        when(resultSet.getString("transaction_type")).thenReturn("SEND");
         when(resultSet.getString("status")).thenReturn("SUCCESS");
-        when(resultSet.getString("note")).thenReturn("Salary");
         when(resultSet.getTimestamp("created_at"))
                 .thenReturn(Timestamp.valueOf("2024-01-01 09:00:00"));
 
-        List<Transaction> list = transactionDAO.getTransactionsByUserId(1);
+        List<Transaction> all = transactionDAO.streamTransactionsByWalletId(10, 2).toList();
 
-        assertEquals(2, list.size());
+        assertEquals(2, all.size());
+        // a full first page triggers exactly one follow-up query, seeded with the last row's cursor
+        verify(preparedStatement, times(2)).executeQuery();
+        verify(preparedStatement, times(4)).setTimestamp(anyInt(), eq(Timestamp.valueOf("2024-01-01 09:00:00")));
     }
 }
-
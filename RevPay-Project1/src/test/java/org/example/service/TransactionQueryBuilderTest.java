@@ -0,0 +1,78 @@
+package org.example.service;
+
+import org.example.dao.TransactionQueryBuilder;
+import org.example.model.TransactionCursor;
+import org.example.model.TransactionFilter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionQueryBuilderTest {
+
+    @Test
+    void testNoFilterQueriesBothBranches() {
+        TransactionQueryBuilder query = new TransactionQueryBuilder(7, null, null, 50);
+
+        assertTrue(query.getSql().contains("t.from_wallet_id = ?"));
+        assertTrue(query.getSql().contains("t.to_wallet_id = ?"));
+        assertTrue(query.getSql().contains("UNION ALL"));
+        assertFalse(query.getSql().contains("JOIN"));
+        assertEquals(List.of(7, 50, 7, 50, 50), query.getParameters());
+    }
+
+    @Test
+    void testSentFilterDropsReceivedBranch() {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setType("SENT");
+
+        TransactionQueryBuilder query = new TransactionQueryBuilder(7, filter, null, 50);
+
+        assertFalse(query.getSql().contains("UNION ALL"));
+        assertFalse(query.getSql().contains("t.to_wallet_id = ?"));
+        assertEquals(List.of(7, 50, 50), query.getParameters());
+    }
+
+    @Test
+    void testDepositFilterMapsToTransactionType() {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setType("DEPOSIT");
+
+        TransactionQueryBuilder query = new TransactionQueryBuilder(7, filter, null, 50);
+
+        assertTrue(query.getSql().contains("t.transaction_type = 'ADD'"));
+    }
+
+    @Test
+    void testRangeStatusAndCursorParametersInOrder() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime cursorTime = LocalDateTime.of(2024, 2, 1, 12, 0);
+        TransactionFilter filter = new TransactionFilter();
+        filter.setType("RECEIVED");
+        filter.setStartDate(start);
+        filter.setMinAmount(new BigDecimal("10"));
+        filter.setStatus("success");
+        TransactionCursor cursor = new TransactionCursor(cursorTime, 99);
+
+        TransactionQueryBuilder query = new TransactionQueryBuilder(7, filter, cursor, 20);
+
+        assertEquals(List.of(7, Timestamp.valueOf(start), new BigDecimal("10"), "SUCCESS",
+                Timestamp.valueOf(cursorTime), Timestamp.valueOf(cursorTime), 99, 20, 20), query.getParameters());
+    }
+
+    @Test
+    void testSearchJoinsCounterpartyAndEscapesWildcards() {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setSearchTerm(" 50%_off ");
+
+        TransactionQueryBuilder query = new TransactionQueryBuilder(7, filter, null, 50);
+
+        assertTrue(query.getSql().contains("LEFT JOIN users cu"));
+        assertTrue(query.getSql().contains("cu.email LIKE ?"));
+        assertTrue(query.getParameters().contains("%50\\%\\_off%"));
+    }
+}
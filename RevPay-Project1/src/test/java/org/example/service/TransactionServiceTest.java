@@ -1,13 +1,15 @@
 package org.example.service;
 
 import org.example.dao.TransactionDAO;
-import org.example.dao.UserDAO;
 import org.example.dao.WalletDAO;
 import org.example.model.Transaction;
+import org.example.model.TransactionFilter;
+import org.example.model.User;
 import org.example.model.Wallet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -15,6 +17,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -29,9 +33,6 @@ class TransactionServiceTest {
     @Mock
     private WalletDAO walletDAO;
 
-    @Mock
-    private UserDAO userDAO;
-
     private TransactionService transactionService;
 
     private Wallet testWallet;
@@ -39,7 +40,7 @@ class TransactionServiceTest {
 
     @BeforeEach
     void setUp() {
-        transactionService = new TransactionService(transactionDAO, walletDAO, userDAO);
+        transactionService = new TransactionService(transactionDAO, walletDAO);
         testWallet = new Wallet();
         testWallet.setWalletId(1);
         testWallet.setUserId(1);
@@ -60,14 +61,14 @@ class TransactionServiceTest {
     void testDisplayTransactionHistory_Success() {
         // Arrange
         when(walletDAO.getWalletByUserId(1)).thenReturn(testWallet);
-        when(transactionDAO.getTransactionsByWalletId(1)).thenReturn(testTransactions);
+        when(transactionDAO.findTransactions(eq(1), any(), isNull(), anyInt())).thenReturn(testTransactions);
 
         // Act
         transactionService.displayTransactionHistory(1);
 
         // Assert
         verify(walletDAO, times(1)).getWalletByUserId(1);
-        verify(transactionDAO, times(1)).getTransactionsByWalletId(1);
+        verify(transactionDAO, times(1)).findTransactions(eq(1), any(), isNull(), eq(50));
     }
 
     @Test
@@ -80,34 +81,82 @@ class TransactionServiceTest {
 
         // Assert
         verify(walletDAO, times(1)).getWalletByUserId(1);
-        verify(transactionDAO, never()).getTransactionsByWalletId(anyInt());
+        verify(transactionDAO, never()).findTransactions(anyInt(), any(), any(), anyInt());
     }
 
     @Test
     void testDisplayTransactionHistory_NoTransactions() {
         // Arrange
         when(walletDAO.getWalletByUserId(1)).thenReturn(testWallet);
-        when(transactionDAO.getTransactionsByWalletId(1)).thenReturn(new ArrayList<>());
+        when(transactionDAO.findTransactions(eq(1), any(), isNull(), anyInt())).thenReturn(new ArrayList<>());
 
         // Act
         transactionService.displayTransactionHistory(1);
 
         // Assert
         verify(walletDAO, times(1)).getWalletByUserId(1);
-        verify(transactionDAO, times(1)).getTransactionsByWalletId(1);
+        verify(transactionDAO, times(1)).findTransactions(eq(1), any(), isNull(), eq(50));
     }
 
     @Test
     void testDisplayTransactionHistoryWithFilters() {
         // Arrange
         when(walletDAO.getWalletByUserId(1)).thenReturn(testWallet);
-        when(transactionDAO.getTransactionsByWalletId(1)).thenReturn(testTransactions);
+        when(transactionDAO.findTransactions(eq(1), any(), isNull(), anyInt())).thenReturn(testTransactions);
 
         // Act
         transactionService.displayTransactionHistory(1, "SEND", null, null, null, null, "SUCCESS", "");
 
         // Assert
         verify(walletDAO, times(1)).getWalletByUserId(1);
-        verify(transactionDAO, times(1)).getTransactionsByWalletId(1);
+        verify(transactionDAO, times(1)).findTransactions(eq(1), any(), isNull(), eq(50));
+    }
+
+    @Test
+    void testDisplayTransactionHistory_PassesFiltersToDAO() {
+        // Arrange
+        when(walletDAO.getWalletByUserId(1)).thenReturn(testWallet);
+        when(transactionDAO.findTransactions(eq(1), any(), isNull(), anyInt())).thenReturn(new ArrayList<>());
+        ArgumentCaptor<TransactionFilter> captor = ArgumentCaptor.forClass(TransactionFilter.class);
+
+        // Act
+        transactionService.displayTransactionHistory(1, "SENT", null, null, new BigDecimal("100"), null, "SUCCESS", "rent");
+
+        // Assert
+        verify(transactionDAO).findTransactions(eq(1), captor.capture(), isNull(), eq(50));
+        assertEquals("SENT", captor.getValue().getType());
+        assertEquals(new BigDecimal("100"), captor.getValue().getMinAmount());
+        assertEquals("SUCCESS", captor.getValue().getStatus());
+        assertEquals("rent", captor.getValue().getSearchTerm());
+        verify(walletDAO, never()).getWalletById(anyInt());
+    }
+
+    @Test
+    void testDisplayTransactionHistory_ResolvesCounterpartiesInOneBatch() {
+        // Arrange: three rows, two distinct counterparties
+        for (int i = 0; i < 2; i++) {
+            Transaction t = new Transaction();
+            t.setTransactionId(10 + i);
+            t.setFromWalletId(i == 0 ? 2 : 3);
+            t.setToWalletId(1);
+            t.setAmount(new BigDecimal("10.00"));
+            t.setTransactionType("SEND");
+            t.setStatus("SUCCESS");
+            t.setCreatedAt(java.time.LocalDateTime.now());
+            testTransactions.add(t);
+        }
+        User bob = new User();
+        bob.setFullName("Bob");
+        bob.setEmail("bob@mail.com");
+        when(walletDAO.getWalletByUserId(1)).thenReturn(testWallet);
+        when(transactionDAO.findTransactions(eq(1), any(), isNull(), anyInt())).thenReturn(testTransactions);
+        when(walletDAO.getOwnersByWalletIds(any())).thenReturn(Map.of(2, bob));
+
+        // Act
+        transactionService.displayTransactionHistory(1);
+
+        // Assert
+        verify(walletDAO, times(1)).getOwnersByWalletIds(argThat(ids -> Set.copyOf(ids).equals(Set.of(2, 3))));
+        verify(walletDAO, never()).getWalletById(anyInt());
     }
 }
@@ -2,6 +2,7 @@ package org.example.service;
 
 import org.example.dao.UserDAO;
 
+import org.example.cache.UserCache;
 import org.example.config.DBConnection;
 import org.example.model.User;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,7 +20,7 @@ class UserDAOTest {
 
     @BeforeEach
     void setUp() {
-        dao = new UserDAO();
+        dao = new UserDAO(new UserCache(100, 60_000, 5_000));
     }
 
     @Test
@@ -149,6 +150,44 @@ class UserDAOTest {
         }
     }
 
+    @Test
+    void testRecordFailedLogin_CountsAndLocksInOneStatement() throws SQLException {
+        Connection mockConn = mock(Connection.class);
+        PreparedStatement mockPs = mock(PreparedStatement.class);
+
+        when(mockConn.prepareStatement(anyString())).thenReturn(mockPs);
+        when(mockPs.executeUpdate()).thenReturn(1);
+
+        try (MockedStatic<DBConnection> mockedStatic = mockStatic(DBConnection.class)) {
+            mockedStatic.when(DBConnection::getInstance).thenReturn(mockConn);
+
+            assertTrue(dao.recordFailedLogin(1, 3));
+            verify(mockConn).prepareStatement(contains("account_locked = (failed_attempts + 1 >= ?)"));
+            verify(mockPs).setInt(1, 3);
+            verify(mockPs).setInt(2, 1);
+        }
+    }
+
+    @Test
+    void testUpgradePasswordHash_OnlyReplacesTheVerifiedHash() throws SQLException {
+        Connection mockConn = mock(Connection.class);
+        PreparedStatement mockPs = mock(PreparedStatement.class);
+
+        when(mockConn.prepareStatement(anyString())).thenReturn(mockPs);
+        when(mockPs.executeUpdate()).thenReturn(0);
+
+        try (MockedStatic<DBConnection> mockedStatic = mockStatic(DBConnection.class)) {
+            mockedStatic.when(DBConnection::getInstance).thenReturn(mockConn);
+
+            // The stored hash changed since it was verified (password reset), so nothing is updated
+            assertFalse(dao.upgradePasswordHash(1, "$2a$04$old", "$2a$12$new"));
+            verify(mockConn).prepareStatement(contains("AND password_hash = ?"));
+            verify(mockPs).setString(1, "$2a$12$new");
+            verify(mockPs).setInt(2, 1);
+            verify(mockPs).setString(3, "$2a$04$old");
+        }
+    }
+
     @Test
     void testLockAccount_success() throws SQLException {
         Connection mockConn = mock(Connection.class);
@@ -193,4 +232,53 @@ class UserDAOTest {
             assertTrue(dao.unlockAccount(1));
         }
     }
+
+    @Test
+    void testGetUserById_CachedUntilAccountChanges() throws SQLException {
+        Connection mockConn = mock(Connection.class);
+        PreparedStatement mockPs = mock(PreparedStatement.class);
+        ResultSet mockRs = mock(ResultSet.class);
+
+        when(mockConn.prepareStatement(anyString())).thenReturn(mockPs);
+        when(mockPs.executeQuery()).thenReturn(mockRs);
+        when(mockPs.executeUpdate()).thenReturn(1);
+        when(mockRs.next()).thenReturn(true);
+        when(mockRs.getInt("user_id")).thenReturn(1);
+        when(mockRs.getInt("failed_attempts")).thenReturn(0, 3);
+
+        try (MockedStatic<DBConnection> mockedStatic = mockStatic(DBConnection.class)) {
+            mockedStatic.when(DBConnection::getInstance).thenReturn(mockConn);
+
+            assertEquals(0, dao.getUserById(1).getFailedAttempts());
+            assertEquals(0, dao.getUserById(1).getFailedAttempts()); // served from cache
+            dao.lockAccount(1);
+            assertEquals(3, dao.getUserById(1).getFailedAttempts()); // reloaded after the write
+
+            verify(mockPs, times(2)).executeQuery();
+        }
+    }
+
+    @Test
+    void testGetUserByEmailOrPhone_MissCachedUntilInsert() throws SQLException {
+        Connection mockConn = mock(Connection.class);
+        PreparedStatement mockPs = mock(PreparedStatement.class);
+        ResultSet mockRs = mock(ResultSet.class);
+
+        when(mockConn.prepareStatement(anyString())).thenReturn(mockPs);
+        when(mockConn.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(mockPs);
+        when(mockPs.executeQuery()).thenReturn(mockRs);
+        when(mockPs.executeUpdate()).thenReturn(0);
+        when(mockRs.next()).thenReturn(false);
+
+        try (MockedStatic<DBConnection> mockedStatic = mockStatic(DBConnection.class)) {
+            mockedStatic.when(DBConnection::getInstance).thenReturn(mockConn);
+
+            assertNull(dao.getUserByEmailOrPhone("new@gmail.com"));
+            assertNull(dao.getUserByEmailOrPhone("new@gmail.com")); // negative cache
+            dao.insertUser(new User());
+            assertNull(dao.getUserByEmailOrPhone("new@gmail.com")); // re-queried after insert
+
+            verify(mockPs, times(2)).executeQuery();
+        }
+    }
 }
@@ -5,6 +5,7 @@ import org.example.dao.UserDAO;
 import org.example.dao.WalletDAO;
 import org.example.model.BusinessDetails;
 import org.example.model.User;
+import org.example.security.PasswordUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -114,6 +115,38 @@ class UserServiceTest {
         verify(userDAO, times(1)).resetFailedAttempts(1);
     }
 
+    @Test
+    void testLogin_OutdatedCost_UpgradesHash() {
+        // Arrange
+        String weakHash = PasswordUtil.hash("password", 4);
+        testUser.setPasswordHash(weakHash);
+        when(userDAO.getUserByEmailOrPhone("test@example.com")).thenReturn(testUser);
+        when(userDAO.upgradePasswordHash(eq(1), eq(weakHash), anyString())).thenReturn(true);
+
+        // Act
+        User result = userService.login("test@example.com", "password");
+
+        // Assert
+        assertNotNull(result);
+        verify(userDAO).upgradePasswordHash(eq(1), eq(weakHash), anyString());
+        assertEquals(PasswordUtil.getCost(), PasswordUtil.costOf(result.getPasswordHash()));
+        assertTrue(PasswordUtil.verify("password", result.getPasswordHash()));
+    }
+
+    @Test
+    void testLogin_CurrentCost_KeepsHash() {
+        // Arrange
+        testUser.setPasswordHash(PasswordUtil.hash("password"));
+        when(userDAO.getUserByEmailOrPhone("test@example.com")).thenReturn(testUser);
+
+        // Act
+        User result = userService.login("test@example.com", "password");
+
+        // Assert
+        assertNotNull(result);
+        verify(userDAO, never()).upgradePasswordHash(anyInt(), anyString(), anyString());
+    }
+
     @Test
     void testLogin_AccountLocked() {
         // Arrange
@@ -132,14 +165,31 @@ class UserServiceTest {
     void testLogin_InvalidPassword() {
         // Arrange
         when(userDAO.getUserByEmailOrPhone("test@example.com")).thenReturn(testUser);
-        when(userDAO.incrementFailedAttempts(1)).thenReturn(true);
+        when(userDAO.recordFailedLogin(1, 3)).thenReturn(true);
 
         // Act
         User result = userService.login("test@example.com", "wrongpassword");
 
-        // Assert
+        // Assert - count and lock happen in one conditional UPDATE
         assertNull(result);
-        verify(userDAO, times(1)).incrementFailedAttempts(1);
+        verify(userDAO, times(1)).recordFailedLogin(1, 3);
+        verify(userDAO, never()).lockAccount(anyInt());
+    }
+
+    @Test
+    void testLogin_ThrottledAfterFailure_SkipsVerification() {
+        // Arrange
+        when(userDAO.getUserByEmailOrPhone("test@example.com")).thenReturn(testUser);
+        when(userDAO.recordFailedLogin(1, 3)).thenReturn(true);
+
+        // Act - the second guess arrives inside the backoff window
+        User first = userService.login("test@example.com", "wrongpassword");
+        User second = userService.login("test@example.com", "wrongpassword");
+
+        // Assert - only the first guess was verified and counted
+        assertNull(first);
+        assertNull(second);
+        verify(userDAO, times(1)).recordFailedLogin(1, 3);
     }
 
     @Test
@@ -1,14 +1,26 @@
 package org.example.service;
 
+import org.example.dao.IdempotencyDAO;
 import org.example.dao.WalletDAO;
 
+import org.example.cache.UserCache;
+import org.example.cache.WalletCache;
 import org.example.config.DBConnection;
+import org.example.model.BulkPayoutReport;
+import org.example.model.PayoutItem;
+import org.example.model.PayoutItemResult;
+import org.example.model.TransferResult;
+import org.example.model.User;
 import org.example.model.Wallet;
 import org.junit.jupiter.api.*;
+import org.mockito.InOrder;
 import org.mockito.MockedStatic;
 
 import java.math.BigDecimal;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -16,6 +28,7 @@ import static org.mockito.Mockito.*;
 class WalletDAOTest {
 
     private WalletDAO walletDAO;
+    private WalletCache walletCache;
     private Connection connection;
     private PreparedStatement preparedStatement;
     private ResultSet resultSet;
@@ -24,7 +37,8 @@ class WalletDAOTest {
 
     @BeforeEach
     void setUp() throws Exception {
-        walletDAO = new WalletDAO();
+        walletCache = new WalletCache(100, 60_000);
+        walletDAO = new WalletDAO(walletCache, new UserCache(100, 60_000, 5_000));
 
         connection = mock(Connection.class);
         preparedStatement = mock(PreparedStatement.class);
@@ -108,5 +122,401 @@ class WalletDAOTest {
 
         assertEquals(-1, userId);
     }
-}
 
+    @Test
+    void testGetOwnersByWalletIds_SingleQuery() throws Exception {
+        when(connection.prepareStatement(contains("IN (?, ?, ?)"))).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getInt("wallet_id")).thenReturn(10, 20);
+        when(resultSet.getInt("user_id")).thenReturn(1, 2);
+        when(resultSet.getString("full_name")).thenReturn("Alice", "Bob");
+        when(resultSet.getString("email")).thenReturn("alice@mail.com", "bob@mail.com");
+
+        Map<Integer, User> owners = walletDAO.getOwnersByWalletIds(List.of(10, 20, 30));
+
+        assertEquals(2, owners.size());
+        assertEquals("Bob", owners.get(20).getFullName());
+        assertNull(owners.get(30));
+        verify(connection, times(1)).prepareStatement(anyString());
+        verify(preparedStatement).setInt(3, 30);
+    }
+
+    @Test
+    void testGetOwnersByWalletIds_EmptySkipsQuery() throws Exception {
+        assertTrue(walletDAO.getOwnersByWalletIds(List.of()).isEmpty());
+        verify(connection, never()).prepareStatement(anyString());
+    }
+
+    @Test
+    void testGetWalletByUserId_SecondReadServedFromCache() throws Exception {
+        stubWalletRow();
+
+        Wallet first = walletDAO.getWalletByUserId(1);
+        Wallet second = walletDAO.getWalletByUserId(1);
+        Wallet byId = walletDAO.getWalletById(10);
+
+        assertEquals(first.getBalance(), second.getBalance());
+        assertEquals(1, byId.getUserId());
+        assertNotSame(first, second); // callers get copies
+        verify(preparedStatement, times(1)).executeQuery();
+        assertEquals(2, walletDAO.getCacheStats().getHits());
+    }
+
+    @Test
+    void testUpdateBalance_InvalidatesCachedWallet() throws Exception {
+        stubWalletRow();
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        walletDAO.getWalletByUserId(1);
+        walletDAO.updateBalance(1, new BigDecimal("50.00"));
+        walletDAO.getWalletByUserId(1);
+
+        verify(preparedStatement, times(2)).executeQuery();
+        assertEquals(1, walletDAO.getCacheStats().getInvalidations());
+    }
+
+    @Test
+    void testGetUserIdByIdentifier_CachesHitsAndMisses() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getInt("user_id")).thenReturn(5);
+
+        assertEquals(5, walletDAO.getUserIdByIdentifier("Test@Mail.com"));
+        assertEquals(5, walletDAO.getUserIdByIdentifier("test@mail.com "));
+        assertEquals(-1, walletDAO.getUserIdByIdentifier("nobody"));
+        assertEquals(-1, walletDAO.getUserIdByIdentifier("nobody"));
+
+        verify(preparedStatement, times(2)).executeQuery();
+        verify(connection, never()).prepareStatement(contains(" OR "));
+    }
+
+    @Test
+    void testAdjustBalance_CommitsBalanceLedgerAndKeyTogether() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(preparedStatement.getGeneratedKeys()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getInt("wallet_id")).thenReturn(10);
+
+        assertTrue(walletDAO.adjustBalance(1, new BigDecimal("50.00"), "ADD", "Deposit to wallet", "dep-1"));
+
+        verify(connection).setAutoCommit(false);
+        verify(connection).prepareStatement(contains("INSERT INTO idempotency_keys"));
+        verify(connection).prepareStatement(contains("balance = balance + ?"));
+        verify(connection).prepareStatement(contains("INSERT INTO transactions"), anyInt());
+        verify(connection).prepareStatement(contains("UPDATE idempotency_keys SET transaction_id = ?"));
+        verify(connection, times(1)).commit();
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    void testAdjustBalance_InsufficientFundsRollsBack() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(0);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+
+        assertFalse(walletDAO.adjustBalance(1, new BigDecimal("-500.00"), "WITHDRAW", "Withdrawal from wallet", null));
+
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(connection, never()).prepareStatement(contains("INSERT INTO transactions"), anyInt());
+    }
+
+    @Test
+    void testAdjustBalance_DuplicateKeyLeavesWalletAlone() throws Exception {
+        stubDuplicateKey(IdempotencyDAO.fingerprint(IdempotencyDAO.DEPOSIT, new BigDecimal("50")), 700);
+
+        assertTrue(walletDAO.adjustBalance(1, new BigDecimal("50.00"), "ADD", "Deposit to wallet", "dep-1"));
+
+        verify(connection).rollback();
+        verify(connection, never()).prepareStatement(contains("UPDATE wallets"));
+    }
+
+    @Test
+    void testAdjustBalance_KeyReusedForAnotherAmountIsRejected() throws Exception {
+        stubDuplicateKey(IdempotencyDAO.fingerprint(IdempotencyDAO.DEPOSIT, new BigDecimal("20.00")), 700);
+
+        assertFalse(walletDAO.adjustBalance(1, new BigDecimal("50.00"), "ADD", "Deposit to wallet", "dep-1"));
+
+        verify(connection).rollback();
+        verify(connection, never()).prepareStatement(contains("UPDATE wallets"));
+    }
+
+    @Test
+    void testTransfer_DuplicateKeyReplaysOriginalTransaction() throws Exception {
+        Wallet recipient = new Wallet();
+        recipient.setWalletId(20);
+        recipient.setUserId(2);
+        walletCache.put(recipient, walletCache.stamp());
+        stubDuplicateKey(IdempotencyDAO.fingerprint(IdempotencyDAO.SEND_MONEY, 2, new BigDecimal("50.00")), 900);
+
+        TransferResult result = walletDAO.transfer(1, 2, new BigDecimal("50.00"), "Coffee", null, "send-1");
+
+        assertTrue(result.isReplayed());
+        assertEquals(900, result.getOriginalTransactionId());
+        verify(connection, never()).prepareStatement(contains("FOR UPDATE"));
+    }
+
+    @Test
+    void testTransfer_KeyReusedForAnotherRecipientIsRejected() throws Exception {
+        Wallet recipient = new Wallet();
+        recipient.setWalletId(30);
+        recipient.setUserId(3);
+        walletCache.put(recipient, walletCache.stamp());
+        stubDuplicateKey(IdempotencyDAO.fingerprint(IdempotencyDAO.SEND_MONEY, 2, new BigDecimal("50.00")), 900);
+
+        assertNull(walletDAO.transfer(1, 3, new BigDecimal("50.00"), "Coffee", null, "send-1"));
+        verify(connection).rollback();
+        verify(connection, never()).prepareStatement(contains("FOR UPDATE"));
+    }
+
+    @Test
+    void testGetUserIdsByIdentifiers_OneQueryThenCached() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        // Best match first: the email row for Alice, then a phone row for Bob
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString("matched")).thenReturn("alice@mail.com", "9999");
+        when(resultSet.getInt("user_id")).thenReturn(1, 2);
+
+        List<String> identifiers = List.of(" Alice@Mail.com", "9999", "ghost");
+        Map<String, Integer> userIds = walletDAO.getUserIdsByIdentifiers(identifiers);
+
+        assertEquals(Map.of(" Alice@Mail.com", 1, "9999", 2), userIds);
+        verify(connection).prepareStatement(contains("email IN (?, ?, ?)"));
+        verify(preparedStatement).setString(1, "Alice@Mail.com");
+
+        // Hits and the miss are now cached: no second query
+        assertEquals(userIds, walletDAO.getUserIdsByIdentifiers(identifiers));
+        verify(connection, times(1)).prepareStatement(anyString());
+    }
+
+    @Test
+    void testBulkPayout_DebitsOnceAndBatchesTheRest() throws Exception {
+        ResultSet keys = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+        when(preparedStatement.getGeneratedKeys()).thenReturn(keys);
+        // Locked rows in user_id order: payer 1 (300.00), recipients 2 and 3
+        when(resultSet.next()).thenReturn(true, true, true, false);
+        when(resultSet.getInt("user_id")).thenReturn(1, 2, 3);
+        when(resultSet.getInt("wallet_id")).thenReturn(11, 12, 13);
+        when(resultSet.getBigDecimal("balance")).thenReturn(new BigDecimal("300.00"));
+        when(keys.next()).thenReturn(true, true, false);
+        when(keys.getInt(1)).thenReturn(501, 502);
+
+        List<PayoutItemResult> items = new ArrayList<>();
+        items.add(pending("bob", "100.00", 2));
+        items.add(pending("carol", "150.00", 3));
+        items.add(pending("bob", "100.00", 2));
+
+        BulkPayoutReport report = walletDAO.bulkPayout(1, items, null);
+
+        assertEquals(PayoutItemResult.PAID, items.get(0).getStatus());
+        assertEquals(PayoutItemResult.PAID, items.get(1).getStatus());
+        assertEquals(PayoutItemResult.INSUFFICIENT_FUNDS, items.get(2).getStatus());
+        assertEquals(502, items.get(1).getTransactionId());
+        assertEquals(new BigDecimal("250.00"), report.getTotalPaid());
+        assertEquals(new BigDecimal("50.00"), report.getPayerBalance());
+        verify(connection).prepareStatement(contains("ORDER BY user_id FOR UPDATE"));
+        verify(preparedStatement).setBigDecimal(1, new BigDecimal("250.00"));
+        // Credits, ledger rows, their double entries, two rollup tables and outbox events: one batch each
+        verify(preparedStatement, times(6)).executeBatch();
+        verify(connection).prepareStatement(contains("INSERT INTO ledger_entries"));
+        verify(connection, times(1)).commit();
+    }
+
+    @Test
+    void testBulkPayout_DuplicateKeyPaysNobody() throws Exception {
+        List<PayoutItemResult> items = new ArrayList<>();
+        items.add(pending("bob", "100.00", 2));
+        stubDuplicateKey(IdempotencyDAO.payoutFingerprint(List.of(items.get(0).getItem())), 0);
+
+        BulkPayoutReport report = walletDAO.bulkPayout(1, items, "payroll-1");
+
+        assertTrue(report.isReplayed());
+        verify(connection).rollback();
+        verify(connection, never()).prepareStatement(contains("FOR UPDATE"));
+    }
+
+    @Test
+    void testBulkPayout_FailureMarksPendingItemsFailed() throws Exception {
+        when(connection.prepareStatement(anyString())).thenThrow(new SQLException("connection lost"));
+
+        List<PayoutItemResult> items = new ArrayList<>();
+        items.add(pending("bob", "100.00", 2));
+        items.add(new PayoutItemResult(new PayoutItem("x", BigDecimal.ZERO, null), PayoutItemResult.INVALID_AMOUNT));
+
+        walletDAO.bulkPayout(1, items, null);
+
+        assertEquals(PayoutItemResult.FAILED, items.get(0).getStatus());
+        assertEquals(PayoutItemResult.INVALID_AMOUNT, items.get(1).getStatus());
+        verify(connection).rollback();
+    }
+
+    @Test
+    void testAdjustBalance_WithdrawFoldsStripesWhenMainBalanceIsShort() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(preparedStatement);
+        when(preparedStatement.getGeneratedKeys()).thenReturn(resultSet);
+        // Guarded update fails, the fold succeeds, the retried update succeeds
+        when(preparedStatement.executeUpdate()).thenReturn(0, 1);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getInt("wallet_id")).thenReturn(10);
+        when(resultSet.getBigDecimal(1)).thenReturn(new BigDecimal("80.00"));
+
+        assertTrue(walletDAO.adjustBalance(1, new BigDecimal("-100.00"), "WITHDRAW", "Withdrawal from wallet", null));
+
+        verify(connection).prepareStatement(contains("FROM wallet_stripes WHERE wallet_id = ? FOR UPDATE"));
+        verify(connection).prepareStatement(contains("UPDATE wallet_stripes SET balance = 0"));
+        verify(connection, times(1)).commit();
+    }
+
+    @Test
+    void testTransfer_StripedRecipientCreditsStripeWithoutLockingItsRow() throws Exception {
+        Wallet merchant = new Wallet();
+        merchant.setWalletId(20);
+        merchant.setUserId(2);
+        merchant.setBalance(new BigDecimal("1000.00"));
+        merchant.setStripeCount(8);
+        walletCache.put(merchant, walletCache.stamp());
+
+        ResultSet keys = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+        when(preparedStatement.getGeneratedKeys()).thenReturn(keys);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getInt("user_id")).thenReturn(1);
+        when(resultSet.getInt("wallet_id")).thenReturn(10);
+        when(resultSet.getBigDecimal("balance")).thenReturn(new BigDecimal("500.00"));
+        when(keys.next()).thenReturn(true);
+        when(keys.getInt(1)).thenReturn(900);
+
+        TransferResult result = walletDAO.transfer(1, 2, new BigDecimal("50.00"), "Coffee");
+
+        assertNotNull(result);
+        assertEquals(new BigDecimal("450.00"), result.getSenderBalance());
+        assertNull(result.getRecipientBalance());
+        verify(connection).prepareStatement(contains("WHERE user_id = ? FOR UPDATE"));
+        verify(connection, never()).prepareStatement(contains("user_id IN (?, ?)"));
+        verify(connection).prepareStatement(contains("UPDATE wallet_stripes SET balance = balance + ?"));
+        verify(connection, times(1)).commit();
+    }
+
+    @Test
+    void testTransfer_StripedSenderBalanceIncludesItsStripes() throws Exception {
+        Wallet recipient = new Wallet();
+        recipient.setWalletId(20);
+        recipient.setUserId(2);
+        recipient.setBalance(new BigDecimal("100.00"));
+        walletCache.put(recipient, walletCache.stamp());
+
+        ResultSet keys = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(preparedStatement.executeUpdate()).thenReturn(2);
+        when(preparedStatement.getGeneratedKeys()).thenReturn(keys);
+        // Two locked wallet rows, then the sender's stripe sum
+        when(resultSet.next()).thenReturn(true, true, false, true);
+        when(resultSet.getInt("user_id")).thenReturn(1, 2);
+        when(resultSet.getInt("wallet_id")).thenReturn(10, 20);
+        when(resultSet.getInt("stripe_count")).thenReturn(8, 0);
+        when(resultSet.getBigDecimal("balance")).thenReturn(new BigDecimal("500.00"), new BigDecimal("100.00"));
+        when(resultSet.getBigDecimal(1)).thenReturn(new BigDecimal("30.00"));
+
+        TransferResult result = walletDAO.transfer(1, 2, new BigDecimal("50.00"), "Rent");
+
+        assertNotNull(result);
+        assertEquals(new BigDecimal("480.00"), result.getSenderBalance());
+        verify(connection, never()).prepareStatement(contains("UPDATE wallet_stripes SET balance = 0"));
+        verify(connection, times(1)).commit();
+    }
+
+    @Test
+    void testTransfer_StripedSenderToStripedRecipientFoldsInItsOwnTransaction() throws Exception {
+        Wallet merchant = new Wallet();
+        merchant.setWalletId(20);
+        merchant.setUserId(2);
+        merchant.setBalance(new BigDecimal("1000.00"));
+        merchant.setStripeCount(8);
+        walletCache.put(merchant, walletCache.stamp());
+
+        ResultSet keys = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+        when(preparedStatement.getGeneratedKeys()).thenReturn(keys);
+        // Attempt (sender row, stripe sum), fold (wallet row, locked sum), retry (sender row, stripe sum)
+        when(resultSet.next()).thenReturn(true, false, true, true, true, true, false, true);
+        when(resultSet.getInt("user_id")).thenReturn(1);
+        when(resultSet.getInt("wallet_id")).thenReturn(10);
+        when(resultSet.getInt("stripe_count")).thenReturn(8);
+        when(resultSet.getBigDecimal("balance")).thenReturn(new BigDecimal("20.00"), new BigDecimal("100.00"));
+        when(resultSet.getBigDecimal(1)).thenReturn(new BigDecimal("80.00"), new BigDecimal("80.00"), BigDecimal.ZERO);
+
+        TransferResult result = walletDAO.transfer(1, 2, new BigDecimal("50.00"), "Coffee");
+
+        assertNotNull(result);
+        assertEquals(new BigDecimal("50.00"), result.getSenderBalance());
+        // The fold commits before the stripe credit, so no transaction holds both wallets' stripes
+        InOrder order = inOrder(connection);
+        order.verify(connection).rollback();
+        order.verify(connection).prepareStatement(contains("UPDATE wallet_stripes SET balance = 0"));
+        order.verify(connection).commit();
+        order.verify(connection).prepareStatement(contains("UPDATE wallet_stripes SET balance = balance + ?"));
+        order.verify(connection).commit();
+    }
+
+    @Test
+    void testCompactStripes_FoldsIntoMainBalance() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getBigDecimal(1)).thenReturn(new BigDecimal("75.00"));
+
+        assertEquals(new BigDecimal("75.00"), walletDAO.compactStripes(20));
+
+        verify(connection).prepareStatement(contains("FROM wallets WHERE wallet_id = ? FOR UPDATE"));
+        verify(preparedStatement).setBigDecimal(1, new BigDecimal("75.00"));
+        verify(connection, times(1)).commit();
+    }
+
+    // The key's INSERT hits the unique index; the committed row carries this fingerprint
+    private void stubDuplicateKey(String requestHash, int transactionId) throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenThrow(new SQLIntegrityConstraintViolationException("Duplicate entry"));
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getString("request_hash")).thenReturn(requestHash);
+        when(resultSet.getInt("transaction_id")).thenReturn(transactionId);
+        when(resultSet.wasNull()).thenReturn(transactionId == 0);
+    }
+
+    private static PayoutItemResult pending(String identifier, String amount, int recipientUserId) {
+        PayoutItemResult result = new PayoutItemResult(new PayoutItem(identifier, new BigDecimal(amount), null), PayoutItemResult.PENDING);
+        result.setRecipientUserId(recipientUserId);
+        return result;
+    }
+
+    private void stubWalletRow() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getInt("wallet_id")).thenReturn(10);
+        when(resultSet.getInt("user_id")).thenReturn(1);
+        when(resultSet.getBigDecimal("balance")).thenReturn(new BigDecimal("100.00"));
+        when(resultSet.getString("currency")).thenReturn("INR");
+        when(resultSet.getTimestamp("last_updated")).thenReturn(Timestamp.valueOf("2024-01-01 10:00:00"));
+    }
+}
@@ -1,6 +1,6 @@
 package org.example.service;
 
-import org.example.dao.TransactionDAO;
+import org.example.dao.IdempotencyDAO;
 import org.example.dao.WalletDAO;
 import org.example.model.Wallet;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,7 +22,7 @@ class WalletServiceTest {
     private WalletDAO walletDAO;
 
     @Mock
-    private TransactionDAO transactionDAO;
+    private IdempotencyDAO idempotencyDAO;
 
     private WalletService walletService;
 
@@ -30,7 +30,7 @@ class WalletServiceTest {
 
     @BeforeEach
     void setUp() {
-        walletService = new WalletService(walletDAO, transactionDAO);
+        walletService = new WalletService(walletDAO, idempotencyDAO);
         testWallet = new Wallet();
         testWallet.setWalletId(1);
         testWallet.setUserId(1);
@@ -56,73 +56,130 @@ class WalletServiceTest {
     void testDeposit_Success() {
         // Arrange
         BigDecimal depositAmount = new BigDecimal("500.00");
-        when(walletDAO.getWalletByUserId(1)).thenReturn(testWallet);
-        when(walletDAO.updateBalance(eq(1), any(BigDecimal.class))).thenReturn(true);
+        when(walletDAO.adjustBalance(1, depositAmount, "ADD", "Deposit to wallet", null)).thenReturn(true);
 
         // Act
         boolean result = walletService.deposit(1, depositAmount);
 
-        // Assert
+        // Assert - balance change and ledger row are one DAO call (one DB transaction)
         assertTrue(result);
-        verify(walletDAO, times(1)).getWalletByUserId(1);
-        verify(walletDAO, times(1)).updateBalance(eq(1), any(BigDecimal.class));
+        verify(walletDAO, times(1)).adjustBalance(1, depositAmount, "ADD", "Deposit to wallet", null);
+        verify(walletDAO, never()).updateBalance(anyInt(), any(BigDecimal.class));
     }
 
     @Test
     void testDeposit_NullWallet() {
         // Arrange
-        when(walletDAO.getWalletByUserId(1)).thenReturn(null);
+        when(walletDAO.adjustBalance(eq(1), any(BigDecimal.class), anyString(), anyString(), isNull())).thenReturn(false);
 
         // Act
         boolean result = walletService.deposit(1, new BigDecimal("500.00"));
 
         // Assert
         assertFalse(result);
-        verify(walletDAO, times(1)).getWalletByUserId(1);
-        verify(walletDAO, never()).updateBalance(anyInt(), any(BigDecimal.class));
+    }
+
+    @Test
+    void testDeposit_InvalidAmount() {
+        // Act
+        boolean result = walletService.deposit(1, new BigDecimal("-5.00"));
+
+        // Assert
+        assertFalse(result);
+        verifyNoInteractions(walletDAO);
+    }
+
+    @Test
+    void testDeposit_RetriedKeyReplays() {
+        // Arrange
+        when(idempotencyDAO.isCompleted(1, "dep-1",
+                IdempotencyDAO.fingerprint(IdempotencyDAO.DEPOSIT, new BigDecimal("500.00")))).thenReturn(true);
+
+        // Act
+        boolean result = walletService.deposit(1, new BigDecimal("500.00"), "dep-1");
+
+        // Assert - the original deposit stands, nothing is applied twice
+        assertTrue(result);
+        verifyNoInteractions(walletDAO);
+    }
+
+    @Test
+    void testDeposit_NewKeyPassedToDao() {
+        // Arrange
+        BigDecimal depositAmount = new BigDecimal("500.00");
+        when(idempotencyDAO.isCompleted(eq(1), eq("dep-2"), anyString())).thenReturn(false);
+        when(walletDAO.adjustBalance(1, depositAmount, "ADD", "Deposit to wallet", "dep-2")).thenReturn(true);
+
+        // Act
+        boolean result = walletService.deposit(1, depositAmount, "dep-2");
+
+        // Assert
+        assertTrue(result);
+        verify(walletDAO, times(1)).adjustBalance(1, depositAmount, "ADD", "Deposit to wallet", "dep-2");
     }
 
     @Test
     void testWithdraw_Success() {
         // Arrange
         BigDecimal withdrawAmount = new BigDecimal("300.00");
-        when(walletDAO.getWalletByUserId(1)).thenReturn(testWallet);
-        when(walletDAO.updateBalance(eq(1), any(BigDecimal.class))).thenReturn(true);
+        when(walletDAO.adjustBalance(1, withdrawAmount.negate(), "WITHDRAW", "Withdrawal from wallet", null)).thenReturn(true);
 
         // Act
         boolean result = walletService.withdraw(1, withdrawAmount);
 
         // Assert
         assertTrue(result);
-        verify(walletDAO, times(1)).getWalletByUserId(1);
-        verify(walletDAO, times(1)).updateBalance(eq(1), any(BigDecimal.class));
+        verify(walletDAO, times(1)).adjustBalance(1, withdrawAmount.negate(), "WITHDRAW", "Withdrawal from wallet", null);
     }
 
     @Test
     void testWithdraw_InsufficientBalance() {
-        // Arrange
+        // Arrange - the guarded UPDATE rejects under the row lock
         BigDecimal withdrawAmount = new BigDecimal("1500.00");
-        when(walletDAO.getWalletByUserId(1)).thenReturn(testWallet);
+        when(walletDAO.adjustBalance(1, withdrawAmount.negate(), "WITHDRAW", "Withdrawal from wallet", null)).thenReturn(false);
 
         // Act
         boolean result = walletService.withdraw(1, withdrawAmount);
 
         // Assert
         assertFalse(result);
-        verify(walletDAO, times(1)).getWalletByUserId(1);
         verify(walletDAO, never()).updateBalance(anyInt(), any(BigDecimal.class));
     }
 
     @Test
-    void testWithdraw_NullWallet() {
+    void testWithdraw_RetriedKeyReplays() {
+        // Arrange
+        when(idempotencyDAO.isCompleted(1, "wd-1",
+                IdempotencyDAO.fingerprint(IdempotencyDAO.WITHDRAW, new BigDecimal("100.00")))).thenReturn(true);
+
+        // Act
+        boolean result = walletService.withdraw(1, new BigDecimal("100.00"), "wd-1");
+
+        // Assert
+        assertTrue(result);
+        verifyNoInteractions(walletDAO);
+    }
+
+    @Test
+    void testSetStripeCount_Delegates() {
         // Arrange
-        when(walletDAO.getWalletByUserId(1)).thenReturn(null);
+        when(walletDAO.setStripeCount(1, 8)).thenReturn(true);
 
         // Act
-        boolean result = walletService.withdraw(1, new BigDecimal("100.00"));
+        boolean result = walletService.setStripeCount(1, 8);
+
+        // Assert
+        assertTrue(result);
+        verify(walletDAO, times(1)).setStripeCount(1, 8);
+    }
+
+    @Test
+    void testSetStripeCount_RejectsTooManyStripes() {
+        // Act
+        boolean result = walletService.setStripeCount(1, WalletService.MAX_STRIPES + 1);
 
         // Assert
         assertFalse(result);
-        verify(walletDAO, never()).updateBalance(anyInt(), any(BigDecimal.class));
+        verify(walletDAO, never()).setStripeCount(anyInt(), anyInt());
     }
 }
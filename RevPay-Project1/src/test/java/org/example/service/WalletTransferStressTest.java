@@ -0,0 +1,150 @@
+package org.example.service;
+
+import org.example.config.DBConnection;
+import org.example.config.PoolConfig;
+import org.example.dao.LedgerDAO;
+import org.example.dao.UserDAO;
+import org.example.dao.WalletDAO;
+import org.example.model.TransferResult;
+import org.example.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Hammers a handful of hot wallets from many threads against a real MySQL schema.
+// ledger_entries is append-only, so every run leaves its users and history behind: point it
+// at a scratch schema loaded from sql/, never at a shared database.
+// Run with: mvn test -Drevpay.it.db.url=jdbc:mysql://localhost:3306/revpay_scratch -Drevpay.it.db.user=... -Drevpay.it.db.password=...
+@EnabledIfSystemProperty(named = "revpay.it.db.url", matches = ".+")
+class WalletTransferStressTest {
+
+    private static final int WALLETS = 4;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+
+    private final WalletDAO walletDAO = new WalletDAO();
+    private final UserDAO userDAO = new UserDAO();
+    private final LedgerDAO ledgerDAO = new LedgerDAO();
+    private final List<Integer> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        PoolConfig config = new PoolConfig();
+        config.setUrl(System.getProperty("revpay.it.db.url"));
+        config.setUser(System.getProperty("revpay.it.db.user", "root"));
+        config.setPassword(System.getProperty("revpay.it.db.password", ""));
+        config.setMaxPoolSize(THREADS);
+        DBConnection.configure(config);
+
+        long run = System.nanoTime();
+        for (int i = 0; i < WALLETS; i++) {
+            User user = new User();
+            user.setEmail("stress-" + run + "-" + i + "@revpay.test");
+            user.setPhone(String.valueOf(run % 1_000_000_000L * 10 + i));
+            user.setPasswordHash("x");
+            user.setTransactionPinHash("x");
+            user.setFullName("Stress User " + i);
+            int userId = userDAO.insertUser(user);
+            walletDAO.createWallet(userId);
+            // A ledgered deposit, so the ledger agrees with wallets.balance from the start
+            assertTrue(walletDAO.adjustBalance(userId, OPENING_BALANCE, "ADD", "stress seed", null));
+            userIds.add(userId);
+        }
+    }
+
+    // Deleting would orphan ledger entries (which refuse deletes), rollups and outbox rows, so the
+    // stress wallets are emptied with ledgered withdrawals instead and their history is kept
+    @AfterEach
+    void tearDown() {
+        try {
+            for (int userId : userIds) {
+                BigDecimal balance = walletDAO.getWalletByUserId(userId).getBalance();
+                if (balance.signum() > 0) {
+                    walletDAO.adjustBalance(userId, balance.negate(), "WITHDRAW", "stress teardown", null);
+                }
+            }
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+
+    @Test
+    void testConcurrentTransfersConserveMoney() throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = userIds.get(random.nextInt(WALLETS));
+                    int to = userIds.get(random.nextInt(WALLETS));
+                    if (from == to) {
+                        continue;
+                    }
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 300));
+                    TransferResult result = walletDAO.transfer(from, to, amount, "stress");
+                    if (result != null) {
+                        succeeded.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES));
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int userId : userIds) {
+            BigDecimal balance = walletDAO.getWalletByUserId(userId).getBalance();
+            assertTrue(balance.signum() >= 0, "Balance went negative for userId=" + userId);
+            total = total.add(balance);
+        }
+        assertEquals(0, OPENING_BALANCE.multiply(BigDecimal.valueOf(WALLETS)).compareTo(total), "Money was created or destroyed");
+        assertEquals(succeeded.get(), countLedgerRows(), "Every committed transfer must have exactly one ledger row");
+        for (int userId : userIds) {
+            int walletId = walletDAO.getWalletByUserId(userId).getWalletId();
+            assertEquals(0, walletDAO.getWalletByUserId(userId).getBalance().compareTo(ledgerDAO.getBalance(walletId)),
+                    "Ledger disagrees with wallets.balance for userId=" + userId);
+        }
+        assertTrue(succeeded.get() > 0);
+    }
+
+    private int countLedgerRows() throws Exception {
+        try (Connection conn = DBConnection.getInstance();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT COUNT(*) FROM transactions t JOIN wallets w ON t.from_wallet_id = w.wallet_id WHERE w.user_id = ? AND t.note = 'stress'")) {
+            int rows = 0;
+            for (int userId : userIds) {
+                ps.setInt(1, userId);
+                ResultSet rs = ps.executeQuery();
+                rs.next();
+                rows += rs.getInt(1);
+            }
+            return rows;
+        }
+    }
+}